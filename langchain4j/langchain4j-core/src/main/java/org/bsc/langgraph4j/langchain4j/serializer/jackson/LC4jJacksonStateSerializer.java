@@ -2,6 +2,7 @@ package org.bsc.langgraph4j.langchain4j.serializer.jackson;
 
 import com.fasterxml.jackson.annotation.JsonSetter;
 import com.fasterxml.jackson.annotation.Nulls;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.DeserializationConfig;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
@@ -49,7 +50,15 @@ public class LC4jJacksonStateSerializer <State extends AgentState>  extends Jack
     }
 
     public LC4jJacksonStateSerializer(AgentStateFactory<State> stateFactory) {
-        super(stateFactory);
+        this(stateFactory, new JsonFactory());
+    }
+
+    /**
+     * @param stateFactory the state factory
+     * @param jsonFactory the Jackson factory of the serialization format, e.g. a {@code SmileFactory} for binary JSON
+     */
+    public LC4jJacksonStateSerializer(AgentStateFactory<State> stateFactory, JsonFactory jsonFactory) {
+        super(stateFactory, jsonFactory);
 
         var module = new SimpleModule();
 
@@ -56,6 +56,19 @@ public class ChatMesssageSerializer implements Serializer<ChatMessage> {
 
         ChatMessageType type = (ChatMessageType) in.readObject();
 
+        return read(type, in);
+    }
+
+    /**
+     * Deserializes the content of a ChatMessage whose type has already been read.
+     *
+     * @param type the message type
+     * @param in the input stream to read the serialized object from
+     * @return the deserialized ChatMessage object
+     * @throws IOException if an I/O error occurs during deserialization
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found
+     */
+    ChatMessage read(ChatMessageType type, ObjectInput in) throws IOException, ClassNotFoundException {
         switch (type) {
             case AI:
                 return ai.read(in);
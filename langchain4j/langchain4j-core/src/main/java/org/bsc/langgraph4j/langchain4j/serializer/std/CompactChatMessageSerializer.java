@@ -0,0 +1,293 @@
+package org.bsc.langgraph4j.langchain4j.serializer.std;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.*;
+import org.bsc.langgraph4j.serializer.Serializer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static java.lang.String.format;
+
+/**
+ * A compact {@link ChatMessage} serializer:
+ * <ul>
+ *     <li>the strings (texts, tool names, ids, arguments) are written once per payload and then referenced
+ *     by their index in a string table, so the repeated system prompts, tool names and arguments cost a few bytes</li>
+ *     <li>lengths and indexes are written as varints</li>
+ *     <li>the strings longer than the compression threshold, if set, are deflated</li>
+ * </ul>
+ * The messages are tagged by a format version, so the messages written by {@link ChatMesssageSerializer}
+ * are still read. The opposite isn't true, so all the readers of the states must be upgraded before
+ * enabling this serializer.
+ *
+ * @see LC4jStateSerializer#LC4jStateSerializer(org.bsc.langgraph4j.state.AgentStateFactory, Serializer)
+ */
+public class CompactChatMessageSerializer implements Serializer<ChatMessage> {
+
+    /**
+     * The tag written in place of the message type, that identifies the compact format
+     */
+    static final String FORMAT_V1 = "lc4j.compact.v1";
+
+    private static final int TYPE_SYSTEM = 0;
+    private static final int TYPE_USER = 1;
+    private static final int TYPE_AI = 2;
+    private static final int TYPE_TOOL_EXECUTION_RESULT = 3;
+
+    private static final int STRING_NULL = 0;
+    private static final int STRING_INLINE = 1;
+    private static final int STRING_DEFLATED = 2;
+    private static final int STRING_REFERENCE = 3; // followed by the table index
+
+    /**
+     * The strings already written to (or read from) a payload
+     */
+    private static final class StringTable {
+        final Map<String,Integer> indexes = new HashMap<>();
+        final List<String> strings = new ArrayList<>();
+    }
+
+    // one table per payload, bound to the stream that the state serializer wraps around each payload
+    private final Map<Object, StringTable> tables = Collections.synchronizedMap( new WeakHashMap<>() );
+
+    private final ChatMesssageSerializer legacy = new ChatMesssageSerializer();
+    private final int compressionThreshold;
+
+    /**
+     * Creates a serializer that doesn't compress the strings
+     */
+    public CompactChatMessageSerializer() {
+        this.compressionThreshold = Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param compressionThreshold the minimum size, in bytes, of the strings to compress
+     * @throws IllegalArgumentException if the threshold is not positive
+     */
+    public CompactChatMessageSerializer( int compressionThreshold ) {
+        if( compressionThreshold <= 0 ) {
+            throw new IllegalArgumentException( "compressionThreshold must be positive" );
+        }
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    private StringTable tableOf( Object stream ) {
+        return tables.computeIfAbsent( stream, k -> new StringTable() );
+    }
+
+    @Override
+    public void write(ChatMessage object, ObjectOutput out) throws IOException {
+        out.writeObject( FORMAT_V1 );
+        var table = tableOf( out );
+        switch( object.type() ) {
+            case SYSTEM -> {
+                writeVarInt( TYPE_SYSTEM, out );
+                writeString( ((SystemMessage)object).text(), table, out );
+            }
+            case USER -> {
+                var message = (UserMessage)object;
+                if( !message.hasSingleText() ) {
+                    throw new IllegalArgumentException( "Unsupported content type: " + object.type() );
+                }
+                writeVarInt( TYPE_USER, out );
+                writeString( message.singleText(), table, out );
+                writeString( message.name(), table, out );
+            }
+            case AI -> {
+                var message = (AiMessage)object;
+                writeVarInt( TYPE_AI, out );
+                writeString( message.text(), table, out );
+                writeString( message.thinking(), table, out );
+                var requests = message.hasToolExecutionRequests() ? message.toolExecutionRequests() : List.<ToolExecutionRequest>of();
+                writeVarInt( requests.size(), out );
+                for( var request : requests ) {
+                    writeString( request.id(), table, out );
+                    writeString( request.name(), table, out );
+                    writeString( request.arguments(), table, out );
+                }
+            }
+            case TOOL_EXECUTION_RESULT -> {
+                var message = (ToolExecutionResultMessage)object;
+                writeVarInt( TYPE_TOOL_EXECUTION_RESULT, out );
+                writeString( message.id(), table, out );
+                writeString( message.toolName(), table, out );
+                writeString( message.text(), table, out );
+            }
+            default -> throw new IllegalArgumentException( "Unsupported chat message type: " + object.type() );
+        }
+    }
+
+    @Override
+    public ChatMessage read(ObjectInput in) throws IOException, ClassNotFoundException {
+        var tag = in.readObject();
+        if( tag instanceof ChatMessageType type ) {
+            return legacy.read( type, in );
+        }
+        if( !FORMAT_V1.equals( tag ) ) {
+            throw new StreamCorruptedException( format( "Unsupported chat message format: %s", tag ) );
+        }
+        var table = tableOf( in );
+        int type = readVarInt( in );
+        switch( type ) {
+            case TYPE_SYSTEM:
+                return SystemMessage.from( readString( table, in ) );
+            case TYPE_USER: {
+                var text = readString( table, in );
+                var name = readString( table, in );
+                return ( name != null ) ? UserMessage.from( name, text ) : UserMessage.from( text );
+            }
+            case TYPE_AI: {
+                var builder = AiMessage.builder()
+                        .text( readString( table, in ) )
+                        .thinking( readString( table, in ) );
+                int size = readVarInt( in );
+                if( size > 0 ) {
+                    var requests = new ArrayList<ToolExecutionRequest>( size );
+                    for( int i = 0; i < size; ++i ) {
+                        requests.add( ToolExecutionRequest.builder()
+                                .id( readString( table, in ) )
+                                .name( readString( table, in ) )
+                                .arguments( readString( table, in ) )
+                                .build() );
+                    }
+                    builder.toolExecutionRequests( requests );
+                }
+                return builder.build();
+            }
+            case TYPE_TOOL_EXECUTION_RESULT: {
+                var id = readString( table, in );
+                var toolName = readString( table, in );
+                return new ToolExecutionResultMessage( id, toolName, readString( table, in ) );
+            }
+            default:
+                throw new StreamCorruptedException( format( "Unsupported chat message type: %d", type ) );
+        }
+    }
+
+    private void writeString( String value, StringTable table, ObjectOutput out ) throws IOException {
+        if( value == null ) {
+            writeVarInt( STRING_NULL, out );
+            return;
+        }
+        var index = table.indexes.get( value );
+        if( index != null ) {
+            writeVarInt( STRING_REFERENCE + index, out );
+            return;
+        }
+        table.indexes.put( value, table.strings.size() );
+        table.strings.add( value );
+
+        var bytes = value.getBytes( StandardCharsets.UTF_8 );
+        if( bytes.length >= compressionThreshold ) {
+            var deflated = deflate( bytes );
+            if( deflated.length < bytes.length ) {
+                writeVarInt( STRING_DEFLATED, out );
+                writeVarInt( bytes.length, out );
+                writeVarInt( deflated.length, out );
+                out.write( deflated );
+                return;
+            }
+        }
+        writeVarInt( STRING_INLINE, out );
+        writeVarInt( bytes.length, out );
+        out.write( bytes );
+    }
+
+    private String readString( StringTable table, ObjectInput in ) throws IOException {
+        int code = readVarInt( in );
+        switch( code ) {
+            case STRING_NULL:
+                return null;
+            case STRING_INLINE: {
+                var bytes = new byte[ readVarInt( in ) ];
+                in.readFully( bytes );
+                var value = new String( bytes, StandardCharsets.UTF_8 );
+                table.strings.add( value );
+                return value;
+            }
+            case STRING_DEFLATED: {
+                int size = readVarInt( in );
+                var deflated = new byte[ readVarInt( in ) ];
+                in.readFully( deflated );
+                var value = new String( inflate( deflated, size ), StandardCharsets.UTF_8 );
+                table.strings.add( value );
+                return value;
+            }
+            default: {
+                int index = code - STRING_REFERENCE;
+                if( index >= table.strings.size() ) {
+                    throw new StreamCorruptedException( format( "invalid string reference %d", index ) );
+                }
+                return table.strings.get( index );
+            }
+        }
+    }
+
+    private static byte[] deflate( byte[] bytes ) {
+        var deflater = new Deflater( Deflater.BEST_SPEED );
+        try {
+            deflater.setInput( bytes );
+            deflater.finish();
+            var out = new ByteArrayOutputStream( bytes.length / 2 );
+            var buffer = new byte[ 8192 ];
+            while( !deflater.finished() ) {
+                out.write( buffer, 0, deflater.deflate( buffer ) );
+            }
+            return out.toByteArray();
+        }
+        finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate( byte[] bytes, int size ) throws IOException {
+        var inflater = new Inflater();
+        try {
+            inflater.setInput( bytes );
+            var result = new byte[ size ];
+            int count = 0;
+            while( count < size && !inflater.finished() ) {
+                int n = inflater.inflate( result, count, size - count );
+                if( n == 0 && ( inflater.needsInput() || inflater.needsDictionary() ) ) {
+                    break;
+                }
+                count += n;
+            }
+            if( count != size ) {
+                throw new EOFException( format( "deflated string truncated: expected %d bytes, read %d", size, count ) );
+            }
+            return result;
+        }
+        catch( DataFormatException e ) {
+            throw new StreamCorruptedException( e.getMessage() );
+        }
+        finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarInt( int value, ObjectOutput out ) throws IOException {
+        while( (value & ~0x7F) != 0 ) {
+            out.write( (value & 0x7F) | 0x80 );
+            value >>>= 7;
+        }
+        out.write( value );
+    }
+
+    private static int readVarInt( ObjectInput in ) throws IOException {
+        int result = 0;
+        for( int shift = 0; shift < 32; shift += 7 ) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if( (b & 0x80) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "malformed varint" );
+    }
+}
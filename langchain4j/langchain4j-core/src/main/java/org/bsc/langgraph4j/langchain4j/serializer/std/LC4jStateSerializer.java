@@ -1,17 +1,44 @@
 package org.bsc.langgraph4j.langchain4j.serializer.std;
 
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
+import java.util.Objects;
+
 public class LC4jStateSerializer<State extends AgentState> extends ObjectStreamStateSerializer<State> {
 
     public LC4jStateSerializer( AgentStateFactory<State> stateFactory ) {
+        this(stateFactory, new ChatMesssageSerializer());
+    }
+
+    /**
+     * Creates a serializer using the given serializer for the chat messages,
+     * e.g. a {@link CompactChatMessageSerializer}.
+     * The chat messages and the tool execution requests are immutable, so they are registered as such
+     * on the {@link #stateCloner()}: the state copies share them.
+     *
+     * @param stateFactory the state factory
+     * @param chatMessageSerializer the serializer of the chat messages
+     */
+    public LC4jStateSerializer( AgentStateFactory<State> stateFactory, Serializer<ChatMessage> chatMessageSerializer ) {
         super(stateFactory);
 
         mapper().register(ToolExecutionRequest.class, new ToolExecutionRequestSerializer());
-        mapper().register(ChatMessage.class, new ChatMesssageSerializer());
+        mapper().register(ChatMessage.class, Objects.requireNonNull(chatMessageSerializer, "chatMessageSerializer cannot be null"));
+
+        stateCloner()
+                .registerImmutable(ToolExecutionRequest.class)
+                .registerImmutable(UserMessage.class)
+                .registerImmutable(AiMessage.class)
+                .registerImmutable(SystemMessage.class)
+                .registerImmutable(ToolExecutionResultMessage.class);
     }
 }
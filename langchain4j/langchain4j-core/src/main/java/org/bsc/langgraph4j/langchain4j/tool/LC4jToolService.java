@@ -11,7 +11,10 @@ import org.bsc.langgraph4j.action.Command;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -79,13 +82,56 @@ public final  class LC4jToolService {
             return super.toolsFromObject( objectWithTools );
         }
 
+        private Executor executor;
+        private int maxConcurrency = Integer.MAX_VALUE;
+        private final Set<String> nonThreadSafeTools = new HashSet<>();
+
+        /**
+         * Enables the concurrent execution of the tool requests, that are submitted to the given executor
+         *
+         * @param executor the executor of the tool requests
+         * @return the builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = requireNonNull(executor, "executor cannot be null");
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tool requests executed at the same time, when an executor is set.
+         * By default, all the requests of a message are executed at the same time
+         *
+         * @param maxConcurrency the maximum number of tool requests executed at the same time
+         * @return the builder
+         * @throws IllegalArgumentException if maxConcurrency is not positive
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if( maxConcurrency <= 0 ) {
+                throw new IllegalArgumentException( "maxConcurrency must be positive" );
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * Declares the tools that cannot be executed concurrently. Their requests are executed one at a time,
+         * on the calling thread, while the other requests run on the executor
+         *
+         * @param toolNames the names of the tools
+         * @return the builder
+         */
+        public Builder nonThreadSafeTools(String... toolNames) {
+            nonThreadSafeTools.addAll( List.of( toolNames ) );
+            return this;
+        }
+
         /**
          * Builds the node
          *
          * @return the node
          */
         public LC4jToolService build() {
-            return new LC4jToolService(toolMap());
+            return new LC4jToolService(toolMap(), executor, maxConcurrency, nonThreadSafeTools);
         }
     }
 
@@ -94,9 +140,19 @@ public final  class LC4jToolService {
     }
 
     private final Map<ToolSpecification, ToolExecutor> toolMap;
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final Set<String> nonThreadSafeTools;
 
     public LC4jToolService(  Map<ToolSpecification, ToolExecutor> toolMap ) {
+        this( toolMap, null, Integer.MAX_VALUE, Set.of() );
+    }
+
+    private LC4jToolService( Map<ToolSpecification, ToolExecutor> toolMap, Executor executor, int maxConcurrency, Set<String> nonThreadSafeTools ) {
         this.toolMap = Objects.requireNonNull(toolMap, "toolMap cannot be null");
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.nonThreadSafeTools = Set.copyOf(nonThreadSafeTools);
         if (toolMap.isEmpty()) {
             log.warn( "tool chain is empty!" );
             // throw new IllegalArgumentException("entries cannot be empty!");
@@ -113,6 +169,19 @@ public final  class LC4jToolService {
     }
 
 
+    /**
+     * Executes the tool requests and merges their results in a {@link Command}. The responses are added to the
+     * given property in the order of the requests, and the updates of the tools are applied in the same order.
+     * <p>
+     * If an executor has been set, the requests are executed concurrently (up to the max concurrency), except
+     * the ones of the non thread safe tools. Otherwise, they are executed in sequence on the calling thread.
+     * </p>
+     *
+     * @param requests the tool requests
+     * @param context the invocation context passed to the tools
+     * @param propertyNameToUpdate the property of the state that will contain the tool responses
+     * @return the command, failed if more than one tool requested to go to a node
+     */
     public CompletableFuture<Command> execute(List<ToolExecutionRequest> requests, InvocationContext context, String propertyNameToUpdate ) {
         requireNonNull(requests, "requests cannot be null");
         requireNonNull(propertyNameToUpdate, "propertyNameToUpdate cannot be null");
@@ -120,39 +189,101 @@ public final  class LC4jToolService {
 
         log.trace("execute: {}", requests.stream().map( ToolExecutionRequest::name ).toList() );
 
-        var toolResponses = new ArrayList<ToolExecutionResultMessage>(requests.size());
-        Map<String,Object> update = Map.of();
-        String gotoNode = null;
+        if( executor != null && requests.size() > 1 ) {
+            return executeConcurrently( requests, context, propertyNameToUpdate );
+        }
+
+        var responses = new ToolResponses(requests.size());
 
         for( var request : requests ) {
+            var result = scopedToolCall(request, context);
+            try {
+                responses.add( request, result );
+            }
+            catch( IllegalStateException ex ) {
+                return failedFuture(ex);
+            }
+        }
+
+        return completedFuture( responses.toCommand( propertyNameToUpdate ) );
+    }
+
+    private CompletableFuture<Command> executeConcurrently(List<ToolExecutionRequest> requests, InvocationContext context, String propertyNameToUpdate ) {
+        final var results = new AtomicReferenceArray<Optional<ScopedToolCallResult>>( requests.size() );
+
+        final var concurrent = new ArrayList<Integer>( requests.size() );
+        final var sequential = new ArrayList<Integer>();
+        for( int i = 0; i < requests.size(); ++i ) {
+            ( nonThreadSafeTools.contains( requests.get(i).name() ) ? sequential : concurrent ).add( i );
+        }
+
+        // each worker executes the next pending request, so no more than maxConcurrency requests run at the same time
+        final var next = new AtomicInteger();
+        final var workers = new CompletableFuture<?>[ Math.min( maxConcurrency, concurrent.size() ) ];
+        for( int w = 0; w < workers.length; ++w ) {
+            workers[w] = CompletableFuture.runAsync( () -> {
+                for( int k = next.getAndIncrement(); k < concurrent.size(); k = next.getAndIncrement() ) {
+                    int index = concurrent.get(k);
+                    results.set( index, scopedToolCall( requests.get(index), context ) );
+                }
+            }, executor );
+        }
+
+        try {
+            for( int index : sequential ) {
+                results.set( index, scopedToolCall( requests.get(index), context ) );
+            }
+        }
+        catch( RuntimeException ex ) {
+            return failedFuture(ex);
+        }
+
+        return CompletableFuture.allOf( workers ).thenApply( v -> {
+            var responses = new ToolResponses(requests.size());
+            for( int i = 0; i < requests.size(); ++i ) {
+                responses.add( requests.get(i), results.get(i) );
+            }
+            return responses.toCommand( propertyNameToUpdate );
+        });
+    }
+
+    /**
+     * Accumulates the results of the tool requests, in the order of the requests
+     */
+    private static final class ToolResponses {
+        final List<ToolExecutionResultMessage> messages;
+        Map<String,Object> update = Map.of();
+        String gotoNode = null;
 
-            var optionalResult = scopedToolCall(request, context);
+        ToolResponses( int size ) {
+            messages = new ArrayList<>(size);
+        }
 
+        void add( ToolExecutionRequest request, Optional<ScopedToolCallResult> optionalResult ) {
             if (optionalResult.isEmpty()) {
                 log.warn("tool '{}' not found!", request.name());
-                continue;
+                return;
             }
 
             var command = optionalResult.get().command();
 
             if (command.gotoNodeSafe().isPresent()) {
                 if (gotoNode != null) {
-                    return failedFuture(new IllegalStateException(format("Multiple nodes target provided! tried to set %s when %s was already present : ",
+                    throw new IllegalStateException(format("Multiple nodes target provided! tried to set %s when %s was already present : ",
                             command.gotoNode(),
-                            gotoNode)));
+                            gotoNode));
                 }
                 gotoNode = command.gotoNode();
             }
 
             update = mergeMap( update, command.update(), (v1,v2) -> v2  );
 
-            toolResponses.add( optionalResult.get().toolResultMessage() );
-
+            messages.add( optionalResult.get().toolResultMessage() );
         }
 
-        update = mergeMap( update, Map.of(propertyNameToUpdate, toolResponses ) );
-
-        return completedFuture( new Command( gotoNode, update  ) );
+        Command toCommand( String propertyNameToUpdate ) {
+            return new Command( gotoNode, mergeMap( update, Map.of(propertyNameToUpdate, messages ) ) );
+        }
     }
 
     private record ScopedToolCallResult(
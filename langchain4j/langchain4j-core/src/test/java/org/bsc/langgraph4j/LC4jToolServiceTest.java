@@ -14,8 +14,13 @@ import org.bsc.langgraph4j.langchain4j.tool.LC4jToolService;
 import org.bsc.langgraph4j.utils.TypeRef;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.lang.String.format;
 import static org.bsc.langgraph4j.utils.CollectionsUtils.lastOf;
@@ -54,6 +59,134 @@ public class LC4jToolServiceTest {
     }
 
 
+    static class GotoTool {
+
+        @Tool("tool that goes to node A")
+        String gotoA(@P("value") String value, InvocationParameters context ) {
+            return LC4jToolResponseBuilder.of( context )
+                    .gotoNode( "A" )
+                    .update( Map.of( "value", value ) )
+                    .buildAndReturn( "A" );
+        }
+
+        @Tool("tool that goes to node B")
+        String gotoB(@P("value") String value, InvocationParameters context ) {
+            return LC4jToolResponseBuilder.of( context )
+                    .gotoNode( "B" )
+                    .buildAndReturn( "B" );
+        }
+
+        @Tool("tool that updates the state")
+        String updateValue(@P("value") String value, InvocationParameters context ) {
+            return LC4jToolResponseBuilder.of( context )
+                    .update( Map.of( "value", value ) )
+                    .buildAndReturn( value );
+        }
+    }
+
+    static void sleep( long millis ) {
+        try {
+            Thread.sleep( millis );
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ToolSpecification spec( String name ) {
+        return ToolSpecification.builder().name( name ).description( name ).build();
+    }
+
+    @Test
+    public void executeConcurrently() {
+        var executor = Executors.newFixedThreadPool( 4 );
+        try {
+            var running = new AtomicInteger();
+            var maxRunning = new AtomicInteger();
+            var unsafeRunning = new AtomicInteger();
+            var unsafeOverlap = new AtomicBoolean();
+
+            ToolExecutor slowTool = (request, memoryId) -> {
+                maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+                sleep( 50 );
+                running.decrementAndGet();
+                return "slow " + request.id();
+            };
+            ToolExecutor unsafeTool = (request, memoryId) -> {
+                if( unsafeRunning.incrementAndGet() > 1 ) {
+                    unsafeOverlap.set( true );
+                }
+                sleep( 10 );
+                unsafeRunning.decrementAndGet();
+                return "unsafe " + request.id();
+            };
+
+            var toolService = LC4jToolService.builder()
+                    .tool( spec( "slow" ), slowTool )
+                    .tool( spec( "unsafe" ), unsafeTool )
+                    .executor( executor )
+                    .maxConcurrency( 2 )
+                    .nonThreadSafeTools( "unsafe" )
+                    .build();
+
+            var requests = new ArrayList<ToolExecutionRequest>();
+            for( int i = 0; i < 6; ++i ) {
+                requests.add( ToolExecutionRequest.builder().id( "s" + i ).name( "slow" ).arguments( "{}" ).build() );
+                requests.add( ToolExecutionRequest.builder().id( "u" + i ).name( "unsafe" ).arguments( "{}" ).build() );
+            }
+
+            var result = toolService.execute( requests, InvocationContext.builder().build(), "messages" ).join();
+
+            var messages = new TypeRef<List<ToolExecutionResultMessage>>() {}.cast( result.update().get( "messages" ) ).orElseThrow();
+            assertEquals( requests.stream().map( ToolExecutionRequest::id ).toList(),
+                    messages.stream().map( ToolExecutionResultMessage::id ).toList() );
+            assertEquals( "slow s3", messages.get( 6 ).text() );
+            assertEquals( "unsafe u3", messages.get( 7 ).text() );
+
+            assertEquals( 2, maxRunning.get() );
+            assertFalse( unsafeOverlap.get() );
+
+            assertThrows( IllegalArgumentException.class, () -> LC4jToolService.builder().maxConcurrency( 0 ) );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void executeConcurrentlyCommands() {
+        var executor = Executors.newFixedThreadPool( 2 );
+        try {
+            var toolService = LC4jToolService.builder()
+                    .toolsFromObject( new GotoTool() )
+                    .executor( executor )
+                    .build();
+
+            var context = InvocationContext.builder().build();
+
+            // the updates are applied in the order of the requests
+            var result = toolService.execute( List.of(
+                    ToolExecutionRequest.builder().name( "updateValue" ).arguments( "{ \"arg0\": \"first\" }" ).build(),
+                    ToolExecutionRequest.builder().name( "gotoA" ).arguments( "{ \"arg0\": \"second\" }" ).build(),
+                    ToolExecutionRequest.builder().name( "updateValue" ).arguments( "{ \"arg0\": \"third\" }" ).build() ),
+                    context, "messages" ).join();
+
+            assertEquals( "A", result.gotoNode() );
+            assertEquals( "third", result.update().get( "value" ) );
+
+            // the conflicting targets are still detected
+            var future = toolService.execute( List.of(
+                    ToolExecutionRequest.builder().name( "gotoA" ).arguments( "{ \"arg0\": \"a\" }" ).build(),
+                    ToolExecutionRequest.builder().name( "gotoB" ).arguments( "{ \"arg0\": \"b\" }" ).build() ),
+                    context, "messages" );
+
+            var exception = assertThrows( CompletionException.class, future::join );
+            assertInstanceOf( IllegalStateException.class, exception.getCause() );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void invokeToolNode() {
 
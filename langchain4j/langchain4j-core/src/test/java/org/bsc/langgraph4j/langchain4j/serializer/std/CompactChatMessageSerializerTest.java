@@ -0,0 +1,106 @@
+package org.bsc.langgraph4j.langchain4j.serializer.std;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.*;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.FileSystemSaver;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactChatMessageSerializerTest {
+
+    public static class State extends MessagesState<ChatMessage> {
+        public State(Map<String, Object> initData) {
+            super(initData);
+        }
+    }
+
+    static List<ChatMessage> conversation( int turns ) {
+        var messages = new ArrayList<ChatMessage>();
+        messages.add( SystemMessage.from( "You are a helpful assistant. ".repeat( 20 ) ) );
+        for( int i = 0; i < turns; ++i ) {
+            var request = ToolExecutionRequest.builder()
+                    .id( "call_" + i )
+                    .name( "search" )
+                    .arguments( "{\"query\":\"weather\",\"limit\":10}" )
+                    .build();
+            messages.add( UserMessage.from( "user", "question " + i ) );
+            messages.add( AiMessage.from( request ) );
+            messages.add( ToolExecutionResultMessage.from( request, "result " + i ) );
+            messages.add( AiMessage.builder().text( "answer " + i ).thinking( "thinking" ).build() );
+        }
+        return messages;
+    }
+
+    @Test
+    public void testRoundTripAndSize() throws Exception {
+        var legacy = new LC4jStateSerializer<>( State::new );
+        var compact = new LC4jStateSerializer<>( State::new, new CompactChatMessageSerializer() );
+
+        var data = Map.<String,Object>of( "messages", conversation( 50 ) );
+
+        var compactBytes = compact.dataToBytes( data );
+        var result = compact.stateOf( compact.dataFromBytes( compactBytes ) );
+        assertEquals( data.get( "messages" ), result.messages() );
+
+        var legacyBytes = legacy.dataToBytes( data );
+        assertTrue( compactBytes.length < legacyBytes.length,
+                () -> String.format( "compact %d, legacy %d", compactBytes.length, legacyBytes.length ) );
+
+        // the messages written by the legacy serializer are still read
+        var fromLegacy = compact.stateOf( compact.dataFromBytes( legacyBytes ) );
+        assertEquals( ((List<?>)data.get( "messages" )).size(), fromLegacy.messages().size() );
+        assertEquals( "question 0", ((UserMessage)fromLegacy.messages().get( 1 )).singleText() );
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        var compact = new LC4jStateSerializer<>( State::new, new CompactChatMessageSerializer() );
+        var compressed = new LC4jStateSerializer<>( State::new, new CompactChatMessageSerializer( 256 ) );
+
+        var data = Map.<String,Object>of( "messages", List.of(
+                UserMessage.from( "long text ".repeat( 1_000 ) ),
+                AiMessage.from( "short" ) ) );
+
+        var bytes = compressed.dataToBytes( data );
+        assertTrue( bytes.length < compact.dataToBytes( data ).length / 10 );
+        assertEquals( data.get( "messages" ), compressed.stateOf( compressed.dataFromBytes( bytes ) ).messages() );
+
+        assertThrows( IllegalArgumentException.class, () -> new CompactChatMessageSerializer( 0 ) );
+    }
+
+    @Test
+    public void testCheckpointsInTheSameFile() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testCompactChatMessageSerializer" );
+        var config = RunnableConfig.builder().threadId( "compact" ).build();
+
+        var saver = new FileSystemSaver( targetFolder, new LC4jStateSerializer<>( State::new, new CompactChatMessageSerializer() ) );
+        saver.deleteFile( config );
+
+        var messages = conversation( 3 );
+        for( int i = 1; i <= messages.size(); ++i ) {
+            saver.put( config, Checkpoint.builder()
+                    .nodeId( "agent" )
+                    .nextNodeId( "tools" )
+                    .state( Map.of( "messages", messages.subList( 0, i ) ) )
+                    .build() );
+        }
+
+        var reloaded = new FileSystemSaver( targetFolder, new LC4jStateSerializer<>( State::new, new CompactChatMessageSerializer() ) );
+        var checkpoints = new ArrayList<>( reloaded.list( config ) );
+        assertEquals( messages.size(), checkpoints.size() );
+        for( int i = 0; i < checkpoints.size(); ++i ) {
+            assertEquals( messages.subList( 0, messages.size() - i ), checkpoints.get( i ).getState().get( "messages" ) );
+        }
+
+        saver.deleteFile( config );
+    }
+}
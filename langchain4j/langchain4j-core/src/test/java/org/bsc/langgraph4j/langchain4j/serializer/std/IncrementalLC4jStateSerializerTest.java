@@ -0,0 +1,55 @@
+package org.bsc.langgraph4j.langchain4j.serializer.std;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import org.bsc.langgraph4j.serializer.IncrementalStateSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.langchain4j.serializer.std.CompactChatMessageSerializerTest.State;
+import static org.bsc.langgraph4j.langchain4j.serializer.std.CompactChatMessageSerializerTest.conversation;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalLC4jStateSerializerTest {
+
+    @Test
+    public void testMessagesAreReused() throws Exception {
+        var stateSerializer = new LC4jStateSerializer<>( State::new, new CompactChatMessageSerializer() );
+        var serializer = new IncrementalStateSerializer<>( stateSerializer );
+
+        var messages = conversation( 5 );
+        var data = Map.<String,Object>of( "messages", messages );
+
+        var bytes = serializer.dataToBytes( data );
+        assertEquals( messages, serializer.dataFromBytes( bytes ).get( "messages" ) );
+        assertEquals( messages.size(), serializer.encodedFragments() );
+        assertEquals( 0, serializer.reusedFragments() );
+
+        // the state copies share the messages, registered as immutable
+        var copy = stateSerializer.stateCloner().cloneData( data );
+        @SuppressWarnings("unchecked")
+        var copiedMessages = new ArrayList<>( (List<ChatMessage>)copy.get( "messages" ) );
+        assertNotSame( messages, copy.get( "messages" ) );
+        for( int i = 0; i < messages.size(); ++i ) {
+            assertSame( messages.get( i ), copiedMessages.get( i ) );
+        }
+
+        // next checkpoint: only the new message is encoded
+        copiedMessages.add( AiMessage.from( "bye" ) );
+        var next = Map.<String,Object>of( "messages", copiedMessages );
+        assertEquals( copiedMessages, serializer.dataFromBytes( serializer.dataToBytes( next ) ).get( "messages" ) );
+        assertEquals( messages.size() + 1, serializer.encodedFragments() );
+        assertEquals( messages.size(), serializer.reusedFragments() );
+
+        // the fragments don't repeat the stream header and the framing of a state for each message
+        var framed = 0;
+        for( var message : messages ) {
+            framed += stateSerializer.dataToBytes( Map.of( "", message ) ).length;
+        }
+        final var framedSize = framed;
+        assertTrue( bytes.length < framedSize, () -> String.format( "incremental %d, framed %d", bytes.length, framedSize ) );
+    }
+}
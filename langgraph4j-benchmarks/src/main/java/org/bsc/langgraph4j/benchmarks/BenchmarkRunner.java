@@ -0,0 +1,33 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Launcher of the benchmarks, that delegates to the JMH {@link Main} with the following defaults:
+ * <ul>
+ *     <li>the allocation rate is measured by the {@code gc} profiler, unless other profilers are given with {@code -prof}</li>
+ *     <li>the results are exported as JSON to {@code jmh-result.json}, unless another format is given with {@code -rf}</li>
+ * </ul>
+ * All the other JMH options are supported, see {@code java -jar benchmarks.jar -h}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        var options = new ArrayList<>( List.of( args ) );
+
+        if( !options.contains( "-prof" ) ) {
+            options.add( "-prof" );
+            options.add( "gc" );
+        }
+        if( !options.contains( "-rf" ) ) {
+            options.add( "-rf" );
+            options.add( "json" );
+        }
+        Main.main( options.toArray( String[]::new ) );
+    }
+}
@@ -0,0 +1,242 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.CompiledGraph;
+import org.bsc.langgraph4j.GraphStateException;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
+import org.bsc.langgraph4j.checkpoint.FileSystemSaver;
+import org.bsc.langgraph4j.checkpoint.MemorySaver;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncEdgeAction.edge_async;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+
+/**
+ * Measures the overhead of the graph execution engine, running {@link CompiledGraph#stream(Map, RunnableConfig)}
+ * and {@link CompiledGraph#invoke(Map, RunnableConfig)} on synthetic graphs whose nodes do no work.
+ * <p>
+ * The score is the average time of a whole run, while the {@code steps} secondary result is the average
+ * time of a step, that is of a node output. The allocations of a step are {@code gc.alloc.rate.norm}
+ * divided by {@link Shape#steps()}.
+ * </p>
+ * The checkpoints of each run are released at its end, so the runs are independent. The branches of the
+ * parallel nodes are executed without executor, so the engine overhead isn't hidden by the thread hand-offs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GraphExecutionBenchmark {
+
+    private static final String COUNTER = "counter";
+
+    /**
+     * The shapes of the graphs, with the number of node outputs of a run (including the start and the end ones)
+     */
+    public enum Shape {
+        /** a chain of 10 nodes */
+        CHAIN_10( 12 ),
+        /** a chain of 100 nodes */
+        CHAIN_100( 102 ),
+        /** a node looping 100 times through a conditional edge */
+        LOOP_100( 102 ),
+        /** a parallel node with 2 branches */
+        FANOUT_2( 5 ),
+        /** a parallel node with 8 branches */
+        FANOUT_8( 5 ),
+        /** a parallel node with 32 branches */
+        FANOUT_32( 5 ),
+        /** two levels of nested subgraphs, each one a chain of 10 nodes followed by the nested one (whose outputs are streamed as well) */
+        SUBGRAPH_NESTED( 38 );
+
+        private final int steps;
+
+        Shape( int steps ) {
+            this.steps = steps;
+        }
+
+        public int steps() {
+            return steps;
+        }
+    }
+
+    public enum Saver { NONE, MEMORY, FILE_SYSTEM }
+
+    /**
+     * Counts the node outputs, reported as a secondary result
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Steps {
+        public long steps;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            steps = 0;
+        }
+    }
+
+    @Param({ "CHAIN_10", "CHAIN_100", "LOOP_100", "FANOUT_2", "FANOUT_8", "FANOUT_32", "SUBGRAPH_NESTED" })
+    public Shape shape;
+
+    @Param({ "NONE", "MEMORY", "FILE_SYSTEM" })
+    public Saver saver;
+
+    @Param({ "VALUES", "SNAPSHOTS" })
+    public CompiledGraph.StreamMode streamMode;
+
+    private CompiledGraph<AgentState> graph;
+    private RunnableConfig config;
+    private Path targetFolder;
+
+    static Map<String,Object> increment( AgentState state ) {
+        return Map.of( COUNTER, state.<Integer>value( COUNTER ).orElse( 0 ) + 1 );
+    }
+
+    static StateGraph<AgentState> chain( StateGraph<AgentState> graph, String prefix, int size, String last ) throws GraphStateException {
+        String previous = START;
+        for( int i = 0; i < size; ++i ) {
+            var id = prefix + i;
+            graph.addNode( id, node_async( GraphExecutionBenchmark::increment ) )
+                    .addEdge( previous, id );
+            previous = id;
+        }
+        return graph.addEdge( previous, last );
+    }
+
+    static StateGraph<AgentState> loop( int iterations ) throws GraphStateException {
+        return new StateGraph<>( AgentState::new )
+                .addNode( "loop", node_async( GraphExecutionBenchmark::increment ) )
+                .addEdge( START, "loop" )
+                .addConditionalEdges( "loop",
+                        edge_async( state -> state.<Integer>value( COUNTER ).orElse( 0 ) < iterations ? "continue" : "exit" ),
+                        Map.of( "continue", "loop", "exit", END ) );
+    }
+
+    static StateGraph<AgentState> fanOut( int branches ) throws GraphStateException {
+        var graph = new StateGraph<>( AgentState::new )
+                .addNode( "fork", node_async( GraphExecutionBenchmark::increment ) )
+                .addNode( "join", node_async( GraphExecutionBenchmark::increment ) )
+                .addEdge( START, "fork" )
+                .addEdge( "join", END );
+        for( int i = 0; i < branches; ++i ) {
+            var id = "branch_" + i;
+            graph.addNode( id, node_async( state -> Map.of( id, true ) ) )
+                    .addEdge( "fork", id )
+                    .addEdge( id, "join" );
+        }
+        return graph;
+    }
+
+    static StateGraph<AgentState> nested( int levels ) throws GraphStateException {
+        if( levels == 0 ) {
+            return chain( new StateGraph<>( AgentState::new ), "leaf_", 10, END );
+        }
+        var prefix = "level" + levels + "_";
+        return chain( new StateGraph<>( AgentState::new ), prefix, 10, "subgraph" )
+                .addNode( "subgraph", nested( levels - 1 ).compile() )
+                .addEdge( "subgraph", END );
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        var workflow = switch( shape ) {
+            case CHAIN_10 -> chain( new StateGraph<>( AgentState::new ), "node_", 10, END );
+            case CHAIN_100 -> chain( new StateGraph<>( AgentState::new ), "node_", 100, END );
+            case LOOP_100 -> loop( 100 );
+            case FANOUT_2 -> fanOut( 2 );
+            case FANOUT_8 -> fanOut( 8 );
+            case FANOUT_32 -> fanOut( 32 );
+            case SUBGRAPH_NESTED -> nested( 2 );
+        };
+
+        BaseCheckpointSaver checkpointSaver = switch( saver ) {
+            case NONE -> null;
+            case MEMORY -> new MemorySaver();
+            case FILE_SYSTEM -> {
+                targetFolder = Files.createTempDirectory( "langgraph4j-benchmark" );
+                yield new FileSystemSaver( targetFolder, new ObjectStreamStateSerializer<>( AgentState::new ) );
+            }
+        };
+
+        var compileConfig = CompileConfig.builder()
+                .recursionLimit( 1_000 )
+                .releaseThread( checkpointSaver != null );
+        if( checkpointSaver != null ) {
+            compileConfig.checkpointSaver( checkpointSaver );
+        }
+        graph = workflow.compile( compileConfig.build() );
+
+        config = RunnableConfig.builder()
+                .threadId( "benchmark" )
+                .streamMode( streamMode )
+                .build();
+
+        int steps = (int)graph.stream( Map.of(), config ).stream().count();
+        if( steps != shape.steps() ) {
+            throw new IllegalStateException( "unexpected number of steps %d for %s, expected %d".formatted( steps, shape, shape.steps() ) );
+        }
+    }
+
+    /**
+     * Removes the checkpoint files released during the iteration
+     */
+    @TearDown(Level.Iteration)
+    public void cleanCheckpoints() throws IOException {
+        if( targetFolder == null ) {
+            return;
+        }
+        try( var files = Files.list( targetFolder ) ) {
+            files.forEach( file -> {
+                try {
+                    Files.delete( file );
+                } catch (IOException e) {
+                    throw new UncheckedIOException( e );
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteTargetFolder() throws IOException {
+        if( targetFolder == null ) {
+            return;
+        }
+        try( var files = Files.walk( targetFolder ) ) {
+            for( var file : files.sorted( Comparator.reverseOrder() ).toList() ) {
+                Files.delete( file );
+            }
+        }
+    }
+
+    @Benchmark
+    public long stream( Steps steps ) {
+        long count = graph.stream( Map.of(), config ).stream().count();
+        steps.steps += count;
+        return count;
+    }
+
+    @Benchmark
+    public AgentState invoke( Steps steps ) {
+        var result = graph.invoke( Map.of(), config ).orElseThrow();
+        steps.steps += shape.steps();
+        return result;
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.spring.ai.serializer.jackson.SpringAIJacksonStateSerializer;
+import org.bsc.langgraph4j.spring.ai.serializer.std.CompactMessageSerializer;
+import org.bsc.langgraph4j.spring.ai.serializer.std.SpringAIStateSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.chat.messages.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Spring AI message serializers on a conversation of {@link #messages} messages, that mixes
+ * user, assistant (with and without tool calls), tool response and system messages, all with metadata.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpringAIMessagesBenchmark {
+
+    static class State extends MessagesState<Message> {
+        public State(Map<String, Object> initData) {
+            super(initData);
+        }
+    }
+
+    public enum Codec { JACKSON, STD, COMPACT }
+
+    @Param({ "JACKSON", "STD", "COMPACT" })
+    public Codec codec;
+
+    @Param({ "500" })
+    public int messages;
+
+    private StateSerializer<State> serializer;
+    private Map<String,Object> data;
+    private byte[] bytes;
+
+    static List<Message> conversation( int size ) {
+        var list = new ArrayList<Message>( size );
+        list.add( new SystemMessage( "You are a helpful assistant. ".repeat( 10 ) ) );
+        for( int i = 0; list.size() < size; ++i ) {
+            var id = "call_" + i;
+            var toolCall = new AssistantMessage.ToolCall( id, "function", "search", "{\"query\":\"weather in city %d\",\"limit\":10}".formatted( i ) );
+            list.add( UserMessage.builder()
+                    .text( "question %d: %s".formatted( i, "lorem ipsum dolor sit amet ".repeat( 1 + i % 4 ) ) )
+                    .metadata( Map.of( "turn", i ) )
+                    .build() );
+            list.add( new AssistantMessage( "", Map.of( "id", "chatcmpl-" + i, "model", "gpt", "finishReason", "TOOL_CALLS" ), List.of( toolCall ) ) );
+            list.add( new ToolResponseMessage( List.of( new ToolResponseMessage.ToolResponse( id, "search", "{\"result\":\"sunny, %d degrees\"}".formatted( 10 + i % 20 ) ) ) ) );
+            list.add( new AssistantMessage( "answer %d: %s".formatted( i, "consectetur adipiscing elit ".repeat( 1 + i % 8 ) ),
+                    Map.of( "id", "chatcmpl-" + i, "model", "gpt", "finishReason", "STOP" ) ) );
+        }
+        return list.subList( 0, size );
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        serializer = switch( codec ) {
+            case JACKSON -> new SpringAIJacksonStateSerializer<>( State::new );
+            case STD -> new SpringAIStateSerializer<>( State::new );
+            case COMPACT -> new SpringAIStateSerializer<>( State::new, new CompactMessageSerializer() );
+        };
+        data = Map.of( "messages", new ArrayList<>( conversation( messages ) ) );
+        bytes = serializer.dataToBytes( data );
+    }
+
+    @Benchmark
+    public byte[] dataToBytes() throws Exception {
+        return serializer.dataToBytes( data );
+    }
+
+    @Benchmark
+    public Map<String,Object> dataFromBytes() throws Exception {
+        return serializer.dataFromBytes( bytes );
+    }
+
+    @Benchmark
+    public State cloneObject() throws Exception {
+        return serializer.cloneObject( data );
+    }
+
+}
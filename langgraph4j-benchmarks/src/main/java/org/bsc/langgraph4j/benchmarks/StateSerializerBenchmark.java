@@ -0,0 +1,110 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ObjectStreamStateSerializer} and {@link BinaryStateSerializer} on {@link MessagesState} payloads,
+ * with the same custom serializer registered for the message type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateSerializerBenchmark {
+
+    public record Message( String role, String content, int tokens ) {}
+
+    static class MessageSerializer implements Serializer<Message> {
+
+        @Override
+        public void write(Message object, ObjectOutput out) throws IOException {
+            out.writeUTF( object.role() );
+            Serializer.writeUTF( object.content(), out );
+            out.writeInt( object.tokens() );
+        }
+
+        @Override
+        public Message read(ObjectInput in) throws IOException {
+            return new Message( in.readUTF(), Serializer.readUTF(in), in.readInt() );
+        }
+    }
+
+    static class State extends MessagesState<Message> {
+        public State(Map<String, Object> initData) {
+            super(initData);
+        }
+    }
+
+    public enum Format { OBJECT_STREAM, BINARY }
+
+    @Param({ "OBJECT_STREAM", "BINARY" })
+    public Format format;
+
+    @Param({ "10", "100", "1000" })
+    public int messages;
+
+    private StateSerializer<State> serializer;
+    private Map<String,Object> data;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws Exception {
+        serializer = switch( format ) {
+            case OBJECT_STREAM -> {
+                var s = new ObjectStreamStateSerializer<>( State::new );
+                s.mapper().register( Message.class, new MessageSerializer() );
+                yield s;
+            }
+            case BINARY -> {
+                var s = new BinaryStateSerializer<>( State::new );
+                s.mapper().register( 1, Message.class, new MessageSerializer() );
+                yield s;
+            }
+        };
+
+        var list = new ArrayList<Message>( messages );
+        for( int i = 0; i < messages; ++i ) {
+            var role = ( i % 2 == 0 ) ? "user" : "assistant";
+            list.add( new Message( role, "message %d: %s".formatted( i, "lorem ipsum dolor sit amet ".repeat( 1 + i % 8 ) ), 10 + i % 50 ) );
+        }
+        data = new HashMap<>();
+        data.put( "messages", list );
+        data.put( "next", "agent" );
+        data.put( "iteration", messages );
+        data.put( "metadata", Map.of( "model", "gpt", "temperature", 0.7 ) );
+
+        bytes = serializer.dataToBytes( data );
+    }
+
+    @Benchmark
+    public byte[] dataToBytes() throws Exception {
+        return serializer.dataToBytes( data );
+    }
+
+    @Benchmark
+    public Map<String,Object> dataFromBytes() throws Exception {
+        return serializer.dataFromBytes( bytes );
+    }
+
+    @Benchmark
+    public List<Message> roundTrip() throws Exception {
+        return serializer.stateOf( serializer.dataFromBytes( serializer.dataToBytes( data ) ) ).messages();
+    }
+
+}
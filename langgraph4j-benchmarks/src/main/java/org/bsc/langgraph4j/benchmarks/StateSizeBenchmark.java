@@ -0,0 +1,165 @@
+package org.bsc.langgraph4j.benchmarks;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import org.bsc.langgraph4j.langchain4j.serializer.jackson.LC4jJacksonStateSerializer;
+import org.bsc.langgraph4j.langchain4j.serializer.std.LC4jStateSerializer;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.plain_text.gson.GsonStateSerializer;
+import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.spring.ai.serializer.jackson.SpringAIJacksonStateSerializer;
+import org.bsc.langgraph4j.spring.ai.serializer.std.SpringAIStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Measures the throughput of the state serializers shipped with LangGraph4j, on states from 1KB to 10MB.
+ * <p>
+ * The states hold a list of messages, of the type handled by each serializer: plain maps for the generic
+ * serializers, LangChain4j {@link ChatMessage}s and Spring AI {@link Message}s for the integration ones.
+ * The size is the approximate amount of text in the messages.
+ * </p>
+ * Run it through {@link BenchmarkRunner} to get the allocation rates and the JSON results.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StateSizeBenchmark {
+
+    private static final int MESSAGE_SIZE = 256;
+
+    public enum Format {
+        OBJECT_STREAM,
+        GSON,
+        JACKSON,
+        LC4J,
+        LC4J_JACKSON,
+        SPRING_AI,
+        SPRING_AI_JACKSON
+    }
+
+    @Param({ "OBJECT_STREAM", "GSON", "JACKSON", "LC4J", "LC4J_JACKSON", "SPRING_AI", "SPRING_AI_JACKSON" })
+    public Format format;
+
+    @Param({ "1KB", "100KB", "1MB", "10MB" })
+    public String size;
+
+    private StateSerializer<? extends AgentState> serializer;
+    private Map<String,Object> data;
+    private byte[] bytes;
+
+    static int parseSize( String size ) {
+        var value = size.toUpperCase();
+        if( value.endsWith( "MB" ) ) {
+            return Integer.parseInt( value.substring( 0, value.length() - 2 ) ) * 1024 * 1024;
+        }
+        if( value.endsWith( "KB" ) ) {
+            return Integer.parseInt( value.substring( 0, value.length() - 2 ) ) * 1024;
+        }
+        return Integer.parseInt( value );
+    }
+
+    static String text( int index ) {
+        var prefix = "message %d: ".formatted( index );
+        return prefix + "lorem ipsum dolor sit amet ".repeat( 10 ).substring( 0, MESSAGE_SIZE - prefix.length() );
+    }
+
+    static <T> List<T> messages( int size, IntFunction<T> factory ) {
+        int count = Math.max( 1, size / MESSAGE_SIZE );
+        var list = new ArrayList<T>( count );
+        for( int i = 0; i < count; ++i ) {
+            list.add( factory.apply( i ) );
+        }
+        return list;
+    }
+
+    static Map<String,Object> genericMessage( int index ) {
+        var message = new HashMap<String,Object>();
+        message.put( "role", ( index % 2 == 0 ) ? "user" : "assistant" );
+        message.put( "content", text( index ) );
+        message.put( "tokens", 10 + index % 50 );
+        return message;
+    }
+
+    static ChatMessage lc4jMessage( int index ) {
+        return ( index % 2 == 0 )
+                ? dev.langchain4j.data.message.UserMessage.from( text( index ) )
+                : AiMessage.from( text( index ) );
+    }
+
+    static Message springAIMessage( int index ) {
+        return ( index % 2 == 0 )
+                ? new org.springframework.ai.chat.messages.UserMessage( text( index ) )
+                : new AssistantMessage( text( index ) );
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        int bytesOfText = parseSize( size );
+
+        serializer = switch( format ) {
+            case OBJECT_STREAM -> new ObjectStreamStateSerializer<>( AgentState::new );
+            case GSON -> new GsonStateSerializer<>( AgentState::new ) {};
+            case JACKSON -> new JacksonStateSerializer<>( AgentState::new ) {};
+            case LC4J -> new LC4jStateSerializer<MessagesState<ChatMessage>>( MessagesState::new );
+            case LC4J_JACKSON -> new LC4jJacksonStateSerializer<MessagesState<ChatMessage>>( MessagesState::new );
+            case SPRING_AI -> new SpringAIStateSerializer<MessagesState<Message>>( MessagesState::new );
+            case SPRING_AI_JACKSON -> new SpringAIJacksonStateSerializer<MessagesState<Message>>( MessagesState::new );
+        };
+
+        List<?> messages = switch( format ) {
+            case OBJECT_STREAM, GSON, JACKSON -> messages( bytesOfText, StateSizeBenchmark::genericMessage );
+            case LC4J, LC4J_JACKSON -> messages( bytesOfText, StateSizeBenchmark::lc4jMessage );
+            case SPRING_AI, SPRING_AI_JACKSON -> messages( bytesOfText, StateSizeBenchmark::springAIMessage );
+        };
+
+        data = new HashMap<>();
+        data.put( "messages", messages );
+        data.put( "next", "agent" );
+        data.put( "iteration", messages.size() );
+
+        bytes = serializer.dataToBytes( data );
+    }
+
+    @Benchmark
+    public byte[] dataToBytes() throws Exception {
+        return serializer.dataToBytes( data );
+    }
+
+    @Benchmark
+    public Map<String,Object> dataFromBytes() throws Exception {
+        return serializer.dataFromBytes( bytes );
+    }
+
+    /**
+     * The copy of the state made by the graph at each step, through the registered copiers and immutable types,
+     * falling back on the serializer for the other values.
+     */
+    @Benchmark
+    public Map<String,Object> cloneData() throws Exception {
+        return serializer.stateCloner().cloneData( data );
+    }
+
+    /**
+     * The full copy of the state through the serializer, as a reference for {@link #cloneData()}.
+     */
+    @Benchmark
+    public AgentState cloneObject() throws Exception {
+        return serializer.cloneObject( data );
+    }
+
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains the JMH benchmarks of LangGraph4j. Build the module and run
+ * {@code java -jar langgraph4j-benchmarks/target/benchmarks.jar}, optionally followed by a benchmark name pattern.
+ * <p>
+ * The runs measure the allocations through the {@code gc} profiler and export the results to {@code jmh-result.json},
+ * to track the trends across versions. See {@link org.bsc.langgraph4j.benchmarks.BenchmarkRunner}.
+ */
+package org.bsc.langgraph4j.benchmarks;
@@ -1,5 +1,6 @@
 package org.bsc.langgraph4j;
 
+import org.bsc.langgraph4j.checkpoint.AsyncCheckpointSaver;
 import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
 
 import java.util.Collection;
@@ -7,6 +8,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 
 
@@ -16,7 +18,26 @@ import static java.util.Optional.ofNullable;
  */
 public class CompileConfig {
 
+    /**
+     * Defines how the graph execution waits for the checkpoint writes.
+     */
+    public enum CheckpointWritePolicy {
+        /**
+         * Each checkpoint is stored before the execution of the next node (default).
+         */
+        SYNC,
+        /**
+         * If the checkpoint saver implements {@link AsyncCheckpointSaver}, the write of a checkpoint overlaps with the
+         * execution of the next node. The pending write is awaited before the next checkpoint, an interruption,
+         * an embedded generator or the end of the execution, so a write failure is still reported by the execution.
+         * Other checkpoint savers behave as {@link #SYNC}, a blocking saver can be adapted by
+         * {@link AsyncCheckpointSaver#of(BaseCheckpointSaver, java.util.concurrent.Executor)}.
+         */
+        PIPELINED
+    }
+
     private BaseCheckpointSaver checkpointSaver;
+    private CheckpointWritePolicy checkpointWritePolicy = CheckpointWritePolicy.SYNC;
     private Set<String> interruptsBefore = Set.of();
     private Set<String> interruptsAfter = Set.of();
     private boolean releaseThread = false;
@@ -50,6 +71,13 @@ public class CompileConfig {
      */
     public Optional<BaseCheckpointSaver> checkpointSaver() { return ofNullable(checkpointSaver); }
 
+    /**
+     * Returns the policy of the checkpoint writes.
+     *
+     * @return the checkpoint write policy, {@link CheckpointWritePolicy#SYNC} by default
+     */
+    public CheckpointWritePolicy checkpointWritePolicy() { return checkpointWritePolicy; }
+
     /**
      * Returns the current state of the thread release flag.
      *
@@ -114,6 +142,17 @@ public class CompileConfig {
             return this;
         }
 
+        /**
+         * Sets the policy of the checkpoint writes.
+         *
+         * @param checkpointWritePolicy the checkpoint write policy
+         * @return The current {@code Builder} instance for method chaining.
+         */
+        public Builder checkpointWritePolicy(CheckpointWritePolicy checkpointWritePolicy) {
+            this.config.checkpointWritePolicy = requireNonNull( checkpointWritePolicy, "checkpointWritePolicy cannot be null" );
+            return this;
+        }
+
         public Builder recursionLimit(int recursionLimit) {
             if( recursionLimit <= 0 ) {
                 throw new IllegalArgumentException("recursionLimit must be > 0!");
@@ -213,6 +252,7 @@ public class CompileConfig {
      */
     private CompileConfig( CompileConfig config ) {
         this.checkpointSaver = config.checkpointSaver;
+        this.checkpointWritePolicy = config.checkpointWritePolicy;
         this.interruptsBefore = config.interruptsBefore;
         this.interruptsAfter = config.interruptsAfter;
         this.releaseThread = config.releaseThread;
@@ -2,6 +2,7 @@ package org.bsc.langgraph4j;
 
 import org.bsc.async.AsyncGenerator;
 import org.bsc.langgraph4j.action.*;
+import org.bsc.langgraph4j.checkpoint.AsyncCheckpointSaver;
 import org.bsc.langgraph4j.checkpoint.BaseCheckpointSaver;
 import org.bsc.langgraph4j.checkpoint.Checkpoint;
 import org.bsc.langgraph4j.internal.edge.Edge;
@@ -231,6 +232,8 @@ public class CompiledGraph<State extends AgentState> {
      * Update the state of the graph with the given values.
      * If asNode is given, it will be used to determine the next node to run.
      * If not given, the next node will be determined by the state graph.
+     * If the config refers a checkpoint, it is replaced by the updated one, otherwise
+     * the updated checkpoint is added as child of the last one.
      * 
      * @param config the RunnableConfig containg the graph state
      * @param values the values to be updated
@@ -239,12 +242,33 @@ public class CompiledGraph<State extends AgentState> {
      * @throws Exception when something goes wrong
      */
     public RunnableConfig updateState( RunnableConfig config, Map<String,Object> values, String asNode ) throws Exception {
+        return branchState( config, values, asNode, config.checkPointId().isEmpty() );
+    }
+
+    /**
+     * Fork the checkpoint referred by the given config (or the last one, if not referred) adding a child
+     * checkpoint with the state updated with the given values. The forked checkpoint is not modified,
+     * so a checkpoint can be forked many times (e.g. to evaluate alternative branches), and each fork shares
+     * the ancestors of the forked checkpoint.
+     * The returned config refers the new checkpoint, so it can be used to resume the execution from it.
+     *
+     * @param config the RunnableConfig referring the checkpoint to fork
+     * @param values the values to be updated. can be empty
+     * @param asNode the node id to be used for the next node. can be null
+     * @return the RunnableConfig referring the new checkpoint
+     * @throws Exception when something goes wrong
+     */
+    public RunnableConfig forkState( RunnableConfig config, Map<String,Object> values, String asNode ) throws Exception {
+        return branchState( config, values, asNode, true );
+    }
+
+    private RunnableConfig branchState( RunnableConfig config, Map<String,Object> values, String asNode, boolean fork ) throws Exception {
 
         BaseCheckpointSaver saver = compileConfig.checkpointSaver().orElseThrow( () -> (new IllegalStateException("Missing CheckpointSaver!")) );
 
         // merge values with checkpoint values
         Checkpoint branchCheckpoint = saver.get(config)
-                            .map(Checkpoint::copyOf)
+                            .map( fork ? Checkpoint::forkOf : Checkpoint::copyOf )
                             .map( cp -> cp.updateState(values, stateGraph.getChannels()) )
                             .orElseThrow( () -> (new IllegalStateException("Missing Checkpoint!")) );
 
@@ -256,8 +280,8 @@ public class CompiledGraph<State extends AgentState> {
             branchCheckpoint =  branchCheckpoint.updateState( nextNodeCommand.update(), stateGraph.getChannels() );
 
         }
-        // update checkpoint in saver
-        RunnableConfig newConfig = saver.put( config, branchCheckpoint );
+        // update (or add) checkpoint in saver
+        RunnableConfig newConfig = saver.put( fork ? config.withCheckPointId(null) : config, branchCheckpoint );
 
         return RunnableConfig.builder(newConfig)
                                 .checkPointId( branchCheckpoint.getId() )
@@ -353,34 +377,24 @@ public class CompiledGraph<State extends AgentState> {
                 compileConfig.interruptsAfter().contains(nodeId);
     }
 
-    private Optional<Checkpoint> addCheckpoint( RunnableConfig config, String nodeId, Map<String,Object> state, String nextNodeId ) throws Exception {
-        if( compileConfig.checkpointSaver().isPresent() ) {
-            var cp =  Checkpoint.builder()
-                                .nodeId( nodeId )
-                                .state( cloneState(state) )
-                                .nextNodeId( nextNodeId )
-                                .build();
-            compileConfig.checkpointSaver().get().put( config, cp );
-            return Optional.of(cp);
-        }
-        return Optional.empty();
-
-    }
-
     Map<String,Object> getInitialStateFromSchema() {
         return stateGraph.getStateFactory().initialDataFromSchema(stateGraph.getChannels());
     }
 
     Map<String,Object> getInitialState(Map<String,Object> inputs, RunnableConfig config) {
+        return getInitialState( inputs, compileConfig.checkpointSaver().flatMap( saver -> saver.get( config ) ) );
+    }
 
-        return compileConfig.checkpointSaver()
-                .flatMap( saver -> saver.get( config ) )
+    private Map<String,Object> getInitialState(Map<String,Object> inputs, Optional<Checkpoint> lastCheckpoint ) {
+
+        return lastCheckpoint
                 .map( cp -> AgentState.updateState( cp.getState(), inputs, stateGraph.getChannels() ))
                 .orElseGet( () -> AgentState.updateState( getInitialStateFromSchema(), inputs, stateGraph.getChannels() ));
     }
 
     State cloneState( Map<String,Object> data ) throws IOException, ClassNotFoundException, InstantiationException, IllegalAccessException {
-        return stateGraph.getStateSerializer().cloneObject(data);
+        Objects.requireNonNull( data, "data cannot be null");
+        return stateGraph.getStateFactory().apply( stateGraph.getStateSerializer().stateCloner().cloneData(data) );
     }
 
     /**
@@ -554,18 +568,21 @@ public class CompiledGraph<State extends AgentState> {
             private String nextNodeId;
             private String resumeFrom;
             private ReturnFromEmbed returnFromEmbed;
+            private String lastCheckpointId;
 
-            Context() {
+            Context( String lastCheckpointId ) {
                 currentNodeId = START;
                 nextNodeId = null;
                 resumeFrom = null;
                 returnFromEmbed = null;
+                this.lastCheckpointId = lastCheckpointId;
             }
 
             Context( Checkpoint cp ) {
                 currentNodeId = null;
                 nextNodeId = cp.getNextNodeId();
                 resumeFrom = cp.getNodeId();
+                lastCheckpointId = cp.getId();
             }
 
             void reset() {
@@ -579,6 +596,17 @@ public class CompiledGraph<State extends AgentState> {
                 return nextNodeId;
             }
 
+            /**
+             * the id of the last checkpoint of this execution, parent of the next one
+             */
+            String lastCheckpointId() {
+                return lastCheckpointId;
+            }
+
+            void setLastCheckpointId( String value ) {
+                lastCheckpointId = value;
+            }
+
             void setNextNodeId( String value ) {
                 nextNodeId = value;
             }
@@ -613,6 +641,8 @@ public class CompiledGraph<State extends AgentState> {
         final Context context;
         int iteration = 0;
         final RunnableConfig config;
+        // checkpoint write not yet completed, see CompileConfig.CheckpointWritePolicy.PIPELINED
+        CompletableFuture<?> pendingCheckpointWrite;
 
         protected AsyncNodeGenerator(GraphInput input, RunnableConfig config )  {
             final boolean isResumeRequest =  (input instanceof GraphResume);
@@ -653,11 +683,12 @@ public class CompiledGraph<State extends AgentState> {
 
                 log.trace( "START" );
                 
-                Map<String,Object> initState = getInitialState( ((GraphArgs)input).value(), config );
+                var lastCheckpoint = compileConfig.checkpointSaver().flatMap( saver -> saver.get( config ) );
+                Map<String,Object> initState = getInitialState( ((GraphArgs)input).value(), lastCheckpoint );
                 // patch for backward support of AppendableValue
                 State initializedState = stateGraph.getStateFactory().apply(initState);
                 this.currentState = initializedState.data();
-                this.context = new Context();
+                this.context = new Context( lastCheckpoint.map(Checkpoint::getId).orElse(null) );
                 //this.nextNodeId = null;
                 //this.currentNodeId = START;
                 this.config = config.withCheckPointId( null );
@@ -753,14 +784,54 @@ public class CompiledGraph<State extends AgentState> {
         }
 
         private CompletableFuture<Output> getNodeOutput() throws Exception {
-            Optional<Checkpoint>  cp = addCheckpoint(config, context.currentNodeId(), currentState, context.nextNodeId());
+            Optional<Checkpoint>  cp = addCheckpoint( context.currentNodeId(), currentState, context.nextNodeId() );
             return completedFuture(( cp.isPresent() && config.streamMode() == StreamMode.SNAPSHOTS) ?
                     buildStateSnapshot(cp.get()) :
                     buildNodeOutput( context.currentNodeId() ))
                     ;
         }
 
+        /**
+         * Stores a new checkpoint, child of the last one of this execution.
+         * With {@link CompileConfig.CheckpointWritePolicy#PIPELINED} and an {@link AsyncCheckpointSaver}
+         * the write is left pending, overlapping with the execution of the next node, and it is awaited
+         * before the next write or the end of the execution.
+         */
+        private Optional<Checkpoint> addCheckpoint( String nodeId, Map<String,Object> state, String nextNodeId ) throws Exception {
+            if( compileConfig.checkpointSaver().isEmpty() ) {
+                return Optional.empty();
+            }
+            var saver = compileConfig.checkpointSaver().get();
+            var cp =  Checkpoint.builder()
+                                .parentId( context.lastCheckpointId() )
+                                .nodeId( nodeId )
+                                .state( cloneState(state) )
+                                .nextNodeId( nextNodeId )
+                                .build();
+
+            awaitCheckpointWrite();
+
+            if( compileConfig.checkpointWritePolicy() == CompileConfig.CheckpointWritePolicy.PIPELINED &&
+                    saver instanceof AsyncCheckpointSaver asyncSaver ) {
+                pendingCheckpointWrite = asyncSaver.putAsync( config, cp );
+            }
+            else {
+                saver.put( config, cp );
+            }
+            context.setLastCheckpointId( cp.getId() );
+            return Optional.of(cp);
+        }
+
+        private void awaitCheckpointWrite() throws Exception {
+            if( pendingCheckpointWrite != null ) {
+                var pending = pendingCheckpointWrite;
+                pendingCheckpointWrite = null;
+                AsyncCheckpointSaver.await( pending );
+            }
+        }
+
         private Optional<BaseCheckpointSaver.Tag> releaseThread() throws Exception {
+            awaitCheckpointWrite();
             if(compileConfig.releaseThread() && compileConfig.checkpointSaver().isPresent() ) {
                 return Optional.of(compileConfig.checkpointSaver().get().release( config ));
             }
@@ -770,6 +841,22 @@ public class CompiledGraph<State extends AgentState> {
 
         @Override
         public Data<Output> next() {
+            final var data = nextData();
+            if( pendingCheckpointWrite == null || !( data.isDone() || data.isError() || data.embed() != null ) ) {
+                return data;
+            }
+            // the checkpoints must be stored before leaving the control to the caller or to an embedded generator
+            try {
+                awaitCheckpointWrite();
+                return data;
+            }
+            catch( Throwable e ) {
+                log.error( e.getMessage(), e );
+                return ( data.isError() ) ? data : Data.error(e);
+            }
+        }
+
+        private Data<Output> nextData() {
 
             try {
                 // GUARD: CHECK MAX ITERATION REACHED
@@ -805,7 +892,7 @@ public class CompiledGraph<State extends AgentState> {
                     context.setNextNodeId(nextNodeCommand.gotoNode());
                     currentState = nextNodeCommand.update();
 
-                    var cp = addCheckpoint( config, START, currentState, context.nextNodeId() );
+                    var cp = addCheckpoint( START, currentState, context.nextNodeId() );
 
                     var output =  ( cp.isPresent() && config.streamMode() == StreamMode.SNAPSHOTS) ?
                             buildStateSnapshot(cp.get()) :
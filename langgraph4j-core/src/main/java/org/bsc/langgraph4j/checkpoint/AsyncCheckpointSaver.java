@@ -0,0 +1,112 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-blocking counterpart of {@link BaseCheckpointSaver}, whose operations return a {@link CompletableFuture}.
+ * <p>
+ * Implementations must complete the operations on the same thread id in the order they are invoked, so that
+ * a read always observes the previous writes.
+ * </p>
+ * <p>
+ * A blocking saver can be adapted by {@link #of(BaseCheckpointSaver, Executor)}, an asynchronous saver can be
+ * used where a blocking one is expected by {@link #blocking(AsyncCheckpointSaver)}.
+ * </p>
+ *
+ * @see org.bsc.langgraph4j.CompileConfig.CheckpointWritePolicy
+ */
+public interface AsyncCheckpointSaver {
+
+    CompletableFuture<Collection<Checkpoint>> listAsync(RunnableConfig config);
+
+    CompletableFuture<Optional<Checkpoint>> getAsync(RunnableConfig config);
+
+    CompletableFuture<RunnableConfig> putAsync(RunnableConfig config, Checkpoint checkpoint);
+
+    CompletableFuture<BaseCheckpointSaver.Tag> releaseAsync(RunnableConfig config);
+
+    /**
+     * Adapts a blocking saver, executing its operations on the given executor, in order for each thread id.
+     *
+     * @param saver the blocking saver
+     * @param executor the executor of the blocking operations
+     * @return a saver implementing both the blocking and the asynchronous interfaces
+     */
+    static ExecutorCheckpointSaver of( BaseCheckpointSaver saver, Executor executor ) {
+        return new ExecutorCheckpointSaver( saver, executor );
+    }
+
+    /**
+     * Adapts an asynchronous saver to the blocking interface, waiting for the completion of each operation.
+     * If the saver already implements {@link BaseCheckpointSaver} it is returned as is.
+     *
+     * @param saver the asynchronous saver
+     * @return the blocking saver
+     */
+    static BaseCheckpointSaver blocking( AsyncCheckpointSaver saver ) {
+        requireNonNull( saver, "saver cannot be null" );
+        if( saver instanceof BaseCheckpointSaver blockingSaver ) {
+            return blockingSaver;
+        }
+        return new BaseCheckpointSaver() {
+            @Override
+            public Collection<Checkpoint> list(RunnableConfig config) {
+                return join( saver.listAsync(config) );
+            }
+
+            @Override
+            public Optional<Checkpoint> get(RunnableConfig config) {
+                return join( saver.getAsync(config) );
+            }
+
+            @Override
+            public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+                return await( saver.putAsync(config, checkpoint) );
+            }
+
+            @Override
+            public Tag release(RunnableConfig config) throws Exception {
+                return await( saver.releaseAsync(config) );
+            }
+        };
+    }
+
+    private static <T> T join( CompletableFuture<T> future ) {
+        try {
+            return await( future );
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Waits for the completion of the future, rethrowing the original cause of a failure
+     *
+     * @param future the future to wait for
+     * @return the result of the future
+     * @param <T> the type of the result
+     * @throws Exception the cause of the failure
+     */
+    static <T> T await( CompletableFuture<T> future ) throws Exception {
+        try {
+            return future.get();
+        }
+        catch( ExecutionException | CompletionException e ) {
+            if( e.getCause() instanceof Exception cause ) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -24,4 +24,52 @@ public interface BaseCheckpointSaver {
 
     Tag release(RunnableConfig config) throws Exception;
 
+    /**
+     * Returns the ancestors of the checkpoint referred by the given config (or of the last one, if not referred),
+     * from its parent to the first checkpoint of the thread.
+     * The default implementation resolves the parent ids over the thread history.
+     *
+     * @param config the configuration referring the checkpoint
+     * @return the ancestors, the first element is the parent. Empty if the checkpoint has no parent or is not found
+     */
+    default List<Checkpoint> ancestors(RunnableConfig config) {
+        var checkpoint = get(config);
+        if( checkpoint.isEmpty() ) {
+            return List.of();
+        }
+        var checkpointsById = new HashMap<String,Checkpoint>();
+        for( var cp : list(config) ) {
+            checkpointsById.put( cp.getId(), cp );
+        }
+        var result = new ArrayList<Checkpoint>();
+        var parentId = checkpoint.get().getParentId();
+        while( parentId.isPresent() ) {
+            // removing visited checkpoints prevents loops on corrupted data
+            var parent = checkpointsById.remove( parentId.get() );
+            if( parent == null ) {
+                break;
+            }
+            result.add( parent );
+            parentId = parent.getParentId();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the checkpoints derived from the checkpoint referred by the given config, i.e. the first checkpoint
+     * of each branch forked from it.
+     * The default implementation scans the thread history.
+     *
+     * @param config the configuration referring the checkpoint
+     * @return the children, the first element is the most recent
+     * @throws IllegalArgumentException if the config doesn't refer a checkpoint
+     */
+    default List<Checkpoint> children(RunnableConfig config) {
+        var checkpointId = config.checkPointId()
+                .orElseThrow( () -> new IllegalArgumentException("config must refer a checkpoint") );
+        return list(config).stream()
+                .filter( cp -> cp.getParentId().filter( checkpointId::equals ).isPresent() )
+                .toList();
+    }
+
 }
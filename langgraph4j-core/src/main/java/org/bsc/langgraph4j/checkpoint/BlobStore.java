@@ -0,0 +1,53 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * A store of immutable binary values (blobs) addressed by a key derived from their content.
+ * <p>
+ * Each blob has a reference count: it is incremented by {@link #retain(String)} and decremented by
+ * {@link #release(String)}, that deletes the blob when the count reaches zero.
+ * </p>
+ *
+ * @see DeduplicatingCheckpointSaver
+ */
+public interface BlobStore {
+
+    /**
+     * Stores the blob, if not already present
+     *
+     * @param key the blob key
+     * @param data the blob content
+     * @throws IOException if an I/O error occurs
+     */
+    void put( String key, byte[] data ) throws IOException;
+
+    /**
+     * Returns the blob content
+     *
+     * @param key the blob key
+     * @return the blob content, if present
+     * @throws IOException if an I/O error occurs
+     */
+    Optional<byte[]> get( String key ) throws IOException;
+
+    /**
+     * Increments the reference count of the blob
+     *
+     * @param key the blob key
+     * @return the updated reference count
+     * @throws IOException if an I/O error occurs
+     */
+    int retain( String key ) throws IOException;
+
+    /**
+     * Decrements the reference count of the blob, deleting it when the count reaches zero
+     *
+     * @param key the blob key
+     * @return the updated reference count
+     * @throws IOException if an I/O error occurs
+     */
+    int release( String key ) throws IOException;
+
+}
@@ -16,17 +16,26 @@ import static java.util.Objects.requireNonNull;
  *
  * The checkpoint is serializable and can be persisted and restored.
  *
+ * Checkpoints are linked to the one they derive from by the parent id, so the history of a thread
+ * is a tree: resuming from (or forking) a previous checkpoint starts a new branch that shares its ancestors.
+ *
  * @see AgentState
  */
 public class Checkpoint {
 
     private final String id;
+    private final String parentId;
     private Map<String,Object> state = null;
     private String nodeId = null ;
     private String nextNodeId = null;
 
     public String getId() { return id; }
 
+    /**
+     * @return the id of the checkpoint this one derives from, empty for the first checkpoint of a thread
+     */
+    public Optional<String> getParentId() { return Optional.ofNullable(parentId); }
+
     public Map<String, Object> getState() {
         return state;
     }
@@ -42,19 +51,44 @@ public class Checkpoint {
     /**
      * create a copy of given checkpoint with a new id
      * @param checkpoint value from which copy is created
-     * @return new copy with different id
+     * @return new copy with different id and the same parent
      */
     public static Checkpoint copyOf( Checkpoint checkpoint ) {
         requireNonNull( checkpoint, "checkpoint cannot be null" );
         return new Checkpoint( UUID.randomUUID().toString(),
+                                checkpoint.parentId,
                                 checkpoint.state,
                                 checkpoint.nodeId,
                                 checkpoint.nextNodeId);
     }
 
-    private Checkpoint( String id, Map<String,Object> state, String nodeId, String nextNodeId ) {
+    /**
+     * create a child of given checkpoint with a new id. The state is shared, not copied.
+     * @param checkpoint value from which the child is created
+     * @return new checkpoint having the given one as parent
+     */
+    public static Checkpoint forkOf( Checkpoint checkpoint ) {
+        requireNonNull( checkpoint, "checkpoint cannot be null" );
+        return new Checkpoint( UUID.randomUUID().toString(),
+                                checkpoint.id,
+                                checkpoint.state,
+                                checkpoint.nodeId,
+                                checkpoint.nextNodeId);
+    }
+
+    /**
+     * create a copy of this checkpoint, with the same id and state, linked to the given parent
+     * @param parentId the id of the parent checkpoint
+     * @return the relinked checkpoint
+     */
+    Checkpoint withParentId( String parentId ) {
+        return new Checkpoint( id, parentId, state, nodeId, nextNodeId );
+    }
+
+    private Checkpoint( String id, String parentId, Map<String,Object> state, String nodeId, String nextNodeId ) {
 
         this.id = requireNonNull( id, "id cannot be null" );
+        this.parentId = parentId;
         this.state =  requireNonNull( state, "state cannot be null" );
         this.nodeId = requireNonNull( nodeId, "nodeId cannot be null" );
         this.nextNodeId =  requireNonNull( nextNodeId, "Checkpoint.nextNodeId cannot be null" );
@@ -67,6 +101,7 @@ public class Checkpoint {
 
     public static class Builder {
         private String id = UUID.randomUUID().toString();
+        private String parentId = null;
         private Map<String,Object> state = null;
         private String nodeId = null ;
         private String nextNodeId = null;
@@ -75,6 +110,10 @@ public class Checkpoint {
             this.id = id;
             return this;
         }
+        public Builder parentId( String parentId ) {
+            this.parentId = parentId;
+            return this;
+        }
         public Builder state( AgentState state ) {
             this.state = state.data();
             return this;
@@ -94,6 +133,7 @@ public class Checkpoint {
 
         public Checkpoint build() {
             return new Checkpoint(  id,
+                                    parentId,
                                     state,
                                     nodeId,
                                     nextNodeId );
@@ -103,6 +143,7 @@ public class Checkpoint {
     public Checkpoint updateState(Map<String,Object> values, Map<String, Channel<?>> channels ) {
 
         return new Checkpoint( this.id,
+                this.parentId,
                 AgentState.updateState( this.state, values, channels ),
                 this.nodeId,
                 this.nextNodeId );
@@ -110,8 +151,9 @@ public class Checkpoint {
 
     @Override
     public String toString() {
-        return  format("Checkpoint{ id=%s, nodeId=%s, nextNodeId=%s, state=%s }" ,
+        return  format("Checkpoint{ id=%s, parentId=%s, nodeId=%s, nextNodeId=%s, state=%s }" ,
                 id,
+                parentId,
                 nodeId,
                 nextNodeId,
                 state
@@ -0,0 +1,73 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.Optional.ofNullable;
+
+/**
+ * Implemented by the savers able to query the stored threads without loading them one by one.
+ * <p>
+ * The threads are selected by the state of their last checkpoint and returned in pages, in an order that
+ * is stable for the saver. The cursor of a page selects the threads that follow it, so a scan doesn't
+ * skip or repeat threads when other threads are saved in the meantime.
+ * </p>
+ *
+ * @see ThreadQuery
+ */
+public interface CheckpointQuery {
+
+    /**
+     * A thread with its last checkpoint
+     *
+     * @param threadId the thread id
+     * @param released true if the thread has been released
+     * @param checkpointId the id of the last checkpoint
+     * @param nodeId the node id of the last checkpoint
+     * @param nextNodeId the next node id of the last checkpoint
+     * @param savedAt the instant the last checkpoint has been saved
+     */
+    record ThreadInfo( String threadId,
+                       boolean released,
+                       String checkpointId,
+                       String nodeId,
+                       String nextNodeId,
+                       Instant savedAt ) {
+        public ThreadInfo {
+            requireNonNull( threadId, "threadId cannot be null" );
+            requireNonNull( savedAt, "savedAt cannot be null" );
+        }
+    }
+
+    /**
+     * A page of results
+     *
+     * @param items the items of the page
+     * @param cursor the cursor of the next page, null if this is the last one
+     * @param <T> the type of the items
+     */
+    record Page<T>( List<T> items, String cursor ) {
+        public Page {
+            items = List.copyOf( items );
+        }
+
+        /**
+         * @return the cursor to pass to {@link ThreadQuery.Builder#after(String)} to get the next page,
+         * empty if this is the last one
+         */
+        public Optional<String> nextCursor() {
+            return ofNullable(cursor);
+        }
+    }
+
+    /**
+     * Selects a page of threads
+     *
+     * @param query the filters and the page to select
+     * @return the selected threads
+     * @throws Exception if an error occurs while querying the store
+     */
+    Page<ThreadInfo> threads( ThreadQuery query ) throws Exception;
+}
@@ -0,0 +1,73 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.time.Instant;
+
+/**
+ * Implemented by the savers able to physically delete the stored checkpoints, according to a {@link RetentionPolicy}.
+ * <p>
+ * Each operation deletes at most {@code limit} items, so that a sweep can be split in bounded batches
+ * that don't hold long transactions or locks. Savers that don't support an operation return {@link Reclaimed#NONE}.
+ * </p>
+ *
+ * @see CheckpointSweeper
+ */
+public interface CheckpointRetention {
+
+    /**
+     * The items deleted by a retention operation
+     *
+     * @param threads the number of deleted threads
+     * @param checkpoints the number of deleted checkpoints
+     */
+    record Reclaimed( int threads, int checkpoints ) {
+
+        public static final Reclaimed NONE = new Reclaimed(0, 0);
+
+        /**
+         * @return the total number of deleted rows (or files)
+         */
+        public int rows() {
+            return threads + checkpoints;
+        }
+
+        public Reclaimed plus( Reclaimed other ) {
+            return new Reclaimed( threads + other.threads, checkpoints + other.checkpoints );
+        }
+    }
+
+    /**
+     * Deletes the released threads, with their checkpoints, whose last checkpoint was saved before the given instant
+     *
+     * @param savedBefore the instant before which the last checkpoint of the thread was saved
+     * @param limit the max number of threads to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    default Reclaimed deleteReleasedThreads( Instant savedBefore, int limit ) throws Exception {
+        return Reclaimed.NONE;
+    }
+
+    /**
+     * Deletes the not released threads, with their checkpoints, whose last checkpoint was saved before the given instant
+     *
+     * @param savedBefore the instant before which the last checkpoint of the thread was saved
+     * @param limit the max number of threads to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    default Reclaimed deleteIdleThreads( Instant savedBefore, int limit ) throws Exception {
+        return Reclaimed.NONE;
+    }
+
+    /**
+     * Deletes the checkpoints of the not released threads exceeding the most recent {@code keepLast} ones
+     *
+     * @param keepLast the number of most recent checkpoints to keep in each thread
+     * @param limit the max number of checkpoints to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    default Reclaimed deleteOldCheckpoints( int keepLast, int limit ) throws Exception {
+        return Reclaimed.NONE;
+    }
+}
@@ -0,0 +1,353 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.checkpoint.CheckpointRetention.Reclaimed;
+import org.bsc.langgraph4j.utils.TryFunction;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applies a {@link RetentionPolicy} to a {@link CheckpointRetention} saver, deleting the expired threads
+ * and checkpoints in bounded batches.
+ * <p>
+ * A sweep can be executed on demand by {@link #sweep()} or periodically, in background, after {@link #start()}.
+ * The periodic execution is delegated to a {@link Scheduler}, by default a single daemon thread owned by the sweeper.
+ * </p>
+ * <pre>{@code
+ * var sweeper = CheckpointSweeper.builder()
+ *         .retention( saver )
+ *         .policy( RetentionPolicy.builder()
+ *                 .releasedThreadsTtl( Duration.ofDays(1) )
+ *                 .keepLastCheckpoints( 20 )
+ *                 .build() )
+ *         .interval( Duration.ofMinutes(10) )
+ *         .build();
+ * sweeper.start();
+ * }</pre>
+ */
+public class CheckpointSweeper implements AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(CheckpointSweeper.class);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Schedules the periodic execution of the sweeps
+     */
+    @FunctionalInterface
+    public interface Scheduler {
+
+        /**
+         * Handle of a scheduled task, that cancels it on close
+         */
+        @FunctionalInterface
+        interface Handle extends AutoCloseable {
+            @Override
+            void close();
+        }
+
+        /**
+         * Schedules the task with a fixed delay between the end of an execution and the start of the next one
+         *
+         * @param task the task to execute
+         * @param interval the delay between executions
+         * @return a handle that cancels the scheduled task on close
+         */
+        Handle schedule( Runnable task, Duration interval );
+
+        /**
+         * Returns a scheduler backed by the given executor. The executor is not shut down on close.
+         *
+         * @param executor the scheduled executor
+         * @return the scheduler
+         */
+        static Scheduler of( ScheduledExecutorService executor ) {
+            requireNonNull( executor, "executor cannot be null" );
+            return ( task, interval ) -> {
+                var future = executor.scheduleWithFixedDelay( task, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS );
+                return () -> future.cancel(false);
+            };
+        }
+    }
+
+    /**
+     * Counters of the work done by the sweeper
+     */
+    public static class Metrics {
+        private final LongAdder sweeps = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder releasedThreads = new LongAdder();
+        private final LongAdder idleThreads = new LongAdder();
+        private final LongAdder checkpoints = new LongAdder();
+        private final AtomicLong lastSweepMillis = new AtomicLong();
+
+        /**
+         * @return the number of completed sweeps
+         */
+        public long sweeps() {
+            return sweeps.sum();
+        }
+
+        /**
+         * @return the number of failed sweeps
+         */
+        public long failures() {
+            return failures.sum();
+        }
+
+        /**
+         * @return the number of deleted released threads
+         */
+        public long releasedThreads() {
+            return releasedThreads.sum();
+        }
+
+        /**
+         * @return the number of deleted idle threads
+         */
+        public long idleThreads() {
+            return idleThreads.sum();
+        }
+
+        /**
+         * @return the number of deleted checkpoints, including the ones of the deleted threads
+         */
+        public long checkpoints() {
+            return checkpoints.sum();
+        }
+
+        /**
+         * @return the total number of deleted rows (or files)
+         */
+        public long rowsReclaimed() {
+            return releasedThreads() + idleThreads() + checkpoints();
+        }
+
+        /**
+         * @return the duration in milliseconds of the last sweep
+         */
+        public long lastSweepMillis() {
+            return lastSweepMillis.get();
+        }
+    }
+
+    private final CheckpointRetention retention;
+    private final RetentionPolicy policy;
+    private final Duration interval;
+    private final Scheduler scheduler;
+    private final ScheduledExecutorService ownedExecutor;
+    private final Clock clock;
+    private final Metrics metrics = new Metrics();
+    private final ReentrantLock _lock = new ReentrantLock();
+    private Scheduler.Handle scheduled;
+
+    protected CheckpointSweeper( Builder builder ) {
+        this.retention = requireNonNull( builder.retention, "retention cannot be null" );
+        this.policy = requireNonNull( builder.policy, "policy cannot be null" );
+        this.interval = requireNonNull( builder.interval, "interval cannot be null" );
+        this.clock = requireNonNull( builder.clock, "clock cannot be null" );
+        if( builder.scheduler != null ) {
+            this.ownedExecutor = null;
+            this.scheduler = builder.scheduler;
+        }
+        else {
+            this.ownedExecutor = Executors.newSingleThreadScheduledExecutor( task -> {
+                var thread = new Thread( task, "langgraph4j-checkpoint-sweeper" );
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.scheduler = Scheduler.of( ownedExecutor );
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts the periodic sweeps. Errors are logged and counted, without stopping the next sweeps.
+     */
+    public void start() {
+        _lock.lock();
+        try {
+            if( scheduled != null ) {
+                throw new IllegalStateException("sweeper already started");
+            }
+            scheduled = scheduler.schedule( () -> {
+                try {
+                    sweep();
+                } catch (Exception e) {
+                    log.warn( "checkpoint sweep failed", e );
+                }
+            }, interval );
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    private Reclaimed inBatches( TryFunction<Integer, Reclaimed, Exception> batch, boolean countThreads ) throws Exception {
+        var result = Reclaimed.NONE;
+        for( int i = 0; i < policy.maxBatchesPerSweep(); ++i ) {
+            var reclaimed = batch.tryApply( policy.batchSize() );
+            result = result.plus( reclaimed );
+            var deleted = countThreads ? reclaimed.threads() : reclaimed.checkpoints();
+            if( deleted < policy.batchSize() ) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executes a sweep, applying each rule of the policy in bounded batches
+     *
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    public Reclaimed sweep() throws Exception {
+        var start = System.currentTimeMillis();
+        try {
+            var now = clock.instant();
+            var result = Reclaimed.NONE;
+
+            if( policy.releasedThreadsTtl().isPresent() ) {
+                var savedBefore = now.minus( policy.releasedThreadsTtl().get() );
+                var reclaimed = inBatches( limit -> retention.deleteReleasedThreads( savedBefore, limit ), true );
+                metrics.releasedThreads.add( reclaimed.threads() );
+                metrics.checkpoints.add( reclaimed.checkpoints() );
+                result = result.plus( reclaimed );
+            }
+            if( policy.idleThreadsTtl().isPresent() ) {
+                var savedBefore = now.minus( policy.idleThreadsTtl().get() );
+                var reclaimed = inBatches( limit -> retention.deleteIdleThreads( savedBefore, limit ), true );
+                metrics.idleThreads.add( reclaimed.threads() );
+                metrics.checkpoints.add( reclaimed.checkpoints() );
+                result = result.plus( reclaimed );
+            }
+            if( policy.keepLastCheckpoints().isPresent() ) {
+                var keepLast = policy.keepLastCheckpoints().getAsInt();
+                var reclaimed = inBatches( limit -> retention.deleteOldCheckpoints( keepLast, limit ), false );
+                metrics.checkpoints.add( reclaimed.checkpoints() );
+                result = result.plus( reclaimed );
+            }
+
+            metrics.sweeps.increment();
+            log.trace( "checkpoint sweep reclaimed {} thread(s) and {} checkpoint(s)", result.threads(), result.checkpoints() );
+            return result;
+        }
+        catch( Exception e ) {
+            metrics.failures.increment();
+            throw e;
+        }
+        finally {
+            metrics.lastSweepMillis.set( System.currentTimeMillis() - start );
+        }
+    }
+
+    /**
+     * Stops the periodic sweeps, shutting down the default scheduler and waiting for the running sweep, if any.
+     * If the caller is interrupted while waiting the interrupt flag is restored.
+     */
+    @Override
+    public void close() {
+        _lock.lock();
+        try {
+            if( scheduled != null ) {
+                scheduled.close();
+                scheduled = null;
+            }
+            if( ownedExecutor != null ) {
+                ownedExecutor.shutdown();
+                try {
+                    if( !ownedExecutor.awaitTermination( CLOSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS ) ) {
+                        log.warn( "checkpoint sweep still running after {}", CLOSE_TIMEOUT );
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    public static class Builder {
+        private CheckpointRetention retention;
+        private RetentionPolicy policy;
+        private Duration interval = Duration.ofMinutes(5);
+        private Scheduler scheduler;
+        private Clock clock = Clock.systemUTC();
+
+        /**
+         * Sets the saver whose checkpoints are deleted
+         *
+         * @param retention the saver supporting retention
+         * @return this builder
+         */
+        public Builder retention( CheckpointRetention retention ) {
+            this.retention = retention;
+            return this;
+        }
+
+        /**
+         * Sets the retention policy
+         *
+         * @param policy the retention policy
+         * @return this builder
+         */
+        public Builder policy( RetentionPolicy policy ) {
+            this.policy = policy;
+            return this;
+        }
+
+        /**
+         * Sets the delay between periodic sweeps (default 5 minutes)
+         *
+         * @param interval the delay between sweeps
+         * @return this builder
+         */
+        public Builder interval( Duration interval ) {
+            this.interval = interval;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler of the periodic sweeps (default a single daemon thread owned by the sweeper)
+         *
+         * @param scheduler the scheduler
+         * @return this builder
+         */
+        public Builder scheduler( Scheduler scheduler ) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Sets the clock used to evaluate the time to live of the threads (default UTC system clock)
+         *
+         * @param clock the clock
+         * @return this builder
+         */
+        public Builder clock( Clock clock ) {
+            this.clock = clock;
+            return this;
+        }
+
+        public CheckpointSweeper build() {
+            if( interval != null && ( interval.isNegative() || interval.isZero() ) ) {
+                throw new IllegalArgumentException("interval must be positive");
+            }
+            return new CheckpointSweeper(this);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A CheckpointSaver that stores large state values once, in a content-addressed {@link BlobStore},
+ * in front of another saver that persists checkpoints holding only references to them.
+ *
+ * <p>
+ *     On {@link #put(RunnableConfig, Checkpoint)} each state value whose serialized size
+ *     (see {@link StateSerializer#valueToBytes(Object)}) is not less than the threshold
+ *     (see {@link Builder#threshold(int)}) is hashed (SHA-256) and stored in the blob store, if not
+ *     already present. The value is replaced, in the checkpoint passed to the wrapped saver, by a reference
+ *     that is a map with the single entry {@value #BLOB_REFERENCE} &rarr; <i>blob key</i>.
+ *     The same value is stored once even if held by different channels.
+ *     The immutable values (see {@link org.bsc.langgraph4j.serializer.StateCloner#isImmutable(Class)}) of the
+ *     previous checkpoint of the thread are not serialized again, so the cost of a put follows the changed values.
+ *     References are resolved on {@link #get(RunnableConfig)}, {@link #list(RunnableConfig)} and
+ *     {@link #release(RunnableConfig)}, so the wrapped saver is transparent to the callers.
+ * </p>
+ * <p>
+ *     Blobs are shared by the checkpoints of the same thread ({@link BlobScope#THREAD}) or by all the threads
+ *     ({@link BlobScope#GLOBAL}). Each thread retains once every blob it references, and releases them
+ *     when it is released: blobs no longer referenced are deleted from the store.
+ * </p>
+ */
+public class DeduplicatingCheckpointSaver implements BaseCheckpointSaver {
+
+    /**
+     * Key of the map that replaces a deduplicated value
+     */
+    public static final String BLOB_REFERENCE = "$blob";
+
+    /**
+     * Sharing scope of the blobs
+     */
+    public enum BlobScope {
+        /**
+         * a blob is shared only by the checkpoints of the same thread
+         */
+        THREAD,
+        /**
+         * a blob is shared by the checkpoints of all the threads
+         */
+        GLOBAL
+    }
+
+    private final BaseCheckpointSaver saver;
+    private final StateSerializer<?> stateSerializer;
+    private final BlobStore blobStore;
+    private final int threshold;
+    private final BlobScope scope;
+
+    /**
+     * Blobs retained by a thread, and the blob keys of the immutable values of its last checkpoint,
+     * null for the values under the threshold
+     */
+    private static final class ThreadBlobs {
+        final Set<String> keys = new HashSet<>();
+        Map<Object, String> lastValues = new IdentityHashMap<>();
+    }
+
+    private final Map<String, ThreadBlobs> blobsByThread = new HashMap<>();
+    private final ReentrantLock _lock = new ReentrantLock();
+
+    protected DeduplicatingCheckpointSaver( Builder builder ) {
+        this.saver = requireNonNull( builder.saver, "saver cannot be null" );
+        this.stateSerializer = requireNonNull( builder.stateSerializer, "stateSerializer cannot be null" );
+        this.blobStore = requireNonNull( builder.blobStore, "blobStore cannot be null" );
+        this.scope = requireNonNull( builder.scope, "scope cannot be null" );
+        this.threshold = builder.threshold;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static String hex( byte[] bytes ) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String blobKey( String threadId, byte[] data ) {
+        var digest = sha256();
+        if( scope == BlobScope.THREAD ) {
+            digest.update( threadId.getBytes(StandardCharsets.UTF_8) );
+            digest.update( (byte)0 );
+        }
+        return hex( digest.digest(data) );
+    }
+
+    private static Optional<String> referenceOf( Object value ) {
+        if( value instanceof Map<?,?> map && map.size() == 1 && map.get(BLOB_REFERENCE) instanceof String key ) {
+            return Optional.of(key);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the blobs retained by the thread. After a restart they are collected from the
+     * checkpoints stored by the wrapped saver.
+     */
+    private ThreadBlobs blobsOf( RunnableConfig config ) {
+        var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+        return blobsByThread.computeIfAbsent( threadId, k -> {
+            var result = new ThreadBlobs();
+            for( var checkpoint : saver.list( config ) ) {
+                for( var value : checkpoint.getState().values() ) {
+                    referenceOf(value).ifPresent( result.keys::add );
+                }
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Stores and retains the blob, if not already retained by the thread
+     *
+     * @return the blob key
+     */
+    private String store( String threadId, ThreadBlobs blobs, byte[] data ) throws IOException {
+        var key = blobKey( threadId, data );
+        if( !blobs.keys.contains( key ) ) {
+            blobStore.put( key, data );
+            blobStore.retain( key );
+            // retained only once stored, a failure is retried by the next put
+            blobs.keys.add( key );
+        }
+        return key;
+    }
+
+    private Checkpoint withReferences( RunnableConfig config, Checkpoint checkpoint ) throws IOException {
+        var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+        var blobs = blobsOf( config );
+        var cloner = stateSerializer.stateCloner();
+
+        var lastValues = new IdentityHashMap<Object, String>();
+        var state = new HashMap<String,Object>( checkpoint.getState().size() );
+        for( var entry : checkpoint.getState().entrySet() ) {
+            var value = entry.getValue();
+            if( value == null || referenceOf(value).isPresent() ) {
+                state.put( entry.getKey(), value );
+                continue;
+            }
+            String key;
+            if( lastValues.containsKey( value ) ) {
+                key = lastValues.get( value );
+            }
+            else if( blobs.lastValues.containsKey( value ) ) {
+                key = blobs.lastValues.get( value );
+            }
+            else {
+                var data = stateSerializer.valueToBytes( value );
+                key = ( data.length < threshold ) ? null : store( threadId, blobs, data );
+            }
+            if( cloner.isImmutable( value.getClass() ) ) {
+                lastValues.put( value, key );
+            }
+            state.put( entry.getKey(), ( key == null ) ? value : Map.of( BLOB_REFERENCE, key ) );
+        }
+        blobs.lastValues = lastValues;
+
+        return Checkpoint.builder()
+                .id( checkpoint.getId() )
+                .parentId( checkpoint.getParentId().orElse(null) )
+                .nodeId( checkpoint.getNodeId() )
+                .nextNodeId( checkpoint.getNextNodeId() )
+                .state( state )
+                .build();
+    }
+
+    private Checkpoint withValues( Checkpoint checkpoint ) {
+        if( checkpoint.getState().values().stream().noneMatch( value -> referenceOf(value).isPresent() ) ) {
+            return checkpoint;
+        }
+        try {
+            var state = new HashMap<String,Object>( checkpoint.getState().size() );
+            for( var entry : checkpoint.getState().entrySet() ) {
+                var reference = referenceOf( entry.getValue() );
+                if( reference.isEmpty() ) {
+                    state.put( entry.getKey(), entry.getValue() );
+                    continue;
+                }
+                var data = blobStore.get( reference.get() )
+                        .orElseThrow( () -> new IllegalStateException( format( "blob '%s' of value '%s' not found in checkpoint '%s'",
+                                reference.get(), entry.getKey(), checkpoint.getId() ) ) );
+                state.put( entry.getKey(), stateSerializer.valueFromBytes( data ) );
+            }
+            return Checkpoint.builder()
+                    .id( checkpoint.getId() )
+                    .parentId( checkpoint.getParentId().orElse(null) )
+                    .nodeId( checkpoint.getNodeId() )
+                    .nextNodeId( checkpoint.getNextNodeId() )
+                    .state( state )
+                    .build();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        return saver.list(config).stream()
+                .map( this::withValues )
+                .toList();
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        return saver.get(config).map( this::withValues );
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        _lock.lock();
+        try {
+            return saver.put( config, withReferences( config, checkpoint ) );
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    @Override
+    public Tag release(RunnableConfig config) throws Exception {
+        _lock.lock();
+        try {
+            var blobs = blobsOf( config );
+            var tag = saver.release( config );
+
+            // resolve values before releasing blobs
+            var result = new Tag( tag.threadId(), tag.checkpoints().stream().map( this::withValues ).toList() );
+
+            for( var key : blobs.keys ) {
+                blobStore.release( key );
+            }
+            blobsByThread.remove( config.threadId().orElse(THREAD_ID_DEFAULT) );
+
+            return result;
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    public static class Builder {
+        private BaseCheckpointSaver saver;
+        private StateSerializer<?> stateSerializer;
+        private BlobStore blobStore;
+        private int threshold = 4096;
+        private BlobScope scope = BlobScope.THREAD;
+
+        /**
+         * Sets the saver that stores the checkpoints holding the blob references
+         *
+         * @param saver the wrapped saver
+         * @return this builder
+         */
+        public Builder saver( BaseCheckpointSaver saver ) {
+            this.saver = saver;
+            return this;
+        }
+
+        /**
+         * Sets the serializer used to serialize the deduplicated values
+         *
+         * @param stateSerializer the state serializer
+         * @return this builder
+         */
+        public Builder stateSerializer( StateSerializer<?> stateSerializer ) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * Sets the store of the deduplicated values
+         *
+         * @param blobStore the blob store
+         * @return this builder
+         */
+        public Builder blobStore( BlobStore blobStore ) {
+            this.blobStore = blobStore;
+            return this;
+        }
+
+        /**
+         * Sets the min serialized size in bytes of the values to deduplicate (default 4096)
+         *
+         * @param threshold the threshold
+         * @return this builder
+         */
+        public Builder threshold( int threshold ) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets the sharing scope of the blobs (default {@link BlobScope#THREAD})
+         *
+         * @param scope the blob scope
+         * @return this builder
+         */
+        public Builder scope( BlobScope scope ) {
+            this.scope = scope;
+            return this;
+        }
+
+        public DeduplicatingCheckpointSaver build() {
+            if( threshold < 0 ) {
+                throw new IllegalArgumentException("threshold cannot be negative");
+            }
+            return new DeduplicatingCheckpointSaver(this);
+        }
+    }
+}
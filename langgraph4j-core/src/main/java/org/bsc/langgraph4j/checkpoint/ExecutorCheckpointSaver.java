@@ -0,0 +1,96 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adapts a blocking {@link BaseCheckpointSaver} to {@link AsyncCheckpointSaver}, executing its operations
+ * on an {@link Executor}. The operations on the same thread id are executed in order, while different
+ * threads proceed concurrently.
+ * <p>
+ * The blocking methods are queued as well, so they observe the asynchronous writes invoked before them.
+ * </p>
+ *
+ * @see AsyncCheckpointSaver#of(BaseCheckpointSaver, Executor)
+ */
+public class ExecutorCheckpointSaver implements BaseCheckpointSaver, AsyncCheckpointSaver {
+
+    private final BaseCheckpointSaver saver;
+    private final ThreadOrderedExecutor executor;
+
+    public ExecutorCheckpointSaver( BaseCheckpointSaver saver, Executor executor ) {
+        this.saver = requireNonNull( saver, "saver cannot be null" );
+        this.executor = new ThreadOrderedExecutor( executor );
+    }
+
+    private static String threadIdOf( RunnableConfig config ) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    private static <T> T join( CompletableFuture<T> future ) {
+        try {
+            return AsyncCheckpointSaver.await( future );
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Collection<Checkpoint>> listAsync(RunnableConfig config) {
+        return executor.submit( threadIdOf(config), () -> saver.list(config) );
+    }
+
+    @Override
+    public CompletableFuture<Optional<Checkpoint>> getAsync(RunnableConfig config) {
+        return executor.submit( threadIdOf(config), () -> saver.get(config) );
+    }
+
+    @Override
+    public CompletableFuture<RunnableConfig> putAsync(RunnableConfig config, Checkpoint checkpoint) {
+        return executor.submit( threadIdOf(config), () -> saver.put(config, checkpoint) );
+    }
+
+    @Override
+    public CompletableFuture<Tag> releaseAsync(RunnableConfig config) {
+        return executor.submit( threadIdOf(config), () -> saver.release(config) );
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        return join( listAsync(config) );
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        return join( getAsync(config) );
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        return AsyncCheckpointSaver.await( putAsync(config, checkpoint) );
+    }
+
+    @Override
+    public Tag release(RunnableConfig config) throws Exception {
+        return AsyncCheckpointSaver.await( releaseAsync(config) );
+    }
+
+    @Override
+    public List<Checkpoint> ancestors(RunnableConfig config) {
+        return join( executor.submit( threadIdOf(config), () -> saver.ancestors(config) ) );
+    }
+
+    @Override
+    public List<Checkpoint> children(RunnableConfig config) {
+        return join( executor.submit( threadIdOf(config), () -> saver.children(config) ) );
+    }
+}
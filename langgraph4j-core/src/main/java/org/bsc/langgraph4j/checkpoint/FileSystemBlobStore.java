@@ -0,0 +1,109 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Optional;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link BlobStore} that stores each blob in a file named "<i>key</i>.blob", placed in a sub folder named
+ * with the first two characters of the key. The reference count is kept in a companion "<i>key</i>.refs" file.
+ * <p>
+ * Keys must be valid file names (e.g. hex digests).
+ * </p>
+ */
+public class FileSystemBlobStore implements BlobStore {
+    public static final String EXTENSION = ".blob";
+    public static final String REFS_EXTENSION = ".refs";
+
+    private final Path targetFolder;
+
+    public FileSystemBlobStore(Path targetFolder) {
+        this.targetFolder = requireNonNull( targetFolder, "targetFolder cannot be null" );
+    }
+
+    private Path getFolder( String key ) {
+        requireNonNull( key, "key cannot be null" );
+        if( key.length() < 3 ) {
+            throw new IllegalArgumentException( format("key '%s' is too short", key) );
+        }
+        return targetFolder.resolve( key.substring(0, 2) );
+    }
+
+    private Path getPath( String key ) {
+        return getFolder(key).resolve( key.concat(EXTENSION) );
+    }
+
+    private Path getRefsPath( String key ) {
+        return getFolder(key).resolve( key.concat(REFS_EXTENSION) );
+    }
+
+    private int readReferences( String key ) throws IOException {
+        var refsPath = getRefsPath(key);
+        if( !Files.exists(refsPath) ) {
+            return 0;
+        }
+        return Integer.parseInt( Files.readString(refsPath, StandardCharsets.UTF_8).trim() );
+    }
+
+    private void writeReferences( String key, int references ) throws IOException {
+        Files.writeString( getRefsPath(key), String.valueOf(references), StandardCharsets.UTF_8 );
+    }
+
+    @Override
+    public synchronized void put(String key, byte[] data) throws IOException {
+        requireNonNull( data, "data cannot be null" );
+        var path = getPath(key);
+        if( Files.exists(path) ) {
+            return;
+        }
+        Files.createDirectories( path.getParent() );
+        // write a temporary file and move it, so a blob file is never partially written
+        var tempPath = Files.createTempFile( path.getParent(), key, ".tmp" );
+        Files.write( tempPath, data );
+        try {
+            Files.move( tempPath, path, StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch( AtomicMoveNotSupportedException e ) {
+            Files.move( tempPath, path, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    @Override
+    public Optional<byte[]> get(String key) throws IOException {
+        try {
+            return Optional.of( Files.readAllBytes( getPath(key) ) );
+        }
+        catch( NoSuchFileException e ) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public synchronized int retain(String key) throws IOException {
+        if( !Files.exists( getPath(key) ) ) {
+            return 0;
+        }
+        int references = readReferences(key) + 1;
+        writeReferences( key, references );
+        return references;
+    }
+
+    @Override
+    public synchronized int release(String key) throws IOException {
+        if( !Files.exists( getPath(key) ) ) {
+            return 0;
+        }
+        int references = readReferences(key) - 1;
+        if( references <= 0 ) {
+            Files.deleteIfExists( getPath(key) );
+            Files.deleteIfExists( getRefsPath(key) );
+            return 0;
+        }
+        writeReferences( key, references );
+        return references;
+    }
+}
@@ -3,16 +3,25 @@ package org.bsc.langgraph4j.checkpoint;
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
 import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
 import java.util.*;
-import java.util.regex.Matcher;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
 import java.util.regex.Pattern;
 
 import static java.lang.String.format;
@@ -26,21 +35,75 @@ import static java.lang.String.format;
  *     The file is named "thread-<i>threadId</i>.saver" if the RunnableConfig has a
  *     threadId, or "thread-$default.saver" if it doesn't.
  * </p>
+ * <p>
+ *     When sharding is enabled (see {@link Builder#sharding(boolean)}) the files of each thread are
+ *     placed in a hash-prefixed sub folder (e.g. "<i>targetFolder</i>/3f/thread-<i>threadId</i>.saver")
+ *     to keep the size of every single directory bounded.
+ * </p>
+ * <p>
+ *     When a compression is set (see {@link Builder#compression(StateCompression)}) the content of the files
+ *     exceeding the compression threshold is compressed. Compressed and uncompressed files are both readable.
+ * </p>
+ * <p>
+ *     As {@link CheckpointRetention} it deletes the released ("thread-<i>threadId</i>-v<i>N</i>.saver") and
+ *     the idle ("thread-<i>threadId</i>.saver") files by last modified time. The version index of a thread
+ *     ("thread-<i>threadId</i>.version") is deleted with the released files, once its last release is expired.
+ *     Old checkpoints are not trimmed, since rewriting a file would change its last modified time.
+ * </p>
+ * <p>
+ *     As {@link AsyncCheckpointSaver} it executes the file operations on the executor set by
+ *     {@link Builder#executor(Executor)}, in order for each thread. By default the operations run on a pool of
+ *     daemon threads dedicated to the file savers, so the blocking file I/O doesn't occupy the common pool.
+ *     The blocking operations run on the caller thread, after waiting for the asynchronous operations on the
+ *     same thread invoked before them.
+ * </p>
+ * <p>
+ *     As {@link CheckpointQuery} it uses the in-memory index inherited by {@link MemorySaver}: the files hold
+ *     neither the saved time of the checkpoints nor an index of the threads, so only the threads written by this
+ *     instance since its creation, and not yet released or deleted, are selected.
+ * </p>
  *
  */
-public class FileSystemSaver extends MemorySaver {
+public class FileSystemSaver extends MemorySaver implements AsyncCheckpointSaver, CheckpointRetention {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(FileSystemSaver.class);
     public static final String EXTENSION = ".saver";
+    public static final String VERSION_EXTENSION = ".version";
+    private static final Pattern RELEASED_FILE = Pattern.compile("thread-(.+)-v\\d+\\.saver");
+    private static final Pattern THREAD_FILE = Pattern.compile("thread-(.+)\\.saver");
+    private static final Pattern VERSION_INDEX_FILE = Pattern.compile("thread-(.+)\\.version");
 
     private final Path targetFolder;
     private final Serializer<Checkpoint> serializer;
+    private final boolean sharding;
+    private final StateCompression compression;
+    private final ThreadOrderedExecutor executor;
+    private final Map<String,Integer> lastVersionByThread = new HashMap<>();
+
+    /**
+     * Default executor of the file operations, shared by the savers created without an executor
+     */
+    private static final class DefaultExecutor {
+        private static final AtomicInteger threadCount = new AtomicInteger();
+        static final Executor INSTANCE = Executors.newCachedThreadPool( task -> {
+            var thread = new Thread( task, "langgraph4j-file-saver-" + threadCount.incrementAndGet() );
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-    @SuppressWarnings("unchecked")
     public FileSystemSaver(Path targetFolder, StateSerializer<? extends AgentState> stateSerializer) {
+        this( builder().targetFolder(targetFolder).stateSerializer(stateSerializer) );
+    }
 
-        Objects.requireNonNull(stateSerializer, "stateSerializer cannot be null");
-        this.targetFolder = Objects.requireNonNull(targetFolder, "targetFolder cannot be null");
-        this.serializer = new CheckPointSerializer((StateSerializer<AgentState>) stateSerializer);
+    @SuppressWarnings("unchecked")
+    protected FileSystemSaver( Builder builder ) {
+
+        Objects.requireNonNull(builder.stateSerializer, "stateSerializer cannot be null");
+        this.targetFolder = Objects.requireNonNull(builder.targetFolder, "targetFolder cannot be null");
+        this.serializer = new CheckPointSerializer((StateSerializer<AgentState>) builder.stateSerializer);
+        this.sharding = builder.sharding;
+        this.compression = builder.compression;
+        this.executor = new ThreadOrderedExecutor(builder.executor);
 
         File targetFolderAsFile = targetFolder.toFile();
 
@@ -56,13 +119,40 @@ public class FileSystemSaver extends MemorySaver {
 
     }
 
+    public static Builder builder() {
+        return new Builder();
+    }
+
     private String getBaseName(RunnableConfig config) {
         var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
         return format("thread-%s", threadId);
     }
 
+    /**
+     * Returns the folder that contains the files of the thread referred by the given configuration.
+     * If sharding is enabled it is a sub folder of the target folder named with the first byte of the thread id hash.
+     *
+     * @param config the configuration referring the thread
+     * @return the folder containing the thread files
+     */
+    private Path getFolder(RunnableConfig config) {
+        if( !sharding ) {
+            return targetFolder;
+        }
+        var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+        return targetFolder.resolve( format("%02x", threadId.hashCode() & 0xFF ) );
+    }
+
     private Path getPath(RunnableConfig config) {
-        return Paths.get(targetFolder.toString(), getBaseName(config).concat(EXTENSION));
+        return getFolder(config).resolve(getBaseName(config).concat(EXTENSION));
+    }
+
+    private Path getVersionPath(RunnableConfig config, int version) {
+        return getFolder(config).resolve(format("%s-v%d%s", getBaseName(config), version, EXTENSION));
+    }
+
+    private Path getVersionIndexPath(RunnableConfig config) {
+        return getFolder(config).resolve(getBaseName(config).concat(VERSION_EXTENSION));
     }
 
     private File getFile(RunnableConfig config) {
@@ -72,20 +162,34 @@ public class FileSystemSaver extends MemorySaver {
     private void serialize(LinkedList<Checkpoint> checkpoints, File outFile) throws IOException {
         Objects.requireNonNull(checkpoints, "checkpoints cannot be null");
         Objects.requireNonNull(outFile, "outFile cannot be null");
-        try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(outFile.toPath()))) {
-
-            oos.writeInt(checkpoints.size());
-            for (Checkpoint checkpoint : checkpoints) {
-                serializer.write(checkpoint, oos);
+        if( sharding ) {
+            Files.createDirectories(outFile.toPath().getParent());
+        }
+        if( compression == null ) {
+            try (OutputStream out = Files.newOutputStream(outFile.toPath())) {
+                serialize(checkpoints, out);
             }
+            return;
+        }
+        var stream = new ByteArrayOutputStream();
+        serialize(checkpoints, stream);
+        Files.write(outFile.toPath(), compression.compress(stream.toByteArray()));
+    }
+
+    private void serialize(LinkedList<Checkpoint> checkpoints, OutputStream out) throws IOException {
+        ObjectOutputStream oos = new ObjectOutputStream(out);
+        oos.writeInt(checkpoints.size());
+        for (Checkpoint checkpoint : checkpoints) {
+            serializer.write(checkpoint, oos);
         }
+        oos.flush();
     }
 
     private void deserialize(File file, LinkedList<Checkpoint> result) throws IOException, ClassNotFoundException {
         Objects.requireNonNull(file, "file cannot be null");
         Objects.requireNonNull(result, "result cannot be null");
 
-        try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(file.toPath()))) {
+        try (ObjectInputStream ois = new ObjectInputStream(StateCompression.decompress(Files.newInputStream(file.toPath())))) {
             int size = ois.readInt();
             for (int i = 0; i < size; i++) {
                 result.add(serializer.read(ois));
@@ -115,12 +219,72 @@ public class FileSystemSaver extends MemorySaver {
         insertedCheckpoint(config, checkpoints, checkpoint);
     }
 
+    /**
+     * Returns the last archived version of the thread referred by the given configuration.
+     * The value is read from the thread version index ("thread-<i>threadId</i>.version") and cached in memory.
+     * A missing index means that the thread has never been released, so the first release doesn't list the folder.
+     * An unreadable index is recovered by {@link #lastArchivedVersion(RunnableConfig)}.
+     *
+     * @param config the configuration referring the thread
+     * @return the last archived version, 0 if the thread has never been released
+     * @throws IOException if an error occurs while reading the index
+     */
+    private int lastVersion(RunnableConfig config) throws IOException {
+        var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
+
+        var cachedVersion = lastVersionByThread.get(threadId);
+        if( cachedVersion != null ) {
+            return cachedVersion;
+        }
+
+        int version = 0;
+        var indexPath = getVersionIndexPath(config);
+        if( Files.exists(indexPath) ) {
+            try {
+                version = Integer.parseInt( Files.readString(indexPath, StandardCharsets.UTF_8).trim() );
+            } catch (IOException | NumberFormatException e) {
+                log.warn("version index {} is unreadable. Listing versioned files.", indexPath, e);
+                version = lastArchivedVersion(config);
+            }
+        }
+        lastVersionByThread.put(threadId, version);
+        return version;
+    }
+
+    /**
+     * Returns the greatest version among the versioned files of the thread referred by the given configuration,
+     * listing its folder. It is only used to recover the version index of the threads archived by a previous
+     * release, or of a corrupted index, after which the index is written again.
+     *
+     * @param config the configuration referring the thread
+     * @return the last archived version, 0 if there are no versioned files
+     * @throws IOException if an error occurs while listing the folder
+     */
+    private int lastArchivedVersion(RunnableConfig config) throws IOException {
+        var versionedFile = Pattern.compile( Pattern.quote( getBaseName(config) + "-v" ) + "(\\d+)" + Pattern.quote(EXTENSION) );
+        int version = 0;
+        var folder = getFolder(config);
+        if( Files.isDirectory(folder) ) {
+            try( var files = Files.newDirectoryStream(folder) ) {
+                for( var file : files ) {
+                    var matcher = versionedFile.matcher( file.getFileName().toString() );
+                    if( matcher.matches() ) {
+                        version = Math.max( version, Integer.parseInt( matcher.group(1) ) );
+                    }
+                }
+            }
+        }
+        return version;
+    }
+
     /**
      * Releases the checkpoints associated with the given configuration.
-     * This involves copying the current checkpoint file (e.g., "thread-123.saver")
+     * This involves renaming the current checkpoint file (e.g., "thread-123.saver")
      * to a versioned backup file (e.g., "thread-123-v1.saver", "thread-123-v2.saver", etc.)
-     * based on existing versioned files, deleting the original unversioned file,
-     * and then clearing the in-memory checkpoints.
+     * whose version is taken from the thread version index, and then updating the index.
+     * The index is written on the first release of the thread, so a release costs the same whatever the number
+     * of stored threads. The folder is only listed once for a thread archived by a previous release without index,
+     * when its first version is found already archived.
      *
      * @param config The configuration for which to release checkpoints.
      * @param checkpoints released checkpoints
@@ -136,29 +300,30 @@ public class FileSystemSaver extends MemorySaver {
             return;
         }
 
-        var versionPattern = Pattern.compile(format("%s-v(\\d+)\\%s$", getBaseName(config), EXTENSION));
+        var indexPath = getVersionIndexPath(config);
+        int nextVersion = lastVersion(config) + 1;
+        Path backupPath = getVersionPath(config, nextVersion);
 
-        int maxVersion = 0;
-        try (var stream = Files.list(targetFolder)) {
-            maxVersion = stream
-                    .map(path -> path.getFileName().toString())
-                    .map(versionPattern::matcher)
-                    .filter(Matcher::matches)
-                    .mapToInt(matcher -> Integer.parseInt(matcher.group(1)))
-                    .max()
-                    .orElse(0); // Default to 0 if no versioned files found
-        } catch (IOException e) {
-            log.error("Failed to list directory {} to determine next version number for backup. Skipping file operations.", targetFolder, e);
-            return;
+        if( Files.exists(backupPath) && !Files.exists(indexPath) ) {
+            // versions archived without index: recover the last one
+            nextVersion = lastArchivedVersion(config) + 1;
+            backupPath = getVersionPath(config, nextVersion);
         }
 
-        int nextVersion = maxVersion + 1;
-        var backupFilename = format("%s-v%d%s", getBaseName(config), nextVersion, EXTENSION);
-        Path backupPath = targetFolder.resolve(backupFilename);
-
-        Files.copy(currentPath, backupPath, StandardCopyOption.REPLACE_EXISTING);
+        // an atomic move could silently replace an existing archive
+        if( Files.exists(backupPath) ) {
+            throw new FileAlreadyExistsException( backupPath.toString(), null,
+                    format("version %d of thread is already archived", nextVersion) );
+        }
+        try {
+            Files.move(currentPath, backupPath, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch( AtomicMoveNotSupportedException e ) {
+            Files.move(currentPath, backupPath);
+        }
 
-        Files.delete(currentPath);
+        Files.writeString(indexPath, String.valueOf(nextVersion), StandardCharsets.UTF_8);
+        lastVersionByThread.put(config.threadId().orElse(THREAD_ID_DEFAULT), nextVersion);
 
     }
 
@@ -172,14 +337,209 @@ public class FileSystemSaver extends MemorySaver {
         File targetFile = getFile(config);
         return targetFile.exists() && targetFile.delete();
     }
+
+    /**
+     * Returns the files of the target folder (and of its sub folders, if sharding is enabled)
+     * satisfying the given predicate, up to the given limit.
+     */
+    private List<Path> findFiles( BiPredicate<Path, BasicFileAttributes> predicate, int limit ) throws IOException {
+        try( var files = Files.find( targetFolder, sharding ? 2 : 1, predicate ) ) {
+            return files.limit(limit).toList();
+        }
+    }
+
+    private static boolean isModifiedBefore( BasicFileAttributes attrs, Instant instant ) {
+        return attrs.isRegularFile() && attrs.lastModifiedTime().toInstant().isBefore(instant);
+    }
+
+    @Override
+    public Reclaimed deleteReleasedThreads( Instant savedBefore, int limit ) throws Exception {
+        var files = findFiles( (path, attrs) ->
+                isModifiedBefore( attrs, savedBefore ) &&
+                RELEASED_FILE.matcher( path.getFileName().toString() ).matches(), limit );
+
+        int deleted = 0;
+        for( var file : files ) {
+            if( Files.deleteIfExists(file) ) {
+                ++deleted;
+            }
+        }
+        log.trace( "deleted {} released thread file(s)", deleted );
+
+        // the index is written on release, after moving the thread file: an expired index has only expired versions
+        var indexes = findFiles( (path, attrs) ->
+                isModifiedBefore( attrs, savedBefore ) &&
+                VERSION_INDEX_FILE.matcher( path.getFileName().toString() ).matches(), limit );
+        for( var index : indexes ) {
+            // check again holding the lock, the thread could have been released in the meantime
+            locked( () -> Files.exists(index) &&
+                    Files.getLastModifiedTime(index).toInstant().isBefore(savedBefore) &&
+                    Files.deleteIfExists(index) );
+        }
+        log.trace( "deleted {} version index file(s)", indexes.size() );
+
+        return new Reclaimed( deleted, 0 );
+    }
+
+    @Override
+    public Reclaimed deleteIdleThreads( Instant savedBefore, int limit ) throws Exception {
+        var files = findFiles( (path, attrs) -> {
+            var fileName = path.getFileName().toString();
+            return isModifiedBefore( attrs, savedBefore ) &&
+                    THREAD_FILE.matcher( fileName ).matches() &&
+                    !RELEASED_FILE.matcher( fileName ).matches();
+        }, limit );
+
+        int deleted = 0;
+        for( var file : files ) {
+            var matcher = THREAD_FILE.matcher( file.getFileName().toString() );
+            if( !matcher.matches() ) {
+                continue;
+            }
+            var threadId = matcher.group(1);
+            // check again holding the lock, the thread could have been updated in the meantime
+            var result = locked( () -> {
+                if( !Files.exists(file) ||
+                        !Files.getLastModifiedTime(file).toInstant().isBefore(savedBefore) ) {
+                    return false;
+                }
+                remove( threadId );
+                return Files.deleteIfExists(file);
+            });
+            if( result ) {
+                ++deleted;
+            }
+        }
+        log.trace( "deleted {} idle thread file(s)", deleted );
+        return new Reclaimed( deleted, 0 );
+    }
+
+    private static String threadIdOf( RunnableConfig config ) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    @Override
+    protected void awaitPendingWrites(RunnableConfig config) {
+        executor.awaitPending( threadIdOf(config) );
+    }
+
+    @Override
+    public CompletableFuture<Collection<Checkpoint>> listAsync(RunnableConfig config) {
+        return executor.submit( threadIdOf(config), () -> list(config) );
+    }
+
+    @Override
+    public CompletableFuture<Optional<Checkpoint>> getAsync(RunnableConfig config) {
+        return executor.submit( threadIdOf(config), () -> get(config) );
+    }
+
+    @Override
+    public CompletableFuture<RunnableConfig> putAsync(RunnableConfig config, Checkpoint checkpoint) {
+        return executor.submit( threadIdOf(config), () -> put(config, checkpoint) );
+    }
+
+    @Override
+    public CompletableFuture<Tag> releaseAsync(RunnableConfig config) {
+        return executor.submit( threadIdOf(config), () -> release(config) );
+    }
+
+    /**
+     * A builder for FileSystemSaver.
+     */
+    public static class Builder {
+        private Path targetFolder;
+        private StateSerializer<? extends AgentState> stateSerializer;
+        private boolean sharding = false;
+        private StateCompression compression;
+        private Executor executor = DefaultExecutor.INSTANCE;
+
+        /**
+         * Sets the folder where the checkpoint files are stored
+         *
+         * @param targetFolder the target folder
+         * @return this builder
+         */
+        public Builder targetFolder(Path targetFolder) {
+            this.targetFolder = targetFolder;
+            return this;
+        }
+
+        /**
+         * Sets the serializer used to store the checkpoint states
+         *
+         * @param stateSerializer the state serializer
+         * @return this builder
+         */
+        public Builder stateSerializer(StateSerializer<? extends AgentState> stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * Enables the placement of thread files in hash-prefixed sub folders (default false).
+         * Useful when a large number of threads are stored in the same target folder.
+         *
+         * @param sharding true to enable sharding
+         * @return this builder
+         */
+        public Builder sharding(boolean sharding) {
+            this.sharding = sharding;
+            return this;
+        }
+
+        /**
+         * Sets the compression applied to the checkpoint files (default none)
+         *
+         * @param compression the compression
+         * @return this builder
+         */
+        public Builder compression(StateCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Sets the executor of the file operations (default a pool of daemon threads dedicated to the file savers).
+         * The blocking operations wait for the tasks of this executor, so they must not be invoked by its threads.
+         *
+         * @param executor the executor
+         * @return this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Creates a new instance of FileSystemSaver
+         *
+         * @return the new instance of FileSystemSaver.
+         */
+        public FileSystemSaver build() {
+            return new FileSystemSaver(this);
+        }
+    }
 }
 
+/**
+ * Serializes the checkpoints in the files of {@link FileSystemSaver}.
+ * <p>
+ * Checkpoints are written in the current format, starting with a negative format marker followed by
+ * id, parent id, node id, next node id and state. Checkpoints written by previous releases, starting directly
+ * with the id, are still readable.
+ * </p>
+ */
 record CheckPointSerializer(
         StateSerializer<AgentState> stateSerializer) implements NullableObjectSerializer<Checkpoint> {
 
+    // the length prefix of a legacy id is never negative
+    private static final int FORMAT_WITH_PARENT = -2;
+
     @Override
     public void write(Checkpoint object, ObjectOutput out) throws IOException {
+        out.writeInt(FORMAT_WITH_PARENT);
         Serializer.writeUTF(object.getId(), out);
+        writeNullableUTF(object.getParentId().orElse(null), out);
         writeNullableUTF(object.getNodeId(), out);
         writeNullableUTF(object.getNextNodeId(), out);
         AgentState state = stateSerializer.stateFactory().apply(object.getState());
@@ -188,12 +548,28 @@ record CheckPointSerializer(
 
     @Override
     public Checkpoint read(ObjectInput in) throws IOException, ClassNotFoundException {
-        return Checkpoint.builder()
-                .id(Serializer.readUTF(in))
-                .nextNodeId(readNullableUTF(in).orElse(null))
+        var builder = Checkpoint.builder();
+
+        int header = in.readInt();
+        if( header == FORMAT_WITH_PARENT ) {
+            builder.id(Serializer.readUTF(in))
+                    .parentId(readNullableUTF(in).orElse(null));
+        }
+        else if( header >= 0 ) {
+            // legacy format: the header is the length of the id
+            var id = new byte[header];
+            in.readFully(id);
+            builder.id(new String(id, StandardCharsets.UTF_8));
+        }
+        else {
+            throw new IOException(format("unsupported checkpoint format %d", header));
+        }
+
+        return builder
                 .nodeId(readNullableUTF(in).orElse(null))
+                .nextNodeId(readNullableUTF(in).orElse(null))
                 .state(stateSerializer.read(in))
                 .build();
     }
 
-}
\ No newline at end of file
+}
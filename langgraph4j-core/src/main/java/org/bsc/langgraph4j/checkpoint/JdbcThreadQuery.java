@@ -0,0 +1,121 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.checkpoint.CheckpointQuery.Page;
+import org.bsc.langgraph4j.checkpoint.CheckpointQuery.ThreadInfo;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executes a {@link ThreadQuery} on the tables of a JDBC saver.
+ * <p>
+ * The saver provides the parts depending on its schema and dialect:
+ * <ul>
+ *     <li>the select of the last checkpoint of each thread, returning in order the columns thread id (the cursor),
+ *     thread name, released, checkpoint id, node id, next node id and saved at, from the checkpoint table
+ *     aliased "c" joined with the thread table aliased "t", ending with a WHERE clause</li>
+ *     <li>the clause limiting the number of rows, with a single parameter (e.g. "LIMIT ?")</li>
+ *     <li>the conversion of a cursor to the parameter compared with the thread id column</li>
+ * </ul>
+ * The filters of the query are appended to the WHERE clause, and the rows are ordered by thread id.
+ * </p>
+ */
+public final class JdbcThreadQuery {
+
+    private final String select;
+    private final String limitClause;
+    private final Function<String, Object> cursorParameter;
+
+    /**
+     * @param select the select of the last checkpoint of each thread
+     * @param limitClause the clause limiting the number of rows
+     * @param cursorParameter the conversion of a cursor to the thread id parameter
+     */
+    public JdbcThreadQuery( String select, String limitClause, Function<String, Object> cursorParameter ) {
+        this.select = requireNonNull( select, "select cannot be null" );
+        this.limitClause = requireNonNull( limitClause, "limitClause cannot be null" );
+        this.cursorParameter = requireNonNull( cursorParameter, "cursorParameter cannot be null" );
+    }
+
+    /**
+     * Returns the SQL of the given query, whose parameters are added to the given list
+     *
+     * @param query the filters and the page to select
+     * @param parameters the list receiving the parameters
+     * @return the SQL of the query
+     */
+    String sql( ThreadQuery query, List<Object> parameters ) {
+        var sql = new StringBuilder( select );
+        query.released().ifPresent( released -> {
+            sql.append( "  AND t.is_released = ?\n" );
+            parameters.add( released );
+        });
+        query.nodeId().ifPresent( nodeId -> {
+            sql.append( "  AND c.node_id = ?\n" );
+            parameters.add( nodeId );
+        });
+        query.nextNodeId().ifPresent( nextNodeId -> {
+            sql.append( "  AND c.next_node_id = ?\n" );
+            parameters.add( nextNodeId );
+        });
+        query.savedAfter().ifPresent( savedAfter -> {
+            sql.append( "  AND c.saved_at >= ?\n" );
+            parameters.add( Timestamp.from( savedAfter ) );
+        });
+        query.savedBefore().ifPresent( savedBefore -> {
+            sql.append( "  AND c.saved_at < ?\n" );
+            parameters.add( Timestamp.from( savedBefore ) );
+        });
+        query.after().ifPresent( cursor -> {
+            sql.append( "  AND c.thread_id > ?\n" );
+            parameters.add( cursorParameter.apply( cursor ) );
+        });
+        sql.append( "ORDER BY c.thread_id\n" ).append( limitClause ).append( '\n' );
+        // one more row tells whether a next page exists
+        parameters.add( query.limit() + 1 );
+        return sql.toString();
+    }
+
+    /**
+     * Selects a page of threads
+     *
+     * @param connection the connection to the saver database
+     * @param query the filters and the page to select
+     * @return the selected threads, the cursor of the next page is the thread id of the last one
+     * @throws SQLException if an error occurs while querying
+     */
+    public Page<ThreadInfo> execute( Connection connection, ThreadQuery query ) throws SQLException {
+        requireNonNull( query, "query cannot be null" );
+
+        var parameters = new ArrayList<Object>();
+        try( var statement = connection.prepareStatement( sql( query, parameters ) ) ) {
+            for( int i = 0; i < parameters.size(); ++i ) {
+                statement.setObject( i + 1, parameters.get( i ) );
+            }
+            var threads = new ArrayList<ThreadInfo>();
+            String lastThreadId = null;
+            try( var resultSet = statement.executeQuery() ) {
+                while( resultSet.next() ) {
+                    if( threads.size() == query.limit() ) {
+                        return new Page<>( threads, lastThreadId );
+                    }
+                    lastThreadId = resultSet.getString( 1 );
+                    threads.add( new ThreadInfo(
+                            resultSet.getString( 2 ),
+                            resultSet.getBoolean( 3 ),
+                            resultSet.getString( 4 ),
+                            resultSet.getString( 5 ),
+                            resultSet.getString( 6 ),
+                            resultSet.getTimestamp( 7 ).toInstant() ) );
+                }
+            }
+            return new Page<>( threads, null );
+        }
+    }
+}
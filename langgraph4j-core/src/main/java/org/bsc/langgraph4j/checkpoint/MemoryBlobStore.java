@@ -0,0 +1,47 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link BlobStore} that keeps blobs in memory
+ */
+public class MemoryBlobStore implements BlobStore {
+
+    private record Entry( byte[] data, int references ) {}
+
+    private final Map<String, Entry> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, byte[] data) {
+        requireNonNull( data, "data cannot be null" );
+        blobs.putIfAbsent( requireNonNull( key, "key cannot be null" ), new Entry( data, 0 ) );
+    }
+
+    @Override
+    public Optional<byte[]> get(String key) {
+        return Optional.ofNullable( blobs.get(key) ).map( Entry::data );
+    }
+
+    @Override
+    public int retain(String key) {
+        var entry = blobs.computeIfPresent( key, (k, e) -> new Entry( e.data(), e.references() + 1 ) );
+        return ( entry == null ) ? 0 : entry.references();
+    }
+
+    @Override
+    public int release(String key) {
+        var entry = blobs.computeIfPresent( key, (k, e) -> ( e.references() <= 1 ) ? null : new Entry( e.data(), e.references() - 1 ) );
+        return ( entry == null ) ? 0 : entry.references();
+    }
+
+    /**
+     * @return the number of stored blobs
+     */
+    public int size() {
+        return blobs.size();
+    }
+}
@@ -2,7 +2,9 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.utils.TryFunction;
+import org.bsc.langgraph4j.utils.TrySupplier;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.IntStream;
@@ -10,9 +12,20 @@ import java.util.stream.IntStream;
 import static java.lang.String.format;
 import static java.util.Optional.ofNullable;
 
-public class MemorySaver implements BaseCheckpointSaver {
+/**
+ * A CheckpointSaver that keeps the Checkpoints in memory.
+ * <p>
+ * The operations are blocking, a saver can be made asynchronous by {@link AsyncCheckpointSaver#of(BaseCheckpointSaver, java.util.concurrent.Executor)}.
+ * </p>
+ * <p>
+ * As {@link CheckpointQuery} it maintains an index of the last checkpoint of the threads written by this instance,
+ * by node id and next node id. Released threads are no longer indexed.
+ * </p>
+ */
+public class MemorySaver implements BaseCheckpointSaver, CheckpointQuery {
 
     final Map<String, LinkedList<Checkpoint>> _checkpointsByThread = new HashMap<>();
+    private final ThreadIndex _threadIndex = new ThreadIndex();
     private final ReentrantLock _lock = new ReentrantLock();
 
     public MemorySaver( ) {
@@ -28,6 +41,44 @@ public class MemorySaver implements BaseCheckpointSaver {
     protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
     }
 
+    /**
+     * Invoked by the blocking operations before accessing the checkpoints of a thread, without holding any lock.
+     * Savers that also write asynchronously override it to wait for the writes on the same thread invoked before.
+     *
+     * @param config the configuration referring the thread
+     * @throws Exception if an error occurs while waiting
+     */
+    protected void awaitPendingWrites( RunnableConfig config ) throws Exception {
+    }
+
+    /**
+     * Invoked when a checkpoint requested by id is not present in the in-memory checkpoints.
+     * Savers that keep only a part of the thread history in memory can override it to look up the checkpoint
+     * in their store.
+     *
+     * @param config the configuration referring the thread
+     * @param checkpointId the id of the requested checkpoint
+     * @return the checkpoint if found, otherwise an empty {@link Optional}
+     * @throws Exception if an error occurs while looking up the checkpoint
+     */
+    protected Optional<Checkpoint> loadedCheckpoint( RunnableConfig config, String checkpointId ) throws Exception {
+        return Optional.empty();
+    }
+
+    /**
+     * Invoked to provide the checkpoints history of a thread, the first element is the most recent checkpoint.
+     * Savers that keep only a part of the thread history in memory can override it to return a collection
+     * that fetches the history from their store.
+     *
+     * @param config the configuration referring the thread
+     * @param checkpoints the in-memory checkpoints
+     * @return the checkpoints history
+     * @throws Exception if an error occurs while loading the history
+     */
+    protected Collection<Checkpoint> listedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints ) throws Exception {
+        return Collections.unmodifiableCollection(checkpoints);
+    }
+
     protected final <T> T loadOrInitCheckpoints(RunnableConfig config,
                                                 TryFunction<LinkedList<Checkpoint>, T, Exception> transformer) throws Exception {
         _lock.lock();
@@ -40,18 +91,39 @@ public class MemorySaver implements BaseCheckpointSaver {
         }
     }
 
+    /**
+     * Executes the action holding the lock that serializes the access to the in-memory checkpoints.
+     * Savers that delete threads from their store use it, together with {@link #remove(String)},
+     * to evict the deleted threads without racing with concurrent writes.
+     *
+     * @param action the action to execute
+     * @return the action result
+     * @param <T> the type of the result
+     * @throws Exception if the action fails
+     */
+    protected final <T> T locked( TrySupplier<T, Exception> action ) throws Exception {
+        _lock.lock();
+        try {
+            return action.tryGet();
+        } finally {
+            _lock.unlock();
+        }
+    }
+
     final Optional<Checkpoint> getLast( LinkedList<Checkpoint> checkpoints, RunnableConfig config ) {
         return (checkpoints.isEmpty() ) ? Optional.empty() : ofNullable(checkpoints.peek());
     }
 
     protected final Collection<Checkpoint> remove( String threadId ) {
-        return _checkpointsByThread.remove( Objects.requireNonNull(threadId) );
+        _threadIndex.remove( Objects.requireNonNull(threadId) );
+        return _checkpointsByThread.remove( threadId );
     }
 
     @Override
     public final Collection<Checkpoint> list( RunnableConfig config ) {
         try {
-            return loadOrInitCheckpoints( config, Collections::unmodifiableCollection);
+            awaitPendingWrites( config );
+            return loadOrInitCheckpoints( config, checkpoints -> listedCheckpoints( config, checkpoints ) );
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -61,12 +133,16 @@ public class MemorySaver implements BaseCheckpointSaver {
     public final Optional<Checkpoint> get(RunnableConfig config) {
 
         try {
+            awaitPendingWrites( config );
             return loadOrInitCheckpoints( config, checkpoints -> {
                 if( config.checkPointId().isPresent() ) {
-                    return config.checkPointId()
-                            .flatMap( id -> checkpoints.stream()
-                                    .filter( checkpoint -> checkpoint.getId().equals(id) )
-                                    .findFirst());
+                    var checkPointId = config.checkPointId().get();
+                    var checkpoint = checkpoints.stream()
+                                    .filter( cp -> cp.getId().equals(checkPointId) )
+                                    .findFirst();
+                    return ( checkpoint.isPresent() ) ?
+                            checkpoint :
+                            loadedCheckpoint( config, checkPointId );
                 }
                 return getLast(checkpoints,config);
 
@@ -79,21 +155,33 @@ public class MemorySaver implements BaseCheckpointSaver {
     @Override
     public final RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
 
+        awaitPendingWrites( config );
         return loadOrInitCheckpoints( config, checkpoints -> {
 
             if (config.checkPointId().isPresent()) { // Replace Checkpoint
                 String checkPointId = config.checkPointId().get();
-                int index = IntStream.range(0, checkpoints.size())
+                var index = IntStream.range(0, checkpoints.size())
                         .filter(i -> checkpoints.get(i).getId().equals(checkPointId))
-                        .findFirst()
-                        .orElseThrow(() -> (new NoSuchElementException(format("Checkpoint with id %s not found!", checkPointId))));
-                checkpoints.set(index, checkpoint );
+                        .findFirst();
+                if( index.isPresent() ) {
+                    checkpoints.set(index.getAsInt(), checkpoint );
+                    if( !checkPointId.equals( checkpoint.getId() ) ) {
+                        // the children of the replaced checkpoint become children of the replacement
+                        checkpoints.replaceAll( c -> c.getParentId().filter( checkPointId::equals ).isPresent() ?
+                                c.withParentId( checkpoint.getId() ) : c );
+                    }
+                }
+                else if( loadedCheckpoint( config, checkPointId ).isEmpty() ) {
+                    throw new NoSuchElementException(format("Checkpoint with id %s not found!", checkPointId));
+                }
                 updatedCheckpoint( config, checkpoints, checkpoint);
+                indexLast( config, checkpoints );
                 return config;
             }
 
             checkpoints.push( checkpoint ); // Add Checkpoint
             insertedCheckpoint( config, checkpoints, checkpoint);
+            indexLast( config, checkpoints );
 
             return RunnableConfig.builder(config)
                     .checkPointId(checkpoint.getId())
@@ -102,9 +190,29 @@ public class MemorySaver implements BaseCheckpointSaver {
         });
     }
 
+    private void indexLast( RunnableConfig config, LinkedList<Checkpoint> checkpoints ) {
+        _threadIndex.update( config.threadId().orElse(THREAD_ID_DEFAULT), checkpoints.peek(), Instant.now() );
+    }
+
+    /**
+     * Selects the threads by their last checkpoint, using the in-memory index.
+     * Only the threads written by this instance and not yet released are selected, savers backed by a store
+     * override it to query the store.
+     *
+     * @param query the filters and the page to select
+     * @return the selected threads, ordered by thread id
+     * @throws Exception if an error occurs while querying
+     */
+    @Override
+    public Page<ThreadInfo> threads( ThreadQuery query ) throws Exception {
+        Objects.requireNonNull( query, "query cannot be null" );
+        return locked( () -> _threadIndex.query( query ) );
+    }
+
     @Override
     public final Tag release(RunnableConfig config) throws Exception {
 
+        awaitPendingWrites( config );
         return loadOrInitCheckpoints( config, checkpoints -> {
 
             var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
@@ -0,0 +1,154 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Defines how long the checkpoints are retained by a {@link CheckpointRetention} saver.
+ * <p>
+ * Every rule is optional, a policy without rules doesn't delete anything.
+ * </p>
+ *
+ * @see CheckpointSweeper
+ */
+public final class RetentionPolicy {
+
+    private final Duration releasedThreadsTtl;
+    private final Duration idleThreadsTtl;
+    private final Integer keepLastCheckpoints;
+    private final int batchSize;
+    private final int maxBatchesPerSweep;
+
+    private RetentionPolicy( Builder builder ) {
+        this.releasedThreadsTtl = builder.releasedThreadsTtl;
+        this.idleThreadsTtl = builder.idleThreadsTtl;
+        this.keepLastCheckpoints = builder.keepLastCheckpoints;
+        this.batchSize = builder.batchSize;
+        this.maxBatchesPerSweep = builder.maxBatchesPerSweep;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the time a released thread is retained after its last checkpoint
+     */
+    public Optional<Duration> releasedThreadsTtl() {
+        return ofNullable(releasedThreadsTtl);
+    }
+
+    /**
+     * @return the time a not released thread is retained after its last checkpoint
+     */
+    public Optional<Duration> idleThreadsTtl() {
+        return ofNullable(idleThreadsTtl);
+    }
+
+    /**
+     * @return the number of most recent checkpoints retained in each not released thread
+     */
+    public OptionalInt keepLastCheckpoints() {
+        return keepLastCheckpoints == null ? OptionalInt.empty() : OptionalInt.of(keepLastCheckpoints);
+    }
+
+    /**
+     * @return the max number of items deleted by each batch
+     */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return the max number of batches of each rule executed by a sweep
+     */
+    public int maxBatchesPerSweep() {
+        return maxBatchesPerSweep;
+    }
+
+    public static class Builder {
+        private Duration releasedThreadsTtl;
+        private Duration idleThreadsTtl;
+        private Integer keepLastCheckpoints;
+        private int batchSize = 500;
+        private int maxBatchesPerSweep = 100;
+
+        /**
+         * Sets the time a released thread is retained after its last checkpoint (default retained forever)
+         *
+         * @param ttl the time to live of released threads
+         * @return this builder
+         */
+        public Builder releasedThreadsTtl( Duration ttl ) {
+            this.releasedThreadsTtl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets the time a not released thread is retained after its last checkpoint (default retained forever)
+         *
+         * @param ttl the time to live of idle threads
+         * @return this builder
+         */
+        public Builder idleThreadsTtl( Duration ttl ) {
+            this.idleThreadsTtl = ttl;
+            return this;
+        }
+
+        /**
+         * Sets the number of most recent checkpoints retained in each not released thread (default all)
+         *
+         * @param keepLastCheckpoints the number of checkpoints to keep
+         * @return this builder
+         */
+        public Builder keepLastCheckpoints( int keepLastCheckpoints ) {
+            this.keepLastCheckpoints = keepLastCheckpoints;
+            return this;
+        }
+
+        /**
+         * Sets the max number of items deleted by each batch (default 500)
+         *
+         * @param batchSize the batch size
+         * @return this builder
+         */
+        public Builder batchSize( int batchSize ) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the max number of batches of each rule executed by a sweep (default 100).
+         * The items left are deleted by the next sweeps.
+         *
+         * @param maxBatchesPerSweep the max number of batches
+         * @return this builder
+         */
+        public Builder maxBatchesPerSweep( int maxBatchesPerSweep ) {
+            this.maxBatchesPerSweep = maxBatchesPerSweep;
+            return this;
+        }
+
+        public RetentionPolicy build() {
+            if( releasedThreadsTtl != null && releasedThreadsTtl.isNegative() ) {
+                throw new IllegalArgumentException("releasedThreadsTtl cannot be negative");
+            }
+            if( idleThreadsTtl != null && idleThreadsTtl.isNegative() ) {
+                throw new IllegalArgumentException("idleThreadsTtl cannot be negative");
+            }
+            if( keepLastCheckpoints != null && keepLastCheckpoints <= 0 ) {
+                throw new IllegalArgumentException("keepLastCheckpoints must be greater than 0");
+            }
+            if( batchSize <= 0 ) {
+                throw new IllegalArgumentException("batchSize must be greater than 0");
+            }
+            if( maxBatchesPerSweep <= 0 ) {
+                throw new IllegalArgumentException("maxBatchesPerSweep must be greater than 0");
+            }
+            return new RetentionPolicy(this);
+        }
+    }
+}
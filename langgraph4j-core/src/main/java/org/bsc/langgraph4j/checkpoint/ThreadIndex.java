@@ -0,0 +1,82 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.checkpoint.CheckpointQuery.Page;
+import org.bsc.langgraph4j.checkpoint.CheckpointQuery.ThreadInfo;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * In-memory index of the last checkpoint of each thread, by thread id, node id and next node id.
+ * It is not thread safe, the owner serializes the access to it.
+ */
+class ThreadIndex {
+
+    private final NavigableMap<String, ThreadInfo> byThreadId = new TreeMap<>();
+    private final Map<String, NavigableSet<String>> byNodeId = new HashMap<>();
+    private final Map<String, NavigableSet<String>> byNextNodeId = new HashMap<>();
+
+    void update( String threadId, Checkpoint last, Instant savedAt ) {
+        remove( threadId );
+        if( last == null ) {
+            return;
+        }
+        byThreadId.put( threadId, new ThreadInfo( threadId, false, last.getId(), last.getNodeId(), last.getNextNodeId(), savedAt ) );
+        byNodeId.computeIfAbsent( last.getNodeId(), k -> new TreeSet<>() ).add( threadId );
+        byNextNodeId.computeIfAbsent( last.getNextNodeId(), k -> new TreeSet<>() ).add( threadId );
+    }
+
+    void remove( String threadId ) {
+        var info = byThreadId.remove( threadId );
+        if( info != null ) {
+            removeFrom( byNodeId, info.nodeId(), threadId );
+            removeFrom( byNextNodeId, info.nextNodeId(), threadId );
+        }
+    }
+
+    private static void removeFrom( Map<String, NavigableSet<String>> index, String key, String threadId ) {
+        var threadIds = index.get( key );
+        if( threadIds != null && threadIds.remove( threadId ) && threadIds.isEmpty() ) {
+            index.remove( key );
+        }
+    }
+
+    /**
+     * Selects the threads scanning the smallest of the indexes matching the query, in thread id order.
+     * The cursor of a page is the id of its last thread.
+     */
+    Page<ThreadInfo> query( ThreadQuery query ) {
+        if( query.released().orElse(false) ) {
+            // released threads are not indexed
+            return new Page<>( List.of(), null );
+        }
+
+        NavigableSet<String> candidates = byThreadId.navigableKeySet();
+        if( query.nodeId().isPresent() ) {
+            candidates = smallest( candidates, byNodeId.getOrDefault( query.nodeId().get(), Collections.emptyNavigableSet() ) );
+        }
+        if( query.nextNodeId().isPresent() ) {
+            candidates = smallest( candidates, byNextNodeId.getOrDefault( query.nextNodeId().get(), Collections.emptyNavigableSet() ) );
+        }
+        if( query.after().isPresent() ) {
+            candidates = candidates.tailSet( query.after().get(), false );
+        }
+
+        var items = new ArrayList<ThreadInfo>();
+        for( var threadId : candidates ) {
+            var info = byThreadId.get( threadId );
+            if( !query.matches( info ) ) {
+                continue;
+            }
+            if( items.size() == query.limit() ) {
+                return new Page<>( items, items.get( items.size() - 1 ).threadId() );
+            }
+            items.add( info );
+        }
+        return new Page<>( items, null );
+    }
+
+    private static NavigableSet<String> smallest( NavigableSet<String> a, NavigableSet<String> b ) {
+        return ( a.size() <= b.size() ) ? a : b;
+    }
+}
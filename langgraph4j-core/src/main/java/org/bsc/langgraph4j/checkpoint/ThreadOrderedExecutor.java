@@ -0,0 +1,73 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.utils.TrySupplier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Executes the tasks submitted for the same thread id one after the other, in submission order,
+ * while tasks of different thread ids run concurrently on the given executor.
+ */
+class ThreadOrderedExecutor {
+
+    private final Executor executor;
+    // last task submitted for each thread id, removed on completion if no other task follows
+    private final Map<String, CompletableFuture<?>> tails = new HashMap<>();
+    // set while a task of this executor is running on the current thread
+    private final ThreadLocal<Boolean> running = ThreadLocal.withInitial( () -> false );
+
+    ThreadOrderedExecutor( Executor executor ) {
+        this.executor = requireNonNull( executor, "executor cannot be null" );
+    }
+
+    <T> CompletableFuture<T> submit( String threadId, TrySupplier<T, Exception> task ) {
+        final CompletableFuture<T> result;
+        synchronized( tails ) {
+            var previous = tails.getOrDefault( threadId, CompletableFuture.completedFuture(null) );
+            // a failed task doesn't prevent the execution of the next ones
+            result = previous.handle( (value, error) -> null )
+                        .thenApplyAsync( ignored -> {
+                            running.set( true );
+                            try {
+                                return task.tryGet();
+                            } catch (Exception e) {
+                                throw new CompletionException(e);
+                            } finally {
+                                running.remove();
+                            }
+                        }, executor );
+            tails.put( threadId, result );
+        }
+        result.whenComplete( (value, error) -> {
+            synchronized( tails ) {
+                tails.remove( threadId, result );
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Waits for the completion of the tasks submitted for the thread id, unless invoked by a task of this executor
+     * that already follows them. The failures of the tasks are reported to their callers, not here.
+     *
+     * @param threadId the thread id
+     */
+    void awaitPending( String threadId ) {
+        if( running.get() ) {
+            return;
+        }
+        CompletableFuture<?> tail;
+        synchronized( tails ) {
+            tail = tails.get( threadId );
+        }
+        if( tail != null ) {
+            tail.handle( (value, error) -> null ).join();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.util.Optional.ofNullable;
+
+/**
+ * Selects a page of threads by the state of their last checkpoint, for a {@link CheckpointQuery} saver.
+ * <p>
+ * Every filter is optional, a query without filters selects all the threads.
+ * The threads following the ones of a page are selected passing the cursor of the page to {@link Builder#after(String)}.
+ * </p>
+ *
+ * @see CheckpointQuery#threads(ThreadQuery)
+ */
+public final class ThreadQuery {
+
+    private final String nodeId;
+    private final String nextNodeId;
+    private final Instant savedAfter;
+    private final Instant savedBefore;
+    private final Boolean released;
+    private final String after;
+    private final int limit;
+
+    private ThreadQuery( Builder builder ) {
+        this.nodeId = builder.nodeId;
+        this.nextNodeId = builder.nextNodeId;
+        this.savedAfter = builder.savedAfter;
+        this.savedBefore = builder.savedBefore;
+        this.released = builder.released;
+        this.after = builder.after;
+        this.limit = builder.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the node id of the last checkpoint
+     */
+    public Optional<String> nodeId() {
+        return ofNullable(nodeId);
+    }
+
+    /**
+     * @return the next node id of the last checkpoint, e.g. the node before which the thread has been interrupted
+     */
+    public Optional<String> nextNodeId() {
+        return ofNullable(nextNodeId);
+    }
+
+    /**
+     * @return the instant at or after which the last checkpoint has been saved
+     */
+    public Optional<Instant> savedAfter() {
+        return ofNullable(savedAfter);
+    }
+
+    /**
+     * @return the instant before which the last checkpoint has been saved
+     */
+    public Optional<Instant> savedBefore() {
+        return ofNullable(savedBefore);
+    }
+
+    /**
+     * @return whether the threads must be released or not, empty to select both
+     */
+    public Optional<Boolean> released() {
+        return ofNullable(released);
+    }
+
+    /**
+     * @return the cursor of the previous page
+     */
+    public Optional<String> after() {
+        return ofNullable(after);
+    }
+
+    /**
+     * @return the max number of threads of the page
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Checks the filters of this query, except the cursor, against a thread
+     *
+     * @param thread the thread to check
+     * @return true if the thread is selected by the filters
+     */
+    public boolean matches( CheckpointQuery.ThreadInfo thread ) {
+        return ( nodeId == null || Objects.equals( nodeId, thread.nodeId() ) ) &&
+                ( nextNodeId == null || Objects.equals( nextNodeId, thread.nextNodeId() ) ) &&
+                ( savedAfter == null || !thread.savedAt().isBefore( savedAfter ) ) &&
+                ( savedBefore == null || thread.savedAt().isBefore( savedBefore ) ) &&
+                ( released == null || released == thread.released() );
+    }
+
+    public static class Builder {
+        private String nodeId;
+        private String nextNodeId;
+        private Instant savedAfter;
+        private Instant savedBefore;
+        private Boolean released;
+        private String after;
+        private int limit = 100;
+
+        /**
+         * Selects the threads whose last checkpoint has the given node id
+         *
+         * @param nodeId the node id
+         * @return this builder
+         */
+        public Builder nodeId( String nodeId ) {
+            this.nodeId = nodeId;
+            return this;
+        }
+
+        /**
+         * Selects the threads whose last checkpoint has the given next node id
+         *
+         * @param nextNodeId the next node id
+         * @return this builder
+         */
+        public Builder nextNodeId( String nextNodeId ) {
+            this.nextNodeId = nextNodeId;
+            return this;
+        }
+
+        /**
+         * Selects the threads whose last checkpoint has been saved at or after the given instant
+         *
+         * @param savedAfter the lower bound (inclusive)
+         * @return this builder
+         */
+        public Builder savedAfter( Instant savedAfter ) {
+            this.savedAfter = savedAfter;
+            return this;
+        }
+
+        /**
+         * Selects the threads whose last checkpoint has been saved before the given instant,
+         * e.g. the threads idle since then
+         *
+         * @param savedBefore the upper bound (exclusive)
+         * @return this builder
+         */
+        public Builder savedBefore( Instant savedBefore ) {
+            this.savedBefore = savedBefore;
+            return this;
+        }
+
+        /**
+         * Selects the released (true) or the active (false) threads (default both)
+         *
+         * @param released the released flag
+         * @return this builder
+         */
+        public Builder released( Boolean released ) {
+            this.released = released;
+            return this;
+        }
+
+        /**
+         * Selects the threads following the given page
+         *
+         * @param cursor the cursor of the previous page
+         * @return this builder
+         * @see CheckpointQuery.Page#nextCursor()
+         */
+        public Builder after( String cursor ) {
+            this.after = cursor;
+            return this;
+        }
+
+        /**
+         * Sets the max number of threads of the page (default 100)
+         *
+         * @param limit the page size
+         * @return this builder
+         */
+        public Builder limit( int limit ) {
+            this.limit = limit;
+            return this;
+        }
+
+        public ThreadQuery build() {
+            if( limit <= 0 ) {
+                throw new IllegalArgumentException("limit must be greater than 0");
+            }
+            if( savedAfter != null && savedBefore != null && !savedAfter.isBefore( savedBefore ) ) {
+                throw new IllegalArgumentException("savedAfter must be before savedBefore");
+            }
+            return new ThreadQuery(this);
+        }
+    }
+}
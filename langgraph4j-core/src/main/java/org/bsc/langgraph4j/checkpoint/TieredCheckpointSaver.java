@@ -0,0 +1,416 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.utils.TryFunction;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A CheckpointSaver that composes a fast <i>hot</i> saver (e.g. {@link MemorySaver}) in front of a durable
+ * <i>cold</i> saver (e.g. a database saver).
+ *
+ * <p>
+ *     Checkpoints of the active threads are served by the hot saver, while idle threads live only in the cold one:
+ * </p>
+ * <ul>
+ *     <li>on the first access to a thread not in the hot tier, its history is read from the cold tier and
+ *     replayed into the hot one (read-through)</li>
+ *     <li>when the number of hot threads exceeds {@link Builder#maxHotThreads(int)}, the least recently used
+ *     thread is evicted: its pending writes are flushed to the cold tier and it is released from the hot one</li>
+ *     <li>with {@link WritePolicy#WRITE_THROUGH} each checkpoint is written in the cold tier and then in the hot one,
+ *     so the hot tier never serves a checkpoint that isn't persisted. With {@link WritePolicy#WRITE_BACK} writes to
+ *     the cold tier are deferred until the thread is evicted or released, the pending writes reach
+ *     {@link Builder#maxPendingCheckpoints(int)} or {@link #flush()} is invoked</li>
+ *     <li>{@link #release(RunnableConfig)} flushes the pending writes and releases the thread in both tiers,
+ *     returning the tag of the cold tier</li>
+ * </ul>
+ * <p>
+ *     The operations on the same thread are serialized by a lock of the thread, held during the I/O on the
+ *     cold tier, so a slow cold tier only delays the operations on the same thread. Threads in use are not evicted,
+ *     so the hot tier can temporarily exceed its max number of threads.
+ * </p>
+ * <p>
+ *     The hot saver is used as a cache, so it shouldn't be shared with other components.
+ * </p>
+ */
+public class TieredCheckpointSaver implements BaseCheckpointSaver {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(TieredCheckpointSaver.class);
+
+    /**
+     * Policy used to write checkpoints in the cold tier
+     */
+    public enum WritePolicy {
+        /**
+         * checkpoints are written in the cold tier as soon as they are saved
+         */
+        WRITE_THROUGH,
+        /**
+         * checkpoints are written in the cold tier when the thread leaves the hot tier or on flush
+         */
+        WRITE_BACK
+    }
+
+    /**
+     * A write deferred by the write-back policy
+     */
+    private record PendingWrite( RunnableConfig config, Checkpoint checkpoint ) {}
+
+    /**
+     * A thread of the hot tier, with its pending writes. The lock serializes the operations on the thread,
+     * a removed thread is no longer in the hot tier and is created again on next access.
+     */
+    private static final class HotThread {
+        final ReentrantLock lock = new ReentrantLock();
+        final List<PendingWrite> pendingWrites = new ArrayList<>();
+        boolean loaded;
+        boolean removed;
+    }
+
+    private final BaseCheckpointSaver hot;
+    private final BaseCheckpointSaver cold;
+    private final WritePolicy writePolicy;
+    private final int maxHotThreads;
+    private final int maxPendingCheckpoints;
+
+    // hot threads in access order, guarded by _lock that is never held during the I/O
+    private final LinkedHashMap<String, HotThread> hotThreads = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicInteger pendingCheckpoints = new AtomicInteger();
+    private final ReentrantLock _lock = new ReentrantLock();
+
+    /**
+     * Creates a write-through tiered saver with default settings
+     *
+     * @param hot the saver serving the active threads
+     * @param cold the durable saver
+     */
+    public TieredCheckpointSaver( BaseCheckpointSaver hot, BaseCheckpointSaver cold ) {
+        this( builder().hot(hot).cold(cold) );
+    }
+
+    protected TieredCheckpointSaver( Builder builder ) {
+        this.hot = requireNonNull( builder.hot, "hot cannot be null");
+        this.cold = requireNonNull( builder.cold, "cold cannot be null");
+        this.writePolicy = requireNonNull( builder.writePolicy, "writePolicy cannot be null");
+        this.maxHotThreads = builder.maxHotThreads;
+        this.maxPendingCheckpoints = builder.maxPendingCheckpoints;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static String threadIdOf( RunnableConfig config ) {
+        return config.threadId().orElse(THREAD_ID_DEFAULT);
+    }
+
+    private static RunnableConfig threadConfigOf( String threadId ) {
+        return RunnableConfig.builder().threadId(threadId).build();
+    }
+
+    /**
+     * Returns the hot thread holding its lock, loading its history from the cold tier if requested and needed.
+     *
+     * @param threadId the thread id
+     * @param load true to load the thread history in the hot tier
+     * @return the locked hot thread
+     * @throws Exception if an error occurs while loading the thread
+     */
+    private HotThread lockHotThread( String threadId, boolean load ) throws Exception {
+        while( true ) {
+            HotThread thread;
+            _lock.lock();
+            try {
+                thread = hotThreads.computeIfAbsent( threadId, k -> new HotThread() );
+            } finally {
+                _lock.unlock();
+            }
+            thread.lock.lock();
+            if( thread.removed ) {
+                // evicted or released in the meantime
+                thread.lock.unlock();
+                continue;
+            }
+            if( load && !thread.loaded ) {
+                try {
+                    load( threadId );
+                    thread.loaded = true;
+                }
+                catch( Exception e ) {
+                    remove( threadId, thread );
+                    thread.lock.unlock();
+                    throw e;
+                }
+            }
+            return thread;
+        }
+    }
+
+    private void load( String threadId ) throws Exception {
+        var threadConfig = threadConfigOf(threadId);
+
+        // read-through: replay the cold history, oldest first
+        var history = new ArrayList<>( cold.list( threadConfig ) );
+        Collections.reverse(history);
+        hot.release( threadConfig ); // discard stale data
+        for( var checkpoint : history ) {
+            hot.put( threadConfig, checkpoint );
+        }
+        log.trace( "thread '{}' loaded in hot tier with {} checkpoint(s)", threadId, history.size() );
+    }
+
+    private void remove( String threadId, HotThread thread ) {
+        thread.removed = true;
+        pendingCheckpoints.addAndGet( -thread.pendingWrites.size() );
+        thread.pendingWrites.clear();
+        _lock.lock();
+        try {
+            hotThreads.remove( threadId, thread );
+        } finally {
+            _lock.unlock();
+        }
+    }
+
+    /**
+     * Executes the action on the thread, holding its lock, then evicts the least recently used threads
+     * exceeding the limit.
+     */
+    private <T> T withHotThread( RunnableConfig config, TryFunction<HotThread, T, Exception> action ) throws Exception {
+        T result;
+        var thread = lockHotThread( threadIdOf(config), true );
+        try {
+            result = action.tryApply( thread );
+        } finally {
+            thread.lock.unlock();
+        }
+        evictExceeding();
+        return result;
+    }
+
+    private void evictExceeding() throws Exception {
+        while( true ) {
+            String threadId = null;
+            HotThread victim = null;
+            _lock.lock();
+            try {
+                if( hotThreads.size() <= maxHotThreads ) {
+                    return;
+                }
+                // threads in use are skipped
+                for( var entry : hotThreads.entrySet() ) {
+                    if( entry.getValue().lock.tryLock() ) {
+                        threadId = entry.getKey();
+                        victim = entry.getValue();
+                        break;
+                    }
+                }
+            } finally {
+                _lock.unlock();
+            }
+            if( victim == null ) {
+                return;
+            }
+            try {
+                if( !victim.removed ) {
+                    evict( threadId, victim );
+                }
+            } finally {
+                victim.lock.unlock();
+            }
+        }
+    }
+
+    private void evict( String threadId, HotThread thread ) throws Exception {
+        flush( thread );
+        hot.release( threadConfigOf(threadId) );
+        remove( threadId, thread );
+        log.trace( "thread '{}' evicted from hot tier", threadId );
+    }
+
+    private void flush( HotThread thread ) throws Exception {
+        var iterator = thread.pendingWrites.iterator();
+        while( iterator.hasNext() ) {
+            var pending = iterator.next();
+            cold.put( pending.config(), pending.checkpoint() );
+            iterator.remove();
+            pendingCheckpoints.decrementAndGet();
+        }
+    }
+
+    /**
+     * Writes in the cold tier the checkpoints deferred by the {@link WritePolicy#WRITE_BACK} policy.
+     *
+     * @throws Exception if an error occurs while writing checkpoints
+     */
+    public void flush() throws Exception {
+        List<HotThread> threads;
+        _lock.lock();
+        try {
+            threads = List.copyOf( hotThreads.values() );
+        } finally {
+            _lock.unlock();
+        }
+        for( var thread : threads ) {
+            thread.lock.lock();
+            try {
+                if( !thread.removed ) {
+                    flush( thread );
+                }
+            } finally {
+                thread.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public Collection<Checkpoint> list(RunnableConfig config) {
+        try {
+            return withHotThread( config, thread -> hot.list(config) );
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Optional<Checkpoint> get(RunnableConfig config) {
+        try {
+            return withHotThread( config, thread -> {
+                var result = hot.get(config);
+                if( result.isEmpty() && config.checkPointId().isPresent() ) {
+                    flush( thread );
+                    return cold.get(config);
+                }
+                return result;
+            });
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+        var result = withHotThread( config, thread -> {
+            if( writePolicy == WritePolicy.WRITE_BACK ) {
+                var hotConfig = hot.put(config, checkpoint);
+                thread.pendingWrites.add( new PendingWrite(config, checkpoint) );
+                pendingCheckpoints.incrementAndGet();
+                return hotConfig;
+            }
+            cold.put(config, checkpoint);
+            try {
+                return hot.put(config, checkpoint);
+            }
+            catch( Exception e ) {
+                // the thread is loaded again from the cold tier on next access
+                try {
+                    hot.release( config );
+                } catch (Exception releaseException) {
+                    e.addSuppressed( releaseException );
+                }
+                remove( threadIdOf(config), thread );
+                throw e;
+            }
+        });
+        if( pendingCheckpoints.get() >= maxPendingCheckpoints ) {
+            flush();
+        }
+        return result;
+    }
+
+    @Override
+    public Tag release(RunnableConfig config) throws Exception {
+        var threadId = threadIdOf(config);
+        var thread = lockHotThread( threadId, false );
+        try {
+            flush( thread );
+            if( thread.loaded ) {
+                hot.release( config );
+            }
+            remove( threadId, thread );
+            return cold.release( config );
+        } finally {
+            thread.lock.unlock();
+        }
+    }
+
+    public static class Builder {
+        private BaseCheckpointSaver hot;
+        private BaseCheckpointSaver cold;
+        private WritePolicy writePolicy = WritePolicy.WRITE_THROUGH;
+        private int maxHotThreads = 1000;
+        private int maxPendingCheckpoints = 100;
+
+        /**
+         * Sets the saver serving the active threads
+         *
+         * @param hot the hot saver
+         * @return this builder
+         */
+        public Builder hot( BaseCheckpointSaver hot ) {
+            this.hot = hot;
+            return this;
+        }
+
+        /**
+         * Sets the durable saver
+         *
+         * @param cold the cold saver
+         * @return this builder
+         */
+        public Builder cold( BaseCheckpointSaver cold ) {
+            this.cold = cold;
+            return this;
+        }
+
+        /**
+         * Sets the policy used to write checkpoints in the cold tier (default {@link WritePolicy#WRITE_THROUGH})
+         *
+         * @param writePolicy the write policy
+         * @return this builder
+         */
+        public Builder writePolicy( WritePolicy writePolicy ) {
+            this.writePolicy = writePolicy;
+            return this;
+        }
+
+        /**
+         * Sets the max number of threads kept in the hot tier (default 1000)
+         *
+         * @param maxHotThreads the max number of hot threads
+         * @return this builder
+         */
+        public Builder maxHotThreads( int maxHotThreads ) {
+            this.maxHotThreads = maxHotThreads;
+            return this;
+        }
+
+        /**
+         * Sets the max number of checkpoints deferred by the {@link WritePolicy#WRITE_BACK} policy before
+         * flushing them to the cold tier (default 100)
+         *
+         * @param maxPendingCheckpoints the max number of pending checkpoints
+         * @return this builder
+         */
+        public Builder maxPendingCheckpoints( int maxPendingCheckpoints ) {
+            this.maxPendingCheckpoints = maxPendingCheckpoints;
+            return this;
+        }
+
+        public TieredCheckpointSaver build() {
+            if( maxHotThreads <= 0 ) {
+                throw new IllegalArgumentException("maxHotThreads must be greater than 0");
+            }
+            if( maxPendingCheckpoints <= 0 ) {
+                throw new IllegalArgumentException("maxPendingCheckpoints must be greater than 0");
+            }
+            return new TieredCheckpointSaver(this);
+        }
+    }
+}
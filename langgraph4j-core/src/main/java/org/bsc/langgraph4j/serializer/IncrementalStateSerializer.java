@@ -0,0 +1,268 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
+import org.bsc.langgraph4j.state.AgentState;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.lang.String.format;
+
+/**
+ * A {@link StateSerializer} that encodes each state value as an independent fragment, through the wrapped
+ * serializer, and reuses the fragments already encoded for the same values. Between consecutive checkpoints
+ * usually only a few channels change, so only those are encoded again.
+ * <p>
+ * A fragment is reused only for the very same (identical) value and only if the value is immutable,
+ * according to the rules of the {@link StateCloner} of the wrapped serializer (see {@link StateCloner#registerImmutable(Class)}).
+ * The lists of immutable values, as the message lists, are encoded element by element: since the state copies share
+ * their immutable elements, only the elements added since the previous checkpoint are encoded.
+ * The message types must therefore be registered as immutable, as the LangChain4j serializer does,
+ * otherwise every message is encoded again at each checkpoint (as the Spring AI messages, whose metadata is mutable).
+ * </p>
+ * <p>
+ * The fragments are encoded by {@link StateSerializer#valueToBytes(Object)}, that for the object stream and the binary
+ * serializers doesn't repeat the stream header and the framing of a state in each fragment.
+ * </p>
+ * <p>
+ * The encoded fragments are kept in a bounded cache, shared by all the threads using the serializer.
+ * The payload has its own layout, so its content type differs from the one of the wrapped serializer.
+ * </p>
+ *
+ * @param <State> the type of the agent state
+ */
+public class IncrementalStateSerializer<State extends AgentState> extends StateSerializer<State> {
+
+    private static final byte[] HEADER = { 'L', 'G', 'I', 2 };
+
+    private static final int KIND_NULL = 0;
+    private static final int KIND_VALUE = 1;
+    private static final int KIND_LIST = 2;
+
+    /**
+     * Reference comparing the values by identity
+     */
+    private record Identity( Object value ) {
+        @Override
+        public boolean equals( Object o ) {
+            return o instanceof Identity other && other.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode( value );
+        }
+    }
+
+    private final StateSerializer<State> serializer;
+    private final Map<Identity, byte[]> fragments;
+    private final LongAdder encodedFragments = new LongAdder();
+    private final LongAdder reusedFragments = new LongAdder();
+
+    /**
+     * Creates an incremental serializer caching up to 10000 fragments
+     *
+     * @param serializer the serializer used to encode the fragments
+     */
+    public IncrementalStateSerializer( StateSerializer<State> serializer ) {
+        this( serializer, 10_000 );
+    }
+
+    /**
+     * @param serializer the serializer used to encode the fragments
+     * @param maxCachedFragments the maximum number of fragments kept in the cache, the least recently used are evicted
+     * @throws IllegalArgumentException if maxCachedFragments is not positive
+     */
+    public IncrementalStateSerializer( StateSerializer<State> serializer, int maxCachedFragments ) {
+        super( Objects.requireNonNull( serializer, "serializer cannot be null" ).stateFactory() );
+        if( maxCachedFragments <= 0 ) {
+            throw new IllegalArgumentException( "maxCachedFragments must be positive" );
+        }
+        this.serializer = serializer;
+        this.fragments = new LinkedHashMap<>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Identity, byte[]> eldest ) {
+                return size() > maxCachedFragments;
+            }
+        };
+    }
+
+    /**
+     * @return the serializer used to encode the fragments
+     */
+    public StateSerializer<State> serializer() {
+        return serializer;
+    }
+
+    @Override
+    public String contentType() {
+        return serializer.contentType() + ";fragments";
+    }
+
+    /**
+     * @return the number of fragments encoded by the wrapped serializer
+     */
+    public long encodedFragments() {
+        return encodedFragments.sum();
+    }
+
+    /**
+     * @return the number of fragments taken from the cache
+     */
+    public long reusedFragments() {
+        return reusedFragments.sum();
+    }
+
+    private boolean isImmutable( Object value ) {
+        return serializer.stateCloner().isImmutable( value.getClass() );
+    }
+
+    private byte[] encode( Object value ) throws IOException {
+        encodedFragments.increment();
+        return serializer.valueToBytes( value );
+    }
+
+    private byte[] fragmentOf( Object value ) throws IOException {
+        if( !isImmutable( value ) ) {
+            return encode( value );
+        }
+        var key = new Identity( value );
+        byte[] fragment;
+        synchronized( fragments ) {
+            fragment = fragments.get( key );
+        }
+        if( fragment != null ) {
+            reusedFragments.increment();
+            return fragment;
+        }
+        fragment = encode( value );
+        synchronized( fragments ) {
+            fragments.put( key, fragment );
+        }
+        return fragment;
+    }
+
+    private Object valueOf( byte[] fragment ) throws IOException, ClassNotFoundException {
+        return serializer.valueFromBytes( fragment );
+    }
+
+    private boolean isListOfImmutables( Object value ) {
+        if( !( value instanceof List<?> list ) ) {
+            return false;
+        }
+        for( var element : list ) {
+            if( element != null && !isImmutable( element ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFragment( byte[] fragment, DataOutputStream out ) throws IOException {
+        out.writeInt( fragment.length );
+        out.write( fragment );
+    }
+
+    private static byte[] readFragment( DataInputStream in ) throws IOException {
+        var fragment = new byte[ in.readInt() ];
+        in.readFully( fragment );
+        return fragment;
+    }
+
+    @Override
+    public void dataToStream( Map<String, Object> data, OutputStream stream ) throws IOException {
+        Objects.requireNonNull( data, "data cannot be null" );
+        Objects.requireNonNull( stream, "out cannot be null" );
+        var out = new DataOutputStream( stream );
+        out.write( HEADER );
+        out.writeInt( data.size() );
+        for( var entry : data.entrySet() ) {
+            out.writeUTF( entry.getKey() );
+            var value = entry.getValue();
+            if( value == null ) {
+                out.write( KIND_NULL );
+            }
+            else if( !isImmutable( value ) && isListOfImmutables( value ) ) {
+                var list = (List<?>)value;
+                out.write( KIND_LIST );
+                out.writeInt( list.size() );
+                for( var element : list ) {
+                    if( element == null ) {
+                        out.writeInt( -1 );
+                    }
+                    else {
+                        writeFragment( fragmentOf( element ), out );
+                    }
+                }
+            }
+            else {
+                out.write( KIND_VALUE );
+                writeFragment( fragmentOf( value ), out );
+            }
+        }
+        out.flush();
+    }
+
+    @Override
+    public Map<String, Object> dataFromStream( InputStream stream ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( stream, "in cannot be null" );
+        var in = new DataInputStream( StateCompression.decompress( stream ) );
+        var header = new byte[ HEADER.length ];
+        in.readFully( header );
+        if( !Arrays.equals( HEADER, header ) ) {
+            throw new StreamCorruptedException( "invalid incremental state header" );
+        }
+        int size = in.readInt();
+        var result = new HashMap<String,Object>();
+        for( int i = 0; i < size; ++i ) {
+            var key = in.readUTF();
+            int kind = in.readUnsignedByte();
+            switch( kind ) {
+                case KIND_NULL -> result.put( key, null );
+                case KIND_VALUE -> result.put( key, valueOf( readFragment( in ) ) );
+                case KIND_LIST -> {
+                    int length = in.readInt();
+                    var list = new ArrayList<Object>();
+                    for( int e = 0; e < length; ++e ) {
+                        int fragmentLength = in.readInt();
+                        if( fragmentLength < 0 ) {
+                            list.add( null );
+                            continue;
+                        }
+                        var fragment = new byte[ fragmentLength ];
+                        in.readFully( fragment );
+                        list.add( valueOf( fragment ) );
+                    }
+                    result.put( key, list );
+                }
+                default -> throw new StreamCorruptedException( format( "invalid fragment kind %d of value '%s'", kind, key ) );
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Object> dataFromBytes( byte[] bytes ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        if( bytes.length == 0 ) {
+            throw new IllegalArgumentException("bytes cannot be empty");
+        }
+        return dataFromStream( new ByteArrayInputStream( bytes ) );
+    }
+
+    @Override
+    public void writeData( Map<String, Object> data, ObjectOutput out ) throws IOException {
+        var bytes = dataToBytes( data );
+        out.writeInt( bytes.length );
+        out.write( bytes );
+    }
+
+    @Override
+    public Map<String, Object> readData( ObjectInput in ) throws IOException, ClassNotFoundException {
+        var bytes = new byte[ in.readInt() ];
+        in.readFully( bytes );
+        return dataFromBytes( bytes );
+    }
+
+}
@@ -0,0 +1,422 @@
+package org.bsc.langgraph4j.serializer;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.lang.String.format;
+
+/**
+ * Deep copies the state data without serializing it.
+ * <p>
+ * The values are copied as follows:
+ * </p>
+ * <ul>
+ *     <li>immutable values (strings, boxed primitives, enums, {@code java.time} values, records whose components
+ *     are all immutable, types registered by {@link #registerImmutable(Class)}) are shared with the copy</li>
+ *     <li>the values of a type registered by {@link #register(Class, Copier)} are copied by its {@link Copier}</li>
+ *     <li>the common collections (e.g. {@code ArrayList}, {@code HashMap}, {@code List.of(...)}, unmodifiable views),
+ *     {@code Optional} and arrays are copied element by element, keeping their type.
+ *     Immutable collections containing only immutable values are shared</li>
+ *     <li>the entries containing any other value are copied by a round trip through the {@link StateSerializer}</li>
+ * </ul>
+ * <p>
+ * A value referenced more than once in the state is copied once, so the copy preserves the shared references.
+ * The entries copied through the serializer are instead copied together in a separate round trip, so a mutable
+ * value referenced both by them and by an entry copied directly results in two distinct copies, and the sharing
+ * among them is preserved only as far as the serializer does.
+ * To keep such references shared, register a copier (or the immutability) of the types that cause the round trip,
+ * as the LangChain4j and Spring AI serializers do for their message types.
+ * </p>
+ * <p>
+ * The registration of copiers is expected at setup time, before the cloner is used by a graph execution.
+ * </p>
+ *
+ * @see StateSerializer#stateCloner()
+ */
+public class StateCloner {
+
+    /**
+     * Copies the values of a type
+     *
+     * @param <T> the type of the values
+     */
+    @FunctionalInterface
+    public interface Copier<T> {
+        /**
+         * Copies a value. The nested values must be copied by {@link Context#copy(Object)}.
+         *
+         * @param value the value to copy, never null
+         * @param context the context of the copy
+         * @return the copy of the value
+         * @throws Exception if the value cannot be copied
+         */
+        T copy( T value, Context context ) throws Exception;
+    }
+
+    /**
+     * The context of a state copy, that keeps track of the values already copied
+     */
+    public interface Context {
+        /**
+         * Copies a nested value
+         *
+         * @param value the value to copy, can be null
+         * @return the copy of the value, or the value itself if immutable
+         * @param <V> the type of the value
+         * @throws Exception if the value cannot be copied
+         */
+        <V> V copy( V value ) throws Exception;
+
+        /**
+         * Records the copy of a value before copying its content, so that the references to the value
+         * nested in its content (cycles) are resolved to the copy
+         *
+         * @param value the value to copy
+         * @param copy the (empty) copy of the value
+         */
+        void copied( Object value, Object copy );
+    }
+
+    // raised when a value doesn't have a copier, the whole entry is copied through the serializer
+    private static final class UnsupportedValue extends RuntimeException {
+        private UnsupportedValue() {
+            super( null, null, false, false );
+        }
+    }
+
+    private static final UnsupportedValue UNSUPPORTED = new UnsupportedValue();
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class,
+            Instant.class, LocalDate.class, LocalTime.class, LocalDateTime.class, OffsetDateTime.class,
+            OffsetTime.class, ZonedDateTime.class, Duration.class, Period.class, Year.class, YearMonth.class,
+            MonthDay.class,
+            Collections.emptyList().getClass(), Collections.emptySet().getClass(), Collections.emptyMap().getClass() );
+
+    private static final ClassValue<Boolean> IMMUTABLE = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return isImmutableType( type, new HashSet<>() );
+        }
+    };
+
+    private static boolean isImmutableType( Class<?> type, Set<Class<?>> visiting ) {
+        if( type.isPrimitive() || IMMUTABLE_TYPES.contains(type) || Enum.class.isAssignableFrom(type) ||
+                ZoneId.class.isAssignableFrom(type) ) {
+            return true;
+        }
+        if( !type.isRecord() ) {
+            return false;
+        }
+        if( !visiting.add(type) ) {
+            return true; // recursive record, decided by the other components
+        }
+        for( var component : type.getRecordComponents() ) {
+            if( !isImmutableType( component.getType(), visiting ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final Map<Class<?>, Copier<?>> BUILTIN_COPIERS = builtinCopiers();
+
+    private final StateSerializer<?> serializer;
+    private final Map<Class<?>, Copier<?>> copiers = new ConcurrentHashMap<>();
+    private final Set<Class<?>> immutables = ConcurrentHashMap.newKeySet();
+    // copier resolved for each value type, empty if the type is copied by the serializer
+    private final Map<Class<?>, Optional<Copier<Object>>> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a cloner that falls back to a round trip through the given serializer
+     *
+     * @param serializer the state serializer
+     */
+    public StateCloner( StateSerializer<?> serializer ) {
+        this.serializer = Objects.requireNonNull( serializer, "serializer cannot be null" );
+    }
+
+    /**
+     * Registers the copier of a type. The copier applies also to the subtypes that don't have their own copier.
+     *
+     * @param type the type of the values
+     * @param copier the copier
+     * @return this cloner
+     * @param <T> the type of the values
+     */
+    public <T> StateCloner register( Class<T> type, Copier<T> copier ) {
+        Objects.requireNonNull( type, "type cannot be null" );
+        Objects.requireNonNull( copier, "copier cannot be null" );
+        copiers.put( type, copier );
+        resolved.clear();
+        return this;
+    }
+
+    /**
+     * Registers a type whose values are immutable, so they are shared with the copy
+     *
+     * @param type the immutable type
+     * @return this cloner
+     */
+    public StateCloner registerImmutable( Class<?> type ) {
+        Objects.requireNonNull( type, "type cannot be null" );
+        immutables.add( type );
+        return this;
+    }
+
+    /**
+     * Deep copies the state data
+     *
+     * @param data the state data
+     * @return the copy of the data
+     * @throws IOException if an entry copied through the serializer cannot be serialized
+     * @throws ClassNotFoundException if an entry copied through the serializer cannot be deserialized
+     */
+    public Map<String,Object> cloneData( Map<String,Object> data ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( data, "data cannot be null" );
+
+        var context = new CopyContext();
+        var result = new HashMap<String,Object>( (int)(data.size() / 0.75f) + 1 );
+        Map<String,Object> unsupported = null;
+
+        for( var entry : data.entrySet() ) {
+            try {
+                context.startEntry();
+                result.put( entry.getKey(), context.copy( entry.getValue() ) );
+            }
+            catch( UnsupportedValue e ) {
+                context.discardEntry();
+                if( unsupported == null ) {
+                    unsupported = new HashMap<>();
+                }
+                unsupported.put( entry.getKey(), entry.getValue() );
+            }
+            catch( IOException | ClassNotFoundException | RuntimeException e ) {
+                throw e;
+            }
+            catch( Exception e ) {
+                throw new IOException( format( "error copying state value '%s'", entry.getKey() ), e );
+            }
+        }
+
+        if( unsupported != null ) {
+            result.putAll( roundTrip( unsupported ) );
+        }
+        return result;
+    }
+
+    private Map<String,Object> roundTrip( Map<String,Object> data ) throws IOException, ClassNotFoundException {
+        var bytes = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream( bytes ) ) {
+            serializer.writeData( data, out );
+        }
+        try( var in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) ) {
+            return serializer.readData( in );
+        }
+    }
+
+    /**
+     * Tells whether the values of the given type are immutable, so they are shared with the copy
+     *
+     * @param type the value type
+     * @return true if the type is immutable, by the rules of this cloner or because it is registered
+     */
+    public boolean isImmutable( Class<?> type ) {
+        return IMMUTABLE.get(type) || ( !immutables.isEmpty() && immutables.contains(type) );
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<Copier<Object>> copierOf( Class<?> type ) {
+        return resolved.computeIfAbsent( type, t -> {
+            Copier<?> copier = copiers.get(t);
+            if( copier == null ) {
+                copier = BUILTIN_COPIERS.get(t);
+            }
+            if( copier == null ) {
+                copier = copiers.entrySet().stream()
+                        .filter( e -> e.getKey().isAssignableFrom(t) )
+                        .map( Map.Entry::getValue )
+                        .findFirst()
+                        .orElse(null);
+            }
+            if( copier == null && t.isArray() ) {
+                copier = StateCloner::copyArray;
+            }
+            return Optional.ofNullable( (Copier<Object>)copier );
+        });
+    }
+
+    private final class CopyContext implements Context {
+        private final Map<Object,Object> copies = new IdentityHashMap<>();
+        // values copied while copying the current entry, forgotten if the entry is copied through the serializer
+        private final List<Object> entryCopies = new ArrayList<>();
+
+        void startEntry() {
+            entryCopies.clear();
+        }
+
+        void discardEntry() {
+            entryCopies.forEach( copies::remove );
+            entryCopies.clear();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <V> V copy( V value ) throws Exception {
+            if( value == null ) {
+                return null;
+            }
+            final var type = value.getClass();
+            if( isImmutable( type ) ) {
+                return value;
+            }
+            var copy = copies.get( value );
+            if( copy != null ) {
+                return (V)copy;
+            }
+            var copier = copierOf( type ).orElseThrow( () -> UNSUPPORTED );
+            copy = copier.copy( value, this );
+            copied( value, copy );
+            return (V)copy;
+        }
+
+        @Override
+        public void copied( Object value, Object copy ) {
+            if( copies.put( value, copy ) == null ) {
+                entryCopies.add( value );
+            }
+        }
+    }
+
+    private static Map<Class<?>, Copier<?>> builtinCopiers() {
+        var result = new HashMap<Class<?>, Copier<?>>();
+
+        result.put( ArrayList.class, (Copier<ArrayList<Object>>) (value, context) ->
+                copyInto( value, new ArrayList<>( value.size() ), context ) );
+        result.put( LinkedList.class, (Copier<LinkedList<Object>>) (value, context) ->
+                copyInto( value, new LinkedList<>(), context ) );
+        result.put( HashSet.class, (Copier<HashSet<Object>>) (value, context) ->
+                copyInto( value, new HashSet<>( (int)(value.size() / 0.75f) + 1 ), context ) );
+        result.put( LinkedHashSet.class, (Copier<LinkedHashSet<Object>>) (value, context) ->
+                copyInto( value, new LinkedHashSet<>( (int)(value.size() / 0.75f) + 1 ), context ) );
+        result.put( TreeSet.class, (Copier<TreeSet<Object>>) (value, context) ->
+                copyInto( value, new TreeSet<>( value.comparator() ), context ) );
+        result.put( HashMap.class, (Copier<HashMap<Object,Object>>) (value, context) ->
+                copyInto( value, new HashMap<>( (int)(value.size() / 0.75f) + 1 ), context ) );
+        result.put( LinkedHashMap.class, (Copier<LinkedHashMap<Object,Object>>) (value, context) ->
+                copyInto( value, new LinkedHashMap<>( (int)(value.size() / 0.75f) + 1 ), context ) );
+        result.put( TreeMap.class, (Copier<TreeMap<Object,Object>>) (value, context) ->
+                copyInto( value, new TreeMap<>( value.comparator() ), context ) );
+
+        // List.of(...), Set.of(...) and Map.of(...) are shared if their content is immutable.
+        // Stream.toList() returns the same list class but allows nulls, that List.of(...) rejects
+        final Copier<List<Object>> immutableList = (value, context) -> {
+            var copy = copyElements( value, context );
+            if( copy == null ) {
+                return value;
+            }
+            return Arrays.asList( copy ).contains( null ) ?
+                    Collections.unmodifiableList( Arrays.asList( copy ) ) :
+                    List.of( copy );
+        };
+        result.put( List.of().getClass(), immutableList );
+        result.put( List.of(1).getClass(), immutableList );
+        final Copier<Set<Object>> immutableSet = (value, context) -> {
+            var copy = copyElements( value, context );
+            return ( copy == null ) ? value : Set.copyOf( Arrays.asList( copy ) );
+        };
+        result.put( Set.of().getClass(), immutableSet );
+        result.put( Set.of(1).getClass(), immutableSet );
+        final Copier<Map<Object,Object>> immutableMap = (value, context) -> {
+            var copy = new HashMap<Object,Object>( (int)(value.size() / 0.75f) + 1 );
+            var same = true;
+            for( var entry : value.entrySet() ) {
+                var copiedKey = context.copy( entry.getKey() );
+                var copiedValue = context.copy( entry.getValue() );
+                same &= ( copiedKey == entry.getKey() && copiedValue == entry.getValue() );
+                copy.put( copiedKey, copiedValue );
+            }
+            return same ? value : Map.copyOf( copy );
+        };
+        result.put( Map.of().getClass(), immutableMap );
+        result.put( Map.of(1, 1).getClass(), immutableMap );
+
+        // unmodifiable views are copied, since the wrapped collection may be changed by its owner
+        result.put( Collections.unmodifiableList( new ArrayList<>() ).getClass(), (Copier<List<Object>>) (value, context) ->
+                Collections.unmodifiableList( copyInto( value, new ArrayList<>( value.size() ), context ) ) );
+        result.put( Collections.unmodifiableList( new LinkedList<>() ).getClass(), (Copier<List<Object>>) (value, context) ->
+                Collections.unmodifiableList( copyInto( value, new LinkedList<>(), context ) ) );
+        result.put( Collections.unmodifiableSet( new HashSet<>() ).getClass(), (Copier<Set<Object>>) (value, context) ->
+                Collections.unmodifiableSet( copyInto( value, new LinkedHashSet<>( (int)(value.size() / 0.75f) + 1 ), context ) ) );
+        result.put( Collections.unmodifiableMap( new HashMap<>() ).getClass(), (Copier<Map<Object,Object>>) (value, context) ->
+                Collections.unmodifiableMap( copyInto( value, new LinkedHashMap<>( (int)(value.size() / 0.75f) + 1 ), context ) ) );
+
+        result.put( Optional.class, (Copier<Optional<Object>>) (value, context) -> {
+            if( value.isEmpty() ) {
+                return value;
+            }
+            var copy = context.copy( value.get() );
+            return ( copy == value.get() ) ? value : Optional.of( copy );
+        });
+        result.put( Date.class, (Copier<Date>) (value, context) -> new Date( value.getTime() ) );
+
+        return Map.copyOf( result );
+    }
+
+    private static <C extends Collection<Object>> C copyInto( Collection<?> source, C target, Context context ) throws Exception {
+        context.copied( source, target );
+        for( var element : source ) {
+            target.add( context.copy( element ) );
+        }
+        return target;
+    }
+
+    private static <M extends Map<Object,Object>> M copyInto( Map<?,?> source, M target, Context context ) throws Exception {
+        context.copied( source, target );
+        for( var entry : source.entrySet() ) {
+            target.put( context.copy( entry.getKey() ), context.copy( entry.getValue() ) );
+        }
+        return target;
+    }
+
+    /**
+     * Copies the elements of an immutable collection
+     *
+     * @return the copied elements, or null if all the elements are immutable
+     */
+    private static Object[] copyElements( Collection<?> source, Context context ) throws Exception {
+        var copy = new Object[source.size()];
+        var same = true;
+        var i = 0;
+        for( var element : source ) {
+            copy[i] = context.copy( element );
+            same &= ( copy[i++] == element );
+        }
+        return same ? null : copy;
+    }
+
+    private static Object copyArray( Object value, Context context ) throws Exception {
+        if( value instanceof Object[] array ) {
+            var copy = array.clone();
+            context.copied( value, copy );
+            for( int i = 0; i < copy.length; ++i ) {
+                copy[i] = context.copy( array[i] );
+            }
+            return copy;
+        }
+        if( value instanceof byte[] array ) return array.clone();
+        if( value instanceof int[] array ) return array.clone();
+        if( value instanceof long[] array ) return array.clone();
+        if( value instanceof double[] array ) return array.clone();
+        if( value instanceof float[] array ) return array.clone();
+        if( value instanceof char[] array ) return array.clone();
+        if( value instanceof short[] array ) return array.clone();
+        if( value instanceof boolean[] array ) return array.clone();
+        throw new IllegalArgumentException( format( "unsupported array type %s", value.getClass() ) );
+    }
+}
@@ -1,24 +1,44 @@
 package org.bsc.langgraph4j.serializer;
 
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
 
 public abstract class StateSerializer<State extends AgentState> implements Serializer<State> {
 
+    // key of the single entry state used by default to serialize a single value
+    private static final String VALUE_KEY = "";
+
     private final AgentStateFactory<State> stateFactory;
+    private final StateCloner stateCloner;
 
     protected StateSerializer( AgentStateFactory<State> stateFactory) {
         this.stateFactory = Objects.requireNonNull(stateFactory, "stateFactory cannot be null");
+        this.stateCloner = new StateCloner(this);
     }
 
     public final AgentStateFactory<State> stateFactory() {
         return stateFactory;
     }
 
+    /**
+     * Returns the cloner used by the graph execution to copy the states, that falls back to this serializer
+     * for the values it cannot copy. Custom copiers can be registered on it.
+     *
+     * @return the state cloner
+     */
+    public final StateCloner stateCloner() {
+        return stateCloner;
+    }
+
     public final State stateOf( Map<String,Object> data) {
         Objects.requireNonNull( data, "data cannot be null");
         return stateFactory.apply( data);
@@ -43,25 +63,255 @@ public abstract class StateSerializer<State extends AgentState> implements Seria
 
     public abstract Map<String,Object> readData( ObjectInput in ) throws IOException, ClassNotFoundException ;
 
-    public final byte[] dataToBytes(Map<String,Object> data) throws IOException {
+    /**
+     * Serializes the given data. Serializers with their own binary layout can override it, together with
+     * {@link #dataFromBytes(byte[])} and {@link #dataFromStream(InputStream)}.
+     *
+     * @param data the data to serialize
+     * @return the serialized data
+     * @throws IOException if an I/O error occurs
+     */
+    public byte[] dataToBytes(Map<String,Object> data) throws IOException {
         Objects.requireNonNull( data, "object cannot be null" );
         try( ByteArrayOutputStream stream = new ByteArrayOutputStream() ) {
-            ObjectOutputStream oas = new ObjectOutputStream(stream);
-            writeData(data, oas);
-            oas.flush();
+            dataToStream(data, stream);
             return stream.toByteArray();
         }
     }
 
-    public final Map<String,Object> dataFromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
+    /**
+     * Serializes the given data into the given stream, the same payload returned by {@link #dataToBytes(Map)}.
+     * The stream is flushed but not closed.
+     *
+     * @param data the data to serialize
+     * @param out the target stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void dataToStream(Map<String,Object> data, OutputStream out) throws IOException {
+        Objects.requireNonNull( data, "object cannot be null" );
+        Objects.requireNonNull( out, "out cannot be null" );
+        ObjectOutputStream oas = new ObjectOutputStream(out);
+        writeData(data, oas);
+        oas.flush();
+    }
+
+    /**
+     * Serializes the given data into the given channel. The channel is not closed.
+     *
+     * @param data the data to serialize
+     * @param channel the target channel
+     * @throws IOException if an I/O error occurs
+     */
+    public final void dataToChannel(Map<String,Object> data, WritableByteChannel channel) throws IOException {
+        Objects.requireNonNull( channel, "channel cannot be null" );
+        dataToStream(data, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Serializes the given data into the given buffer, starting from its position. If the remaining space
+     * isn't enough, a larger buffer of the same kind (heap or direct) is allocated and returned in its place,
+     * so the buffers can be pooled by the caller.
+     *
+     * @param data the data to serialize
+     * @param buffer the target buffer
+     * @return the buffer holding the payload, flipped for reading
+     * @throws IOException if an I/O error occurs
+     */
+    public final ByteBuffer dataToByteBuffer(Map<String,Object> data, ByteBuffer buffer) throws IOException {
+        Objects.requireNonNull( buffer, "buffer cannot be null" );
+        var out = new ByteBufferOutputStream(buffer);
+        dataToStream(data, out);
+        return out.buffer.flip();
+    }
+
+    /**
+     * Serializes the given data into a new heap buffer, without the copy performed by {@link #dataToBytes(Map)}.
+     *
+     * @param data the data to serialize
+     * @return the buffer holding the payload, flipped for reading
+     * @throws IOException if an I/O error occurs
+     */
+    public final ByteBuffer dataToByteBuffer(Map<String,Object> data) throws IOException {
+        return dataToByteBuffer(data, ByteBuffer.allocate(1024));
+    }
+
+    /**
+     * Serializes the given data, compressing the result if its size exceeds the compression threshold.
+     *
+     * @param data the data to serialize
+     * @param compression the compression to apply
+     * @return the serialized data, tagged with the codec id if compressed
+     * @throws IOException if an I/O error occurs
+     * @see StateCompression
+     */
+    public final byte[] dataToBytes(Map<String,Object> data, StateCompression compression) throws IOException {
+        Objects.requireNonNull( compression, "compression cannot be null" );
+        return compression.compress( dataToBytes(data) );
+    }
+
+    /**
+     * Deserializes the given bytes. Payloads compressed by a {@link StateCompression} are detected and
+     * decompressed.
+     *
+     * @param bytes the serialized data
+     * @return the deserialized data
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a serialized class cannot be found
+     */
+    public Map<String,Object> dataFromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
         Objects.requireNonNull( bytes, "bytes cannot be null" );
         if( bytes.length == 0 ) {
             throw new IllegalArgumentException("bytes cannot be empty");
         }
-        try( ByteArrayInputStream stream = new ByteArrayInputStream( bytes ) ) {
+        try( ByteArrayInputStream stream = new ByteArrayInputStream( StateCompression.decompress(bytes) ) ) {
             ObjectInputStream ois = new ObjectInputStream(stream);
             return readData(ois);
         }
     }
 
+    /**
+     * Deserializes the data read from the given stream. Payloads compressed by a {@link StateCompression} are
+     * detected and decompressed.
+     *
+     * @param in the stream of the serialized data
+     * @return the deserialized data
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a serialized class cannot be found
+     */
+    public Map<String,Object> dataFromStream(InputStream in) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( in, "in cannot be null" );
+        ObjectInputStream ois = new ObjectInputStream( StateCompression.decompress(in) );
+        return readData(ois);
+    }
+
+    /**
+     * Deserializes the data between the position and the limit of the given buffer, without copying it.
+     * On return the buffer position is moved to its limit. Payloads compressed by a {@link StateCompression}
+     * are detected and decompressed.
+     *
+     * @param buffer the serialized data
+     * @return the deserialized data
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a serialized class cannot be found
+     */
+    public Map<String,Object> dataFromByteBuffer(ByteBuffer buffer) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( buffer, "buffer cannot be null" );
+        if( !buffer.hasRemaining() ) {
+            throw new IllegalArgumentException("buffer cannot be empty");
+        }
+        var result = dataFromStream( new ByteBufferInputStream(buffer.duplicate()) );
+        buffer.position(buffer.limit());
+        return result;
+    }
+
+    /**
+     * Serializes a single state value, so that the values can be encoded and stored independently
+     * (see {@link IncrementalStateSerializer}). Serializers should override it to drop the framing of a whole state,
+     * by default the value is serialized as the only entry of a state.
+     *
+     * @param value the value to serialize
+     * @return the serialized value
+     * @throws IOException if an I/O error occurs
+     */
+    public byte[] valueToBytes(Object value) throws IOException {
+        Objects.requireNonNull( value, "value cannot be null" );
+        return dataToBytes( Collections.singletonMap( VALUE_KEY, value ) );
+    }
+
+    /**
+     * Deserializes a single state value serialized by {@link #valueToBytes(Object)}
+     *
+     * @param bytes the serialized value
+     * @return the deserialized value
+     * @throws IOException if an I/O error occurs
+     * @throws ClassNotFoundException if a serialized class cannot be found
+     */
+    public Object valueFromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
+        return dataFromBytes( bytes ).get( VALUE_KEY );
+    }
+
+    private static final class ByteBufferOutputStream extends OutputStream {
+        private ByteBuffer buffer;
+
+        ByteBufferOutputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void ensureRemaining(int length) {
+            if( buffer.remaining() >= length ) {
+                return;
+            }
+            var capacity = Math.max( buffer.capacity() << 1, buffer.position() + length );
+            var larger = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureRemaining(1);
+            buffer.put((byte)b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureRemaining(len);
+            buffer.put(b, off, len);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if( len == 0 ) {
+                return 0;
+            }
+            if( !buffer.hasRemaining() ) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int)Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public void mark(int readlimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public void reset() {
+            buffer.reset();
+        }
+    }
+
 }
@@ -0,0 +1,221 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+
+import static java.lang.String.format;
+
+/**
+ * An {@link ObjectInput} reading from a byte array written by {@link BinaryOutput}.
+ * Objects are read by the {@link BinarySerializerMapper} decoding.
+ */
+final class BinaryInput implements ObjectInput {
+
+    private final BinarySerializerMapper mapper;
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    BinaryInput( BinarySerializerMapper mapper, byte[] buffer, int offset, int length ) {
+        this.mapper = mapper;
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    private void require( int length ) throws EOFException {
+        if( length < 0 || limit - position < length ) {
+            throw new EOFException( format( "binary state truncated: required %d bytes, available %d", length, limit - position ) );
+        }
+    }
+
+    int remaining() {
+        return limit - position;
+    }
+
+    int readVarInt() throws IOException {
+        int result = 0;
+        for( int shift = 0; shift < 32; shift += 7 ) {
+            require( 1 );
+            byte b = buffer[position++];
+            result |= (b & 0x7F) << shift;
+            if( (b & 0x80) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "malformed varint" );
+    }
+
+    long readVarLong() throws IOException {
+        long result = 0;
+        for( int shift = 0; shift < 64; shift += 7 ) {
+            require( 1 );
+            byte b = buffer[position++];
+            result |= (long)(b & 0x7F) << shift;
+            if( (b & 0x80) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "malformed varint" );
+    }
+
+    int readZigZagInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    long readZigZagLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    String readString() throws IOException {
+        int length = readVarInt();
+        require( length );
+        var result = new String( buffer, position, length, StandardCharsets.UTF_8 );
+        position += length;
+        return result;
+    }
+
+    byte[] readBytes( int length ) throws IOException {
+        require( length );
+        var result = new byte[length];
+        System.arraycopy( buffer, position, result, 0, length );
+        position += length;
+        return result;
+    }
+
+    @Override
+    public Object readObject() throws ClassNotFoundException, IOException {
+        return mapper.readValue( this );
+    }
+
+    @Override
+    public int read() {
+        return ( position < limit ) ? buffer[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read( byte[] b ) {
+        return read( b, 0, b.length );
+    }
+
+    @Override
+    public int read( byte[] b, int off, int len ) {
+        if( len == 0 ) {
+            return 0;
+        }
+        if( position >= limit ) {
+            return -1;
+        }
+        int count = Math.min( len, limit - position );
+        System.arraycopy( buffer, position, b, off, count );
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip( long n ) {
+        long count = Math.max( 0, Math.min( n, limit - position ) );
+        position += (int)count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void readFully( byte[] b ) throws IOException {
+        readFully( b, 0, b.length );
+    }
+
+    @Override
+    public void readFully( byte[] b, int off, int len ) throws IOException {
+        require( len );
+        System.arraycopy( buffer, position, b, off, len );
+        position += len;
+    }
+
+    @Override
+    public int skipBytes( int n ) {
+        return (int)skip( n );
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        require( 1 );
+        return buffer[position++];
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        return readByte() & 0xFF;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        require( 2 );
+        return (short)(((buffer[position++] & 0xFF) << 8) | (buffer[position++] & 0xFF));
+    }
+
+    @Override
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char)readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        require( 4 );
+        return ((buffer[position++] & 0xFF) << 24) |
+                ((buffer[position++] & 0xFF) << 16) |
+                ((buffer[position++] & 0xFF) << 8) |
+                (buffer[position++] & 0xFF);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return ((long)readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat( readInt() );
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble( readLong() );
+    }
+
+    @Override
+    public String readLine() {
+        throw new UnsupportedOperationException( "readLine is not supported" );
+    }
+
+    /**
+     * Reads a string written by {@link BinaryOutput#writeUTF(String)}
+     */
+    @Override
+    public String readUTF() throws IOException {
+        return readString();
+    }
+}
@@ -0,0 +1,277 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import java.io.IOException;
+import java.io.ObjectOutput;
+import java.util.Arrays;
+
+/**
+ * An {@link ObjectOutput} writing to a growable byte array, reused across the payloads written by the same thread.
+ * Objects are written by the {@link BinarySerializerMapper} encoding.
+ */
+final class BinaryOutput implements ObjectOutput {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    // buffers grown beyond this size are not retained by the thread
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<BinaryOutput> BUFFER = new ThreadLocal<>();
+
+    private final BinarySerializerMapper mapper;
+    private byte[] buffer;
+    private int size;
+    private boolean inUse;
+
+    private BinaryOutput( BinarySerializerMapper mapper, int capacity ) {
+        this.mapper = mapper;
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Returns the buffer of the current thread, or a new one if it is already in use (nested serialization).
+     * The buffer must be released by {@link #release()}.
+     */
+    static BinaryOutput acquire( BinarySerializerMapper mapper ) {
+        var output = BUFFER.get();
+        if( output == null ) {
+            output = new BinaryOutput( mapper, INITIAL_CAPACITY );
+            BUFFER.set( output );
+        }
+        else if( output.inUse || output.mapper != mapper ) {
+            // nested serialization or another serializer, the thread buffer is left untouched
+            output = new BinaryOutput( mapper, INITIAL_CAPACITY );
+        }
+        output.inUse = true;
+        output.size = 0;
+        return output;
+    }
+
+    void release() {
+        inUse = false;
+        if( buffer.length > MAX_RETAINED_CAPACITY && BUFFER.get() == this ) {
+            BUFFER.remove();
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf( buffer, size );
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    private void ensureCapacity( int additional ) {
+        var required = size + additional;
+        if( required > buffer.length ) {
+            buffer = Arrays.copyOf( buffer, Math.max( required, buffer.length << 1 ) );
+        }
+    }
+
+    void writeVarInt( int value ) {
+        ensureCapacity( 5 );
+        while( (value & ~0x7F) != 0 ) {
+            buffer[size++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte)value;
+    }
+
+    void writeVarLong( long value ) {
+        ensureCapacity( 10 );
+        while( (value & ~0x7FL) != 0 ) {
+            buffer[size++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte)value;
+    }
+
+    void writeZigZagInt( int value ) {
+        writeVarInt( (value << 1) ^ (value >> 31) );
+    }
+
+    void writeZigZagLong( long value ) {
+        writeVarLong( (value << 1) ^ (value >> 63) );
+    }
+
+    /**
+     * Writes a string as varint length of its UTF-8 encoding followed by the encoded bytes,
+     * encoding it directly into the buffer
+     */
+    void writeString( String value ) {
+        final int length = value.length();
+        int utf8Length = length;
+        for( int i = 0; i < length; ++i ) {
+            char c = value.charAt(i);
+            if( c >= 0x80 ) {
+                utf8Length = utf8Length( value, i );
+                break;
+            }
+        }
+        writeVarInt( utf8Length );
+        ensureCapacity( utf8Length );
+        if( utf8Length == length ) {
+            for( int i = 0; i < length; ++i ) {
+                buffer[size++] = (byte)value.charAt(i);
+            }
+            return;
+        }
+        for( int i = 0; i < length; ++i ) {
+            char c = value.charAt(i);
+            if( c < 0x80 ) {
+                buffer[size++] = (byte)c;
+            }
+            else if( c < 0x800 ) {
+                buffer[size++] = (byte)(0xC0 | (c >> 6));
+                buffer[size++] = (byte)(0x80 | (c & 0x3F));
+            }
+            else if( Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate( value.charAt(i + 1) ) ) {
+                int codePoint = Character.toCodePoint( c, value.charAt(++i) );
+                buffer[size++] = (byte)(0xF0 | (codePoint >> 18));
+                buffer[size++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[size++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[size++] = (byte)(0x80 | (codePoint & 0x3F));
+            }
+            else if( Character.isSurrogate(c) ) {
+                buffer[size++] = '?'; // unpaired surrogate, as String.getBytes(UTF_8)
+            }
+            else {
+                buffer[size++] = (byte)(0xE0 | (c >> 12));
+                buffer[size++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                buffer[size++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private static int utf8Length( String value, int from ) {
+        int result = from;
+        final int length = value.length();
+        for( int i = from; i < length; ++i ) {
+            char c = value.charAt(i);
+            if( c < 0x80 ) {
+                result += 1;
+            }
+            else if( c < 0x800 ) {
+                result += 2;
+            }
+            else if( Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate( value.charAt(i + 1) ) ) {
+                result += 4;
+                ++i;
+            }
+            else if( Character.isSurrogate(c) ) {
+                result += 1;
+            }
+            else {
+                result += 3;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void writeObject( Object obj ) throws IOException {
+        mapper.writeValue( obj, this );
+    }
+
+    @Override
+    public void write( int b ) {
+        ensureCapacity( 1 );
+        buffer[size++] = (byte)b;
+    }
+
+    @Override
+    public void write( byte[] b ) {
+        write( b, 0, b.length );
+    }
+
+    @Override
+    public void write( byte[] b, int off, int len ) {
+        ensureCapacity( len );
+        System.arraycopy( b, off, buffer, size, len );
+        size += len;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void writeBoolean( boolean v ) {
+        write( v ? 1 : 0 );
+    }
+
+    @Override
+    public void writeByte( int v ) {
+        write( v );
+    }
+
+    @Override
+    public void writeShort( int v ) {
+        ensureCapacity( 2 );
+        buffer[size++] = (byte)(v >>> 8);
+        buffer[size++] = (byte)v;
+    }
+
+    @Override
+    public void writeChar( int v ) {
+        writeShort( v );
+    }
+
+    @Override
+    public void writeInt( int v ) {
+        ensureCapacity( 4 );
+        buffer[size++] = (byte)(v >>> 24);
+        buffer[size++] = (byte)(v >>> 16);
+        buffer[size++] = (byte)(v >>> 8);
+        buffer[size++] = (byte)v;
+    }
+
+    @Override
+    public void writeLong( long v ) {
+        writeInt( (int)(v >>> 32) );
+        writeInt( (int)v );
+    }
+
+    @Override
+    public void writeFloat( float v ) {
+        writeInt( Float.floatToIntBits(v) );
+    }
+
+    @Override
+    public void writeDouble( double v ) {
+        writeLong( Double.doubleToLongBits(v) );
+    }
+
+    @Override
+    public void writeBytes( String s ) {
+        final int length = s.length();
+        ensureCapacity( length );
+        for( int i = 0; i < length; ++i ) {
+            buffer[size++] = (byte)s.charAt(i);
+        }
+    }
+
+    @Override
+    public void writeChars( String s ) {
+        final int length = s.length();
+        for( int i = 0; i < length; ++i ) {
+            writeChar( s.charAt(i) );
+        }
+    }
+
+    /**
+     * Unlike {@link java.io.DataOutput#writeUTF(String)} there is no 64K limit, the string is written
+     * as varint length and UTF-8 bytes.
+     */
+    @Override
+    public void writeUTF( String s ) {
+        writeString( s );
+    }
+}
@@ -0,0 +1,336 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Registry of the {@link Serializer}s used by {@link BinaryStateSerializer}. Each registered type is identified in
+ * the payload by a numeric type id instead of its class name, so the ids must be stable across the applications
+ * sharing the serialized states.
+ * <p>
+ * The value classes are resolved first by exact match and then by assignability, the result (including the absence
+ * of a serializer) is cached per class.
+ * </p>
+ */
+public class BinarySerializerMapper {
+
+    static final int TAG_NULL = 0;
+    static final int TAG_FALSE = 1;
+    static final int TAG_TRUE = 2;
+    static final int TAG_INT = 3;
+    static final int TAG_LONG = 4;
+    static final int TAG_DOUBLE = 5;
+    static final int TAG_FLOAT = 6;
+    static final int TAG_SHORT = 7;
+    static final int TAG_BYTE = 8;
+    static final int TAG_CHAR = 9;
+    static final int TAG_STRING = 10;
+    static final int TAG_BYTES = 11;
+    static final int TAG_LIST = 12;
+    static final int TAG_SET = 13;
+    static final int TAG_MAP = 14;
+    static final int TAG_REGISTERED = 15;
+    static final int TAG_JAVA = 16;
+
+    private record Registration( int typeId, Class<?> type, Serializer<Object> serializer ) {}
+
+    private static final Registration NONE = new Registration( -1, Void.class, null );
+
+    private final Map<Class<?>, Registration> registrationsByType = new LinkedHashMap<>();
+    private final Map<Integer, Registration> registrationsById = new HashMap<>();
+    private final Map<Class<?>, Registration> resolved = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a serializer for the given type
+     *
+     * @param typeId the id written in the payload in place of the class name, must be non-negative and unique
+     * @param clazz the type, its subclasses are serialized by the same serializer unless registered on their own
+     * @param serializer the serializer
+     * @return this mapper
+     * @throws IllegalArgumentException if the type id is negative or already registered for another type
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized BinarySerializerMapper register( int typeId, Class<?> clazz, Serializer<?> serializer ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
+        Objects.requireNonNull( serializer, "serializer cannot be null" );
+        if( typeId < 0 ) {
+            throw new IllegalArgumentException( format( "type id cannot be negative: %d", typeId ) );
+        }
+        var existing = registrationsById.get( typeId );
+        if( existing != null && !existing.type().equals( clazz ) ) {
+            throw new IllegalArgumentException( format( "type id %d already registered for '%s'", typeId, existing.type().getName() ) );
+        }
+        var previous = registrationsByType.get( clazz );
+        if( previous != null ) {
+            registrationsById.remove( previous.typeId() );
+        }
+        var registration = new Registration( typeId, clazz, (Serializer<Object>) serializer );
+        registrationsByType.put( clazz, registration );
+        registrationsById.put( typeId, registration );
+        resolved.clear();
+        return this;
+    }
+
+    /**
+     * Removes the serializer registered for the given type
+     *
+     * @param clazz the type
+     * @return true if a serializer was registered
+     */
+    public synchronized boolean unregister( Class<?> clazz ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
+        var registration = registrationsByType.remove( clazz );
+        if( registration == null ) {
+            return false;
+        }
+        registrationsById.remove( registration.typeId() );
+        resolved.clear();
+        return true;
+    }
+
+    /**
+     * @param clazz the value type
+     * @return the serializer used for the values of the given type, if any
+     */
+    public Optional<Serializer<Object>> getSerializer( Class<?> clazz ) {
+        Objects.requireNonNull( clazz, "class cannot be null" );
+        return Optional.ofNullable( resolve( clazz ).serializer() );
+    }
+
+    /**
+     * @param typeId the type id
+     * @return the serializer registered with the given type id, if any
+     */
+    public synchronized Optional<Serializer<Object>> getSerializer( int typeId ) {
+        return Optional.ofNullable( registrationsById.get( typeId ) ).map( Registration::serializer );
+    }
+
+    private Registration resolve( Class<?> clazz ) {
+        var registration = resolved.get( clazz );
+        if( registration == null ) {
+            registration = lookup( clazz );
+            resolved.put( clazz, registration );
+        }
+        return registration;
+    }
+
+    private synchronized Registration lookup( Class<?> clazz ) {
+        var registration = registrationsByType.get( clazz );
+        if( registration != null ) {
+            return registration;
+        }
+        return registrationsByType.values().stream()
+                .filter( r -> r.type().isAssignableFrom( clazz ) )
+                .findFirst()
+                .orElse( NONE );
+    }
+
+    private synchronized Registration lookup( int typeId ) throws StreamCorruptedException {
+        var registration = registrationsById.get( typeId );
+        if( registration == null ) {
+            throw new StreamCorruptedException( format( "no serializer registered for type id %d", typeId ) );
+        }
+        return registration;
+    }
+
+    void writeValue( Object value, BinaryOutput out ) throws IOException {
+        if( value == null ) {
+            out.write( TAG_NULL );
+        }
+        else if( value instanceof String s ) {
+            out.write( TAG_STRING );
+            out.writeString( s );
+        }
+        else if( value instanceof Integer i ) {
+            out.write( TAG_INT );
+            out.writeZigZagInt( i );
+        }
+        else if( value instanceof Long l ) {
+            out.write( TAG_LONG );
+            out.writeZigZagLong( l );
+        }
+        else if( value instanceof Boolean b ) {
+            out.write( b ? TAG_TRUE : TAG_FALSE );
+        }
+        else if( value instanceof Double d ) {
+            out.write( TAG_DOUBLE );
+            out.writeDouble( d );
+        }
+        else {
+            var registration = resolve( value.getClass() );
+            if( registration != NONE ) {
+                out.write( TAG_REGISTERED );
+                out.writeVarInt( registration.typeId() );
+                registration.serializer().write( value, out );
+            }
+            else {
+                writeBuiltin( value, out );
+            }
+        }
+    }
+
+    private void writeBuiltin( Object value, BinaryOutput out ) throws IOException {
+        if( value instanceof Map<?,?> map ) {
+            out.write( TAG_MAP );
+            writeEntries( map, out );
+        }
+        else if( value instanceof Set<?> set ) {
+            out.write( TAG_SET );
+            writeElements( set, out );
+        }
+        else if( value instanceof Collection<?> collection ) {
+            out.write( TAG_LIST );
+            writeElements( collection, out );
+        }
+        else if( value instanceof byte[] bytes ) {
+            out.write( TAG_BYTES );
+            out.writeVarInt( bytes.length );
+            out.write( bytes );
+        }
+        else if( value instanceof Float f ) {
+            out.write( TAG_FLOAT );
+            out.writeFloat( f );
+        }
+        else if( value instanceof Short s ) {
+            out.write( TAG_SHORT );
+            out.writeShort( s );
+        }
+        else if( value instanceof Byte b ) {
+            out.write( TAG_BYTE );
+            out.write( b );
+        }
+        else if( value instanceof Character c ) {
+            out.write( TAG_CHAR );
+            out.writeChar( c );
+        }
+        else if( value instanceof Serializable ) {
+            out.write( TAG_JAVA );
+            var bytes = new ByteArrayOutputStream();
+            try( var oos = new ObjectOutputStream( bytes ) ) {
+                oos.writeObject( value );
+            }
+            out.writeVarInt( bytes.size() );
+            bytes.writeTo( new OutputStream() {
+                @Override
+                public void write( int b ) {
+                    out.write( b );
+                }
+
+                @Override
+                public void write( byte[] b, int off, int len ) {
+                    out.write( b, off, len );
+                }
+            });
+        }
+        else {
+            throw new NotSerializableException( format( "no serializer registered for '%s' and it isn't Serializable", value.getClass().getName() ) );
+        }
+    }
+
+    private void writeElements( Collection<?> collection, BinaryOutput out ) throws IOException {
+        out.writeVarInt( collection.size() );
+        for( var element : collection ) {
+            writeValue( element, out );
+        }
+    }
+
+    private void writeEntries( Map<?,?> map, BinaryOutput out ) throws IOException {
+        out.writeVarInt( map.size() );
+        for( var entry : map.entrySet() ) {
+            writeValue( entry.getKey(), out );
+            writeValue( entry.getValue(), out );
+        }
+    }
+
+    /**
+     * Writes the state data, as number of entries followed by key string and tagged value
+     */
+    void writeData( Map<String,Object> data, BinaryOutput out ) throws IOException {
+        out.writeVarInt( data.size() );
+        for( var entry : data.entrySet() ) {
+            out.writeString( entry.getKey() );
+            writeValue( entry.getValue(), out );
+        }
+    }
+
+    Map<String,Object> readData( BinaryInput in ) throws IOException, ClassNotFoundException {
+        int size = in.readVarInt();
+        var result = new HashMap<String,Object>( capacityOf( Math.min( size, in.remaining() ) ) );
+        for( int i = 0; i < size; ++i ) {
+            var key = in.readString();
+            result.put( key, readValue( in ) );
+        }
+        return result;
+    }
+
+    Object readValue( BinaryInput in ) throws IOException, ClassNotFoundException {
+        int tag = in.readUnsignedByte();
+        switch( tag ) {
+            case TAG_NULL: return null;
+            case TAG_FALSE: return Boolean.FALSE;
+            case TAG_TRUE: return Boolean.TRUE;
+            case TAG_INT: return in.readZigZagInt();
+            case TAG_LONG: return in.readZigZagLong();
+            case TAG_DOUBLE: return in.readDouble();
+            case TAG_FLOAT: return in.readFloat();
+            case TAG_SHORT: return in.readShort();
+            case TAG_BYTE: return in.readByte();
+            case TAG_CHAR: return in.readChar();
+            case TAG_STRING: return in.readString();
+            case TAG_BYTES: return in.readBytes( in.readVarInt() );
+            case TAG_LIST: {
+                int size = in.readVarInt();
+                var result = new ArrayList<Object>( Math.min( size, in.remaining() ) );
+                for( int i = 0; i < size; ++i ) {
+                    result.add( readValue( in ) );
+                }
+                return result;
+            }
+            case TAG_SET: {
+                int size = in.readVarInt();
+                var result = new LinkedHashSet<Object>( capacityOf( Math.min( size, in.remaining() ) ) );
+                for( int i = 0; i < size; ++i ) {
+                    result.add( readValue( in ) );
+                }
+                return result;
+            }
+            case TAG_MAP: {
+                int size = in.readVarInt();
+                var result = new HashMap<Object,Object>( capacityOf( Math.min( size, in.remaining() ) ) );
+                for( int i = 0; i < size; ++i ) {
+                    var key = readValue( in );
+                    result.put( key, readValue( in ) );
+                }
+                return result;
+            }
+            case TAG_REGISTERED:
+                return lookup( in.readVarInt() ).serializer().read( in );
+            case TAG_JAVA: {
+                var bytes = in.readBytes( in.readVarInt() );
+                try( var ois = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+                    return ois.readObject();
+                }
+            }
+            default:
+                throw new StreamCorruptedException( format( "invalid value tag %d", tag ) );
+        }
+    }
+
+    private static int capacityOf( int size ) {
+        return (int)(size / 0.75f) + 1;
+    }
+
+    @Override
+    public synchronized String toString() {
+        var types = registrationsByType.values().stream()
+                .map( r -> format( "%d: %s", r.typeId(), r.type().getName() ) )
+                .collect( Collectors.toList() );
+        return format( "BinarySerializerMapper: \n%s", String.join( "\n", types ) );
+    }
+}
@@ -0,0 +1,174 @@
+package org.bsc.langgraph4j.serializer.binary;
+
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
+import org.bsc.langgraph4j.state.AgentState;
+import org.bsc.langgraph4j.state.AgentStateFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * A compact binary {@link StateSerializer}. Unlike {@link org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer}
+ * it doesn't rely on Java serialization for the state values:
+ * <ul>
+ *     <li>strings, numbers, booleans, byte arrays, lists, sets and maps are written with a one byte tag and varint lengths</li>
+ *     <li>the types registered in the {@link #mapper()} are written with their numeric type id followed by the serializer payload</li>
+ *     <li>any other {@link Serializable} value falls back to Java serialization</li>
+ * </ul>
+ * The encoding buffer is reused by the serializations performed on the same thread.
+ * <p>
+ * The payload starts with a format version byte in place of the Java stream header. When the state is written
+ * to an {@link ObjectOutput} not created by this serializer (e.g. by {@link org.bsc.langgraph4j.checkpoint.FileSystemSaver}),
+ * the payload is embedded as a length prefixed byte array.
+ * </p>
+ *
+ * @param <State> the type of the agent state
+ */
+public class BinaryStateSerializer<State extends AgentState> extends StateSerializer<State> {
+
+    /**
+     * The content type of the serialized states
+     */
+    public static final String CONTENT_TYPE = "application/x-langgraph4j-binary";
+
+    static final byte FORMAT_VERSION = 1;
+
+    private final BinarySerializerMapper mapper = new BinarySerializerMapper();
+
+    public BinaryStateSerializer( AgentStateFactory<State> stateFactory ) {
+        super( stateFactory );
+    }
+
+    public BinarySerializerMapper mapper() {
+        return mapper;
+    }
+
+    @Override
+    public String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public final void writeData( Map<String, Object> data, ObjectOutput out ) throws IOException {
+        Objects.requireNonNull( out, "out cannot be null" );
+        if( out instanceof BinaryOutput binaryOut ) {
+            mapper.writeData( data, binaryOut );
+            return;
+        }
+        Objects.requireNonNull( data, "data cannot be null" );
+        var buffer = BinaryOutput.acquire( mapper );
+        try {
+            buffer.write( FORMAT_VERSION );
+            mapper.writeData( data, buffer );
+            out.writeInt( buffer.size() );
+            out.write( buffer.buffer(), 0, buffer.size() );
+        }
+        finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public final Map<String, Object> readData( ObjectInput in ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( in, "in cannot be null" );
+        if( in instanceof BinaryInput binaryIn ) {
+            return mapper.readData( binaryIn );
+        }
+        var bytes = new byte[ in.readInt() ];
+        in.readFully( bytes );
+        return dataFromBytes( bytes );
+    }
+
+    @Override
+    public byte[] dataToBytes( Map<String, Object> data ) throws IOException {
+        Objects.requireNonNull( data, "data cannot be null" );
+        var out = BinaryOutput.acquire( mapper );
+        try {
+            out.write( FORMAT_VERSION );
+            mapper.writeData( data, out );
+            return out.toByteArray();
+        }
+        finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public void dataToStream( Map<String, Object> data, OutputStream out ) throws IOException {
+        Objects.requireNonNull( data, "data cannot be null" );
+        Objects.requireNonNull( out, "out cannot be null" );
+        var buffer = BinaryOutput.acquire( mapper );
+        try {
+            buffer.write( FORMAT_VERSION );
+            mapper.writeData( data, buffer );
+            out.write( buffer.buffer(), 0, buffer.size() );
+            out.flush();
+        }
+        finally {
+            buffer.release();
+        }
+    }
+
+    @Override
+    public Map<String, Object> dataFromBytes( byte[] bytes ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        if( bytes.length == 0 ) {
+            throw new IllegalArgumentException( "bytes cannot be empty" );
+        }
+        var payload = StateCompression.decompress( bytes );
+        if( payload[0] != FORMAT_VERSION ) {
+            throw new StreamCorruptedException( format( "unsupported binary state format: %d", payload[0] ) );
+        }
+        return mapper.readData( new BinaryInput( mapper, payload, 1, payload.length - 1 ) );
+    }
+
+    /**
+     * Serializes the value with its tag, without the format version and the framing of a state.
+     *
+     * @param value the value to serialize
+     * @return the serialized value
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public byte[] valueToBytes( Object value ) throws IOException {
+        Objects.requireNonNull( value, "value cannot be null" );
+        var out = BinaryOutput.acquire( mapper );
+        try {
+            mapper.writeValue( value, out );
+            return out.toByteArray();
+        }
+        finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public Object valueFromBytes( byte[] bytes ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        return mapper.readValue( new BinaryInput( mapper, bytes, 0, bytes.length ) );
+    }
+
+    @Override
+    public Map<String, Object> dataFromStream( InputStream in ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( in, "in cannot be null" );
+        return dataFromBytes( in.readAllBytes() );
+    }
+
+    @Override
+    public Map<String, Object> dataFromByteBuffer( ByteBuffer buffer ) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( buffer, "buffer cannot be null" );
+        if( !buffer.hasArray() || !buffer.hasRemaining() || buffer.get( buffer.position() ) != FORMAT_VERSION ) {
+            return super.dataFromByteBuffer( buffer );
+        }
+        var offset = buffer.arrayOffset() + buffer.position();
+        var result = mapper.readData( new BinaryInput( mapper, buffer.array(), offset + 1, buffer.remaining() - 1 ) );
+        buffer.position( buffer.limit() );
+        return result;
+    }
+
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains a compact binary {@link org.bsc.langgraph4j.serializer.StateSerializer}, that encodes
+ * the state values without Java serialization: registered types are identified by small integer ids, while
+ * numbers, strings and collections use a varint encoding.
+ *
+ * @see org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer
+ */
+package org.bsc.langgraph4j.serializer.binary;
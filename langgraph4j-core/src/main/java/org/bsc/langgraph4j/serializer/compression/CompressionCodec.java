@@ -0,0 +1,175 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A compression algorithm used to compress serialized states.
+ * <p>
+ * Each codec is identified by a unique id written in the header of compressed payloads, so payloads
+ * compressed by different codecs can be read back. Codecs are resolved by id through a registry that
+ * contains the built-in {@link #DEFLATE} and {@link #GZIP} codecs. Other codecs (e.g. LZ4 or zstd
+ * provided by third party libraries) can be added using {@link #register(CompressionCodec)}.
+ * </p>
+ */
+public interface CompressionCodec {
+
+    /**
+     * Deflate (zlib) codec using the fastest compression level
+     */
+    CompressionCodec DEFLATE = deflate(1, Deflater.BEST_SPEED);
+
+    /**
+     * GZIP codec
+     */
+    CompressionCodec GZIP = new CompressionCodec() {
+        @Override
+        public byte id() {
+            return 2;
+        }
+
+        @Override
+        public String name() {
+            return "gzip";
+        }
+
+        @Override
+        public OutputStream compress(OutputStream out) throws IOException {
+            return new GZIPOutputStream(out);
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in);
+        }
+    };
+
+    /**
+     * @return the unique id of the codec, written in the header of compressed payloads. Ids from 1 to 15 are
+     * reserved for built-in codecs.
+     */
+    byte id();
+
+    /**
+     * @return the name of the codec
+     */
+    String name();
+
+    /**
+     * Wraps the given stream into a stream that compresses the written data.
+     * Closing the returned stream must finish the compression and close the given stream.
+     *
+     * @param out the target stream
+     * @return the compressing stream
+     * @throws IOException if an I/O error occurs
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * Wraps the given stream into a stream that decompresses the read data.
+     *
+     * @param in the source stream
+     * @return the decompressing stream
+     * @throws IOException if an I/O error occurs
+     */
+    InputStream decompress(InputStream in) throws IOException;
+
+    /**
+     * Creates a deflate codec with the given compression level
+     *
+     * @param id the id of the codec
+     * @param level the compression level (see {@link Deflater})
+     * @return the deflate codec
+     */
+    static CompressionCodec deflate(int id, int level) {
+        return new CompressionCodec() {
+            @Override
+            public byte id() {
+                return (byte) id;
+            }
+
+            @Override
+            public String name() {
+                return "deflate";
+            }
+
+            @Override
+            public OutputStream compress(OutputStream out) {
+                var deflater = new Deflater(level);
+                return new DeflaterOutputStream(out, deflater, 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            deflater.end();
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public InputStream decompress(InputStream in) {
+                var inflater = new Inflater();
+                return new InflaterInputStream(in, inflater, 8192) {
+                    @Override
+                    public void close() throws IOException {
+                        try {
+                            super.close();
+                        } finally {
+                            inflater.end();
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Registers a codec so its payloads can be decompressed
+     *
+     * @param codec the codec to register
+     * @throws IllegalArgumentException if a different codec with the same id is already registered
+     */
+    static void register(CompressionCodec codec) {
+        requireNonNull(codec, "codec cannot be null");
+        var registered = Registry.codecs.putIfAbsent(codec.id(), codec);
+        if (registered != null && registered != codec) {
+            throw new IllegalArgumentException(format("codec id %d is already used by codec '%s'", codec.id(), registered.name()));
+        }
+    }
+
+    /**
+     * Returns the codec registered with the given id
+     *
+     * @param id the codec id
+     * @return the codec, if registered
+     */
+    static Optional<CompressionCodec> byId(byte id) {
+        return Optional.ofNullable(Registry.codecs.get(id));
+    }
+
+    final class Registry {
+        private static final Map<Byte, CompressionCodec> codecs = new ConcurrentHashMap<>();
+
+        static {
+            codecs.put(DEFLATE.id(), DEFLATE);
+            codecs.put(GZIP.id(), GZIP);
+        }
+
+        private Registry() {}
+    }
+}
@@ -0,0 +1,68 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters collected by a {@link StateCompression} about the processed payloads.
+ */
+public final class CompressionMetrics {
+
+    private final LongAdder payloads = new LongAdder();
+    private final LongAdder compressedPayloads = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+
+    void recordSkipped() {
+        payloads.increment();
+    }
+
+    void recordCompressed(int uncompressedSize, int compressedSize) {
+        payloads.increment();
+        compressedPayloads.increment();
+        uncompressedBytes.add(uncompressedSize);
+        compressedBytes.add(compressedSize);
+    }
+
+    /**
+     * @return the number of processed payloads
+     */
+    public long payloads() {
+        return payloads.sum();
+    }
+
+    /**
+     * @return the number of payloads compressed, because their size exceeded the threshold
+     */
+    public long compressedPayloads() {
+        return compressedPayloads.sum();
+    }
+
+    /**
+     * @return the total size of the compressed payloads before compression
+     */
+    public long uncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /**
+     * @return the total size of the compressed payloads after compression
+     */
+    public long compressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * @return the ratio between compressed and uncompressed size of the compressed payloads (e.g. 0.25 means
+     * that payloads are reduced to a quarter), 1 if no payload has been compressed
+     */
+    public double ratio() {
+        long uncompressed = uncompressedBytes();
+        return (uncompressed == 0) ? 1.0 : (double) compressedBytes() / uncompressed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompressionMetrics{payloads=%d, compressedPayloads=%d, uncompressedBytes=%d, compressedBytes=%d, ratio=%.3f}",
+                payloads(), compressedPayloads(), uncompressedBytes(), compressedBytes(), ratio());
+    }
+}
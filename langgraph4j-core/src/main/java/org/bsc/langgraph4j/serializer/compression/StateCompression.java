@@ -0,0 +1,188 @@
+package org.bsc.langgraph4j.serializer.compression;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+import static java.lang.String.format;
+
+/**
+ * Compression applied to serialized states.
+ * <p>
+ * Payloads whose size is below the threshold are left untouched, the others are compressed by the codec and
+ * prefixed by a header made of the magic bytes {@code 'L' 'G' 'Z'}, the codec id and the uncompressed size.
+ * Serialized states start with the Java serialization stream magic ({@code 0xACED}), so compressed and
+ * uncompressed payloads can be mixed and are both accepted by {@link #decompress(byte[])}.
+ * </p>
+ * <p>
+ * Ex:
+ * <pre>
+ * var compression = StateCompression.builder()
+ *                      .codec( CompressionCodec.DEFLATE )
+ *                      .threshold( 1024 )
+ *                      .build();
+ *
+ * byte[] bytes = stateSerializer.dataToBytes( data, compression );
+ * var data = stateSerializer.dataFromBytes( bytes );
+ * </pre>
+ * </p>
+ */
+public final class StateCompression {
+
+    private static final byte[] MAGIC = { 'L', 'G', 'Z' };
+    private static final int HEADER_SIZE = MAGIC.length + 1 + Integer.BYTES;
+
+    private final CompressionCodec codec;
+    private final int threshold;
+    private final CompressionMetrics metrics = new CompressionMetrics();
+
+    private StateCompression(Builder builder) {
+        this.codec = Objects.requireNonNull(builder.codec, "codec cannot be null");
+        this.threshold = builder.threshold;
+        CompressionCodec.register(codec);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates a compression that uses the given codec for payloads greater than 1KB
+     *
+     * @param codec the codec
+     * @return the compression
+     */
+    public static StateCompression of(CompressionCodec codec) {
+        return builder().codec(codec).build();
+    }
+
+    public CompressionCodec codec() {
+        return codec;
+    }
+
+    public int threshold() {
+        return threshold;
+    }
+
+    public CompressionMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Compresses the given payload if its size is not less than the threshold
+     *
+     * @param bytes the payload
+     * @return the tagged compressed payload or the given one if it is below the threshold
+     * @throws IOException if an I/O error occurs
+     */
+    public byte[] compress(byte[] bytes) throws IOException {
+        Objects.requireNonNull(bytes, "bytes cannot be null");
+        if (bytes.length < threshold) {
+            metrics.recordSkipped();
+            return bytes;
+        }
+        var stream = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+        stream.write(MAGIC);
+        stream.write(codec.id());
+        stream.write(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        try (var out = codec.compress(stream)) {
+            out.write(bytes);
+        }
+        var result = stream.toByteArray();
+        metrics.recordCompressed(bytes.length, result.length);
+        return result;
+    }
+
+    /**
+     * @param bytes a payload
+     * @return true if the payload has been compressed by a {@link StateCompression}
+     */
+    public static boolean isCompressed(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_SIZE &&
+                bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1] && bytes[2] == MAGIC[2];
+    }
+
+    /**
+     * Decompresses the given payload, if it has been compressed
+     *
+     * @param bytes the payload
+     * @return the decompressed payload or the given one if it isn't compressed
+     * @throws IOException if an I/O error occurs or the codec is unknown
+     */
+    public static byte[] decompress(byte[] bytes) throws IOException {
+        if (!isCompressed(bytes)) {
+            return bytes;
+        }
+        var codec = codecOf(bytes[MAGIC.length]);
+        var size = ByteBuffer.wrap(bytes, MAGIC.length + 1, Integer.BYTES).getInt();
+        try (var in = codec.decompress(new ByteArrayInputStream(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE))) {
+            var result = in.readNBytes(size);
+            if (result.length != size) {
+                throw new EOFException(format("compressed payload truncated: expected %d bytes, read %d", size, result.length));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Returns a stream that decompresses the given one, if it contains a compressed payload
+     *
+     * @param in the source stream
+     * @return the stream of the uncompressed payload
+     * @throws IOException if an I/O error occurs or the codec is unknown
+     */
+    public static InputStream decompress(InputStream in) throws IOException {
+        var stream = (in.markSupported()) ? in : new BufferedInputStream(in);
+        stream.mark(HEADER_SIZE);
+        var header = stream.readNBytes(HEADER_SIZE);
+        if (!isCompressed(header)) {
+            stream.reset();
+            return stream;
+        }
+        return codecOf(header[MAGIC.length]).decompress(stream);
+    }
+
+    private static CompressionCodec codecOf(byte id) throws IOException {
+        return CompressionCodec.byId(id)
+                .orElseThrow(() -> new IOException(format("compression codec with id %d is not registered", id)));
+    }
+
+    @Override
+    public String toString() {
+        return format("StateCompression{codec=%s, threshold=%d}", codec.name(), threshold);
+    }
+
+    public static class Builder {
+        private CompressionCodec codec = CompressionCodec.DEFLATE;
+        private int threshold = 1024;
+
+        /**
+         * Sets the codec (default {@link CompressionCodec#DEFLATE})
+         *
+         * @param codec the codec
+         * @return this builder
+         */
+        public Builder codec(CompressionCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * Sets the min size in bytes of the payloads to compress (default 1024)
+         *
+         * @param threshold the threshold
+         * @return this builder
+         */
+        public Builder threshold(int threshold) {
+            this.threshold = threshold;
+            return this;
+        }
+
+        public StateCompression build() {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("threshold cannot be negative");
+            }
+            return new StateCompression(this);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * This package contains the compression layer applied to serialized states.
+ *
+ * @see org.bsc.langgraph4j.serializer.compression.StateCompression
+ * @see org.bsc.langgraph4j.serializer.StateSerializer#dataToBytes(java.util.Map, org.bsc.langgraph4j.serializer.compression.StateCompression)
+ */
+package org.bsc.langgraph4j.serializer.compression;
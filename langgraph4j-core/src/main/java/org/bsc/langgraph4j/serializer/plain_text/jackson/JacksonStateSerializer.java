@@ -2,6 +2,8 @@ package org.bsc.langgraph4j.serializer.plain_text.jackson;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
@@ -10,6 +12,7 @@ import org.bsc.langgraph4j.serializer.plain_text.PlainTextStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
@@ -20,6 +23,11 @@ import java.util.Objects;
 /**
  * Base Implementation of {@link PlainTextStateSerializer} using Jackson library.
  * Need to be extended from specific state implementation
+ * <p>
+ * The state is written as a length prefixed block generated straight from a {@link JsonGenerator} and parsed
+ * from the block bytes, without intermediate strings. Besides JSON, any binary format supported by a Jackson
+ * {@link JsonFactory} (e.g. Smile or CBOR) can be used, the {@link #contentType()} reflects the chosen format.
+ * </p>
  *
  * @param <State> The type of the agent state to be serialized/deserialized.
  */
@@ -28,12 +36,42 @@ public abstract class JacksonStateSerializer <State extends AgentState> extends
 
     protected TypeMapper typeMapper = new TypeMapper();
 
+    /**
+     * Length prefixed block of the serialized state, written with no further copy
+     */
+    private static final class BlockOutputStream extends ByteArrayOutputStream {
+
+        BlockOutputStream() {
+            super( 1024 );
+        }
+
+        void writeTo( ObjectOutput out ) throws IOException {
+            out.writeInt( count );
+            out.write( buf, 0, count );
+        }
+    }
+
+    private static final TypeReference<Map<String,Object>> DATA_TYPE = new TypeReference<>() {};
+
     protected JacksonStateSerializer( AgentStateFactory<State> stateFactory ) {
         this( stateFactory, new ObjectMapper() );
         this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
 
     }
 
+    /**
+     * Creates a serializer writing the state in the format of the given factory, e.g. a {@code SmileFactory}
+     * or a {@code CBORFactory} for a binary JSON representation.
+     *
+     * @param stateFactory the state factory
+     * @param jsonFactory the factory of the Jackson generators and parsers
+     */
+    protected JacksonStateSerializer( AgentStateFactory<State> stateFactory, JsonFactory jsonFactory ) {
+        this( stateFactory, new ObjectMapper( Objects.requireNonNull(jsonFactory, "jsonFactory cannot be null") ) );
+        this.objectMapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+    }
+
     protected JacksonStateSerializer( AgentStateFactory<State> stateFactory, ObjectMapper objectMapper) {
         super(stateFactory);
         this.objectMapper = Objects.requireNonNull(objectMapper, "objectMapper cannot be null");
@@ -53,21 +91,37 @@ public abstract class JacksonStateSerializer <State extends AgentState> extends
         return objectMapper;
     }
 
+    /**
+     * @return {@code application/json} for JSON, otherwise the content type of the binary format in use
+     */
     @Override
     public String contentType() {
-        return "application/json";
+        var format = objectMapper.getFactory().getFormatName();
+        return switch( format ) {
+            case JsonFactory.FORMAT_NAME_JSON -> "application/json";
+            case "CBOR" -> "application/cbor";
+            default -> "application/x-jackson-" + format.toLowerCase();
+        };
     }
 
+    /**
+     * Writes the data as a block prefixed by its length, the same layout of {@link Serializer#writeUTF(String, ObjectOutput)}
+     * for JSON.
+     */
     @Override
     public final void writeData(Map<String, Object> data, ObjectOutput out) throws IOException {
-        String json = objectMapper.writeValueAsString(data);
-        Serializer.writeUTF( json, out );
+        var block = new BlockOutputStream();
+        try( JsonGenerator generator = objectMapper.createGenerator(block) ) {
+            objectMapper.writeValue(generator, data);
+        }
+        block.writeTo(out);
     }
 
     @Override
     public final Map<String, Object> readData(ObjectInput in) throws IOException, ClassNotFoundException {
-        String json = Serializer.readUTF(in);
-        return objectMapper.readValue(json, new TypeReference<Map<String,Object>>() {});
+        var block = new byte[ in.readInt() ];
+        in.readFully(block);
+        return objectMapper.readValue(block, DATA_TYPE);
     }
 
 }
@@ -5,9 +5,7 @@ import org.bsc.langgraph4j.serializer.StateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 
-import java.io.IOException;
-import java.io.ObjectInput;
-import java.io.ObjectOutput;
+import java.io.*;
 import java.util.*;
 
 public class ObjectStreamStateSerializer<State extends AgentState> extends StateSerializer<State> {
@@ -90,6 +88,29 @@ public class ObjectStreamStateSerializer<State extends AgentState> extends State
 
     }
 
+    /**
+     * Object stream without the stream header, used to serialize the single values
+     */
+    private static class HeaderlessObjectOutputStream extends ObjectOutputStream {
+        HeaderlessObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeStreamHeader() {
+        }
+    }
+
+    private static class HeaderlessObjectInputStream extends ObjectInputStream {
+        HeaderlessObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected void readStreamHeader() {
+        }
+    }
+
     private final SerializerMapper mapper = new SerializerMapper();
     private final MapSerializer mapSerializer = new MapSerializer();
 
@@ -113,4 +134,30 @@ public class ObjectStreamStateSerializer<State extends AgentState> extends State
         return mapSerializer.read( mapper.objectInputWithMapper(in) );
     }
 
+    /**
+     * Serializes the value through the mapper, on an object stream without the stream header
+     * and without the framing of a state.
+     *
+     * @param value the value to serialize
+     * @return the serialized value
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public byte[] valueToBytes(Object value) throws IOException {
+        Objects.requireNonNull( value, "value cannot be null" );
+        try( var stream = new ByteArrayOutputStream() ) {
+            var out = new HeaderlessObjectOutputStream( stream );
+            mapper.objectOutputWithMapper( out ).writeObject( value );
+            out.flush();
+            return stream.toByteArray();
+        }
+    }
+
+    @Override
+    public Object valueFromBytes(byte[] bytes) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull( bytes, "bytes cannot be null" );
+        var in = new HeaderlessObjectInputStream( new ByteArrayInputStream( bytes ) );
+        return mapper.objectInputWithMapper( in ).readObject();
+    }
+
 }
@@ -50,7 +50,9 @@ public class SerializerMapper {
 
         @Override
         public boolean equals(Object o) {
-            return Objects.equals( o, _className );
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            return Objects.equals( ((Key)o)._className, _className );
         }
 
         @Override
@@ -58,25 +60,95 @@ public class SerializerMapper {
             return Objects.hash(_className);
         }
     }
-    private final Map<Key, Serializer<?>> _serializers = new HashMap<>();
+    // concrete types that most states contain, resolved as soon as the registrations change
+    private static final List<Class<?>> COMMON_TYPES = List.of(
+            ArrayList.class,
+            LinkedList.class,
+            HashMap.class,
+            LinkedHashMap.class,
+            TreeMap.class,
+            HashSet.class,
+            LinkedHashSet.class,
+            List.of().getClass(),
+            List.of(1).getClass(),
+            List.of(1, 2, 3).getClass(),
+            Set.of().getClass(),
+            Set.of(1).getClass(),
+            Set.of(1, 2, 3).getClass(),
+            Map.of().getClass(),
+            Map.of(1, 1).getClass(),
+            Map.of(1, 1, 2, 2).getClass(),
+            Arrays.asList().getClass(),
+            Collections.unmodifiableList(new ArrayList<>()).getClass(),
+            Collections.unmodifiableMap(new HashMap<>()).getClass(),
+            Collections.emptyList().getClass(),
+            Collections.emptyMap().getClass(),
+            String.class,
+            Integer.class,
+            Long.class,
+            Double.class,
+            Boolean.class
+    );
+
+    // in registration order, that decides among the serializers of the supertypes
+    private final Map<Key, Serializer<?>> _serializers = new LinkedHashMap<>();
+    // class to serializer resolutions, including the classes without serializer. A ClassValue doesn't keep
+    // the classes (and their class loaders) reachable, and it is replaced as a whole when the registrations change
+    private volatile ClassValue<Optional<Serializer<Object>>> _resolved = newResolutions();
 
     public SerializerMapper register( Class<?> clazz, Serializer<?> serializer ) {
         Objects.requireNonNull(clazz,"class cannot be null ");
-        Objects.requireNonNull(clazz,"serializer cannot be null ");
+        Objects.requireNonNull(serializer,"serializer cannot be null ");
 
-        _serializers.put( Key.of(clazz), serializer);
+        synchronized( _serializers ) {
+            _serializers.put( Key.of(clazz), serializer);
+            resetResolutions();
+        }
         return this;
     }
 
     public boolean unregister( Class<? extends Serializer<?>> clazz ) {
         Objects.requireNonNull( clazz, "Serializer's class cannot be null" );
-        Serializer<?> serializer = _serializers.remove( Key.of(clazz) );
-        return serializer != null;
+        synchronized( _serializers ) {
+            Serializer<?> serializer = _serializers.remove( Key.of(clazz) );
+            resetResolutions();
+            return serializer != null;
+        }
     }
 
-    @SuppressWarnings("unchecked")
+    private ClassValue<Optional<Serializer<Object>>> newResolutions() {
+        return new ClassValue<>() {
+            @Override
+            protected Optional<Serializer<Object>> computeValue(Class<?> type) {
+                synchronized( _serializers ) {
+                    return lookup( type );
+                }
+            }
+        };
+    }
+
+    private void resetResolutions() {
+        var resolved = newResolutions();
+        for( Class<?> type : COMMON_TYPES ) {
+            resolved.get( type );
+        }
+        _resolved = resolved;
+    }
+
+    /**
+     * Returns the serializer registered for the given class or, if missing, the first one registered
+     * for one of its supertypes. The result is cached until the registrations change.
+     *
+     * @param clazz the class of the value to serialize
+     * @return the serializer, if any
+     */
     public Optional<Serializer<Object>> getSerializer( Class<?> clazz ) {
         Objects.requireNonNull(clazz,"class cannot be null ");
+        return _resolved.get( clazz );
+    }
+
+    @SuppressWarnings("unchecked")
+    private Optional<Serializer<Object>> lookup( Class<?> clazz ) {
         Serializer<?> ser = _serializers.get( Key.of(clazz) );
 
         return ( ser != null ) ?
@@ -94,7 +166,9 @@ public class SerializerMapper {
     @SuppressWarnings("unchecked")
     public Optional<Serializer<Object>> getSerializer( String className ) {
         Objects.requireNonNull(className,"className cannot be null ");
-        return Optional.ofNullable((Serializer<Object>)_serializers.get( Key.of(className) ));
+        synchronized( _serializers ) {
+            return Optional.ofNullable((Serializer<Object>)_serializers.get( Key.of(className) ));
+        }
     }
 
     public Serializer<Object> getDefaultSerializer() {
@@ -128,7 +202,10 @@ public class SerializerMapper {
 
     @Override
     public String toString() {
-        List<String> typeNames = _serializers.keySet().stream().map(Key::getTypeName).collect(Collectors.toList());
+        List<String> typeNames;
+        synchronized( _serializers ) {
+            typeNames = _serializers.keySet().stream().map(Key::getTypeName).collect(Collectors.toList());
+        }
         return format( "SerializerMapper: \n%s", String.join("\n", typeNames) );
 
     }
@@ -8,6 +8,9 @@ import org.bsc.langgraph4j.prebuilt.MessagesState;
 import org.bsc.langgraph4j.state.StateSnapshot;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
@@ -330,4 +333,103 @@ public class StateGraphFileSystemSaverTest
 
     }
 
+    @Test
+    public void testCheckpointSaverReleaseWithSharding() throws Exception {
+
+        StateGraph<State> workflow = new StateGraph<>(State.SCHEMA, State::new)
+                .addEdge(START, "agent_1")
+                .addNode("agent_1", node_async( state -> Map.of("steps", state.steps() + 1 )))
+                .addEdge( "agent_1", END);
+
+        var targetFolder = Paths.get( rootPath, "testCheckpointSaverReleaseWithSharding" );
+
+        var saver = FileSystemSaver.builder()
+                        .targetFolder( targetFolder )
+                        .stateSerializer( workflow.getStateSerializer() )
+                        .sharding( true )
+                        .build();
+
+        var app = workflow.compile( CompileConfig.builder()
+                .checkpointSaver(saver)
+                .releaseThread(true)
+                .build() );
+
+        var threadId = "thread_" + System.currentTimeMillis();
+        var runnableConfig = RunnableConfig.builder()
+                .threadId(threadId)
+                .build();
+
+        var shardFolder = targetFolder.resolve( format("%02x", threadId.hashCode() & 0xFF ) );
+
+        for( int version = 1; version <= 3; ++version ) {
+
+            var state = app.invoke( Map.of(), runnableConfig );
+            assertTrue( state.isPresent() );
+
+            Path versionPath = shardFolder.resolve( format( "thread-%s-v%d.saver", threadId, version ) );
+            assertTrue( Files.exists(versionPath), format( "file %s doesn't exist", versionPath ) );
+            assertFalse( Files.exists( shardFolder.resolve( format( "thread-%s.saver", threadId ) ) ) );
+            assertEquals( String.valueOf(version),
+                    Files.readString( shardFolder.resolve( format( "thread-%s.version", threadId ) ) ) );
+        }
+
+        // A new saver instance must continue from the persisted version index
+        saver = FileSystemSaver.builder()
+                .targetFolder( targetFolder )
+                .stateSerializer( workflow.getStateSerializer() )
+                .sharding( true )
+                .build();
+
+        app = workflow.compile( CompileConfig.builder()
+                .checkpointSaver(saver)
+                .releaseThread(true)
+                .build() );
+
+        assertTrue( app.invoke( Map.of(), runnableConfig ).isPresent() );
+        assertTrue( Files.exists( shardFolder.resolve( format( "thread-%s-v4.saver", threadId ) ) ) );
+
+    }
+
+    @Test
+    public void testCheckpointSaverReleaseWithoutVersionIndex() throws Exception {
+
+        StateGraph<State> workflow = new StateGraph<>(State.SCHEMA, State::new)
+                .addEdge(START, "agent_1")
+                .addNode("agent_1", node_async( state -> Map.of("steps", state.steps() + 1 )))
+                .addEdge( "agent_1", END);
+
+        var targetFolder = Paths.get( rootPath, "testCheckpointSaverReleaseWithoutVersionIndex" );
+        Files.createDirectories( targetFolder );
+
+        var threadId = "thread_" + System.currentTimeMillis();
+        var runnableConfig = RunnableConfig.builder()
+                .threadId(threadId)
+                .build();
+
+        // versions archived by a previous release, with a gap and without index
+        var v1 = targetFolder.resolve( format( "thread-%s-v1.saver", threadId ) );
+        var v3 = targetFolder.resolve( format( "thread-%s-v3.saver", threadId ) );
+        Files.writeString( v1, "v1" );
+        Files.writeString( v3, "v3" );
+
+        var saver = new FileSystemSaver( targetFolder, workflow.getStateSerializer() );
+        var app = workflow.compile( CompileConfig.builder()
+                .checkpointSaver(saver)
+                .releaseThread(true)
+                .build() );
+
+        assertTrue( app.invoke( Map.of(), runnableConfig ).isPresent() );
+        assertEquals( "v3", Files.readString( v3 ) );
+        assertTrue( Files.exists( targetFolder.resolve( format( "thread-%s-v4.saver", threadId ) ) ) );
+        assertEquals( "4", Files.readString( targetFolder.resolve( format( "thread-%s.version", threadId ) ) ) );
+
+        // a stale index doesn't overwrite an existing archive
+        Files.writeString( targetFolder.resolve( format( "thread-%s.version", threadId ) ), "2" );
+        saver = new FileSystemSaver( targetFolder, workflow.getStateSerializer() );
+        saver.put( runnableConfig, Checkpoint.builder().nodeId("agent_1").nextNodeId(END).state(Map.of()).build() );
+        var failedSaver = saver;
+        assertThrows( FileAlreadyExistsException.class, () -> failedSaver.release( runnableConfig ) );
+        assertEquals( "v3", Files.readString( v3 ) );
+    }
+
 }
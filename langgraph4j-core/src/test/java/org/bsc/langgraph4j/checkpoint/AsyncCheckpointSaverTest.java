@@ -0,0 +1,240 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncCheckpointSaverTest {
+
+    static class State extends MessagesState<String> {
+        public State(Map<String, Object> initData) {
+            super( initData );
+        }
+    }
+
+    static StateGraph<State> workflow() throws Exception {
+        return new StateGraph<>(State.SCHEMA, State::new)
+                .addNode("a", node_async( state -> Map.of( "messages", "a" ) ))
+                .addNode("b", node_async( state -> Map.of( "messages", "b" ) ))
+                .addEdge(START, "a")
+                .addEdge("a", "b")
+                .addEdge("b", END);
+    }
+
+    static Checkpoint checkpoint( String nodeId ) {
+        return Checkpoint.builder()
+                .nodeId( nodeId )
+                .nextNodeId( nodeId + "_next" )
+                .state( Map.of( "node", nodeId ) )
+                .build();
+    }
+
+    @Test
+    public void testOrderPerThread() throws Exception {
+        var executor = Executors.newFixedThreadPool( 4 );
+        try {
+            var saver = AsyncCheckpointSaver.of( new MemorySaver(), executor );
+            var config = RunnableConfig.builder().threadId("ordered").build();
+
+            var writes = new ArrayList<CompletableFuture<RunnableConfig>>();
+            for( int i = 0; i < 50; ++i ) {
+                writes.add( saver.putAsync( config, checkpoint( "node" + i ) ) );
+            }
+            // the read is queued after the writes
+            var last = saver.getAsync( config ).get( 5, TimeUnit.SECONDS );
+            assertEquals( "node49", last.orElseThrow().getNodeId() );
+            assertTrue( writes.stream().allMatch( CompletableFuture::isDone ) );
+
+            var history = new ArrayList<>( saver.list( config ) );
+            Collections.reverse( history );
+            for( int i = 0; i < 50; ++i ) {
+                assertEquals( "node" + i, history.get(i).getNodeId() );
+            }
+
+            // a failure doesn't prevent the next operations
+            var replace = RunnableConfig.builder( config ).checkPointId( "missing" ).build();
+            var failed = saver.putAsync( replace, checkpoint( "node50" ) );
+            var tag = saver.releaseAsync( config ).get( 5, TimeUnit.SECONDS );
+            assertEquals( 50, tag.checkpoints().size() );
+            assertThrows( java.util.NoSuchElementException.class, () -> saver.put( replace, checkpoint( "node50" ) ) );
+            assertTrue( failed.isCompletedExceptionally() );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBlockingAdapter() throws Exception {
+        // a blocking saver isn't asynchronous by inheritance, it is adapted explicitly
+        assertFalse( new MemorySaver() instanceof AsyncCheckpointSaver );
+        var memorySaver = AsyncCheckpointSaver.of( new MemorySaver(), Runnable::run );
+        assertSame( memorySaver, AsyncCheckpointSaver.blocking( memorySaver ) );
+
+        // asynchronous only saver
+        AsyncCheckpointSaver asyncSaver = new AsyncCheckpointSaver() {
+            @Override
+            public CompletableFuture<java.util.Collection<Checkpoint>> listAsync(RunnableConfig config) {
+                return memorySaver.listAsync( config );
+            }
+
+            @Override
+            public CompletableFuture<java.util.Optional<Checkpoint>> getAsync(RunnableConfig config) {
+                return memorySaver.getAsync( config );
+            }
+
+            @Override
+            public CompletableFuture<RunnableConfig> putAsync(RunnableConfig config, Checkpoint checkpoint) {
+                return memorySaver.putAsync( config, checkpoint );
+            }
+
+            @Override
+            public CompletableFuture<BaseCheckpointSaver.Tag> releaseAsync(RunnableConfig config) {
+                return memorySaver.releaseAsync( config );
+            }
+        };
+
+        var saver = AsyncCheckpointSaver.blocking( asyncSaver );
+        var config = RunnableConfig.builder().threadId("blocking").build();
+        var cp = checkpoint( "node1" );
+
+        assertEquals( cp.getId(), saver.put( config, cp ).checkPointId().orElseThrow() );
+        assertEquals( cp.getId(), saver.get( config ).orElseThrow().getId() );
+        assertEquals( 1, saver.list( config ).size() );
+
+        // the original cause is rethrown
+        var replace = RunnableConfig.builder( config ).checkPointId( "missing" ).build();
+        assertThrows( java.util.NoSuchElementException.class, () -> saver.put( replace, cp ) );
+    }
+
+    @Test
+    public void testFileSystemSaverAsync() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testFileSystemSaverAsync" );
+        var config = RunnableConfig.builder().threadId("async").build();
+        var executor = Executors.newSingleThreadExecutor();
+
+        try {
+            var saver = FileSystemSaver.builder()
+                    .targetFolder( targetFolder )
+                    .stateSerializer( new ObjectStreamStateSerializer<>( AgentState::new ) )
+                    .executor( executor )
+                    .build();
+            saver.deleteFile( config );
+
+            // the file operations run on the executor
+            var blocked = new CountDownLatch( 1 );
+            executor.execute( () -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            var write = saver.putAsync( config, checkpoint( "node1" ) );
+            assertFalse( write.isDone() );
+            // the blocking read is queued after the pending write
+            var read = CompletableFuture.supplyAsync( () -> saver.list( config ) );
+            blocked.countDown();
+            assertEquals( 1, read.get( 5, TimeUnit.SECONDS ).size() );
+
+            assertEquals( "node1", saver.getAsync( config ).get( 5, TimeUnit.SECONDS ).orElseThrow().getNodeId() );
+            assertTrue( write.isDone() );
+
+            var reloaded = new FileSystemSaver( targetFolder, new ObjectStreamStateSerializer<>( AgentState::new ) );
+            assertEquals( 1, reloaded.list( config ).size() );
+
+            saver.deleteFile( config );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPipelinedCheckpointWrites() throws Exception {
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var syncSaver = new MemorySaver();
+            var asyncSaver = AsyncCheckpointSaver.of( new MemorySaver(), executor );
+
+            var sync = workflow().compile( CompileConfig.builder()
+                    .checkpointSaver( syncSaver )
+                    .build() );
+            var pipelined = workflow().compile( CompileConfig.builder()
+                    .checkpointSaver( asyncSaver )
+                    .checkpointWritePolicy( CompileConfig.CheckpointWritePolicy.PIPELINED )
+                    .build() );
+
+            var config = RunnableConfig.builder().threadId("pipelined").build();
+            var expected = sync.invoke( Map.of(), config ).orElseThrow();
+            var result = pipelined.invoke( Map.of(), config ).orElseThrow();
+            assertEquals( expected.messages(), result.messages() );
+
+            // all the checkpoints are stored at the end of the execution
+            List<Checkpoint> expectedHistory = new ArrayList<>( syncSaver.list( config ) );
+            List<Checkpoint> history = new ArrayList<>( asyncSaver.list( config ) );
+            assertEquals( expectedHistory.size(), history.size() );
+            for( int i = 0; i < history.size(); ++i ) {
+                assertEquals( expectedHistory.get(i).getNodeId(), history.get(i).getNodeId() );
+                assertEquals( expectedHistory.get(i).getNextNodeId(), history.get(i).getNextNodeId() );
+                assertEquals( expectedHistory.get(i).getState(), history.get(i).getState() );
+            }
+            for( int i = 0; i < history.size() - 1; ++i ) {
+                assertEquals( history.get(i + 1).getId(), history.get(i).getParentId().orElseThrow() );
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPipelinedWriteFailure() throws Exception {
+        var saver = new MemorySaver() {
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, java.util.LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+                if( "b".equals( checkpoint.getNodeId() ) ) {
+                    throw new IllegalStateException( "store unavailable" );
+                }
+            }
+        };
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var app = workflow().compile( CompileConfig.builder()
+                    .checkpointSaver( AsyncCheckpointSaver.of( saver, executor ) )
+                    .checkpointWritePolicy( CompileConfig.CheckpointWritePolicy.PIPELINED )
+                    .build() );
+
+            var config = RunnableConfig.builder().threadId("failure").build();
+            var exception = assertThrows( Exception.class, () -> app.invoke( Map.of(), config ) );
+            var cause = exception;
+            while( cause != null && !( cause instanceof IllegalStateException ) ) {
+                cause = (Exception)cause.getCause();
+            }
+            assertNotNull( cause );
+            assertEquals( "store unavailable", cause.getMessage() );
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
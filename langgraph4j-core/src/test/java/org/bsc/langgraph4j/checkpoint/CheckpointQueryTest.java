@@ -0,0 +1,145 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointQueryTest {
+
+    static Checkpoint checkpoint( String nodeId, String nextNodeId ) {
+        return Checkpoint.builder()
+                .nodeId( nodeId )
+                .nextNodeId( nextNodeId )
+                .state( Map.of() )
+                .build();
+    }
+
+    static RunnableConfig thread( int i ) {
+        return RunnableConfig.builder().threadId( "thread" + i ).build();
+    }
+
+    static List<String> threadIds( CheckpointQuery.Page<CheckpointQuery.ThreadInfo> page ) {
+        return page.items().stream().map( CheckpointQuery.ThreadInfo::threadId ).toList();
+    }
+
+    @Test
+    public void testMemorySaverIndex() throws Exception {
+        var saver = new MemorySaver();
+
+        for( int i = 0; i < 6; ++i ) {
+            saver.put( thread(i), checkpoint( "agent", "tools" ) );
+        }
+        // the index follows the last checkpoint
+        saver.put( thread(1), checkpoint( "tools", "approval" ) );
+        saver.put( thread(3), checkpoint( "tools", "approval" ) );
+        // replaced last checkpoint
+        var config = saver.put( thread(5), checkpoint( "tools", "approval" ) );
+        saver.put( config, checkpoint( "tools", "agent" ) );
+
+        var interrupted = saver.threads( ThreadQuery.builder().nextNodeId( "approval" ).build() );
+        assertEquals( List.of( "thread1", "thread3" ), threadIds( interrupted ) );
+        assertEquals( "tools", interrupted.items().get(0).nodeId() );
+        assertFalse( interrupted.items().get(0).released() );
+        assertTrue( interrupted.nextCursor().isEmpty() );
+
+        assertEquals( List.of( "thread0", "thread2", "thread4" ),
+                threadIds( saver.threads( ThreadQuery.builder().nodeId( "agent" ).nextNodeId( "tools" ).build() ) ) );
+
+        // released threads are no longer indexed
+        saver.release( thread(3) );
+        assertEquals( List.of( "thread1" ), threadIds( saver.threads( ThreadQuery.builder().nextNodeId( "approval" ).build() ) ) );
+        assertTrue( saver.threads( ThreadQuery.builder().released( true ).build() ).items().isEmpty() );
+
+        // saved time
+        assertEquals( 5, saver.threads( ThreadQuery.builder().savedBefore( Instant.now().plusSeconds(1) ).build() ).items().size() );
+        assertTrue( saver.threads( ThreadQuery.builder().savedBefore( Instant.now().minus( Duration.ofHours(1) ) ).build() ).items().isEmpty() );
+    }
+
+    @Test
+    public void testFileSystemSaverIndex() throws Exception {
+        var saver = new FileSystemSaver( Paths.get( "target", "checkpoint", "testFileSystemSaverIndex" ),
+                new ObjectStreamStateSerializer<>( AgentState::new ) );
+
+        saver.put( thread(0), checkpoint( "agent", "tools" ) );
+        saver.put( thread(1), checkpoint( "tools", "approval" ) );
+        saver.putAsync( thread(2), checkpoint( "tools", "approval" ) ).join();
+
+        assertEquals( List.of( "thread1", "thread2" ), threadIds( saver.threads( ThreadQuery.builder().nextNodeId( "approval" ).build() ) ) );
+
+        saver.release( thread(1) );
+        assertEquals( List.of( "thread2" ), threadIds( saver.threads( ThreadQuery.builder().nextNodeId( "approval" ).build() ) ) );
+        saver.release( thread(0) );
+        saver.release( thread(2) );
+    }
+
+    @Test
+    public void testCursorPagination() throws Exception {
+        var saver = new MemorySaver();
+        for( int i = 0; i < 7; ++i ) {
+            saver.put( thread(i), checkpoint( "agent", i % 2 == 0 ? "tools" : END ) );
+        }
+
+        var threadIds = new ArrayList<String>();
+        Optional<String> cursor = Optional.empty();
+        int pages = 0;
+        do {
+            var page = saver.threads( ThreadQuery.builder()
+                    .nextNodeId( "tools" )
+                    .after( cursor.orElse(null) )
+                    .limit( 2 )
+                    .build() );
+            threadIds.addAll( threadIds( page ) );
+            cursor = page.nextCursor();
+            ++pages;
+            // a thread saved during the scan, after the cursor
+            if( pages == 1 ) {
+                saver.put( thread(9), checkpoint( "agent", "tools" ) );
+            }
+        } while( cursor.isPresent() );
+
+        assertEquals( List.of( "thread0", "thread2", "thread4", "thread6", "thread9" ), threadIds );
+        assertEquals( 3, pages );
+    }
+
+    @Test
+    public void testJdbcThreadQuery() {
+        var threadsQuery = new JdbcThreadQuery( "SELECT * FROM c JOIN t WHERE 1 = 1\n", "FETCH FIRST ? ROWS ONLY", cursor -> "#" + cursor );
+
+        var parameters = new ArrayList<Object>();
+        var sql = threadsQuery.sql( ThreadQuery.builder()
+                .nextNodeId( "approval" )
+                .released( false )
+                .after( "thread1" )
+                .limit( 10 )
+                .build(), parameters );
+
+        assertEquals( """
+                SELECT * FROM c JOIN t WHERE 1 = 1
+                  AND t.is_released = ?
+                  AND c.next_node_id = ?
+                  AND c.thread_id > ?
+                ORDER BY c.thread_id
+                FETCH FIRST ? ROWS ONLY
+                """, sql );
+        assertEquals( List.of( false, "approval", "#thread1", 11 ), parameters );
+    }
+
+    @Test
+    public void testInvalidQuery() {
+        assertThrows( IllegalArgumentException.class, () -> ThreadQuery.builder().limit( 0 ).build() );
+        var now = Instant.now();
+        assertThrows( IllegalArgumentException.class, () -> ThreadQuery.builder().savedAfter( now ).savedBefore( now ).build() );
+    }
+}
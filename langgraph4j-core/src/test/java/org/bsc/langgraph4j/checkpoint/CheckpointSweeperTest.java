@@ -0,0 +1,167 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.CheckpointRetention.Reclaimed;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointSweeperTest {
+
+    static Checkpoint checkpoint( String nodeId ) {
+        return Checkpoint.builder()
+                .nodeId( nodeId )
+                .nextNodeId( nodeId + "_next" )
+                .state( Map.of( "node", nodeId ) )
+                .build();
+    }
+
+    @Test
+    public void testBoundedBatches() throws Exception {
+        var limits = new ArrayList<Integer>();
+        var retention = new CheckpointRetention() {
+            int checkpoints = 25;
+
+            @Override
+            public Reclaimed deleteOldCheckpoints(int keepLast, int limit) {
+                limits.add( limit );
+                var deleted = Math.min( limit, checkpoints );
+                checkpoints -= deleted;
+                return new Reclaimed( 0, deleted );
+            }
+        };
+
+        var sweeper = CheckpointSweeper.builder()
+                .retention( retention )
+                .policy( RetentionPolicy.builder()
+                        .keepLastCheckpoints( 2 )
+                        .batchSize( 10 )
+                        .maxBatchesPerSweep( 2 )
+                        .build() )
+                .build();
+
+        // max batches per sweep reached
+        assertEquals( 20, sweeper.sweep().checkpoints() );
+        assertEquals( List.of( 10, 10 ), limits );
+
+        // last (partial) batch
+        assertEquals( 5, sweeper.sweep().checkpoints() );
+        assertEquals( 3, limits.size() );
+
+        assertEquals( 2, sweeper.metrics().sweeps() );
+        assertEquals( 25, sweeper.metrics().rowsReclaimed() );
+
+        sweeper.close();
+    }
+
+    @Test
+    public void testScheduler() throws Exception {
+        var scheduledTask = new AtomicReference<Runnable>();
+        var cancelled = new AtomicReference<>( false );
+
+        var sweeper = CheckpointSweeper.builder()
+                .retention( new CheckpointRetention() {
+                    @Override
+                    public Reclaimed deleteReleasedThreads(Instant savedBefore, int limit) {
+                        throw new IllegalStateException("store unavailable");
+                    }
+                })
+                .policy( RetentionPolicy.builder().releasedThreadsTtl( Duration.ofHours(1) ).build() )
+                .scheduler( (task, interval) -> {
+                    assertEquals( Duration.ofSeconds(30), interval );
+                    scheduledTask.set( task );
+                    return () -> cancelled.set(true);
+                })
+                .interval( Duration.ofSeconds(30) )
+                .build();
+
+        sweeper.start();
+        assertThrows( IllegalStateException.class, sweeper::start );
+
+        // a failed sweep doesn't propagate to the scheduler
+        scheduledTask.get().run();
+        assertEquals( 1, sweeper.metrics().failures() );
+        assertEquals( 0, sweeper.metrics().sweeps() );
+
+        sweeper.close();
+        assertTrue( cancelled.get() );
+    }
+
+    @Test
+    public void testCloseKeepsInterrupt() {
+        var sweeper = CheckpointSweeper.builder()
+                .retention( new CheckpointRetention() {} )
+                .policy( RetentionPolicy.builder().releasedThreadsTtl( Duration.ofHours(1) ).build() )
+                .build();
+        sweeper.start();
+
+        Thread.currentThread().interrupt();
+        sweeper.close();
+        // the interrupt isn't swallowed waiting for the default scheduler
+        assertTrue( Thread.interrupted() );
+    }
+
+    @Test
+    public void testFileSystemSaverRetention() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testFileSystemSaverRetention" );
+        var saver = new FileSystemSaver( targetFolder, new ObjectStreamStateSerializer<>( AgentState::new ) );
+
+        var released = RunnableConfig.builder().threadId("released").build();
+        var idle = RunnableConfig.builder().threadId("idle").build();
+
+        saver.put( released, checkpoint("node1") );
+        saver.release( released );
+        saver.put( idle, checkpoint("node1") );
+        assertEquals( 1, saver.list( idle ).size() );
+
+        var policy = RetentionPolicy.builder()
+                .releasedThreadsTtl( Duration.ofHours(1) )
+                .idleThreadsTtl( Duration.ofDays(1) )
+                .build();
+
+        var now = CheckpointSweeper.builder()
+                .retention( saver )
+                .policy( policy )
+                .build();
+        assertEquals( Reclaimed.NONE, now.sweep() );
+        assertTrue( Files.exists( targetFolder.resolve( "thread-released.version" ) ) );
+
+        var inTwoHours = CheckpointSweeper.builder()
+                .retention( saver )
+                .policy( policy )
+                .clock( Clock.offset( Clock.systemUTC(), Duration.ofHours(2) ) )
+                .build();
+        assertEquals( new Reclaimed( 1, 0 ), inTwoHours.sweep() );
+        assertEquals( 1, inTwoHours.metrics().releasedThreads() );
+        assertFalse( Files.exists( targetFolder.resolve( "thread-released-v1.saver" ) ) );
+        assertFalse( Files.exists( targetFolder.resolve( "thread-released.version" ) ) );
+        assertTrue( Files.exists( targetFolder.resolve( "thread-idle.saver" ) ) );
+
+        var inTwoDays = CheckpointSweeper.builder()
+                .retention( saver )
+                .policy( policy )
+                .clock( Clock.offset( Clock.systemUTC(), Duration.ofDays(2) ) )
+                .build();
+        assertEquals( new Reclaimed( 1, 0 ), inTwoDays.sweep() );
+        assertEquals( 1, inTwoDays.metrics().idleThreads() );
+        assertFalse( Files.exists( targetFolder.resolve( "thread-idle.saver" ) ) );
+        // evicted from memory
+        assertTrue( saver.list( idle ).isEmpty() );
+
+        now.close();
+        inTwoHours.close();
+        inTwoDays.close();
+    }
+}
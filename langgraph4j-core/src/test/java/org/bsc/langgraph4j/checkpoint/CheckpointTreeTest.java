@@ -0,0 +1,160 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.GraphInput;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CheckpointTreeTest {
+
+    static class State extends MessagesState<String> {
+        public State(Map<String, Object> initData) {
+            super( initData );
+        }
+    }
+
+    static StateGraph<State> workflow() throws Exception {
+        return new StateGraph<>(State.SCHEMA, State::new)
+                .addNode("a", node_async( state -> Map.of( "messages", "a" ) ))
+                .addNode("b", node_async( state -> Map.of( "messages", "b" ) ))
+                .addEdge(START, "a")
+                .addEdge("a", "b")
+                .addEdge("b", END);
+    }
+
+    static void assertLinked( List<Checkpoint> history ) {
+        for( int i = 0; i < history.size() - 1; ++i ) {
+            assertEquals( history.get(i + 1).getId(), history.get(i).getParentId().orElseThrow() );
+        }
+        assertTrue( history.get( history.size() - 1 ).getParentId().isEmpty() );
+    }
+
+    static List<String> ids( List<Checkpoint> checkpoints ) {
+        return checkpoints.stream().map(Checkpoint::getId).toList();
+    }
+
+    @Test
+    public void testForkAndResume() throws Exception {
+        var saver = new MemorySaver();
+        var app = workflow().compile( CompileConfig.builder().checkpointSaver( saver ).build() );
+
+        var config = RunnableConfig.builder().threadId("tree").build();
+        app.invoke( Map.of(), config );
+
+        var history = new ArrayList<>( saver.list( config ) );
+        assertLinked( history );
+
+        var a = history.stream().filter( cp -> cp.getNodeId().equals("a") ).findFirst().orElseThrow();
+        var aConfig = config.withCheckPointId( a.getId() );
+
+        // forks share the ancestors of the forked checkpoint, that is left unchanged
+        var fork1 = app.forkState( aConfig, Map.of( "messages", "fork1" ), null );
+        var fork2 = app.forkState( aConfig, Map.of( "messages", "fork2" ), null );
+        assertEquals( a.getState(), saver.get( aConfig ).orElseThrow().getState() );
+
+        var children = saver.children( aConfig );
+        assertEquals( 3, children.size() );
+        assertEquals( fork2.checkPointId().orElseThrow(), children.get(0).getId() );
+        assertEquals( fork1.checkPointId().orElseThrow(), children.get(1).getId() );
+        assertEquals( "b", children.get(2).getNodeId() );
+
+        // resuming from a fork starts a new branch
+        var result = app.invoke( GraphInput.resume(), fork1 ).orElseThrow();
+        assertEquals( List.of( "a", "fork1", "b" ), result.messages() );
+
+        var last = saver.get( config ).orElseThrow();
+        var ancestors = saver.ancestors( config );
+        assertEquals( fork1.checkPointId().orElseThrow(), last.getParentId().orElseThrow() );
+        assertEquals( List.of( fork1.checkPointId().orElseThrow(), a.getId() ), ids( ancestors ).subList( 0, 2 ) );
+        assertTrue( ancestors.get( ancestors.size() - 1 ).getParentId().isEmpty() );
+        assertFalse( ids( ancestors ).contains( fork2.checkPointId().orElseThrow() ) );
+    }
+
+    @Test
+    public void testUpdateKeepsChildren() throws Exception {
+        var saver = new MemorySaver();
+        var app = workflow().compile( CompileConfig.builder().checkpointSaver( saver ).build() );
+
+        var config = RunnableConfig.builder().threadId("update").build();
+        app.invoke( Map.of(), config );
+
+        var a = saver.list( config ).stream().filter( cp -> cp.getNodeId().equals("a") ).findFirst().orElseThrow();
+        var child = saver.children( config.withCheckPointId( a.getId() ) ).get(0);
+
+        // the replacement has a new id, the children of the replaced checkpoint are linked to it
+        var updated = app.updateState( config.withCheckPointId( a.getId() ), Map.of( "messages", "update" ) );
+        assertNotEquals( a.getId(), updated.checkPointId().orElseThrow() );
+        assertEquals( List.of( child.getId() ), ids( saver.children( updated ) ) );
+        assertLinked( new ArrayList<>( saver.list( config ) ) );
+    }
+
+    @Test
+    public void testFileSystemSaverParentIds() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testFileSystemSaverParentIds" );
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var config = RunnableConfig.builder().threadId("tree").build();
+
+        var saver = new FileSystemSaver( targetFolder, serializer );
+        saver.deleteFile( config );
+
+        var app = workflow().compile( CompileConfig.builder().checkpointSaver( saver ).build() );
+        app.invoke( Map.of(), config );
+        var expected = new ArrayList<>( saver.list( config ) );
+
+        // a new saver (reset cache) reads parent ids and node ids
+        var history = new ArrayList<>( new FileSystemSaver( targetFolder, serializer ).list( config ) );
+        assertLinked( history );
+        assertEquals( ids( expected ), ids( history ) );
+        for( int i = 0; i < history.size(); ++i ) {
+            assertEquals( expected.get(i).getNodeId(), history.get(i).getNodeId() );
+            assertEquals( expected.get(i).getNextNodeId(), history.get(i).getNextNodeId() );
+        }
+
+        saver.deleteFile( config );
+    }
+
+    @Test
+    public void testLegacyCheckpointFormat() throws Exception {
+        var stateSerializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var serializer = new CheckPointSerializer( stateSerializer );
+
+        // checkpoint written without format marker and parent id
+        var bytes = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream( bytes ) ) {
+            for( var value : List.of( "id1", "node1", "node2" ) ) {
+                var utf8 = value.getBytes( StandardCharsets.UTF_8 );
+                out.writeInt( utf8.length );
+                out.write( utf8 );
+            }
+            stateSerializer.write( new AgentState( Map.of( "key", "value" ) ), out );
+        }
+
+        try( var in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) ) {
+            var checkpoint = serializer.read( in );
+            assertEquals( "id1", checkpoint.getId() );
+            assertTrue( checkpoint.getParentId().isEmpty() );
+            assertEquals( "node1", checkpoint.getNodeId() );
+            assertEquals( "node2", checkpoint.getNextNodeId() );
+            assertEquals( Map.of( "key", "value" ), checkpoint.getState() );
+        }
+    }
+}
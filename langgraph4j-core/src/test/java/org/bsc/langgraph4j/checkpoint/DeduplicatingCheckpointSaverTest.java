@@ -0,0 +1,202 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeduplicatingCheckpointSaverTest {
+
+    final ObjectStreamStateSerializer<AgentState> stateSerializer = new ObjectStreamStateSerializer<>(AgentState::new);
+
+    final String document = "a large retrieved document ".repeat(1_000);
+
+    static Checkpoint checkpoint( String nodeId, Map<String,Object> state ) {
+        return Checkpoint.builder()
+                .nodeId( nodeId )
+                .nextNodeId( nodeId + "_next" )
+                .state( state )
+                .build();
+    }
+
+    @Test
+    public void testDeduplicationByThread() throws Exception {
+        var memorySaver = new MemorySaver();
+        var blobStore = new MemoryBlobStore();
+        var saver = DeduplicatingCheckpointSaver.builder()
+                .saver( memorySaver )
+                .stateSerializer( stateSerializer )
+                .blobStore( blobStore )
+                .threshold( 1024 )
+                .build();
+
+        var config = RunnableConfig.builder().threadId("thread1").build();
+
+        for( int i = 0; i < 3; ++i ) {
+            saver.put( config, checkpoint( "node" + i, Map.of( "document", document, "step", i ) ) );
+        }
+
+        assertEquals( 1, blobStore.size() );
+
+        // wrapped saver holds only references
+        var stored = memorySaver.get( config ).orElseThrow();
+        assertEquals( 2, stored.getState().get("step") );
+        assertInstanceOf( Map.class, stored.getState().get("document") );
+        assertTrue( ((Map<?,?>)stored.getState().get("document")).containsKey( DeduplicatingCheckpointSaver.BLOB_REFERENCE ) );
+
+        // references are resolved
+        assertEquals( document, saver.get( config ).orElseThrow().getState().get("document") );
+        assertEquals( 3, saver.list( config ).size() );
+        saver.list( config ).forEach( c -> assertEquals( document, c.getState().get("document") ) );
+
+        var tag = saver.release( config );
+        assertEquals( 3, tag.checkpoints().size() );
+        tag.checkpoints().forEach( c -> assertEquals( document, c.getState().get("document") ) );
+        assertEquals( 0, blobStore.size() );
+    }
+
+    @Test
+    public void testDeduplicationByValue() throws Exception {
+        var serializedValues = new AtomicInteger();
+        var countingSerializer = new ObjectStreamStateSerializer<>(AgentState::new) {
+            @Override
+            public byte[] valueToBytes(Object value) throws IOException {
+                serializedValues.incrementAndGet();
+                return super.valueToBytes(value);
+            }
+        };
+        var memorySaver = new MemorySaver();
+        var blobStore = new MemoryBlobStore();
+        var saver = DeduplicatingCheckpointSaver.builder()
+                .saver( memorySaver )
+                .stateSerializer( countingSerializer )
+                .blobStore( blobStore )
+                .threshold( 1024 )
+                .build();
+
+        var config = RunnableConfig.builder().threadId("thread1").build();
+
+        // the same value under different channels is stored once
+        saver.put( config, checkpoint( "node1", Map.of( "document", document, "copy", document ) ) );
+        assertEquals( 1, blobStore.size() );
+        assertEquals( 1, serializedValues.get() );
+        var stored = memorySaver.get( config ).orElseThrow().getState();
+        assertEquals( stored.get("document"), stored.get("copy") );
+
+        // the unchanged values of the previous checkpoint are not serialized again
+        saver.put( config, checkpoint( "node2", Map.of( "document", document, "step", 2 ) ) );
+        assertEquals( 2, serializedValues.get() );
+        saver.put( config, checkpoint( "node3", Map.of( "document", document, "step", 2, "list", List.of( 1, 2 ) ) ) );
+        assertEquals( 3, serializedValues.get() );
+        assertEquals( 1, blobStore.size() );
+
+        assertEquals( document, saver.get( config ).orElseThrow().getState().get("document") );
+        assertEquals( document, saver.list( config ).stream().reduce( (a, b) -> b ).orElseThrow().getState().get("copy") );
+
+        saver.release( config );
+        assertEquals( 0, blobStore.size() );
+    }
+
+    @Test
+    public void testFailedBlobWrite() throws Exception {
+        var failing = new AtomicBoolean( true );
+        var blobStore = new MemoryBlobStore() {
+            @Override
+            public void put(String key, byte[] data) {
+                if( failing.get() ) {
+                    throw new IllegalStateException( "blob store unavailable" );
+                }
+                super.put( key, data );
+            }
+        };
+        var saver = DeduplicatingCheckpointSaver.builder()
+                .saver( new MemorySaver() )
+                .stateSerializer( stateSerializer )
+                .blobStore( blobStore )
+                .threshold( 1024 )
+                .build();
+
+        var config = RunnableConfig.builder().threadId("thread1").build();
+
+        assertThrows( IllegalStateException.class, () -> saver.put( config, checkpoint( "node1", Map.of( "document", document ) ) ) );
+
+        // the next put writes the blob again, instead of referencing a missing one
+        failing.set( false );
+        saver.put( config, checkpoint( "node1", Map.of( "document", document ) ) );
+        assertEquals( 1, blobStore.size() );
+        assertEquals( document, saver.get( config ).orElseThrow().getState().get("document") );
+
+        saver.release( config );
+        assertEquals( 0, blobStore.size() );
+    }
+
+    @Test
+    public void testGlobalDeduplication() throws Exception {
+        var blobStore = new MemoryBlobStore();
+        var saver = DeduplicatingCheckpointSaver.builder()
+                .saver( new MemorySaver() )
+                .stateSerializer( stateSerializer )
+                .blobStore( blobStore )
+                .threshold( 1024 )
+                .scope( DeduplicatingCheckpointSaver.BlobScope.GLOBAL )
+                .build();
+
+        var config1 = RunnableConfig.builder().threadId("thread1").build();
+        var config2 = RunnableConfig.builder().threadId("thread2").build();
+
+        saver.put( config1, checkpoint( "node1", Map.of( "document", document ) ) );
+        saver.put( config2, checkpoint( "node1", Map.of( "document", document ) ) );
+        assertEquals( 1, blobStore.size() );
+
+        saver.release( config1 );
+        assertEquals( 1, blobStore.size() );
+        assertEquals( document, saver.get( config2 ).orElseThrow().getState().get("document") );
+
+        saver.release( config2 );
+        assertEquals( 0, blobStore.size() );
+    }
+
+    @Test
+    public void testFileSystemBlobStore() throws Exception {
+        var rootPath = Paths.get( "target", "checkpoint", "testFileSystemBlobStore" );
+        var blobsPath = rootPath.resolve( "blobs" );
+        var config = RunnableConfig.builder().threadId("thread1").build();
+
+        var saver = DeduplicatingCheckpointSaver.builder()
+                .saver( new FileSystemSaver( rootPath, stateSerializer ) )
+                .stateSerializer( stateSerializer )
+                .blobStore( new FileSystemBlobStore( blobsPath ) )
+                .threshold( 1024 )
+                .build();
+
+        saver.put( config, checkpoint( "node1", Map.of( "document", document ) ) );
+        saver.put( config, checkpoint( "node2", Map.of( "document", document ) ) );
+
+        // a new saver (reset cache) collects the retained blobs from the stored checkpoints
+        saver = DeduplicatingCheckpointSaver.builder()
+                .saver( new FileSystemSaver( rootPath, stateSerializer ) )
+                .stateSerializer( stateSerializer )
+                .blobStore( new FileSystemBlobStore( blobsPath ) )
+                .threshold( 1024 )
+                .build();
+
+        assertEquals( document, saver.get( config ).orElseThrow().getState().get("document") );
+        saver.put( config, checkpoint( "node3", Map.of( "document", document ) ) );
+
+        saver.release( config );
+
+        try( var files = Files.walk( blobsPath ) ) {
+            assertTrue( files.noneMatch( Files::isRegularFile ) );
+        }
+    }
+}
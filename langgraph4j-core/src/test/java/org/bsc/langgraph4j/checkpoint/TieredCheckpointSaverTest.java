@@ -0,0 +1,213 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredCheckpointSaverTest {
+
+    static class CountingSaver extends MemorySaver {
+        int inserted = 0;
+
+        @Override
+        protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+            ++inserted;
+        }
+    }
+
+    static Checkpoint checkpoint( String nodeId ) {
+        return Checkpoint.builder()
+                .id( UUID.randomUUID().toString() )
+                .nodeId( nodeId )
+                .nextNodeId( nodeId + "_next" )
+                .state( Map.of( "node", nodeId ) )
+                .build();
+    }
+
+    static List<String> ids( BaseCheckpointSaver saver, RunnableConfig config ) {
+        return saver.list(config).stream().map(Checkpoint::getId).toList();
+    }
+
+    @Test
+    public void testWriteThrough() throws Exception {
+        var hot = new MemorySaver();
+        var cold = new CountingSaver();
+        var saver = new TieredCheckpointSaver( hot, cold );
+
+        var config = RunnableConfig.builder().threadId("thread1").build();
+
+        saver.put( config, checkpoint("node1") );
+        var lastConfig = saver.put( config, checkpoint("node2") );
+
+        assertEquals( 2, cold.inserted );
+        assertEquals( ids( cold, config ), ids( saver, config ) );
+
+        // replace
+        var replaced = checkpoint("node3");
+        saver.put( lastConfig, replaced );
+        assertEquals( "node3", saver.get( config ).orElseThrow().getNodeId() );
+        assertEquals( "node3", cold.get( config ).orElseThrow().getNodeId() );
+
+        var tag = saver.release( config );
+        assertEquals( 2, tag.checkpoints().size() );
+        assertTrue( hot.list( config ).isEmpty() );
+        assertTrue( cold.list( config ).isEmpty() );
+    }
+
+    @Test
+    public void testWriteBack() throws Exception {
+        var cold = new CountingSaver();
+        var saver = TieredCheckpointSaver.builder()
+                .hot( new MemorySaver() )
+                .cold( cold )
+                .writePolicy( TieredCheckpointSaver.WritePolicy.WRITE_BACK )
+                .maxPendingCheckpoints( 3 )
+                .build();
+
+        var config = RunnableConfig.builder().threadId("thread1").build();
+
+        saver.put( config, checkpoint("node1") );
+        saver.put( config, checkpoint("node2") );
+        assertEquals( 0, cold.inserted );
+        assertEquals( 2, saver.list( config ).size() );
+
+        saver.flush();
+        assertEquals( 2, cold.inserted );
+
+        saver.put( config, checkpoint("node3") );
+        saver.put( config, checkpoint("node4") );
+        saver.put( config, checkpoint("node5") );
+        // max pending checkpoints reached
+        assertEquals( 5, cold.inserted );
+
+        saver.put( config, checkpoint("node6") );
+        var expected = ids( saver, config );
+
+        var tag = saver.release( config );
+        assertEquals( 6, cold.inserted );
+        assertEquals( expected, tag.checkpoints().stream().map(Checkpoint::getId).toList() );
+    }
+
+    @Test
+    public void testEvictionAndReadThrough() throws Exception {
+        var hot = new MemorySaver();
+        var cold = new CountingSaver();
+        var saver = TieredCheckpointSaver.builder()
+                .hot( hot )
+                .cold( cold )
+                .writePolicy( TieredCheckpointSaver.WritePolicy.WRITE_BACK )
+                .maxHotThreads( 1 )
+                .build();
+
+        var config1 = RunnableConfig.builder().threadId("thread1").build();
+        var config2 = RunnableConfig.builder().threadId("thread2").build();
+
+        saver.put( config1, checkpoint("node1") );
+        saver.put( config1, checkpoint("node2") );
+        var expected = ids( saver, config1 );
+        assertEquals( 0, cold.inserted );
+
+        // thread1 is evicted: pending writes are flushed and hot tier is released
+        saver.put( config2, checkpoint("node1") );
+        assertEquals( 2, cold.inserted );
+        assertTrue( hot.list( config1 ).isEmpty() );
+
+        // thread1 is loaded again from cold tier
+        assertEquals( expected, ids( saver, config1 ) );
+        assertEquals( expected, ids( hot, config1 ) );
+        assertEquals( "node2", saver.get( config1 ).orElseThrow().getNodeId() );
+        assertEquals( 3, cold.inserted );
+    }
+
+    @Test
+    public void testWriteThroughColdFailure() throws Exception {
+        var hot = new MemorySaver();
+        var cold = new MemorySaver() {
+            boolean failing = false;
+
+            @Override
+            protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) {
+                if( failing ) {
+                    checkpoints.remove( checkpoint );
+                    throw new IllegalStateException( "cold tier unavailable" );
+                }
+            }
+        };
+        var saver = new TieredCheckpointSaver( hot, cold );
+
+        var config = RunnableConfig.builder().threadId("thread1").build();
+        saver.put( config, checkpoint("node1") );
+
+        cold.failing = true;
+        assertThrows( IllegalStateException.class, () -> saver.put( config, checkpoint("node2") ) );
+
+        // the hot tier doesn't serve the checkpoint that isn't persisted
+        assertEquals( "node1", saver.get( config ).orElseThrow().getNodeId() );
+        assertEquals( ids( cold, config ), ids( saver, config ) );
+    }
+
+    @Test
+    public void testSlowColdTierDoesNotBlockOtherThreads() throws Exception {
+        var writing = new CountDownLatch(1);
+        var unblock = new CountDownLatch(1);
+        var store = new MemorySaver();
+        var cold = new BaseCheckpointSaver() {
+            @Override
+            public Collection<Checkpoint> list(RunnableConfig config) {
+                return store.list(config);
+            }
+
+            @Override
+            public Optional<Checkpoint> get(RunnableConfig config) {
+                return store.get(config);
+            }
+
+            @Override
+            public RunnableConfig put(RunnableConfig config, Checkpoint checkpoint) throws Exception {
+                if( config.threadId().orElseThrow().equals("slow") ) {
+                    writing.countDown();
+                    assertTrue( unblock.await( 10, TimeUnit.SECONDS ) );
+                }
+                return store.put(config, checkpoint);
+            }
+
+            @Override
+            public Tag release(RunnableConfig config) throws Exception {
+                return store.release(config);
+            }
+        };
+        var saver = new TieredCheckpointSaver( new MemorySaver(), cold );
+
+        var slowConfig = RunnableConfig.builder().threadId("slow").build();
+        var fastConfig = RunnableConfig.builder().threadId("fast").build();
+
+        var slowPut = CompletableFuture.runAsync( () -> {
+            try {
+                saver.put( slowConfig, checkpoint("node1") );
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue( writing.await( 10, TimeUnit.SECONDS ) );
+
+        // the cold write of another thread is in progress
+        saver.put( fastConfig, checkpoint("node1") );
+        assertEquals( "node1", saver.get( fastConfig ).orElseThrow().getNodeId() );
+        assertFalse( slowPut.isDone() );
+
+        unblock.countDown();
+        slowPut.get( 10, TimeUnit.SECONDS );
+        assertEquals( "node1", saver.get( slowConfig ).orElseThrow().getNodeId() );
+    }
+}
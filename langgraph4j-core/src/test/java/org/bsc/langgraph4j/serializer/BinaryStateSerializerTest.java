@@ -0,0 +1,153 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.FileSystemSaver;
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryStateSerializerTest {
+
+    record Message( String role, String content, Map<String,Object> metadata ) {}
+
+    static class MessageSerializer implements Serializer<Message> {
+
+        @Override
+        public void write(Message object, ObjectOutput out) throws IOException {
+            out.writeUTF( object.role() );
+            Serializer.writeUTF( object.content(), out );
+            out.writeObject( object.metadata() );
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Message read(ObjectInput in) throws IOException, ClassNotFoundException {
+            return new Message( in.readUTF(), Serializer.readUTF(in), (Map<String,Object>)in.readObject() );
+        }
+    }
+
+    static class NotSerializable {}
+
+    static BinaryStateSerializer<AgentState> serializer() {
+        var serializer = new BinaryStateSerializer<>( AgentState::new );
+        serializer.mapper().register( 1, Message.class, new MessageSerializer() );
+        return serializer;
+    }
+
+    @Test
+    public void testBuiltinTypes() throws Exception {
+        var serializer = serializer();
+
+        var data = new HashMap<String,Object>();
+        data.put( "string", "value" );
+        data.put( "unicode", "àèìòù €  😀 " + "x".repeat( 70_000 ) );
+        data.put( "int", -12345 );
+        data.put( "long", Long.MIN_VALUE );
+        data.put( "double", 3.14 );
+        data.put( "float", 1.5f );
+        data.put( "short", (short)7 );
+        data.put( "byte", (byte)-1 );
+        data.put( "char", 'c' );
+        data.put( "true", true );
+        data.put( "false", false );
+        data.put( "null", null );
+        data.put( "list", List.of( 1, "two", List.of( 3L ) ) );
+        data.put( "set", new LinkedHashSet<>( List.of( "a", "b" ) ) );
+        data.put( "map", Map.of( "nested", Map.of( 1, "one" ) ) );
+        data.put( "instant", Instant.ofEpochSecond( 1_000 ) ); // java serialization fallback
+
+        var bytes = serializer.dataToBytes( data );
+        assertNotEquals( (byte)0xAC, bytes[0] );
+        assertFalse( StateCompression.isCompressed( bytes ) );
+
+        var result = serializer.dataFromBytes( bytes );
+        assertEquals( data, result );
+        assertTrue( result.containsKey( "null" ) );
+        assertInstanceOf( ArrayList.class, result.get( "list" ) );
+        assertInstanceOf( HashMap.class, result.get( "map" ) );
+
+        var bytesArray = serializer.dataFromBytes( serializer.dataToBytes( Map.of( "bytes", new byte[] { 1, 2, 3 } ) ) );
+        assertArrayEquals( new byte[] { 1, 2, 3 }, (byte[])bytesArray.get( "bytes" ) );
+
+        var exception = assertThrows( NotSerializableException.class,
+                () -> serializer.dataToBytes( Map.of( "value", new NotSerializable() ) ) );
+        assertTrue( exception.getMessage().contains( NotSerializable.class.getName() ) );
+    }
+
+    @Test
+    public void testRegisteredTypes() throws Exception {
+        var serializer = serializer();
+
+        var messages = List.of(
+                new Message( "user", "hello", Map.of() ),
+                new Message( "assistant", "hi", Map.of( "tokens", 2, "nested", new Message( "tool", "result", Map.of() ) ) ) );
+
+        var data = Map.<String,Object>of( "messages", messages );
+        var bytes = serializer.dataToBytes( data );
+        assertEquals( data, serializer.dataFromBytes( bytes ) );
+
+        // the type id is written in place of the class name
+        var content = new String( bytes, java.nio.charset.StandardCharsets.ISO_8859_1 );
+        assertFalse( content.contains( Message.class.getSimpleName() ) );
+
+        var other = new BinaryStateSerializer<>( AgentState::new );
+        assertThrows( StreamCorruptedException.class, () -> other.dataFromBytes( bytes ) );
+
+        assertThrows( IllegalArgumentException.class,
+                () -> serializer.mapper().register( 1, String.class, new MessageSerializer() ) );
+        assertThrows( IllegalArgumentException.class,
+                () -> serializer.mapper().register( -1, NotSerializable.class, new MessageSerializer() ) );
+
+        assertTrue( serializer.mapper().unregister( Message.class ) );
+        assertTrue( serializer.mapper().getSerializer( Message.class ).isEmpty() );
+        assertThrows( NotSerializableException.class, () -> serializer.dataToBytes( data ) );
+    }
+
+    @Test
+    public void testCompressionAndStreams() throws Exception {
+        var serializer = serializer();
+        var data = Map.<String,Object>of( "value", "repeated message text ".repeat(1_000) );
+
+        var compressed = serializer.dataToBytes( data, StateCompression.of( CompressionCodec.DEFLATE ) );
+        assertTrue( StateCompression.isCompressed( compressed ) );
+        assertEquals( data, serializer.dataFromBytes( compressed ) );
+        assertEquals( data, serializer.dataFromStream( new ByteArrayInputStream( compressed ) ) );
+        assertEquals( data, serializer.dataFromStream( new ByteArrayInputStream( serializer.dataToBytes( data ) ) ) );
+
+        // embedded in a java object stream
+        var state = serializer.cloneObject( data );
+        assertEquals( data, state.data() );
+    }
+
+    @Test
+    public void testFileSystemSaver() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testBinaryStateSerializer" );
+        var config = RunnableConfig.builder().threadId("binary").build();
+
+        var saver = new FileSystemSaver( targetFolder, serializer() );
+        saver.deleteFile( config );
+
+        var state = Map.<String,Object>of( "messages", List.of( new Message( "user", "hello", Map.of() ) ) );
+        saver.put( config, Checkpoint.builder()
+                        .nodeId( "agent" )
+                        .nextNodeId( "tool" )
+                        .state( state )
+                        .build() );
+
+        var reloaded = new FileSystemSaver( targetFolder, serializer() );
+        assertEquals( state, reloaded.get( config ).orElseThrow().getState() );
+
+        saver.deleteFile( config );
+    }
+
+}
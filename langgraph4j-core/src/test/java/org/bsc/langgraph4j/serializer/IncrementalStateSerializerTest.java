@@ -0,0 +1,114 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.checkpoint.FileSystemSaver;
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalStateSerializerTest {
+
+    record Message( String role, String content ) implements java.io.Serializable {}
+
+    static class State extends MessagesState<String> {
+        public State(Map<String, Object> initData) {
+            super( initData );
+        }
+    }
+
+    @Test
+    public void testOnlyChangedValuesAreEncoded() throws Exception {
+        var serializer = new IncrementalStateSerializer<>( new ObjectStreamStateSerializer<>( AgentState::new ) );
+        assertEquals( "application/octet-stream;fragments", serializer.contentType() );
+
+        var messages = new ArrayList<Object>( List.of( new Message( "user", "hello" ), new Message( "ai", "hi" ) ) );
+        var metadata = new HashMap<String,Object>( Map.of( "step", 1 ) );
+        var data = new HashMap<String,Object>();
+        data.put( "messages", messages );
+        data.put( "metadata", metadata );
+        data.put( "next", "agent" );
+        data.put( "empty", null );
+
+        assertEquals( data, serializer.dataFromBytes( serializer.dataToBytes( data ) ) );
+        assertEquals( 4, serializer.encodedFragments() ); // two messages, metadata, next
+        assertEquals( 0, serializer.reusedFragments() );
+
+        // next checkpoint: a copy of the list with a new message, metadata changed in place
+        messages = new ArrayList<>( messages );
+        messages.add( new Message( "user", "bye" ) );
+        metadata.put( "step", 2 );
+        data.put( "messages", messages );
+
+        var result = serializer.dataFromBytes( serializer.dataToBytes( data ) );
+        assertEquals( data, result );
+        assertEquals( 6, serializer.encodedFragments() ); // new message and metadata
+        assertEquals( 3, serializer.reusedFragments() ); // two messages and next
+
+        var compressed = serializer.dataToBytes( data, StateCompression.of( CompressionCodec.DEFLATE ) );
+        assertEquals( data, serializer.dataFromBytes( compressed ) );
+
+        // a list with mutable elements is encoded as a whole
+        var mixed = Map.<String,Object>of( "values", new ArrayList<>( List.of( new ArrayList<>( List.of( 1 ) ) ) ) );
+        var encoded = serializer.encodedFragments();
+        assertEquals( mixed, serializer.dataFromBytes( serializer.dataToBytes( mixed ) ) );
+        assertEquals( encoded + 1, serializer.encodedFragments() );
+
+        assertThrows( java.io.StreamCorruptedException.class,
+                () -> serializer.dataFromBytes( new ObjectStreamStateSerializer<>( AgentState::new ).dataToBytes( data ) ) );
+    }
+
+    @Test
+    public void testBinaryFragments() throws Exception {
+        var serializer = new IncrementalStateSerializer<>( new BinaryStateSerializer<>( AgentState::new ) );
+
+        var data = Map.<String,Object>of(
+                "messages", new ArrayList<>( List.of( new Message( "user", "hello" ), "text", 1L ) ),
+                "metadata", new HashMap<>( Map.of( "step", 1 ) ) );
+
+        assertEquals( data, serializer.dataFromBytes( serializer.dataToBytes( data ) ) );
+        assertEquals( 4, serializer.encodedFragments() );
+    }
+
+    @Test
+    public void testCheckpoints() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testIncrementalStateSerializer" );
+        var config = RunnableConfig.builder().threadId("incremental").build();
+
+        var serializer = new IncrementalStateSerializer<>( new ObjectStreamStateSerializer<>( State::new ) );
+        var saver = new FileSystemSaver( targetFolder, serializer );
+        saver.deleteFile( config );
+
+        var workflow = new StateGraph<>( State.SCHEMA, State::new )
+                .addNode( "a", node_async( state -> Map.of( "messages", "a" ) ) )
+                .addNode( "b", node_async( state -> Map.of( "messages", "b" ) ) )
+                .addNode( "c", node_async( state -> Map.of( "messages", "c" ) ) )
+                .addEdge( START, "a" )
+                .addEdge( "a", "b" )
+                .addEdge( "b", "c" )
+                .addEdge( "c", END );
+
+        var app = workflow.compile( CompileConfig.builder().checkpointSaver( saver ).build() );
+        var result = app.invoke( Map.of( "messages", "start" ), config ).orElseThrow();
+        assertEquals( List.of( "start", "a", "b", "c" ), result.messages() );
+        assertTrue( serializer.reusedFragments() > 0 );
+
+        var reloaded = new FileSystemSaver( targetFolder, new IncrementalStateSerializer<>( new ObjectStreamStateSerializer<>( State::new ) ) );
+        assertEquals( List.of( "start", "a", "b", "c" ), reloaded.get( config ).orElseThrow().getState().get( "messages" ) );
+
+        saver.deleteFile( config );
+    }
+}
@@ -2,14 +2,16 @@ package org.bsc.langgraph4j.serializer;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.bsc.langgraph4j.NodeOutput;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.TypeMapper;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.Test;
 
-import java.io.IOException;
+import java.io.*;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -154,5 +156,54 @@ public class JacksonSerializerTest {
 
 
 
+    }
+
+    static class SmileStateSerializer extends JacksonStateSerializer<AgentState> {
+
+        public SmileStateSerializer() {
+            super(AgentState::new, new SmileFactory());
+        }
+    }
+
+    @Test
+    public void streamingLayoutTest() throws Exception {
+        var serializer = new MyJacksonStateSerializer();
+        assertEquals( "application/json", serializer.contentType() );
+
+        var data = Map.<String,Object>of( "text", "àèìòù € " + "x".repeat( 70_000 ), "list", List.of( 1, 2 ) );
+
+        // the block has the same layout of the string based serialization
+        var legacy = new ByteArrayOutputStream();
+        try( var out = new ObjectOutputStream( legacy ) ) {
+            Serializer.writeUTF( serializer.objectMapper().writeValueAsString( data ), out );
+        }
+        assertArrayEquals( legacy.toByteArray(), serializer.dataToBytes( data ) );
+        assertEquals( data, serializer.dataFromBytes( legacy.toByteArray() ) );
+
+        // supplementary characters are escaped by the generator
+        var emoji = Map.<String,Object>of( "text", "😀" );
+        assertEquals( emoji, serializer.dataFromBytes( serializer.dataToBytes( emoji ) ) );
+    }
+
+    @Test
+    public void smileFormatTest() throws Exception {
+        var serializer = new SmileStateSerializer();
+        assertEquals( "application/x-jackson-smile", serializer.contentType() );
+
+        var data = Map.<String,Object>of(
+                "string", "value",
+                "integer", 10,
+                "list", List.of( "a", "b" ),
+                "person", new Person( "John", 30 ) );
+
+        var bytes = serializer.dataToBytes( data );
+        var json = new MyJacksonStateSerializer().dataToBytes( data );
+        assertTrue( bytes.length < json.length );
+
+        var result = serializer.dataFromBytes( bytes );
+        assertEquals( "value", result.get( "string" ) );
+        assertEquals( 10, result.get( "integer" ) );
+        assertEquals( List.of( "a", "b" ), result.get( "list" ) );
+        assertEquals( Map.of( "name", "John", "age", 30 ), result.get( "person" ) );
     }
 }
@@ -0,0 +1,94 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SerializerMapperTest {
+
+    interface Message {}
+
+    record UserMessage( String text ) implements Message {}
+
+    record AiMessage( String text ) implements Message {}
+
+    interface Tagged {}
+
+    record TaggedMessage( String text ) implements Message, Tagged {}
+
+    static class TextSerializer implements Serializer<Object> {
+        final String prefix;
+
+        TextSerializer( String prefix ) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public void write(Object object, ObjectOutput out) throws IOException {
+            out.writeUTF( object.toString() );
+        }
+
+        @Override
+        public Object read(ObjectInput in) throws IOException {
+            return new UserMessage( prefix + in.readUTF() );
+        }
+    }
+
+    @Test
+    public void testResolution() throws Exception {
+        var serializer = new ObjectStreamStateSerializer<>( AgentState::new );
+        var mapper = serializer.mapper();
+
+        var collectionSerializer = mapper.getSerializer( Collection.class ).orElseThrow();
+        assertSame( collectionSerializer, mapper.getSerializer( ArrayList.class ).orElseThrow() );
+        assertSame( collectionSerializer, mapper.getSerializer( List.of( 1, 2, 3 ).getClass() ).orElseThrow() );
+        assertSame( mapper.getSerializer( Map.class ).orElseThrow(), mapper.getSerializer( Map.of().getClass() ).orElseThrow() );
+
+        // negative result is invalidated by a new registration
+        assertTrue( mapper.getSerializer( UserMessage.class ).isEmpty() );
+
+        var base = new TextSerializer( "base:" );
+        var exact = new TextSerializer( "exact:" );
+        mapper.register( Message.class, base );
+        assertSame( base, mapper.getSerializer( UserMessage.class ).orElseThrow() );
+        assertSame( base, mapper.getSerializer( AiMessage.class ).orElseThrow() );
+
+        // the exact registration wins over the assignable one
+        mapper.register( UserMessage.class, exact );
+        assertSame( exact, mapper.getSerializer( UserMessage.class ).orElseThrow() );
+        assertSame( exact, mapper.getSerializer( UserMessage.class.getName() ).orElseThrow() );
+        assertSame( base, mapper.getSerializer( AiMessage.class ).orElseThrow() );
+
+        // a new registration replaces the previous one
+        var replaced = new TextSerializer( "replaced:" );
+        mapper.register( UserMessage.class, replaced );
+        assertSame( replaced, mapper.getSerializer( UserMessage.class ).orElseThrow() );
+
+        var data = serializer.dataFromBytes( serializer.dataToBytes( Map.of( "messages", List.of( new UserMessage( "hi" ) ) ) ) );
+        assertEquals( List.of( new UserMessage( "replaced:UserMessage[text=hi]" ) ), data.get( "messages" ) );
+    }
+
+    @Test
+    public void testSupertypesInRegistrationOrder() {
+        var tagged = new TextSerializer( "tagged:" );
+        var message = new TextSerializer( "message:" );
+
+        var taggedFirst = new ObjectStreamStateSerializer<>( AgentState::new ).mapper()
+                .register( Tagged.class, tagged )
+                .register( Message.class, message );
+        assertSame( tagged, taggedFirst.getSerializer( TaggedMessage.class ).orElseThrow() );
+
+        var messageFirst = new ObjectStreamStateSerializer<>( AgentState::new ).mapper()
+                .register( Message.class, message )
+                .register( Tagged.class, tagged );
+        assertSame( message, messageFirst.getSerializer( TaggedMessage.class ).orElseThrow() );
+    }
+
+}
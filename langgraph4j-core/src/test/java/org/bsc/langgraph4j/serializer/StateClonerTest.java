@@ -0,0 +1,146 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateClonerTest {
+
+    record Point( int x, int y, String label ) {}
+
+    record Tagged( String name, List<String> tags ) implements Serializable {}
+
+    static class Counter implements Serializable {
+        int value;
+
+        Counter( int value ) {
+            this.value = value;
+        }
+    }
+
+    static StateCloner cloner() {
+        return new ObjectStreamStateSerializer<>( AgentState::new ).stateCloner();
+    }
+
+    @Test
+    public void testImmutablesAreShared() throws Exception {
+        var list = List.of( "a", "b" );
+        var point = new Point( 1, 2, "p" );
+        var instant = Instant.now();
+
+        var data = new HashMap<String,Object>();
+        data.put( "string", "value" );
+        data.put( "number", 10 );
+        data.put( "list", list );
+        data.put( "point", point );
+        data.put( "instant", instant );
+        data.put( "empty", Optional.empty() );
+        data.put( "null", null );
+
+        var copy = cloner().cloneData( data );
+
+        assertEquals( data, copy );
+        assertNotSame( data, copy );
+        assertSame( list, copy.get( "list" ) );
+        assertSame( point, copy.get( "point" ) );
+        assertSame( instant, copy.get( "instant" ) );
+        assertTrue( copy.containsKey( "null" ) );
+    }
+
+    @Test
+    public void testMutablesAreCopied() throws Exception {
+        var mutable = new ArrayList<>( List.of( "a" ) );
+        var nested = new HashMap<String,Object>( Map.of( "items", mutable ) );
+        var immutableWithMutable = List.of( mutable );
+        var array = new int[] { 1, 2, 3 };
+
+        var copy = cloner().cloneData( Map.of(
+                "nested", nested,
+                "list", immutableWithMutable,
+                "unmodifiable", Collections.unmodifiableList( mutable ),
+                "array", array ) );
+
+        var nestedCopy = (Map<?,?>)copy.get( "nested" );
+        assertInstanceOf( HashMap.class, nestedCopy );
+        assertNotSame( nested, nestedCopy );
+        assertNotSame( mutable, nestedCopy.get( "items" ) );
+        assertEquals( mutable, nestedCopy.get( "items" ) );
+
+        var listCopy = (List<?>)copy.get( "list" );
+        assertNotSame( immutableWithMutable, listCopy );
+        assertThrows( UnsupportedOperationException.class, () -> listCopy.remove(0) );
+
+        var unmodifiableCopy = (List<?>)copy.get( "unmodifiable" );
+        mutable.add( "b" );
+        assertEquals( List.of( "a" ), unmodifiableCopy );
+
+        assertArrayEquals( array, (int[])copy.get( "array" ) );
+        assertNotSame( array, copy.get( "array" ) );
+    }
+
+    @Test
+    public void testImmutableListWithNulls() throws Exception {
+        var mutable = new ArrayList<>( List.of( "a" ) );
+        // Stream.toList() allows nulls, unlike List.of(...)
+        var list = Stream.of( mutable, null ).toList();
+
+        var copy = (List<?>)cloner().cloneData( Map.of( "list", list ) ).get( "list" );
+
+        assertEquals( list, copy );
+        assertNotSame( mutable, copy.get(0) );
+        assertNull( copy.get(1) );
+        assertThrows( UnsupportedOperationException.class, () -> copy.remove(0) );
+    }
+
+    @Test
+    public void testSharedReferences() throws Exception {
+        var shared = new ArrayList<Object>( List.of( "a" ) );
+        var cyclic = new ArrayList<Object>();
+        cyclic.add( cyclic );
+
+        var copy = cloner().cloneData( Map.of(
+                "first", shared,
+                "second", new LinkedList<>( List.of( shared ) ),
+                "cyclic", cyclic ) );
+
+        var first = copy.get( "first" );
+        assertNotSame( shared, first );
+        assertSame( first, ((List<?>)copy.get( "second" )).get(0) );
+
+        var cyclicCopy = (List<?>)copy.get( "cyclic" );
+        assertNotSame( cyclic, cyclicCopy );
+        assertSame( cyclicCopy, cyclicCopy.get(0) );
+    }
+
+    @Test
+    public void testRegisteredCopierAndFallback() throws Exception {
+        var cloner = cloner();
+
+        var counter = new Counter( 1 );
+        var tagged = new Tagged( "t", new ArrayList<>( List.of( "x" ) ) );
+
+        // copied through the serializer
+        var copy = cloner.cloneData( Map.of( "counter", counter, "tagged", tagged, "list", new ArrayList<>( List.of( counter ) ) ) );
+        assertNotSame( counter, copy.get( "counter" ) );
+        assertEquals( 1, ((Counter)copy.get( "counter" )).value );
+        assertNotSame( tagged, copy.get( "tagged" ) );
+        assertEquals( tagged, copy.get( "tagged" ) );
+        assertEquals( 1, ((Counter)((List<?>)copy.get( "list" )).get(0)).value );
+
+        // copied by the registered copier
+        cloner.register( Counter.class, (value, context) -> new Counter( value.value + 100 ) );
+        copy = cloner.cloneData( Map.of( "counter", counter ) );
+        assertEquals( 101, ((Counter)copy.get( "counter" )).value );
+
+        cloner.registerImmutable( Counter.class );
+        copy = cloner.cloneData( Map.of( "counter", counter ) );
+        assertSame( counter, copy.get( "counter" ) );
+    }
+}
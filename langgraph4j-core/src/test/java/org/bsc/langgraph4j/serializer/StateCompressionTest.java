@@ -0,0 +1,104 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.checkpoint.Checkpoint;
+import org.bsc.langgraph4j.checkpoint.FileSystemSaver;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateCompressionTest {
+
+    final ObjectStreamStateSerializer<AgentState> serializer = new ObjectStreamStateSerializer<>(AgentState::new);
+
+    final Map<String,Object> smallData = Map.of( "value", "small" );
+    final Map<String,Object> largeData = Map.of( "value", "repeated message text ".repeat(1_000) );
+
+    @Test
+    public void testThresholdAndMixedPayloads() throws Exception {
+        var compression = StateCompression.builder()
+                .codec( CompressionCodec.DEFLATE )
+                .threshold( 1024 )
+                .build();
+
+        var small = serializer.dataToBytes( smallData, compression );
+        var large = serializer.dataToBytes( largeData, compression );
+        var raw = serializer.dataToBytes( largeData );
+
+        assertFalse( StateCompression.isCompressed( small ) );
+        assertArrayEquals( serializer.dataToBytes( smallData ), small );
+        assertTrue( StateCompression.isCompressed( large ) );
+        assertTrue( large.length < raw.length );
+
+        assertEquals( smallData, serializer.dataFromBytes( small ) );
+        assertEquals( largeData, serializer.dataFromBytes( large ) );
+        assertEquals( largeData, serializer.dataFromBytes( raw ) );
+
+        var metrics = compression.metrics();
+        assertEquals( 2, metrics.payloads() );
+        assertEquals( 1, metrics.compressedPayloads() );
+        assertEquals( raw.length, metrics.uncompressedBytes() );
+        assertEquals( large.length, metrics.compressedBytes() );
+        assertTrue( metrics.ratio() < 0.1 );
+    }
+
+    @Test
+    public void testCodecs() throws Exception {
+        var deflate = serializer.dataToBytes( largeData, StateCompression.of( CompressionCodec.DEFLATE ) );
+        var gzip = serializer.dataToBytes( largeData, StateCompression.of( CompressionCodec.GZIP ) );
+
+        assertNotEquals( deflate[3], gzip[3] ); // codec id
+        assertEquals( largeData, serializer.dataFromBytes( deflate ) );
+        assertEquals( largeData, serializer.dataFromBytes( gzip ) );
+
+        // stream decompression
+        try( var in = StateCompression.decompress( new ByteArrayInputStream( gzip ) ) ) {
+            assertArrayEquals( serializer.dataToBytes( largeData ), in.readAllBytes() );
+        }
+
+        // unknown codec
+        var unknown = deflate.clone();
+        unknown[3] = 127;
+        assertThrows( IOException.class, () -> serializer.dataFromBytes( unknown ) );
+
+        // id already used by a different codec
+        assertThrows( IllegalArgumentException.class, () -> CompressionCodec.register( CompressionCodec.deflate( CompressionCodec.GZIP.id(), 9 ) ) );
+    }
+
+    @Test
+    public void testFileSystemSaverWithCompression() throws Exception {
+        var targetFolder = Paths.get( "target", "checkpoint", "testFileSystemSaverWithCompression" );
+        var config = RunnableConfig.builder().threadId("compressed").build();
+        var compression = StateCompression.builder().threshold( 0 ).build();
+
+        var saver = FileSystemSaver.builder()
+                .targetFolder( targetFolder )
+                .stateSerializer( serializer )
+                .compression( compression )
+                .build();
+        saver.deleteFile( config );
+
+        saver.put( config, Checkpoint.builder().nodeId("node1").nextNodeId("node2").state( largeData ).build() );
+
+        var file = targetFolder.resolve( "thread-compressed.saver" );
+        assertTrue( StateCompression.isCompressed( Files.readAllBytes( file ) ) );
+        assertEquals( 1, compression.metrics().compressedPayloads() );
+
+        // a saver without compression reads the compressed file
+        var reader = new FileSystemSaver( targetFolder, serializer );
+        var checkpoint = reader.get( config ).orElseThrow();
+        assertEquals( largeData, checkpoint.getState() );
+
+        reader.deleteFile( config );
+    }
+}
@@ -0,0 +1,74 @@
+package org.bsc.langgraph4j.serializer;
+
+import org.bsc.langgraph4j.serializer.binary.BinaryStateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StateSerializerBufferTest {
+
+    static Stream<StateSerializer<AgentState>> serializers() {
+        return Stream.of(
+                new ObjectStreamStateSerializer<>( AgentState::new ),
+                new BinaryStateSerializer<>( AgentState::new ) );
+    }
+
+    final Map<String,Object> data = Map.of(
+            "messages", List.of( "message text ".repeat( 500 ), "second" ),
+            "count", 2 );
+
+    @ParameterizedTest
+    @MethodSource("serializers")
+    public void testStreamAndChannel( StateSerializer<AgentState> serializer ) throws Exception {
+        var bytes = serializer.dataToBytes( data );
+
+        var stream = new ByteArrayOutputStream();
+        serializer.dataToStream( data, stream );
+        assertArrayEquals( bytes, stream.toByteArray() );
+
+        var channelStream = new ByteArrayOutputStream();
+        serializer.dataToChannel( data, Channels.newChannel( channelStream ) );
+        assertArrayEquals( bytes, channelStream.toByteArray() );
+    }
+
+    @ParameterizedTest
+    @MethodSource("serializers")
+    public void testByteBuffers( StateSerializer<AgentState> serializer ) throws Exception {
+        var bytes = serializer.dataToBytes( data );
+
+        // the pooled buffer is used when large enough
+        var pooled = ByteBuffer.allocate( bytes.length * 2 );
+        var result = serializer.dataToByteBuffer( data, pooled );
+        assertSame( pooled, result );
+        assertEquals( bytes.length, result.remaining() );
+        assertEquals( data, serializer.dataFromByteBuffer( result ) );
+        assertFalse( result.hasRemaining() );
+
+        // otherwise a larger one of the same kind is allocated
+        var direct = serializer.dataToByteBuffer( data, ByteBuffer.allocateDirect( 16 ) );
+        assertTrue( direct.isDirect() );
+        assertEquals( bytes.length, direct.remaining() );
+        assertEquals( data, serializer.dataFromByteBuffer( direct ) );
+
+        // slice of a larger buffer
+        var array = new byte[ bytes.length + 10 ];
+        System.arraycopy( bytes, 0, array, 5, bytes.length );
+        var slice = ByteBuffer.wrap( array, 5, bytes.length ).slice();
+        assertEquals( data, serializer.dataFromByteBuffer( slice ) );
+
+        var compressed = serializer.dataToBytes( data, StateCompression.of( CompressionCodec.DEFLATE ) );
+        assertEquals( data, serializer.dataFromByteBuffer( ByteBuffer.wrap( compressed ) ) );
+    }
+}
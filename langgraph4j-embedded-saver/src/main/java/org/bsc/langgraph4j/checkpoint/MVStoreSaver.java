@@ -0,0 +1,656 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.std.NullableObjectSerializer;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * <p>
+ * MVStoreSaver is an extension of MemorySaver that stores the checkpoints of all the threads
+ * in a single file, using the embedded <a href="https://www.h2database.com/html/mvstore.html">H2 MVStore</a>
+ * key-value engine.
+ * </p>
+ * <p>
+ * The MVStore is a log structured, copy-on-write store: every commit appends a new version to the file,
+ * so a crash never corrupts the data already committed, and maps can be read concurrently
+ * without locking. The following maps are used:
+ * <pre>
+ *     threads          : thread name -&gt; id of the active thread
+ *     releasedThreads  : thread id -&gt; thread name (released threads)
+ *     checkpoints      : "&lt;thread id&gt;/&lt;sequence&gt;" -&gt; serialized checkpoint
+ *     checkpointKeys   : checkpoint id -&gt; key in checkpoints map
+ *     lastCheckpoints  : thread id -&gt; thread name, id, node ids and saved time of the last checkpoint
+ * </pre>
+ * Keys of checkpoints map are ordered by thread and insertion sequence, so the history of a thread is
+ * loaded with a range scan while a single checkpoint is looked up by id through the checkpointKeys index.
+ * </p>
+ * <p>
+ * As {@link CheckpointQuery} the saver selects the threads scanning the lastCheckpoints map in thread id order,
+ * without reading the checkpoints. The released threads are selected only if they are retained.
+ * </p>
+ * <p>
+ * As {@link CheckpointRetention} (see {@link CheckpointSweeper}) the saver deletes in bounded batches the expired
+ * released and idle threads and the old checkpoints of the active ones, using the saved time kept in the
+ * lastCheckpoints map. The space freed by the deletes is reclaimed by the incremental compaction, as on release.
+ * </p>
+ * <p>
+ * Ex:
+ * <pre>
+ * try( var saver = MVStoreSaver.builder()
+ *         .path( Path.of("checkpoints.mv.db") )
+ *         .stateSerializer( stateSerializer )
+ *         .build() ) {
+ *     ...
+ * }
+ * </pre>
+ * </p>
+ */
+public class MVStoreSaver extends MemorySaver implements CheckpointRetention, AutoCloseable {
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MVStoreSaver.class);
+
+    private static final int COMPACT_WRITE_LIMIT = 4 * 1024 * 1024;
+
+    private final MVStore store;
+    private final MVMap<String, String> threads;
+    private final MVMap<String, String> releasedThreads;
+    private final MVMap<String, byte[]> checkpoints;
+    private final MVMap<String, String> checkpointKeys;
+    private final MVMap<String, byte[]> lastCheckpoints;
+    private final Serializer<Checkpoint> serializer;
+    private final Serializer<LastCheckpoint> lastCheckpointSerializer = new LastCheckpointSerializer();
+    private final boolean retainReleasedThreads;
+    private final int compactFillRate;
+
+    /**
+     * Constructor used by the builder to create a new instance of MVStoreSaver.
+     *
+     * @param builder the builder
+     */
+    protected MVStoreSaver(Builder builder) {
+        requireNonNull(builder.stateSerializer, "stateSerializer cannot be null");
+
+        this.serializer = new MVStoreCheckpointSerializer(builder.stateSerializer);
+        this.retainReleasedThreads = builder.retainReleasedThreads;
+        this.compactFillRate = builder.compactFillRate;
+
+        var storeBuilder = new MVStore.Builder()
+                .autoCommitDisabled(); // every change is explicitly committed, keeping checkpoint and index in the same version
+
+        if (builder.path != null) {
+            try {
+                var parent = builder.path.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException(format("folder of '%s' cannot be created", builder.path), e);
+            }
+            storeBuilder.fileName(builder.path.toString());
+        }
+        if (builder.compress) {
+            storeBuilder.compress();
+        }
+
+        this.store = storeBuilder.open();
+        this.threads = store.openMap("threads");
+        this.releasedThreads = store.openMap("releasedThreads");
+        this.checkpoints = store.openMap("checkpoints");
+        this.checkpointKeys = store.openMap("checkpointKeys");
+        this.lastCheckpoints = store.openMap("lastCheckpoints");
+    }
+
+    /**
+     * Creates an instance of a builder that allows to configure and create a new
+     * instance of MVStoreSaver.
+     *
+     * @return a new instance of the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static String keyPrefix(String threadUUID) {
+        return threadUUID + "/";
+    }
+
+    private static String checkpointKey(String threadUUID, long sequence) {
+        // fixed length hex sequence keeps the lexicographic order of keys equal to the insertion order
+        return format("%s%016x", keyPrefix(threadUUID), sequence);
+    }
+
+    /**
+     * Returns the keys of the checkpoints belonging to the given thread, in insertion order.
+     *
+     * @param threadUUID the thread id
+     * @return the list of checkpoint keys
+     */
+    private List<String> checkpointKeysOf(String threadUUID) {
+        var prefix = keyPrefix(threadUUID);
+        var result = new ArrayList<String>();
+        var keys = checkpoints.keyIterator(prefix);
+        while (keys.hasNext()) {
+            var key = keys.next();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            result.add(key);
+        }
+        return result;
+    }
+
+    /**
+     * Removes the given checkpoints of a thread with their id index entries
+     *
+     * @param keys the keys of the checkpoints to remove
+     * @return the number of removed checkpoints
+     * @throws IOException if the id of a checkpoint cannot be read
+     */
+    private int removeCheckpoints(List<String> keys) throws IOException {
+        var removed = 0;
+        for (var key : keys) {
+            var bytes = this.checkpoints.remove(key);
+            if (bytes != null) {
+                checkpointKeys.remove(checkpointIdOf(bytes));
+                ++removed;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Reads only the id of a serialized checkpoint, that is written first, without reading its state
+     */
+    private static String checkpointIdOf(byte[] bytes) throws IOException {
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return Serializer.readUTF(in);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (compactFillRate > 0) {
+            // bounded incremental compaction of chunks with a fill rate below the target
+            store.compact(compactFillRate, COMPACT_WRITE_LIMIT);
+        }
+    }
+
+    private String nextCheckpointKey(String threadUUID) {
+        var lastKey = checkpoints.lowerKey(keyPrefix(threadUUID) + Character.MAX_VALUE);
+        if (lastKey == null || !lastKey.startsWith(keyPrefix(threadUUID))) {
+            return checkpointKey(threadUUID, 0);
+        }
+        var lastSequence = Long.parseUnsignedLong(lastKey.substring(keyPrefix(threadUUID).length()), 16);
+        return checkpointKey(threadUUID, lastSequence + 1);
+    }
+
+    /**
+     * If the list of checkpoints is empty, loads the checkpoints from the store.
+     *
+     * @param config      the configuration
+     * @param checkpoints the list of checkpoints
+     * @return a list of checkpoints
+     * @throws Exception if an error occurs while the checkpoints are being
+     *                   loaded from the store.
+     */
+    @Override
+    protected LinkedList<Checkpoint> loadedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        if (!checkpoints.isEmpty()) {
+            return checkpoints;
+        }
+
+        var threadUUID = threads.get(config.threadId().orElse(THREAD_ID_DEFAULT));
+        if (threadUUID == null) {
+            return checkpoints;
+        }
+
+        for (var key : checkpointKeysOf(threadUUID)) {
+            checkpoints.push(serializer.bytesToObject(this.checkpoints.get(key))); // newest first
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Looks up a checkpoint not in memory through the checkpoint id index
+     *
+     * @param config       the configuration
+     * @param checkpointId the checkpoint id
+     * @return the checkpoint if it belongs to the thread referred by the configuration
+     * @throws Exception if an error occurs while reading the checkpoint
+     */
+    @Override
+    protected Optional<Checkpoint> loadedCheckpoint(RunnableConfig config, String checkpointId) throws Exception {
+        var threadUUID = threads.get(config.threadId().orElse(THREAD_ID_DEFAULT));
+        var key = checkpointKeys.get(checkpointId);
+        if (threadUUID == null || key == null || !key.startsWith(keyPrefix(threadUUID))) {
+            return Optional.empty();
+        }
+        return Optional.of(serializer.bytesToObject(checkpoints.get(key)));
+    }
+
+    /**
+     * Inserts a checkpoint in the store
+     *
+     * @param config      the configuration
+     * @param checkpoints the list of checkpoints
+     * @param checkpoint  the checkpoint to insert
+     * @throws Exception if an error occurs while inserting the checkpoint in the
+     *                   store.
+     */
+    @Override
+    protected void insertedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+        var threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+
+        var threadUUID = threads.computeIfAbsent(threadName, name -> UUID.randomUUID().toString());
+        var key = nextCheckpointKey(threadUUID);
+
+        this.checkpoints.put(key, serializer.objectToBytes(checkpoint));
+        checkpointKeys.put(checkpoint.getId(), key);
+        putLastCheckpoint(threadUUID, threadName, checkpoint);
+
+        store.commit();
+    }
+
+    private void putLastCheckpoint(String threadUUID, String threadName, Checkpoint checkpoint) throws IOException {
+        lastCheckpoints.put(threadUUID, lastCheckpointSerializer.objectToBytes(new LastCheckpoint(
+                threadName,
+                checkpoint.getId(),
+                checkpoint.getNodeId(),
+                checkpoint.getNextNodeId(),
+                System.currentTimeMillis())));
+    }
+
+    /**
+     * Replaces the checkpoint referred by the configuration, keeping its position in the thread history.
+     * The children of the replaced checkpoint, relinked to the replacement, are written again.
+     *
+     * @param config      the configuration
+     * @param checkpoints the list of checkpoints
+     * @param checkpoint  the checkpoint
+     * @throws Exception if an error occurs while updating the checkpoint.
+     */
+    @Override
+    protected void updatedCheckpoint(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+        var replacedKey = config.checkPointId().map(checkpointKeys::get).orElse(null);
+        if (replacedKey == null) {
+            insertedCheckpoint(config, checkpoints, checkpoint);
+            return;
+        }
+
+        this.checkpoints.put(replacedKey, serializer.objectToBytes(checkpoint));
+        config.checkPointId()
+                .filter(id -> !id.equals(checkpoint.getId()))
+                .ifPresent(checkpointKeys::remove);
+        checkpointKeys.put(checkpoint.getId(), replacedKey);
+
+        for (var child : checkpoints) {
+            var childKey = child.getParentId().filter(checkpoint.getId()::equals).map(id -> checkpointKeys.get(child.getId()));
+            if (childKey.isPresent()) {
+                this.checkpoints.put(childKey.get(), serializer.objectToBytes(child));
+            }
+        }
+
+        var threadUUID = replacedKey.substring(0, replacedKey.indexOf('/'));
+        if (replacedKey.equals(this.checkpoints.lowerKey(keyPrefix(threadUUID) + Character.MAX_VALUE))) {
+            putLastCheckpoint(threadUUID, config.threadId().orElse(THREAD_ID_DEFAULT), checkpoint);
+        }
+
+        store.commit();
+    }
+
+    /**
+     * Marks the thread as released. If released threads are not retained their checkpoints are removed.
+     *
+     * @param config      the configuration
+     * @param checkpoints the checkpoints
+     * @param releaseTag  the release tag
+     * @throws Exception if an error occurs while releasing the thread
+     */
+    @Override
+    protected void releasedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
+        var threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
+
+        var threadUUID = threads.remove(threadName);
+        if (threadUUID == null) {
+            return;
+        }
+
+        if (retainReleasedThreads) {
+            releasedThreads.put(threadUUID, threadName);
+        } else {
+            removeCheckpoints(checkpointKeysOf(threadUUID));
+            lastCheckpoints.remove(threadUUID);
+        }
+
+        store.commit();
+
+        compactIfNeeded();
+    }
+
+    /**
+     * Tells whether the last checkpoint of the thread was saved before the given instant
+     */
+    private boolean savedBefore(String threadUUID, Instant savedBefore) throws IOException, ClassNotFoundException {
+        var bytes = lastCheckpoints.get(threadUUID);
+        return bytes != null && lastCheckpointSerializer.bytesToObject(bytes).savedAt() < savedBefore.toEpochMilli();
+    }
+
+    /**
+     * Deletes the retained released threads, with their checkpoints, whose last checkpoint was saved before the
+     * given instant.
+     *
+     * @param savedBefore the instant before which the last checkpoint of the thread was saved
+     * @param limit       the max number of threads to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    @Override
+    public Reclaimed deleteReleasedThreads(Instant savedBefore, int limit) throws Exception {
+        return locked(() -> {
+            var threads = 0;
+            var checkpoints = 0;
+            // the MVMap iterators read a snapshot, so the maps can be changed while iterating
+            for (var threadUUID : (Iterable<String>) () -> releasedThreads.keyIterator(null)) {
+                if (threads == limit) {
+                    break;
+                }
+                if (!savedBefore(threadUUID, savedBefore)) {
+                    continue;
+                }
+                checkpoints += removeCheckpoints(checkpointKeysOf(threadUUID));
+                lastCheckpoints.remove(threadUUID);
+                releasedThreads.remove(threadUUID);
+                ++threads;
+            }
+            return reclaimed(threads, checkpoints);
+        });
+    }
+
+    /**
+     * Deletes the not released threads, with their checkpoints, whose last checkpoint was saved before the
+     * given instant. The deleted threads are evicted from memory.
+     *
+     * @param savedBefore the instant before which the last checkpoint of the thread was saved
+     * @param limit       the max number of threads to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    @Override
+    public Reclaimed deleteIdleThreads(Instant savedBefore, int limit) throws Exception {
+        return locked(() -> {
+            var threads = 0;
+            var checkpoints = 0;
+            for (var thread : this.threads.entrySet()) {
+                if (threads == limit) {
+                    break;
+                }
+                if (!savedBefore(thread.getValue(), savedBefore)) {
+                    continue;
+                }
+                checkpoints += removeCheckpoints(checkpointKeysOf(thread.getValue()));
+                lastCheckpoints.remove(thread.getValue());
+                this.threads.remove(thread.getKey());
+                remove(thread.getKey());
+                ++threads;
+            }
+            return reclaimed(threads, checkpoints);
+        });
+    }
+
+    /**
+     * Deletes the oldest checkpoints of the not released threads exceeding the most recent {@code keepLast} ones.
+     * The trimmed threads are evicted from memory, and reloaded on next access.
+     *
+     * @param keepLast the number of most recent checkpoints to keep in each thread
+     * @param limit    the max number of checkpoints to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    @Override
+    public Reclaimed deleteOldCheckpoints(int keepLast, int limit) throws Exception {
+        return locked(() -> {
+            var checkpoints = 0;
+            for (var thread : this.threads.entrySet()) {
+                if (checkpoints == limit) {
+                    break;
+                }
+                var keys = checkpointKeysOf(thread.getValue());
+                var exceeding = Math.min(keys.size() - keepLast, limit - checkpoints);
+                if (exceeding <= 0) {
+                    continue;
+                }
+                // keys are in insertion order, the oldest come first
+                checkpoints += removeCheckpoints(keys.subList(0, exceeding));
+                remove(thread.getKey());
+            }
+            return reclaimed(0, checkpoints);
+        });
+    }
+
+    private Reclaimed reclaimed(int threads, int checkpoints) {
+        if (threads == 0 && checkpoints == 0) {
+            return Reclaimed.NONE;
+        }
+        store.commit();
+        compactIfNeeded();
+        return new Reclaimed(threads, checkpoints);
+    }
+
+    /**
+     * Selects the threads by their last checkpoint, scanning the lastCheckpoints map from the cursor.
+     * The threads are ordered by their internal id, that is also the cursor.
+     *
+     * @param query the filters and the page to select
+     * @return the selected threads
+     * @throws Exception if an error occurs while reading the store
+     */
+    @Override
+    public Page<ThreadInfo> threads(ThreadQuery query) throws Exception {
+        requireNonNull(query, "query cannot be null");
+
+        var items = new ArrayList<ThreadInfo>();
+        String lastThreadUUID = null;
+        var threadUUIDs = lastCheckpoints.keyIterator(query.after().orElse(null));
+        while (threadUUIDs.hasNext()) {
+            var threadUUID = threadUUIDs.next();
+            if (query.after().filter(threadUUID::equals).isPresent()) {
+                continue;
+            }
+            var bytes = lastCheckpoints.get(threadUUID);
+            if (bytes == null) { // removed in the meantime
+                continue;
+            }
+            var last = lastCheckpointSerializer.bytesToObject(bytes);
+            var info = new ThreadInfo(
+                    last.threadName(),
+                    releasedThreads.containsKey(threadUUID),
+                    last.checkpointId(),
+                    last.nodeId(),
+                    last.nextNodeId(),
+                    Instant.ofEpochMilli(last.savedAt()));
+            if (!query.matches(info)) {
+                continue;
+            }
+            if (items.size() == query.limit()) {
+                return new Page<>(items, lastThreadUUID);
+            }
+            items.add(info);
+            lastThreadUUID = threadUUID;
+        }
+        return new Page<>(items, null);
+    }
+
+    /**
+     * Compacts the store file, rewriting the chunks that mostly contain obsolete data
+     * (e.g. replaced checkpoints or checkpoints of removed threads).
+     *
+     * @param maxCompactTime the max time in milliseconds spent compacting
+     */
+    public void compact(int maxCompactTime) {
+        store.compactFile(maxCompactTime);
+    }
+
+    /**
+     * Commits pending changes and closes the store.
+     */
+    @Override
+    public void close() {
+        if (!store.isClosed()) {
+            log.trace("closing store {}", store.getFileStore() != null ? store.getFileStore().getFileName() : "in-memory");
+            store.close();
+        }
+    }
+
+    /**
+     * Serializer of the checkpoints stored in the checkpoints map
+     */
+    private record MVStoreCheckpointSerializer(StateSerializer<?> stateSerializer) implements NullableObjectSerializer<Checkpoint> {
+
+        @Override
+        public void write(Checkpoint object, ObjectOutput out) throws IOException {
+            Serializer.writeUTF(object.getId(), out);
+            writeNullableUTF(object.getParentId().orElse(null), out);
+            writeNullableUTF(object.getNodeId(), out);
+            writeNullableUTF(object.getNextNodeId(), out);
+            stateSerializer.writeData(object.getState(), out);
+        }
+
+        @Override
+        public Checkpoint read(ObjectInput in) throws IOException, ClassNotFoundException {
+            return Checkpoint.builder()
+                    .id(Serializer.readUTF(in))
+                    .parentId(readNullableUTF(in).orElse(null))
+                    .nodeId(readNullableUTF(in).orElse(null))
+                    .nextNodeId(readNullableUTF(in).orElse(null))
+                    .state(stateSerializer.readData(in))
+                    .build();
+        }
+    }
+
+    /**
+     * The last checkpoint of a thread, as stored in the lastCheckpoints map
+     */
+    private record LastCheckpoint(String threadName, String checkpointId, String nodeId, String nextNodeId, long savedAt) {
+    }
+
+    /**
+     * Serializer of the values stored in the lastCheckpoints map
+     */
+    private static class LastCheckpointSerializer implements NullableObjectSerializer<LastCheckpoint> {
+
+        @Override
+        public void write(LastCheckpoint object, ObjectOutput out) throws IOException {
+            Serializer.writeUTF(object.threadName(), out);
+            Serializer.writeUTF(object.checkpointId(), out);
+            writeNullableUTF(object.nodeId(), out);
+            writeNullableUTF(object.nextNodeId(), out);
+            out.writeLong(object.savedAt());
+        }
+
+        @Override
+        public LastCheckpoint read(ObjectInput in) throws IOException, ClassNotFoundException {
+            return new LastCheckpoint(
+                    Serializer.readUTF(in),
+                    Serializer.readUTF(in),
+                    readNullableUTF(in).orElse(null),
+                    readNullableUTF(in).orElse(null),
+                    in.readLong());
+        }
+    }
+
+    /**
+     * A builder for MVStoreSaver.
+     */
+    public static class Builder {
+        private Path path;
+        private StateSerializer<?> stateSerializer;
+        private boolean compress = false;
+        private int compactFillRate = 50;
+        private boolean retainReleasedThreads = true;
+
+        /**
+         * Sets the path of the store file. If not set, the store is kept in memory (e.g. for tests).
+         *
+         * @param path the path of the store file
+         * @return this builder
+         */
+        public Builder path(Path path) {
+            this.path = path;
+            return this;
+        }
+
+        /**
+         * Sets the state serializer
+         *
+         * @param stateSerializer the state serializer
+         * @return this builder
+         */
+        public Builder stateSerializer(StateSerializer<?> stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * Sets whether the pages of the store are compressed (default false).
+         *
+         * @param compress true to compress the data
+         * @return this builder
+         */
+        public Builder compress(boolean compress) {
+            this.compress = compress;
+            return this;
+        }
+
+        /**
+         * Sets the fill rate (percentage of live data) below which the chunks of the store file are
+         * rewritten by the incremental compaction performed on thread release (default 50).
+         * Set 0 to disable it and compact only invoking {@link MVStoreSaver#compact(int)}.
+         *
+         * @param compactFillRate the fill rate, between 0 and 100
+         * @return this builder
+         */
+        public Builder compactFillRate(int compactFillRate) {
+            this.compactFillRate = compactFillRate;
+            return this;
+        }
+
+        /**
+         * Sets whether the checkpoints of released threads are kept in the store (default true).
+         * If false they are removed on release and the space is reclaimed by compaction. If true they are removed
+         * when expired by a {@link CheckpointSweeper} with a released threads TTL.
+         *
+         * @param retainReleasedThreads true to keep released threads
+         * @return this builder
+         */
+        public Builder retainReleasedThreads(boolean retainReleasedThreads) {
+            this.retainReleasedThreads = retainReleasedThreads;
+            return this;
+        }
+
+        /**
+         * Creates a new instance of MVStoreSaver
+         *
+         * @return the new instance of MVStoreSaver.
+         */
+        public MVStoreSaver build() {
+            if (compactFillRate < 0 || compactFillRate > 100) {
+                throw new IllegalArgumentException("compactFillRate must be between 0 and 100");
+            }
+            return new MVStoreSaver(this);
+        }
+    }
+}
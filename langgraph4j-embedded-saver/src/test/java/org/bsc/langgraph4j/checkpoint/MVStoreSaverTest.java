@@ -0,0 +1,237 @@
+package org.bsc.langgraph4j.checkpoint;
+
+import org.bsc.langgraph4j.CompileConfig;
+import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.StateGraph;
+import org.bsc.langgraph4j.action.NodeAction;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
+import org.bsc.langgraph4j.state.AgentState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.bsc.langgraph4j.StateGraph.END;
+import static org.bsc.langgraph4j.StateGraph.START;
+import static org.bsc.langgraph4j.action.AsyncNodeAction.node_async;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MVStoreSaverTest {
+
+    @TempDir
+    Path tempDir;
+
+    final ObjectStreamStateSerializer<AgentState> stateSerializer = new ObjectStreamStateSerializer<>(AgentState::new);
+
+    StateGraph<AgentState> buildGraph() throws Exception {
+        NodeAction<AgentState> agent_1 = state ->
+                Map.of("agent_1:prop1", "agent_1:test");
+
+        return new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async(agent_1))
+                .addEdge(START, "agent_1")
+                .addEdge("agent_1", END);
+    }
+
+    MVStoreSaver buildSaver(Path path) {
+        return MVStoreSaver.builder()
+                .path(path)
+                .stateSerializer(stateSerializer)
+                .build();
+    }
+
+    @Test
+    public void testCheckpointWithNotReleasedThread() throws Exception {
+        var path = tempDir.resolve("checkpoints.mv.db");
+        var graph = buildGraph();
+
+        var runnableConfig = RunnableConfig.builder().threadId("thread1").build();
+        var otherRunnableConfig = RunnableConfig.builder().threadId("thread2").build();
+
+        List<String> history;
+        RunnableConfig updatedConfig;
+
+        try (var saver = buildSaver(path)) {
+            var workflow = graph.compile(CompileConfig.builder()
+                    .checkpointSaver(saver)
+                    .releaseThread(false)
+                    .build());
+
+            assertTrue(workflow.invoke(Map.of("input", "test1"), runnableConfig).isPresent());
+            assertTrue(workflow.invoke(Map.of("input", "test2"), otherRunnableConfig).isPresent());
+
+            var lastSnapshot = workflow.lastStateOf(runnableConfig);
+            assertTrue(lastSnapshot.isPresent());
+
+            updatedConfig = workflow.updateState(lastSnapshot.get().config(), Map.of("update", "update test"));
+
+            history = saver.list(runnableConfig).stream().map(Checkpoint::getId).toList();
+            assertEquals(2, history.size());
+        }
+
+        // test checkpoints reloading from the store file
+        try (var saver = buildSaver(path)) {
+            assertEquals(history, saver.list(runnableConfig).stream().map(Checkpoint::getId).toList());
+            assertEquals(2, saver.list(otherRunnableConfig).size());
+
+            var workflow = graph.compile(CompileConfig.builder()
+                    .checkpointSaver(saver)
+                    .releaseThread(false)
+                    .build());
+
+            var updatedSnapshot = workflow.stateOf(updatedConfig);
+            assertTrue(updatedSnapshot.isPresent());
+            assertEquals("agent_1", updatedSnapshot.get().node());
+            assertEquals(END, updatedSnapshot.get().next());
+            assertEquals("update test", updatedSnapshot.get().state().value("update").orElseThrow());
+
+            saver.release(runnableConfig);
+            assertTrue(saver.list(runnableConfig).isEmpty());
+        }
+
+        try (var saver = buildSaver(path)) {
+            assertTrue(saver.list(runnableConfig).isEmpty());
+            assertEquals(2, saver.list(otherRunnableConfig).size());
+        }
+    }
+
+    @Test
+    public void testCheckpointWithReleasedThreadNotRetained() throws Exception {
+        var path = tempDir.resolve("released.mv.db");
+        var graph = buildGraph();
+
+        try (var saver = MVStoreSaver.builder()
+                .path(path)
+                .stateSerializer(stateSerializer)
+                .retainReleasedThreads(false)
+                .compress(true)
+                .build()) {
+
+            var workflow = graph.compile(CompileConfig.builder()
+                    .checkpointSaver(saver)
+                    .releaseThread(true)
+                    .build());
+
+            for (int i = 0; i < 10; ++i) {
+                var runnableConfig = RunnableConfig.builder().threadId("thread" + i).build();
+                assertTrue(workflow.invoke(Map.of("input", "test" + i), runnableConfig).isPresent());
+                assertTrue(saver.list(runnableConfig).isEmpty());
+            }
+
+            saver.compact(1000);
+        }
+
+        try (var saver = buildSaver(path)) {
+            assertTrue(saver.list(RunnableConfig.builder().threadId("thread0").build()).isEmpty());
+        }
+    }
+
+    @Test
+    public void testCheckpointRetention() throws Exception {
+        var path = tempDir.resolve("retention.mv.db");
+        var activeConfig = RunnableConfig.builder().threadId("active").build();
+        var releasedConfig = RunnableConfig.builder().threadId("released").build();
+
+        try (var saver = buildSaver(path)) {
+            for (int i = 0; i < 3; ++i) {
+                saver.put(activeConfig, Checkpoint.builder()
+                        .nodeId("node" + i)
+                        .nextNodeId("node" + (i + 1))
+                        .state(Map.of("step", i))
+                        .build());
+            }
+            saver.put(releasedConfig, Checkpoint.builder()
+                    .nodeId("node1")
+                    .nextNodeId("node2")
+                    .state(Map.of())
+                    .build());
+            saver.release(releasedConfig);
+
+            var sweeper = CheckpointSweeper.builder()
+                    .retention(saver)
+                    .policy(RetentionPolicy.builder()
+                            .releasedThreadsTtl(Duration.ofMinutes(30))
+                            .keepLastCheckpoints(1)
+                            .build())
+                    .clock(Clock.offset(Clock.systemUTC(), Duration.ofHours(1)))
+                    .build();
+
+            var reclaimed = sweeper.sweep();
+            assertEquals(1, reclaimed.threads());
+            assertEquals(3, reclaimed.checkpoints());
+            assertEquals(CheckpointRetention.Reclaimed.NONE, sweeper.sweep());
+            sweeper.close();
+
+            assertEquals(1, saver.list(activeConfig).size());
+            assertTrue(saver.threads(ThreadQuery.builder().released(true).build()).items().isEmpty());
+        }
+
+        try (var saver = buildSaver(path)) {
+            var checkpoints = saver.list(activeConfig);
+            assertEquals(1, checkpoints.size());
+            assertEquals("node2", checkpoints.iterator().next().getNodeId());
+
+            // the idle threads are deleted and evicted from memory
+            var reclaimed = saver.deleteIdleThreads(Instant.now().plus(Duration.ofHours(1)), 10);
+            assertEquals(new CheckpointRetention.Reclaimed(1, 1), reclaimed);
+            assertTrue(saver.list(activeConfig).isEmpty());
+            assertTrue(saver.threads(ThreadQuery.builder().build()).items().isEmpty());
+        }
+    }
+
+    @Test
+    public void testThreadsQuery() throws Exception {
+        var path = tempDir.resolve("threads.mv.db");
+
+        try (var saver = buildSaver(path)) {
+            for (int i = 0; i < 5; ++i) {
+                saver.put(RunnableConfig.builder().threadId("thread" + i).build(), Checkpoint.builder()
+                        .nodeId(i % 2 == 0 ? "tools" : "agent")
+                        .nextNodeId(i % 2 == 0 ? "approval" : "tools")
+                        .state(Map.of())
+                        .build());
+            }
+            saver.release(RunnableConfig.builder().threadId("thread4").build());
+        }
+
+        // the threads are selected from the store file, not from the threads written by this instance
+        try (var saver = buildSaver(path)) {
+            var interrupted = saver.threads(ThreadQuery.builder()
+                    .nextNodeId("approval")
+                    .released(false)
+                    .build());
+            assertEquals(List.of("thread0", "thread2"),
+                    interrupted.items().stream().map(CheckpointQuery.ThreadInfo::threadId).sorted().toList());
+            assertTrue(interrupted.nextCursor().isEmpty());
+
+            // cursor pagination over all the threads
+            var threadIds = new ArrayList<String>();
+            Optional<String> cursor = Optional.empty();
+            do {
+                var page = saver.threads(ThreadQuery.builder()
+                        .after(cursor.orElse(null))
+                        .limit(2)
+                        .build());
+                assertTrue(page.items().size() <= 2);
+                page.items().forEach(thread -> threadIds.add(thread.threadId()));
+                cursor = page.nextCursor();
+            } while (cursor.isPresent());
+            assertEquals(List.of("thread0", "thread1", "thread2", "thread3", "thread4"), threadIds.stream().sorted().toList());
+
+            var released = saver.threads(ThreadQuery.builder().released(true).build());
+            assertEquals(1, released.items().size());
+            assertEquals("thread4", released.items().get(0).threadId());
+
+            assertTrue(saver.threads(ThreadQuery.builder()
+                    .savedBefore(Instant.now().minus(Duration.ofHours(1)))
+                    .build()).items().isEmpty());
+        }
+    }
+}
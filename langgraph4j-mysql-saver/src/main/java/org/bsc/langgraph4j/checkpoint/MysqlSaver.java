@@ -2,11 +2,21 @@ package org.bsc.langgraph4j.checkpoint;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.bsc.langgraph4j.RunnableConfig;
+import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
 
 import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.*;
+import java.time.Instant;
 import java.util.*;
 
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
 /**
  * <p>
  * MysqlSaver is an extension of MemorySaver that enables persistent,
@@ -30,22 +40,45 @@ import java.util.*;
  *          node_id VARCHAR(255),
  *          next_node_id VARCHAR(255),
  *          state_data JSON NOT NULL,
- *          saved_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+ *          saved_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+ *          checkpoint_seq BIGINT NOT NULL AUTO_INCREMENT UNIQUE,
  *
  *          CONSTRAINT LANGRAPH4J_FK_THREAD
  *              FOREIGN KEY(thread_id)
  *              REFERENCES LANGRAPH4J_THREAD(thread_id)
  *              ON DELETE CASCADE
  *     )
+ *     CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_THREAD_SEQ
+ *          ON LANGRAPH4J_CHECKPOINT(thread_id, checkpoint_seq)
  * </pre>
  * </p>
  * <p>
+ * The checkpoints are ordered by the sequence assigned on insert, since checkpoints saved in the same
+ * instant would have the same saved time. The tables created by previous releases are migrated on creation
+ * (see {@link CreateOption}): the saved time gets the microseconds precision and the sequence is assigned
+ * following the saved time of the existing checkpoints.
+ * </p>
+ * <p>
  * A builder can be used to create an instance of MysqlSaver. The builder
  * allows to configure the following options:
  * - DataSource: indicates which data source should be used to connect
  * to the database
  * - CreateOption : indicates whether the tables should be created or
  * existing tables should be used.
+ * - StateStorage : indicates whether the state is stored as generic {@code JSON} (default) or
+ * serialized by the graph's {@link StateSerializer} in a {@code LONGBLOB}/{@code MEDIUMBLOB} column.
+ * In the latter case the table {@code LANGRAPH4J_CHECKPOINT} has an additional column
+ * {@code state_content_type VARCHAR(255)} recording the content type of the serializer and
+ * the optional compression.
+ * </p>
+ * <p>
+ * Released threads are only marked as released. As {@link CheckpointRetention} (see {@link CheckpointSweeper})
+ * the saver deletes in bounded batches the expired released and idle threads and the old checkpoints
+ * of the active ones.
+ * </p>
+ * <p>
+ * As {@link CheckpointQuery} the saver selects, by indexed queries, the threads by node id, next node id,
+ * saved time and released flag of their last checkpoint.
  * </p>
  * <p>
  * Ex:
@@ -58,7 +91,7 @@ import java.util.*;
  * </pre>
  * </p>
  */
-public class MysqlSaver extends MemorySaver {
+public class MysqlSaver extends MemorySaver implements CheckpointRetention, CheckpointQuery {
 
     // DDL statements
     private static final String CREATE_THREAD_TABLE = """
@@ -73,14 +106,21 @@ public class MysqlSaver extends MemorySaver {
               ON LANGRAPH4J_THREAD(thread_name, is_released)
             """;
 
+    private static final List<String> INDEX_CHECKPOINT_TABLE = List.of(
+            "CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_THREAD_SEQ ON LANGRAPH4J_CHECKPOINT(thread_id, checkpoint_seq)",
+            "CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_NODE_ID ON LANGRAPH4J_CHECKPOINT(node_id)",
+            "CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_NEXT_NODE_ID ON LANGRAPH4J_CHECKPOINT(next_node_id)",
+            "CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_SAVED_AT ON LANGRAPH4J_CHECKPOINT(saved_at)" );
+
     private static final String CREATE_CHECKPOINT_TABLE = """
             CREATE TABLE IF NOT EXISTS LANGRAPH4J_CHECKPOINT (
                checkpoint_id VARCHAR(36) PRIMARY KEY,
                thread_id VARCHAR(36) NOT NULL,
                node_id VARCHAR(255),
                next_node_id VARCHAR(255),
-               state_data JSON NOT NULL,
-               saved_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+               state_data %s NOT NULL,%s
+               saved_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+               checkpoint_seq BIGINT NOT NULL AUTO_INCREMENT UNIQUE,
 
                CONSTRAINT LANGRAPH4J_FK_THREAD
                    FOREIGN KEY(thread_id)
@@ -88,6 +128,35 @@ public class MysqlSaver extends MemorySaver {
                    ON DELETE CASCADE
             )""";
     
+    // migration of the tables created by previous releases, having a second precision saved time and no sequence
+    private static final String SELECT_CHECKPOINT_SEQ_COLUMN = """
+            SELECT COUNT(*)
+            FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND UPPER(TABLE_NAME) = 'LANGRAPH4J_CHECKPOINT'
+              AND UPPER(COLUMN_NAME) = 'CHECKPOINT_SEQ'
+            """;
+
+    private static final List<String> MIGRATE_CHECKPOINT_TABLE = List.of(
+            """
+            ALTER TABLE LANGRAPH4J_CHECKPOINT
+              MODIFY saved_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+              ADD COLUMN checkpoint_seq BIGINT NULL
+            """,
+            """
+            UPDATE LANGRAPH4J_CHECKPOINT c
+              INNER JOIN (
+                SELECT checkpoint_id, ROW_NUMBER() OVER (ORDER BY saved_at, checkpoint_id) AS seq
+                FROM LANGRAPH4J_CHECKPOINT
+              ) o ON o.checkpoint_id = c.checkpoint_id
+            SET c.checkpoint_seq = o.seq
+            """,
+            """
+            ALTER TABLE LANGRAPH4J_CHECKPOINT
+              MODIFY checkpoint_seq BIGINT NOT NULL AUTO_INCREMENT,
+              ADD UNIQUE KEY UK_LANGRAPH4J_CHECKPOINT_SEQ (checkpoint_seq)
+            """ );
+
     private static final String DROP_CHECKPOINT_TABLE = "DROP TABLE IF EXISTS LANGRAPH4J_CHECKPOINT";
     private static final String DROP_THREAD_TABLE = "DROP TABLE IF EXISTS LANGRAPH4J_THREAD";
 
@@ -99,8 +168,8 @@ public class MysqlSaver extends MemorySaver {
             """;
 
     private static final String INSERT_CHECKPOINT = """
-            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data)
-            SELECT ?, thread_id, ?, ?, ?
+            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data%s)
+            SELECT ?, thread_id, ?, ?, ?%s
             FROM LANGRAPH4J_THREAD
             WHERE thread_name = ? AND is_released = FALSE
             """;
@@ -111,7 +180,7 @@ public class MysqlSaver extends MemorySaver {
               checkpoint_id = ?,
               node_id = ?,
               next_node_id = ?,
-              state_data = ?
+              state_data = ?%s
             WHERE checkpoint_id = ?
             """;
 
@@ -120,11 +189,11 @@ public class MysqlSaver extends MemorySaver {
               c.checkpoint_id,
               c.node_id,
               c.next_node_id,
-              c.state_data
+              c.state_data%s
             FROM LANGRAPH4J_CHECKPOINT c
               INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
             WHERE t.thread_name = ? AND t.is_released != TRUE
-            ORDER BY c.saved_at DESC
+            ORDER BY c.checkpoint_seq DESC
             """;
 
     private static final String DELETE_CHECKPOINTS = """
@@ -135,22 +204,127 @@ public class MysqlSaver extends MemorySaver {
             UPDATE LANGRAPH4J_THREAD SET is_released = TRUE WHERE thread_name = ? AND is_released = FALSE
             """;
 
+    private static final String SELECT_EXPIRED_THREADS = """
+            SELECT t.thread_id, t.thread_name
+            FROM LANGRAPH4J_THREAD t
+            WHERE t.is_released = ?
+              AND NOT EXISTS (
+                SELECT 1 FROM LANGRAPH4J_CHECKPOINT c
+                WHERE c.thread_id = t.thread_id AND c.saved_at >= ? )
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """;
+
+    // for each active thread, the sequence of the most recent checkpoint exceeding the ones to keep
+    private static final String SELECT_THREADS_TO_TRIM = """
+            SELECT trimmed.thread_id, trimmed.thread_name, trimmed.cutoff_seq
+            FROM (
+              SELECT t.thread_id, t.thread_name,
+                (SELECT c.checkpoint_seq
+                 FROM LANGRAPH4J_CHECKPOINT c
+                 WHERE c.thread_id = t.thread_id
+                 ORDER BY c.checkpoint_seq DESC
+                 LIMIT 1 OFFSET ?) AS cutoff_seq
+              FROM LANGRAPH4J_THREAD t
+              WHERE t.is_released = FALSE AND t.thread_id > ?
+            ) trimmed
+            WHERE trimmed.cutoff_seq IS NOT NULL
+            ORDER BY trimmed.thread_id
+            LIMIT ?
+            """;
+
+    private static final String DELETE_OLD_CHECKPOINTS = """
+            DELETE FROM LANGRAPH4J_CHECKPOINT
+            WHERE thread_id = ? AND checkpoint_seq <= ?
+            ORDER BY checkpoint_seq
+            LIMIT ?
+            """;
+
+    private static final String DELETE_THREAD_CHECKPOINTS = """
+            DELETE FROM LANGRAPH4J_CHECKPOINT WHERE thread_id IN (%s)
+            """;
+
+    private static final String DELETE_THREADS = """
+            DELETE FROM LANGRAPH4J_THREAD WHERE thread_id IN (%s)
+            """;
+
+    // last checkpoint of each thread, the filters are appended
+    private static final String SELECT_THREADS = """
+            SELECT t.thread_id, t.thread_name, t.is_released, c.checkpoint_id, c.node_id, c.next_node_id, c.saved_at
+            FROM LANGRAPH4J_CHECKPOINT c
+              INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
+            WHERE NOT EXISTS (
+              SELECT 1 FROM LANGRAPH4J_CHECKPOINT n
+              WHERE n.thread_id = c.thread_id
+                AND n.checkpoint_seq > c.checkpoint_seq )
+            """;
+
+    private static final JdbcThreadQuery THREADS_QUERY = new JdbcThreadQuery(SELECT_THREADS, "LIMIT ?", cursor -> cursor);
+
+    private static final String SELECT_STATE_DATA_TYPE = """
+            SELECT DATA_TYPE
+            FROM INFORMATION_SCHEMA.COLUMNS
+            WHERE TABLE_SCHEMA = DATABASE()
+              AND UPPER(TABLE_NAME) = 'LANGRAPH4J_CHECKPOINT'
+              AND UPPER(COLUMN_NAME) = 'STATE_DATA'
+            """;
+
+
+    /**
+     * Column type used to store the checkpoint state
+     */
+    public enum StateStorage {
+        /**
+         * state converted into a generic JSON document by a Jackson ObjectMapper (legacy format)
+         */
+        JSON,
+        /**
+         * state serialized by the {@link StateSerializer} into a LONGBLOB column (up to 4GB)
+         */
+        LONGBLOB,
+        /**
+         * state serialized by the {@link StateSerializer} into a MEDIUMBLOB column (up to 16MB)
+         */
+        MEDIUMBLOB;
+
+        boolean isBinary() {
+            return this != JSON;
+        }
+    }
+
     // Configuration
     private final DataSource dataSource;
     private final CreateOption createOption;
     private final ObjectMapper objectMapper;
+    private final StateStorage stateStorage;
+    private final StateSerializer<?> stateSerializer;
+    private final StateCompression compression;
+    private final String insertCheckpointSql;
+    private final String updateCheckpointSql;
+    private final String selectCheckpointsSql;
 
     /**
      * Private constructor used by the builder to create a new instance of
      * MysqlSaver.
      * 
-     * @param dataSource   the data source
-     * @param createOption the create options
+     * @param builder the builder
      */
-    private MysqlSaver(DataSource dataSource, CreateOption createOption) {
-        this.dataSource = dataSource;
-        this.createOption = createOption;
+    private MysqlSaver(Builder builder) {
+        this.dataSource = builder.dataSource;
+        this.createOption = builder.createOption;
         this.objectMapper = new ObjectMapper();
+        this.stateStorage = builder.stateStorage;
+        this.stateSerializer = builder.stateSerializer;
+        this.compression = builder.compression;
+
+        final var binary = stateStorage.isBinary();
+        this.insertCheckpointSql = INSERT_CHECKPOINT.formatted(
+                binary ? ", state_content_type" : "",
+                binary ? ", ?" : "" );
+        this.updateCheckpointSql = UPDATE_CHECKPOINT.formatted(
+                binary ? ",\n  state_content_type = ?" : "" );
+        this.selectCheckpointsSql = SELECT_CHECKPOINTS.formatted(
+                binary ? ",\n  c.state_content_type" : "" );
         initTables();
     }
 
@@ -164,6 +338,59 @@ public class MysqlSaver extends MemorySaver {
         return new Builder();
     }
 
+    private String stateContentType() {
+        // compressed payloads are self-describing (see StateCompression)
+        return stateSerializer.contentType();
+    }
+
+    private void setStateBytes(PreparedStatement statement, int index, Map<String, Object> data) throws SQLException, IOException {
+        if (compression != null) {
+            statement.setBytes(index, stateSerializer.dataToBytes(data, compression));
+            return;
+        }
+        // streamed from the serialization buffer, without copying it
+        var buffer = stateSerializer.dataToByteBuffer(data);
+        statement.setBinaryStream(index,
+                new ByteArrayInputStream(buffer.array(), buffer.arrayOffset(), buffer.limit()),
+                buffer.limit());
+    }
+
+    private Map<String, Object> bytesToState(InputStream binaryPayload, String contentType) throws IOException, ClassNotFoundException {
+        if (!Objects.equals(contentType, stateSerializer.contentType())) {
+            throw new IllegalStateException(
+                    format("Content Type used for store state '%s' is different from one '%s' used for deserialize it",
+                            contentType,
+                            stateSerializer.contentType()));
+        }
+        // the compressed payloads are detected and decompressed by the serializer
+        return stateSerializer.dataFromStream(binaryPayload);
+    }
+
+    /**
+     * Sets the state parameters of an insert/update statement starting from the given index
+     *
+     * @return the index of the next parameter
+     */
+    private int setState(PreparedStatement statement, int index, Map<String, Object> state) throws SQLException, IOException {
+        if (stateStorage.isBinary()) {
+            setStateBytes(statement, index++, state);
+            statement.setString(index++, stateContentType());
+        } else {
+            statement.setString(index++, objectMapper.writeValueAsString(state));
+        }
+        return index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getState(ResultSet resultSet) throws SQLException, IOException, ClassNotFoundException {
+        if (stateStorage.isBinary()) {
+            try (var binaryPayload = resultSet.getBinaryStream(4)) {
+                return bytesToState(binaryPayload, resultSet.getString(5));
+            }
+        }
+        return objectMapper.readValue(resultSet.getString(4), Map.class);
+    }
+
     /**
      * If the list of checkpoints is empty, loads the checkpoints from the database.
      *
@@ -183,19 +410,16 @@ public class MysqlSaver extends MemorySaver {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
 
         try (Connection connection = dataSource.getConnection();
-                PreparedStatement preparedStatement = connection.prepareStatement(SELECT_CHECKPOINTS)) {
+                PreparedStatement preparedStatement = connection.prepareStatement(selectCheckpointsSql)) {
 
             preparedStatement.setString(1, threadName);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 while (resultSet.next()) {
-                    String jsonString = resultSet.getString(4);
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> state = objectMapper.readValue(jsonString, Map.class);
                     Checkpoint checkpoint = Checkpoint.builder()
                             .id(resultSet.getString(1))
                             .nodeId(resultSet.getString(2))
                             .nextNodeId(resultSet.getString(3))
-                            .state(state)
+                            .state(getState(resultSet))
                             .build();
                     checkpoints.add(checkpoint);
                 }
@@ -222,7 +446,7 @@ public class MysqlSaver extends MemorySaver {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
-                PreparedStatement insertCheckpointStatement = connection.prepareStatement(INSERT_CHECKPOINT)) {
+                PreparedStatement insertCheckpointStatement = connection.prepareStatement(insertCheckpointSql)) {
 
             upsertStatement.setString(1, UUID.randomUUID().toString());
             upsertStatement.setString(2, threadName);
@@ -231,8 +455,8 @@ public class MysqlSaver extends MemorySaver {
             insertCheckpointStatement.setString(1, checkpoint.getId());
             insertCheckpointStatement.setString(2, checkpoint.getNodeId());
             insertCheckpointStatement.setString(3, checkpoint.getNextNodeId());
-            insertCheckpointStatement.setString(4, objectMapper.writeValueAsString(checkpoint.getState()));
-            insertCheckpointStatement.setString(5, threadName);
+            var index = setState(insertCheckpointStatement, 4, checkpoint.getState());
+            insertCheckpointStatement.setString(index, threadName);
 
             insertCheckpointStatement.execute();
         } catch (SQLException sqlException) {
@@ -278,12 +502,12 @@ public class MysqlSaver extends MemorySaver {
             throws Exception {
         if (config.checkPointId().isPresent()) {
             try (Connection connection = dataSource.getConnection();
-                    PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_CHECKPOINT)) {
+                    PreparedStatement preparedStatement = connection.prepareStatement(updateCheckpointSql)) {
                 preparedStatement.setString(1, checkpoint.getId());
                 preparedStatement.setString(2, checkpoint.getNodeId());
                 preparedStatement.setString(3, checkpoint.getNextNodeId());
-                preparedStatement.setString(4, objectMapper.writeValueAsString(checkpoint.getState()));
-                preparedStatement.setString(5, config.checkPointId().get());
+                var index = setState(preparedStatement, 4, checkpoint.getState());
+                preparedStatement.setString(index, config.checkPointId().get());
                 preparedStatement.execute();
             } catch (SQLException sqlException) {
                 throw new Exception("Unable to update checkpoint", sqlException);
@@ -293,6 +517,202 @@ public class MysqlSaver extends MemorySaver {
         }
     }
 
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static int deleteByIds(Connection connection, String sql, List<String> ids) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql.formatted(placeholders(ids.size())))) {
+            for (int i = 0; i < ids.size(); i++) {
+                preparedStatement.setString(i + 1, ids.get(i));
+            }
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    private static void rollback(Connection connection, SQLException cause) {
+        try {
+            connection.rollback();
+        } catch (SQLException rollbackException) {
+            cause.addSuppressed(rollbackException);
+        }
+    }
+
+    /**
+     * Deletes, in a single transaction, the released (or not released) threads whose last checkpoint
+     * was saved before the given instant, with their checkpoints.
+     *
+     * @return the deleted items and the names of the deleted threads
+     */
+    private Reclaimed deleteThreads(boolean released, Instant savedBefore, int limit, Collection<String> deletedThreadNames) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                var threadIds = new ArrayList<String>();
+                try (PreparedStatement preparedStatement = connection.prepareStatement(SELECT_EXPIRED_THREADS)) {
+                    preparedStatement.setBoolean(1, released);
+                    preparedStatement.setTimestamp(2, Timestamp.from(savedBefore));
+                    preparedStatement.setInt(3, limit);
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            threadIds.add(resultSet.getString(1));
+                            deletedThreadNames.add(resultSet.getString(2));
+                        }
+                    }
+                }
+                if (threadIds.isEmpty()) {
+                    connection.commit();
+                    return Reclaimed.NONE;
+                }
+                var checkpoints = deleteByIds(connection, DELETE_THREAD_CHECKPOINTS, threadIds);
+                var threads = deleteByIds(connection, DELETE_THREADS, threadIds);
+                connection.commit();
+                return new Reclaimed(threads, checkpoints);
+            } catch (SQLException sqlException) {
+                rollback(connection, sqlException);
+                deletedThreadNames.clear();
+                throw sqlException;
+            }
+        }
+    }
+
+    /**
+     * Deletes the released threads, with their checkpoints, whose last checkpoint was saved before the given instant
+     *
+     * @param savedBefore the instant before which the last checkpoint of the thread was saved
+     * @param limit       the max number of threads to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    @Override
+    public Reclaimed deleteReleasedThreads(Instant savedBefore, int limit) throws Exception {
+        try {
+            // released threads are no longer in memory
+            return deleteThreads(true, savedBefore, limit, new ArrayList<>());
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to delete released threads", sqlException);
+        }
+    }
+
+    /**
+     * Deletes the not released threads, with their checkpoints, whose last checkpoint was saved before the
+     * given instant. The deleted threads are evicted from memory.
+     *
+     * @param savedBefore the instant before which the last checkpoint of the thread was saved
+     * @param limit       the max number of threads to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    @Override
+    public Reclaimed deleteIdleThreads(Instant savedBefore, int limit) throws Exception {
+        return locked(() -> {
+            var threadNames = new ArrayList<String>();
+            try {
+                var result = deleteThreads(false, savedBefore, limit, threadNames);
+                threadNames.forEach(this::remove);
+                return result;
+            } catch (SQLException sqlException) {
+                throw new Exception("Unable to delete idle threads", sqlException);
+            }
+        });
+    }
+
+    /**
+     * Deletes the checkpoints of the not released threads exceeding the most recent {@code keepLast} ones.
+     * For each thread the sequence of the first checkpoint to delete is found by the index on thread id and
+     * sequence, without ranking the whole table, and the threads are visited by id.
+     * The deletes run outside the saver lock, that is held only to evict the trimmed threads, reloaded on next access.
+     *
+     * @param keepLast the number of most recent checkpoints to keep in each thread
+     * @param limit    the max number of checkpoints to delete
+     * @return the deleted items
+     * @throws Exception if an error occurs while deleting
+     */
+    @Override
+    public Reclaimed deleteOldCheckpoints(int keepLast, int limit) throws Exception {
+        var threadNames = new ArrayList<String>();
+        var checkpoints = 0;
+        var after = "";
+
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement selectStatement = connection.prepareStatement(SELECT_THREADS_TO_TRIM);
+                PreparedStatement deleteStatement = connection.prepareStatement(DELETE_OLD_CHECKPOINTS)) {
+            var more = true;
+            while (more && checkpoints < limit) {
+                selectStatement.setInt(1, keepLast);
+                selectStatement.setString(2, after);
+                // each selected thread has at least one checkpoint to delete
+                selectStatement.setInt(3, limit - checkpoints);
+
+                var cutoffs = new LinkedHashMap<String, Long>();
+                var names = new HashMap<String, String>();
+                try (ResultSet resultSet = selectStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        after = resultSet.getString(1);
+                        names.put(after, resultSet.getString(2));
+                        cutoffs.put(after, resultSet.getLong(3));
+                    }
+                }
+                more = cutoffs.size() == limit - checkpoints;
+
+                for (var cutoff : cutoffs.entrySet()) {
+                    if (checkpoints >= limit) {
+                        break;
+                    }
+                    deleteStatement.setString(1, cutoff.getKey());
+                    deleteStatement.setLong(2, cutoff.getValue());
+                    deleteStatement.setInt(3, limit - checkpoints);
+                    var deleted = deleteStatement.executeUpdate();
+                    if (deleted > 0) {
+                        checkpoints += deleted;
+                        threadNames.add(names.get(cutoff.getKey()));
+                    }
+                }
+            }
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to delete old checkpoints", sqlException);
+        } finally {
+            if (!threadNames.isEmpty()) {
+                locked(() -> {
+                    threadNames.forEach(this::remove);
+                    return null;
+                });
+            }
+        }
+        return (checkpoints == 0) ? Reclaimed.NONE : new Reclaimed(0, checkpoints);
+    }
+
+    /**
+     * Selects the threads by their last checkpoint, ordered by the internal thread id that is also the cursor.
+     * The candidate checkpoints are selected by the indexes on node id, next node id and saved at,
+     * then a checkpoint is retained only if no later one exists in its thread.
+     *
+     * @param query the filters and the page to select
+     * @return the selected threads
+     * @throws Exception if an error occurs while querying
+     */
+    @Override
+    public Page<ThreadInfo> threads(ThreadQuery query) throws Exception {
+        requireNonNull(query, "query cannot be null");
+
+        try (Connection connection = dataSource.getConnection()) {
+            return THREADS_QUERY.execute(connection, query);
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to select threads", sqlException);
+        }
+    }
+
+    private static void createIndex(Statement statement, String sql) throws SQLException {
+        try {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            // Ignore "Duplicate key name" error (error code 1061)
+            if (e.getErrorCode() != 1061) {
+                throw e;
+            }
+        }
+    }
+
     /**
      * Initializes the database according the create options.
      */
@@ -308,17 +728,33 @@ public class MysqlSaver extends MemorySaver {
             if (createOption == CreateOption.CREATE_OR_REPLACE ||
                     createOption == CreateOption.CREATE_IF_NOT_EXISTS) {
                 statement.execute(CREATE_THREAD_TABLE);
-                statement.execute(CREATE_CHECKPOINT_TABLE);
-                
-                // Try to create index, ignore error if it already exists
-                try {
-                    statement.execute(INDEX_THREAD_TABLE);
-                } catch (SQLException e) {
-                    // Ignore "Duplicate key name" error (error code 1061)
-                    if (e.getErrorCode() != 1061) {
-                        throw e;
+                statement.execute(CREATE_CHECKPOINT_TABLE.formatted(
+                        stateStorage.name(),
+                        stateStorage.isBinary() ? "\n               state_content_type VARCHAR(255) NOT NULL," : ""));
+
+                try (ResultSet resultSet = statement.executeQuery(SELECT_CHECKPOINT_SEQ_COLUMN)) {
+                    resultSet.next();
+                    if (resultSet.getInt(1) == 0) {
+                        for (var migrateCheckpointTable : MIGRATE_CHECKPOINT_TABLE) {
+                            statement.execute(migrateCheckpointTable);
+                        }
                     }
                 }
+
+                // Try to create indexes, ignore error if they already exist
+                createIndex(statement, INDEX_THREAD_TABLE);
+                for (var indexCheckpointTable : INDEX_CHECKPOINT_TABLE) {
+                    createIndex(statement, indexCheckpointTable);
+                }
+            }
+            // check that existing table matches the configured storage
+            try (ResultSet resultSet = statement.executeQuery(SELECT_STATE_DATA_TYPE)) {
+                if (resultSet.next() && !stateStorage.name().equalsIgnoreCase(resultSet.getString(1))) {
+                    throw new IllegalStateException(
+                            format("column 'state_data' has type '%s' that doesn't match the configured storage '%s'",
+                                    resultSet.getString(1),
+                                    stateStorage));
+                }
             }
         } catch (SQLException sqlException) {
             throw new RuntimeException("Unable to create tables", sqlException);
@@ -331,6 +767,9 @@ public class MysqlSaver extends MemorySaver {
     public static class Builder {
         private DataSource dataSource;
         private CreateOption createOption = CreateOption.CREATE_IF_NOT_EXISTS;
+        private StateStorage stateStorage;
+        private StateSerializer<?> stateSerializer;
+        private StateCompression compression;
 
         /**
          * Sets the datasource
@@ -354,13 +793,73 @@ public class MysqlSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the state serializer used to store the state in a binary column.
+         * When set, the default storage becomes {@link StateStorage#LONGBLOB}.
+         *
+         * @param stateSerializer the state serializer
+         * @return this builder
+         */
+        public Builder stateSerializer(StateSerializer<?> stateSerializer) {
+            this.stateSerializer = stateSerializer;
+            return this;
+        }
+
+        /**
+         * Sets the column type used to store the state (default {@link StateStorage#JSON} or
+         * {@link StateStorage#LONGBLOB} if a state serializer is set).
+         *
+         * @param stateStorage the state storage
+         * @return this builder
+         */
+        public Builder stateStorage(StateStorage stateStorage) {
+            this.stateStorage = stateStorage;
+            return this;
+        }
+
+        /**
+         * Sets whether the serialized state is compressed using deflate (default false).
+         * It is a shortcut for {@code compression(StateCompression.of(CompressionCodec.DEFLATE))}.
+         * Compression applies only to binary storage.
+         *
+         * @param compressState true to compress the serialized state
+         * @return this builder
+         */
+        public Builder compressState(boolean compressState) {
+            this.compression = (compressState) ? StateCompression.of(CompressionCodec.DEFLATE) : null;
+            return this;
+        }
+
+        /**
+         * Sets the compression applied to the serialized state (default none).
+         * Compression applies only to binary storage. States stored compressed or not can be read
+         * regardless of this option.
+         *
+         * @param compression the compression
+         * @return this builder
+         */
+        public Builder compression(StateCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
         /**
          * Creates a new instance of MysqlSaver
          * 
          * @return the new instance of MysqlSaver.
          */
         public MysqlSaver build() {
-            return new MysqlSaver(dataSource, createOption);
+            requireNonNull(dataSource, "dataSource cannot be null");
+            if (stateStorage == null) {
+                stateStorage = (stateSerializer != null) ? StateStorage.LONGBLOB : StateStorage.JSON;
+            }
+            if (stateStorage.isBinary() && stateSerializer == null) {
+                throw new IllegalArgumentException(format("stateSerializer is required for storage '%s'", stateStorage));
+            }
+            if (compression != null && !stateStorage.isBinary()) {
+                throw new IllegalArgumentException("compression requires a binary storage");
+            }
+            return new MysqlSaver(this);
         }
     }
 }
@@ -5,13 +5,20 @@ import org.bsc.langgraph4j.CompileConfig;
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.StateGraph;
 import org.bsc.langgraph4j.action.NodeAction;
+import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.testcontainers.containers.MySQLContainer;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.bsc.langgraph4j.StateGraph.END;
 import static org.bsc.langgraph4j.StateGraph.START;
@@ -193,4 +200,156 @@ public class MysqlSaverTest {
 
     }
 
+    @Test
+    public void testCheckpointWithStateSerializer() throws Exception {
+        var stateSerializer = new ObjectStreamStateSerializer<>(AgentState::new);
+
+        var saver = MysqlSaver.builder()
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .dataSource(DATA_SOURCE)
+                .stateSerializer(stateSerializer)
+                .compressState(true)
+                .build();
+
+        NodeAction<AgentState> agent_1 = state ->
+                Map.of("agent_1:prop1", "agent_1:test");
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async(agent_1))
+                .addEdge(START, "agent_1")
+                .addEdge("agent_1", END);
+
+        var runnableConfig = RunnableConfig.builder().threadId("blob").build();
+        var workflow = graph.compile(CompileConfig.builder()
+                .checkpointSaver(saver)
+                .releaseThread(false)
+                .build());
+
+        assertTrue(workflow.invoke(Map.of("input", "test1"), runnableConfig).isPresent());
+
+        // test checkpoints reloading from database
+        saver = MysqlSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .stateSerializer(stateSerializer)
+                .compressState(true)
+                .build();
+
+        workflow = graph.compile(CompileConfig.builder()
+                .checkpointSaver(saver)
+                .releaseThread(false)
+                .build());
+
+        var history = workflow.getStateHistory(runnableConfig);
+        assertEquals(2, history.size());
+
+        var lastSnapshot = workflow.lastStateOf(runnableConfig);
+        assertTrue(lastSnapshot.isPresent());
+        assertEquals("agent_1", lastSnapshot.get().node());
+        assertEquals("agent_1:test", lastSnapshot.get().state().value("agent_1:prop1").orElseThrow());
+
+        saver.release(runnableConfig);
+
+        // existing table doesn't match JSON storage
+        assertThrows(IllegalStateException.class, () -> MysqlSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .build());
+    }
+
+    @Test
+    public void testCheckpointRetention() throws Exception {
+        var saver = MysqlSaver.builder()
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .dataSource(DATA_SOURCE)
+                .build();
+
+        var activeConfig = RunnableConfig.builder().threadId("active").build();
+        var releasedConfig = RunnableConfig.builder().threadId("released").build();
+
+        for (int i = 0; i < 3; ++i) {
+            saver.put(activeConfig, Checkpoint.builder()
+                    .nodeId("node" + i)
+                    .nextNodeId("node" + (i + 1))
+                    .state(Map.of("step", i))
+                    .build());
+        }
+        saver.put(releasedConfig, Checkpoint.builder()
+                .nodeId("node1")
+                .nextNodeId("node2")
+                .state(Map.of())
+                .build());
+        saver.release(releasedConfig);
+
+        var sweeper = CheckpointSweeper.builder()
+                .retention(saver)
+                .policy(RetentionPolicy.builder()
+                        .releasedThreadsTtl(Duration.ofMinutes(30))
+                        .keepLastCheckpoints(1)
+                        .build())
+                .clock(Clock.offset(Clock.systemUTC(), Duration.ofHours(1)))
+                .build();
+
+        var reclaimed = sweeper.sweep();
+        assertEquals(1, reclaimed.threads());
+        assertEquals(3, reclaimed.checkpoints());
+        assertEquals(4, sweeper.metrics().rowsReclaimed());
+
+        assertEquals(1, saver.list(activeConfig).size());
+
+        // test checkpoints reloading from database
+        saver = MysqlSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .build();
+        assertEquals(1, saver.list(activeConfig).size());
+        // the checkpoints are saved in the same second, the most recent one is kept by sequence
+        assertEquals("node2", saver.list(activeConfig).iterator().next().getNodeId());
+
+        sweeper.close();
+    }
+
+    @Test
+    public void testThreadsQuery() throws Exception {
+        var saver = MysqlSaver.builder()
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .dataSource(DATA_SOURCE)
+                .build();
+
+        for (int i = 0; i < 5; ++i) {
+            saver.put(RunnableConfig.builder().threadId("thread" + i).build(), Checkpoint.builder()
+                    .nodeId(i % 2 == 0 ? "tools" : "agent")
+                    .nextNodeId(i % 2 == 0 ? "approval" : "tools")
+                    .state(Map.of())
+                    .build());
+        }
+        saver.release(RunnableConfig.builder().threadId("thread4").build());
+
+        var interrupted = saver.threads(ThreadQuery.builder()
+                .nextNodeId("approval")
+                .released(false)
+                .build());
+        assertEquals(List.of("thread0", "thread2"),
+                interrupted.items().stream().map(CheckpointQuery.ThreadInfo::threadId).sorted().toList());
+        assertTrue(interrupted.nextCursor().isEmpty());
+
+        // cursor pagination over all the threads
+        var threadIds = new ArrayList<String>();
+        Optional<String> cursor = Optional.empty();
+        do {
+            var page = saver.threads(ThreadQuery.builder()
+                    .after(cursor.orElse(null))
+                    .limit(2)
+                    .build());
+            assertTrue(page.items().size() <= 2);
+            page.items().forEach(thread -> threadIds.add(thread.threadId()));
+            cursor = page.nextCursor();
+        } while (cursor.isPresent());
+        assertEquals(List.of("thread0", "thread1", "thread2", "thread3", "thread4"), threadIds.stream().sorted().toList());
+
+        var released = saver.threads(ThreadQuery.builder().released(true).build());
+        assertEquals(1, released.items().size());
+        assertEquals("thread4", released.items().get(0).threadId());
+
+        assertTrue(saver.threads(ThreadQuery.builder()
+                .savedBefore(Instant.now().minus(Duration.ofHours(1)))
+                .build()).items().isEmpty());
+    }
 }
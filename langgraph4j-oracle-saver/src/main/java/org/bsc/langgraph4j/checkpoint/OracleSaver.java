@@ -2,6 +2,7 @@ package org.bsc.langgraph4j.checkpoint;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import oracle.jdbc.OracleConnection;
 import oracle.jdbc.OracleStatement;
 import oracle.jdbc.OracleType;
 import oracle.jdbc.OracleTypes;
@@ -12,7 +13,9 @@ import org.bsc.langgraph4j.RunnableConfig;
 import javax.sql.DataSource;
 
 import java.sql.*;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <p>
@@ -31,6 +34,8 @@ import java.util.*;
  *     CREATE INDEX IDX_LANGRAPH4J_THREAD_NAME_RELEASED
  *          ON LANGRAPH4J_THREAD(thread_name, is_released)
  *
+ *     CREATE SEQUENCE LANGRAPH4J_CHECKPOINT_SEQ
+ *
  *     CREATE TABLE LANGRAPH4J_CHECKPOINT (
  *          checkpoint_id VARCHAR2(36) PRIMARY KEY,
  *          thread_id VARCHAR2(36) NOT NULL,
@@ -38,21 +43,39 @@ import java.util.*;
  *          next_node_id VARCHAR(255),
  *          state_data JSON NOT NULL,
  *          saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+ *          checkpoint_seq NUMBER(19) DEFAULT LANGRAPH4J_CHECKPOINT_SEQ.NEXTVAL NOT NULL,
  *
  *          CONSTRAINT LANGRAPH4J_FK_THREAD
  *              FOREIGN KEY(thread_id)
  *              REFERENCES LANGRAPH4J_THREAD(thread_id)
  *              ON DELETE CASCADE
  *     )
+ *     CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_THREAD_SEQ
+ *          ON LANGRAPH4J_CHECKPOINT(thread_id, checkpoint_seq DESC)
+ *     CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_NODE_ID ON LANGRAPH4J_CHECKPOINT(node_id)
+ *     CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_NEXT_NODE_ID ON LANGRAPH4J_CHECKPOINT(next_node_id)
+ *     CREATE INDEX IDX_LANGRAPH4J_CHECKPOINT_SAVED_AT ON LANGRAPH4J_CHECKPOINT(saved_at)
  * </pre>
  * </p>
  * <p>
+ * The checkpoints are ordered by the sequence assigned on insert, since the checkpoints written in the same
+ * batch could have the same saved time. The sequence is added to the tables created by previous releases
+ * following the saved time of the existing checkpoints.
+ * </p>
+ * <p>
+ * As {@link CheckpointQuery} the saver selects, by indexed queries, the threads by node id, next node id,
+ * saved time and released flag of their last checkpoint.
+ * </p>
+ * <p>
  * A builder can be use to create an instance or OracleSaver. The builder
  * allows to configure the following options:
  * - DataSource: indicates which data source should be used to connect
  * to the database
  * - CreateOption : indicates whether the tables should be created or
  * existing tables should be used.
+ * - BatchSize : indicates how many inserted checkpoints, also belonging to different threads,
+ * are queued before writing them in a single round-trip using array DML (default 1, write-through).
+ * The saver must be closed to write the queued checkpoints when it is no longer used.
  * </p>
  * <p>
  * Ex:
@@ -65,7 +88,7 @@ import java.util.*;
  * </pre>
  * </p>
  */
-public class OracleSaver extends MemorySaver {
+public class OracleSaver extends MemorySaver implements CheckpointQuery, AutoCloseable {
 
     // DDL statements
     private static final String CREATE_THREAD_TABLE = """
@@ -80,6 +103,8 @@ public class OracleSaver extends MemorySaver {
               ON LANGRAPH4J_THREAD(thread_name, is_released)
             """;
 
+    private static final String CREATE_CHECKPOINT_SEQUENCE = "CREATE SEQUENCE IF NOT EXISTS LANGRAPH4J_CHECKPOINT_SEQ";
+
     private static final String CREATE_CHECKPOINT_TABLE = """
             CREATE TABLE IF NOT EXISTS LANGRAPH4J_CHECKPOINT (
                checkpoint_id VARCHAR2(36) PRIMARY KEY,
@@ -88,15 +113,45 @@ public class OracleSaver extends MemorySaver {
                next_node_id VARCHAR(255),
                state_data JSON NOT NULL,
                saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+               checkpoint_seq NUMBER(19) DEFAULT LANGRAPH4J_CHECKPOINT_SEQ.NEXTVAL NOT NULL,
 
                CONSTRAINT LANGRAPH4J_FK_THREAD
                    FOREIGN KEY(thread_id)
                    REFERENCES LANGRAPH4J_THREAD(thread_id)
                    ON DELETE CASCADE
             )""";
+    // adds the sequence to the tables created by previous releases, following the saved time
+    private static final String MIGRATE_CHECKPOINT_TABLE = """
+            DECLARE
+              column_count NUMBER;
+              max_seq NUMBER;
+            BEGIN
+              SELECT COUNT(*) INTO column_count FROM USER_TAB_COLUMNS
+              WHERE TABLE_NAME = 'LANGRAPH4J_CHECKPOINT' AND COLUMN_NAME = 'CHECKPOINT_SEQ';
+              IF column_count = 0 THEN
+                EXECUTE IMMEDIATE 'ALTER TABLE LANGRAPH4J_CHECKPOINT ADD (checkpoint_seq NUMBER(19))';
+                EXECUTE IMMEDIATE 'MERGE INTO LANGRAPH4J_CHECKPOINT c
+                  USING (SELECT checkpoint_id, ROW_NUMBER() OVER (ORDER BY saved_at, checkpoint_id) AS seq
+                         FROM LANGRAPH4J_CHECKPOINT) o
+                  ON (c.checkpoint_id = o.checkpoint_id)
+                  WHEN MATCHED THEN UPDATE SET c.checkpoint_seq = o.seq';
+                EXECUTE IMMEDIATE 'SELECT NVL(MAX(checkpoint_seq), 0) FROM LANGRAPH4J_CHECKPOINT' INTO max_seq;
+                EXECUTE IMMEDIATE 'ALTER SEQUENCE LANGRAPH4J_CHECKPOINT_SEQ RESTART START WITH ' || (max_seq + 1);
+                EXECUTE IMMEDIATE 'ALTER TABLE LANGRAPH4J_CHECKPOINT
+                  MODIFY (checkpoint_seq DEFAULT LANGRAPH4J_CHECKPOINT_SEQ.NEXTVAL NOT NULL)';
+              END IF;
+            END;
+            """;
+
+    private static final List<String> INDEX_CHECKPOINT_TABLE = List.of(
+            "CREATE INDEX IF NOT EXISTS IDX_LANGRAPH4J_CHECKPOINT_THREAD_SEQ ON LANGRAPH4J_CHECKPOINT(thread_id, checkpoint_seq DESC)",
+            "CREATE INDEX IF NOT EXISTS IDX_LANGRAPH4J_CHECKPOINT_NODE_ID ON LANGRAPH4J_CHECKPOINT(node_id)",
+            "CREATE INDEX IF NOT EXISTS IDX_LANGRAPH4J_CHECKPOINT_NEXT_NODE_ID ON LANGRAPH4J_CHECKPOINT(next_node_id)",
+            "CREATE INDEX IF NOT EXISTS IDX_LANGRAPH4J_CHECKPOINT_SAVED_AT ON LANGRAPH4J_CHECKPOINT(saved_at)" );
     private static final String DROP_THREAD_INDEX = "DROP INDEX IF EXISTS IDX_LANGRAPH4J_THREAD_NAME_RELEASED";
     private static final String DROP_THREAD_TABLE = "DROP TABLE IF EXISTS LANGRAPH4J_THREAD CASCADE CONSTRAINTS";
     private static final String DROP_CHECKPOINT_TABLE = "DROP TABLE IF EXISTS LANGRAPH4J_CHECKPOINT CASCADE CONSTRAINTS";
+    private static final String DROP_CHECKPOINT_SEQUENCE = "DROP SEQUENCE IF EXISTS LANGRAPH4J_CHECKPOINT_SEQ";
 
     // DML statements
     private static final String UPSERT_THREAD = """
@@ -108,8 +163,8 @@ public class OracleSaver extends MemorySaver {
             """;
 
     private static final String INSERT_CHECKPOINT = """
-            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data)
-            SELECT ?, thread_id, ?, ?, ?
+            INSERT INTO LANGRAPH4J_CHECKPOINT(checkpoint_id, thread_id, node_id, next_node_id, state_data, saved_at)
+            SELECT ?, thread_id, ?, ?, ?, ?
             FROM LANGRAPH4J_THREAD
             WHERE THREAD_NAME = ? AND IS_RELEASED = FALSE
             """;
@@ -133,7 +188,7 @@ public class OracleSaver extends MemorySaver {
             FROM LANGRAPH4J_CHECKPOINT c
               INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
             WHERE t.thread_name = ? AND t.is_released != TRUE
-            ORDER BY c.saved_at DESC
+            ORDER BY c.checkpoint_seq DESC
             """;
 
     private static final String DELETE_CHECKPOINTS = """
@@ -144,9 +199,35 @@ public class OracleSaver extends MemorySaver {
             UPDATE LANGRAPH4J_THREAD SET is_released = TRUE WHERE thread_name = ? AND is_released = FALSE
             """;
 
+    // last checkpoint of each thread, the filters are appended
+    private static final String SELECT_THREADS = """
+            SELECT t.thread_id, t.thread_name, t.is_released, c.checkpoint_id, c.node_id, c.next_node_id, c.saved_at
+            FROM LANGRAPH4J_CHECKPOINT c
+              INNER JOIN LANGRAPH4J_THREAD t ON c.thread_id = t.thread_id
+            WHERE NOT EXISTS (
+              SELECT 1 FROM LANGRAPH4J_CHECKPOINT n
+              WHERE n.thread_id = c.thread_id
+                AND n.checkpoint_seq > c.checkpoint_seq )
+            """;
+
+    private static final JdbcThreadQuery THREADS_QUERY = new JdbcThreadQuery(SELECT_THREADS, "FETCH FIRST ? ROWS ONLY", cursor -> cursor);
+
     // Configuration
     private final DataSource dataSource;
     private final CreateOption createOption;
+    private final int batchSize;
+
+    // statements cached by each connection, the batch statements are prepared once for each physical connection
+    private static final int STATEMENT_CACHE_SIZE = 16;
+
+    // Checkpoints waiting to be written
+    private final List<PendingCheckpoint> pendingCheckpoints = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * A checkpoint waiting to be written in database, with the instant it was saved
+     */
+    private record PendingCheckpoint(String threadName, Checkpoint checkpoint, Instant savedAt) {}
 
     /**
      * Private constructor used by the builder to create a new instance of
@@ -154,10 +235,12 @@ public class OracleSaver extends MemorySaver {
      * 
      * @param dataSource   the data source
      * @param createOption the create options
+     * @param batchSize    the number of checkpoints queued before writing them
      */
-    private OracleSaver(DataSource dataSource, CreateOption createOption) {
+    private OracleSaver(DataSource dataSource, CreateOption createOption, int batchSize) {
         this.dataSource = dataSource;
         this.createOption = createOption;
+        this.batchSize = batchSize;
         initTables();
     }
 
@@ -187,6 +270,8 @@ public class OracleSaver extends MemorySaver {
             return checkpoints;
         }
 
+        flush();
+
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
         JsonFactory osonFactory = new OsonFactory();
         ObjectMapper objectMapper = new ObjectMapper(osonFactory);
@@ -231,7 +316,8 @@ public class OracleSaver extends MemorySaver {
     }
 
     /**
-     * Inserts a checkpoint to the database
+     * Queues a checkpoint to be inserted in the database. The queued checkpoints are written
+     * when the batch is full (see {@link Builder#batchSize(int)}).
      * 
      * @param config      the configuration
      * @param checkpoints the list of checkpoints
@@ -244,25 +330,128 @@ public class OracleSaver extends MemorySaver {
             throws Exception {
 
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
-        try (Connection connection = dataSource.getConnection();
-                PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
-                PreparedStatement insertCheckpointStatement = connection.prepareStatement(INSERT_CHECKPOINT)) {
 
-            upsertStatement.setString(1, UUID.randomUUID().toString());
-            upsertStatement.setString(2, threadName);
-            upsertStatement.execute();
+        writeLock.lock();
+        try {
+            pendingCheckpoints.add(new PendingCheckpoint(threadName, checkpoint, Instant.now()));
 
-            insertCheckpointStatement.setString(1, checkpoint.getId());
-            insertCheckpointStatement.setString(2, checkpoint.getNodeId());
-            insertCheckpointStatement.setString(3, checkpoint.getNextNodeId());
-            insertCheckpointStatement.setObject(4, checkpoint.getState(), OracleType.JSON);
-            insertCheckpointStatement.setString(5, threadName);
+            if (pendingCheckpoints.size() >= batchSize) {
+                flush();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
 
-            insertCheckpointStatement.execute();
-        } catch (SQLException sqlException) {
-            throw new RuntimeException("Unable to insert checkpoint", sqlException);
+    /**
+     * Writes the queued checkpoints, also belonging to different threads, in a single
+     * transaction. Both thread upserts and checkpoint inserts reuse a prepared
+     * statement whose parameters are sent as arrays by {@code executeBatch}.
+     * The batch leaves the queue even if the transaction fails, so a checkpoint that can't be written
+     * doesn't fail the next writes: the threads of the failed batch are evicted from memory, so they are
+     * loaded again from the database on next access, and the error is thrown to the caller.
+     *
+     * @throws Exception if an error occurs while inserting the checkpoints in the
+     *                   database.
+     */
+    public void flush() throws Exception {
+        final List<PendingCheckpoint> checkpointsToWrite;
+        final RuntimeException failure;
+        writeLock.lock();
+        try {
+            if (pendingCheckpoints.isEmpty()) {
+                return;
+            }
+            checkpointsToWrite = List.copyOf(pendingCheckpoints);
+            pendingCheckpoints.clear();
+            try {
+                writeCheckpoints(checkpointsToWrite);
+                return;
+            } catch (SQLException sqlException) {
+                failure = new RuntimeException("Unable to insert checkpoint", sqlException);
+            }
+        } finally {
+            writeLock.unlock();
         }
 
+        // evicted out of the write lock, that is acquired holding the lock of the in-memory checkpoints
+        locked(() -> {
+            checkpointsToWrite.stream()
+                    .map(PendingCheckpoint::threadName)
+                    .distinct()
+                    .forEach(this::remove);
+            return null;
+        });
+        throw failure;
+    }
+
+    private void writeCheckpoints(List<PendingCheckpoint> checkpointsToWrite) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            enableStatementCache(connection);
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement upsertStatement = connection.prepareStatement(UPSERT_THREAD);
+                    PreparedStatement insertCheckpointStatement = connection.prepareStatement(INSERT_CHECKPOINT)) {
+
+                final var threadNames = new LinkedHashSet<String>();
+                for (var pending : checkpointsToWrite) {
+                    threadNames.add(pending.threadName());
+                }
+                for (var threadName : threadNames) {
+                    upsertStatement.setString(1, UUID.randomUUID().toString());
+                    upsertStatement.setString(2, threadName);
+                    upsertStatement.addBatch();
+                }
+                upsertStatement.executeBatch();
+
+                for (var pending : checkpointsToWrite) {
+                    final var checkpoint = pending.checkpoint();
+                    insertCheckpointStatement.setString(1, checkpoint.getId());
+                    insertCheckpointStatement.setString(2, checkpoint.getNodeId());
+                    insertCheckpointStatement.setString(3, checkpoint.getNextNodeId());
+                    insertCheckpointStatement.setObject(4, checkpoint.getState(), OracleType.JSON);
+                    // the instant the checkpoint was queued, rather than the statement start
+                    insertCheckpointStatement.setTimestamp(5, Timestamp.from(pending.savedAt()));
+                    insertCheckpointStatement.setString(6, pending.threadName());
+                    insertCheckpointStatement.addBatch();
+                }
+                insertCheckpointStatement.executeBatch();
+
+                connection.commit();
+            } catch (SQLException sqlException) {
+                connection.rollback();
+                throw sqlException;
+            }
+        }
+    }
+
+    /**
+     * Enables the implicit statement cache of the connection, so closing a statement returns it to the cache
+     * and the next flushes on the same physical connection, also borrowed from a pool, reuse it without
+     * parsing it again.
+     *
+     * @param connection the connection
+     * @throws SQLException if the connection isn't an Oracle connection
+     */
+    private static void enableStatementCache(Connection connection) throws SQLException {
+        var oracleConnection = connection.unwrap(OracleConnection.class);
+        if (!oracleConnection.getImplicitCachingEnabled()) {
+            if (oracleConnection.getStatementCacheSize() <= 0) {
+                oracleConnection.setStatementCacheSize(STATEMENT_CACHE_SIZE);
+            }
+            oracleConnection.setImplicitCachingEnabled(true);
+        }
+    }
+
+    /**
+     * Writes the queued checkpoints, so they are not lost when the saver is no longer used.
+     *
+     * @throws Exception if an error occurs while inserting the checkpoints in the
+     *                   database.
+     */
+    @Override
+    public void close() throws Exception {
+        flush();
     }
 
     /**
@@ -279,6 +468,8 @@ public class OracleSaver extends MemorySaver {
             throws Exception {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
 
+        flush();
+
         try (Connection connection = dataSource.getConnection();
                 PreparedStatement preparedStatement = connection.prepareStatement(RELEASE_THREAD)) {
             preparedStatement.setString(1, threadName);
@@ -303,6 +494,9 @@ public class OracleSaver extends MemorySaver {
         final String threadName = config.threadId().orElse(THREAD_ID_DEFAULT);
 
         if (config.checkPointId().isPresent()) {
+            // the updated checkpoint could be still queued
+            flush();
+
             try (Connection connection = dataSource.getConnection();
                     PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_CHECKPOINT)) {
                 preparedStatement.setString(1, checkpoint.getId());
@@ -319,6 +513,28 @@ public class OracleSaver extends MemorySaver {
         }
     }
 
+    /**
+     * Selects the threads by their last checkpoint, ordered by the internal thread id that is also the cursor.
+     * The candidate checkpoints are selected by the indexes on node id, next node id and saved at,
+     * then a checkpoint is retained only if no later one exists in its thread.
+     * The queued checkpoints are written before querying.
+     *
+     * @param query the filters and the page to select
+     * @return the selected threads
+     * @throws Exception if an error occurs while querying
+     */
+    @Override
+    public Page<ThreadInfo> threads(ThreadQuery query) throws Exception {
+        Objects.requireNonNull(query, "query cannot be null");
+        flush();
+
+        try (Connection connection = dataSource.getConnection()) {
+            return THREADS_QUERY.execute(connection, query);
+        } catch (SQLException sqlException) {
+            throw new Exception("Unable to select threads", sqlException);
+        }
+    }
+
     /**
      * Initializes the database according the create options.
      */
@@ -329,12 +545,18 @@ public class OracleSaver extends MemorySaver {
                 statement.addBatch(DROP_THREAD_INDEX);
                 statement.addBatch(DROP_CHECKPOINT_TABLE);
                 statement.addBatch(DROP_THREAD_TABLE);
+                statement.addBatch(DROP_CHECKPOINT_SEQUENCE);
             }
             if (createOption == CreateOption.CREATE_OR_REPLACE ||
                     createOption == CreateOption.CREATE_IF_NOT_EXISTS) {
                 statement.addBatch(CREATE_THREAD_TABLE);
                 statement.addBatch(INDEX_THREAD_TABLE);
+                statement.addBatch(CREATE_CHECKPOINT_SEQUENCE);
                 statement.addBatch(CREATE_CHECKPOINT_TABLE);
+                statement.addBatch(MIGRATE_CHECKPOINT_TABLE);
+                for (var indexCheckpointTable : INDEX_CHECKPOINT_TABLE) {
+                    statement.addBatch(indexCheckpointTable);
+                }
                 statement.executeBatch();
             }
         } catch (SQLException sqlException) {
@@ -348,6 +570,7 @@ public class OracleSaver extends MemorySaver {
     public static class Builder {
         private DataSource dataSource;
         private CreateOption createOption = CreateOption.CREATE_IF_NOT_EXISTS;
+        private int batchSize = 1;
 
         /**
          * Sets the datasource
@@ -371,13 +594,32 @@ public class OracleSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the number of inserted checkpoints queued before writing them in a single
+         * round-trip (default 1). The queue is shared by all the threads, queued checkpoints are
+         * also written before loading checkpoints, on update, on release and invoking
+         * {@link OracleSaver#flush()} or {@link OracleSaver#close()}.
+         * If the write of a batch fails its checkpoints are discarded and their threads are loaded again
+         * from the database, the error is thrown to the caller that triggered the write.
+         *
+         * @param batchSize the batch size
+         * @return this builder
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
         /**
          * Creates a new instance of OracleSaver
          * 
          * @return the new instance of OracleSaver.
          */
         public OracleSaver build() {
-            return new OracleSaver(dataSource, createOption);
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize must be greater than 0");
+            }
+            return new OracleSaver(dataSource, createOption, batchSize);
         }
     }
 }
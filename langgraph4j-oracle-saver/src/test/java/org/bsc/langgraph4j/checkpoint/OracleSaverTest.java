@@ -208,4 +208,84 @@ public class OracleSaverTest {
 
     }
 
+    @Test
+    public void testCheckpointWithBatchInserts() throws Exception {
+        var saver = OracleSaver.builder()
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .dataSource(DATA_SOURCE)
+                .batchSize(10)
+                .build();
+
+        NodeAction<AgentState> agent_1 = state ->
+                Map.of("agent_1:prop1", "agent_1:test");
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async(agent_1))
+                .addEdge(START, "agent_1")
+                .addEdge("agent_1", END);
+
+        var workflow = graph.compile(CompileConfig.builder()
+                .checkpointSaver(saver)
+                .releaseThread(false)
+                .build());
+
+        var thread1 = RunnableConfig.builder().threadId("thread1").build();
+        var thread2 = RunnableConfig.builder().threadId("thread2").build();
+
+        // checkpoints of both threads are queued
+        assertTrue(workflow.invoke(Map.of("input", "test1"), thread1).isPresent());
+        assertTrue(workflow.invoke(Map.of("input", "test2"), thread2).isPresent());
+
+        var reloadedSaver = OracleSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .build();
+        assertTrue(reloadedSaver.list(thread1).isEmpty());
+
+        // checkpoints of both threads are written in a single round-trip
+        saver.flush();
+
+        reloadedSaver = OracleSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .build();
+        assertEquals(2, reloadedSaver.list(thread1).size());
+        assertEquals(2, reloadedSaver.list(thread2).size());
+
+        reloadedSaver.release(thread1);
+        reloadedSaver.release(thread2);
+    }
+
+    @Test
+    public void testFailedBatchIsDiscarded() throws Exception {
+        var saver = OracleSaver.builder()
+                .createOption(CreateOption.CREATE_OR_REPLACE)
+                .dataSource(DATA_SOURCE)
+                .batchSize(2)
+                .build();
+
+        var thread1 = RunnableConfig.builder().threadId("thread1").build();
+        var thread2 = RunnableConfig.builder().threadId("thread2").build();
+
+        var duplicated = Checkpoint.builder()
+                .nodeId("agent_1")
+                .nextNodeId(END)
+                .state(Map.of())
+                .build();
+        saver.put(thread1, duplicated);
+        saver.flush();
+
+        // the duplicated checkpoint id fails the batch
+        saver.put(thread2, Checkpoint.builder().nodeId("agent_1").nextNodeId(END).state(Map.of()).build());
+        assertThrows(RuntimeException.class, () -> saver.put(thread2, duplicated));
+
+        // the failed batch is discarded, its thread is loaded again from the database
+        assertTrue(saver.list(thread2).isEmpty());
+        saver.put(thread2, Checkpoint.builder().nodeId("agent_1").nextNodeId(END).state(Map.of()).build());
+        saver.close();
+
+        var reloadedSaver = OracleSaver.builder()
+                .dataSource(DATA_SOURCE)
+                .build();
+        assertEquals(1, reloadedSaver.list(thread1).size());
+        assertEquals(1, reloadedSaver.list(thread2).size());
+    }
 }
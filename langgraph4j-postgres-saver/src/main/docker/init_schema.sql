@@ -16,7 +16,7 @@ CREATE TABLE LG4JCheckpoint (
     thread_id UUID NOT NULL,
     node_id VARCHAR(255),
     next_node_id VARCHAR(255),
-    state_data JSONB NOT NULL,
+    state_data JSONB NOT NULL, -- BYTEA using PostgresSaver.StateStorage.BYTEA
     state_content_type VARCHAR(100) NOT NULL, -- New field for content type
     saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
 
@@ -32,6 +32,9 @@ CREATE INDEX idx_lg4jcheckpoint_thread_id ON LG4JCheckpoint(thread_id);
 -- Useful for fetching the latest checkpoint(s) for a thread
 CREATE INDEX idx_lg4jcheckpoint_thread_id_saved_at_desc ON LG4JCheckpoint(thread_id, saved_at DESC);
 
+-- Used by keyset pagination of the checkpoints history (lazy loading)
+CREATE INDEX idx_lg4jcheckpoint_thread_id_saved_at_id_desc ON LG4JCheckpoint(thread_id, saved_at DESC, checkpoint_id DESC);
+
 -- Index to optimize search for thread_name where is_released is FALSE
 -- CREATE INDEX idx_lg4jthread_thread_name_unreleased ON LG4JThread (thread_name) WHERE is_released = FALSE;
 
@@ -2,31 +2,145 @@ package org.bsc.langgraph4j.checkpoint;
 
 import org.bsc.langgraph4j.RunnableConfig;
 import org.bsc.langgraph4j.serializer.StateSerializer;
+import org.bsc.langgraph4j.serializer.compression.CompressionCodec;
+import org.bsc.langgraph4j.serializer.compression.StateCompression;
 import org.bsc.langgraph4j.state.AgentState;
 import org.postgresql.ds.PGSimpleDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.sql.*;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
-public class PostgresSaver extends MemorySaver {
+/**
+ * A CheckpointSaver that stores Checkpoints in a PostgreSQL database.
+ *
+ * <p>
+ *     By default, the whole checkpoints history of a thread is loaded in memory on first access.
+ *     Enabling the lazy loading (see {@link Builder#lazyLoading(boolean)}) only the most recent checkpoints
+ *     are kept in memory, a checkpoint requested by id is fetched with a point lookup and the
+ *     history is fetched page by page using keyset pagination.
+ *     In this mode the {@link Tag} returned by {@link #release(RunnableConfig)} contains only the cached checkpoints.
+ * </p>
+ * <p>
+ *     The serialized state is stored either as base64 text wrapped in a JSONB document or, using the
+ *     {@link StateStorage#BYTEA} storage, as raw bytes (see {@link Builder#stateStorage(StateStorage)}),
+ *     optionally compressed (see {@link Builder#compression(StateCompression)}).
+ *     By default an existing table keeps its storage, while a new one uses JSONB only for JSON serializers.
+ * </p>
+ * <p>
+ *     The checkpoints are ordered by a sequence assigned on insert, since the checkpoints written in the same
+ *     batch could have the same saved time.
+ * </p>
+ * <p>
+ *     Released threads are only marked as released. As {@link CheckpointRetention} (see {@link CheckpointSweeper})
+ *     it deletes in bounded batches the expired released and idle threads and the old checkpoints of the active ones.
+ * </p>
+ * <p>
+ *     As {@link CheckpointQuery} it selects, by indexed queries, the threads by node id, next node id,
+ *     saved time and released flag of their last checkpoint.
+ * </p>
+ */
+public class PostgresSaver extends MemorySaver implements CheckpointRetention, CheckpointQuery, AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(PostgresSaver.class);
+
+    // last checkpoint of each thread, the filters are appended
+    private static final JdbcThreadQuery THREADS_QUERY = new JdbcThreadQuery( """
+            SELECT t.thread_id, t.thread_name, t.is_released, c.checkpoint_id, c.node_id, c.next_node_id, c.saved_at
+            FROM LG4JCheckpoint c
+            JOIN LG4JThread t ON t.thread_id = c.thread_id
+            WHERE NOT EXISTS (
+                SELECT 1 FROM LG4JCheckpoint n
+                WHERE n.thread_id = c.thread_id
+                  AND n.checkpoint_seq > c.checkpoint_seq )
+            """, "LIMIT ?", UUID::fromString );
+
+    private static final String SELECT_STATE_DATA_TYPE = """
+            SELECT data_type
+            FROM information_schema.columns
+            WHERE table_name = 'lg4jcheckpoint' AND column_name = 'state_data'
+            """;
+
+
+    /**
+     * Column type used to store the serialized state
+     */
+    public enum StateStorage {
+        /**
+         * serialized state stored as base64 text in a JSONB document: {"binaryPayload": "..."}
+         */
+        JSONB("JSONB", "c.state_data->>'binaryPayload' AS base64_data", "?::jsonb"),
+        /**
+         * serialized state stored as raw bytes
+         */
+        BYTEA("BYTEA", "c.state_data", "?");
+
+        private final String columnType;
+        private final String selectExpression;
+        private final String insertParameter;
+
+        StateStorage(String columnType, String selectExpression, String insertParameter) {
+            this.columnType = columnType;
+            this.selectExpression = selectExpression;
+            this.insertParameter = insertParameter;
+        }
+    }
+
     /**
      * Datasource used to create the store
      */
     protected final DataSource datasource;
 
     private final StateSerializer<? extends AgentState> stateSerializer;
+    private final StateStorage stateStorage;
+    private final StateCompression compression;
+    private final String selectCheckpointColumns;
+    private final boolean lazyLoading;
+    private final int pageSize;
+    private final int maxCachedCheckpoints;
+    private final int batchSize;
+    private final List<PendingCheckpoint> pendingCheckpoints = new ArrayList<>();
+    private final Map<String,UUID> threadUUIDs;
+    private final ReentrantLock writeLock = new ReentrantLock();
 
     protected PostgresSaver( Builder builder ) throws SQLException {
         this.datasource = builder.datasource;
         this.stateSerializer =  builder.stateSerializer;
+        this.stateStorage = builder.stateStorage;
+        this.compression = builder.compression;
+        this.selectCheckpointColumns = format("""
+                SELECT  c.checkpoint_id,
+                        c.node_id,
+                        c.next_node_id,
+                        %s,
+                        c.state_content_type,
+                        c.saved_at,
+                        c.parent_checkpoint_id,
+                        c.checkpoint_seq
+                FROM LG4JThread t
+                JOIN LG4JCheckpoint c ON c.thread_id = t.thread_id
+                """, stateStorage.selectExpression);
+        this.lazyLoading = builder.lazyLoading;
+        this.pageSize = builder.pageSize;
+        this.maxCachedCheckpoints = builder.maxCachedCheckpoints;
+        this.batchSize = builder.batchSize;
+        final var maxCachedThreads = builder.maxCachedThreads;
+        this.threadUUIDs = new LinkedHashMap<>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+                return size() > maxCachedThreads;
+            }
+        };
         initTable( builder.dropTablesFirst, builder.createTables);
     }
 
@@ -34,7 +148,35 @@ public class PostgresSaver extends MemorySaver {
         return new Builder();
     }
 
+    private void rollback( Connection conn, Stream<String> threadIds ) {
+        // thread ids resolved within the rolled back transaction could be invalid
+        writeLock.lock();
+        try {
+            threadIds.forEach( threadUUIDs::remove );
+        }
+        finally {
+            writeLock.unlock();
+        }
+
+        if (conn == null) return;
+
+        try {
+            conn.rollback();
+            log.warn("Transaction rolled back");
+        } catch (SQLException exRollback) {
+            log.error("Failed to rollback transaction", exRollback);
+        }
+    }
+
     private void rollback( Connection conn, Checkpoint checkpoint, String threadId ) {
+        writeLock.lock();
+        try {
+            threadUUIDs.remove( threadId );
+        }
+        finally {
+            writeLock.unlock();
+        }
+
         if (conn == null) return;
 
         requireNonNull(checkpoint, "checkpoint cannot be null");
@@ -50,24 +192,64 @@ public class PostgresSaver extends MemorySaver {
         }
     }
 
+    private String stateContentType() {
+        // compressed payloads are self-describing (see StateCompression)
+        return stateSerializer.contentType();
+    }
+
+    private byte[] stateToBytes( Map<String,Object> data ) throws IOException {
+        return ( compression == null ) ?
+                stateSerializer.dataToBytes(data) :
+                stateSerializer.dataToBytes(data, compression);
+    }
+
+    private void setStateBytes( PreparedStatement ps, int index, Map<String,Object> data ) throws SQLException, IOException {
+        if( compression != null ) {
+            ps.setBytes( index, stateSerializer.dataToBytes(data, compression) );
+            return;
+        }
+        // streamed from the serialization buffer, without copying it
+        var buffer = stateSerializer.dataToByteBuffer(data);
+        ps.setBinaryStream( index,
+                new ByteArrayInputStream( buffer.array(), buffer.arrayOffset(), buffer.limit() ),
+                buffer.limit() );
+    }
+
+    private void setState( PreparedStatement ps, int index, Map<String,Object> data ) throws SQLException, IOException {
+        if( stateStorage == StateStorage.BYTEA ) {
+            setStateBytes(ps, index, data);
+        }
+        else {
+            ps.setString(index, encodeState(data));
+        }
+    }
+
     private String encodeState( Map<String,Object> data ) throws IOException {
-        var binaryData = stateSerializer.dataToBytes(data);
-        var base64Data = Base64.getEncoder().encodeToString(binaryData);
+        var base64Data = Base64.getEncoder().encodeToString( stateToBytes(data) );
         return format("""
                      {"binaryPayload": "%s"}
                      """, base64Data);
     }
 
-    private Map<String,Object> decodeState( byte[] binaryPayload, String contentType ) throws IOException, ClassNotFoundException {
+    private Map<String,Object> decodeState( InputStream binaryPayload, String contentType ) throws IOException, ClassNotFoundException {
         if( !Objects.equals(contentType, stateSerializer.contentType() )) {
             throw new IllegalStateException(
                     format( "Content Type used for store state '%s' is different from one '%s' used for deserialize it",
                             contentType,
                             stateSerializer.contentType() ));
         }
+        // the compressed payloads are detected and decompressed by the serializer
+        return stateSerializer.dataFromStream(binaryPayload);
+    }
 
-        byte[] bytes = Base64.getDecoder().decode(binaryPayload);
-        return stateSerializer.dataFromBytes( bytes );
+    private Map<String,Object> decodeState( ResultSet rs, int column, String contentType ) throws SQLException, IOException, ClassNotFoundException {
+        if( stateStorage == StateStorage.BYTEA ) {
+            try( var binaryPayload = rs.getBinaryStream(column) ) {
+                return decodeState( binaryPayload, contentType );
+            }
+        }
+        byte[] bytes = Base64.getDecoder().decode( rs.getBytes(column) );
+        return decodeState( new ByteArrayInputStream(bytes), contentType );
     }
 
     protected void initTable(boolean dropTablesFirst, boolean createTables) throws SQLException {
@@ -76,7 +258,7 @@ public class PostgresSaver extends MemorySaver {
         DROP TABLE IF EXISTS LG4JThread CASCADE;
         """;
 
-        var sqlCreateTables = """
+        var sqlCreateTables = format("""
                 CREATE TABLE IF NOT EXISTS LG4JThread (
                      thread_id UUID PRIMARY KEY,
                      thread_name VARCHAR(255),
@@ -89,9 +271,10 @@ public class PostgresSaver extends MemorySaver {
                      thread_id UUID NOT NULL,
                      node_id VARCHAR(255),
                      next_node_id VARCHAR(255),
-                     state_data JSONB NOT NULL,
+                     state_data %s NOT NULL,
                      state_content_type VARCHAR(100) NOT NULL, -- New field for content type
                      saved_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+                     checkpoint_seq BIGSERIAL NOT NULL,
                 
                      CONSTRAINT fk_thread
                          FOREIGN KEY(thread_id)
@@ -99,11 +282,37 @@ public class PostgresSaver extends MemorySaver {
                          ON DELETE CASCADE
                  );
                 
-                 CREATE INDEX idx_lg4jcheckpoint_thread_id ON LG4JCheckpoint(thread_id);
-                 CREATE INDEX idx_lg4jcheckpoint_thread_id_saved_at_desc ON LG4JCheckpoint(thread_id, saved_at DESC);
-                 CREATE UNIQUE INDEX idx_unique_lg4jthread_thread_name_unreleased  ON LG4JThread(thread_name) WHERE is_released = FALSE;
-                """;
-
+                 -- tables created by previous releases have no sequence: it is assigned following the saved time
+                 DO $$
+                 BEGIN
+                     IF NOT EXISTS (
+                         SELECT 1 FROM information_schema.columns
+                         WHERE table_name = 'lg4jcheckpoint' AND column_name = 'checkpoint_seq' ) THEN
+                         CREATE SEQUENCE IF NOT EXISTS lg4jcheckpoint_checkpoint_seq_seq;
+                         ALTER TABLE LG4JCheckpoint ADD COLUMN checkpoint_seq BIGINT;
+                         UPDATE LG4JCheckpoint c
+                         SET checkpoint_seq = o.seq
+                         FROM (
+                             SELECT checkpoint_id, ROW_NUMBER() OVER (ORDER BY saved_at, checkpoint_id) AS seq
+                             FROM LG4JCheckpoint
+                         ) o
+                         WHERE o.checkpoint_id = c.checkpoint_id;
+                         PERFORM setval( 'lg4jcheckpoint_checkpoint_seq_seq', COALESCE( (SELECT MAX(checkpoint_seq) FROM LG4JCheckpoint), 0 ) + 1, false );
+                         ALTER TABLE LG4JCheckpoint
+                             ALTER COLUMN checkpoint_seq SET DEFAULT nextval('lg4jcheckpoint_checkpoint_seq_seq'),
+                             ALTER COLUMN checkpoint_seq SET NOT NULL;
+                         ALTER SEQUENCE lg4jcheckpoint_checkpoint_seq_seq OWNED BY LG4JCheckpoint.checkpoint_seq;
+                     END IF;
+                 END $$;
+
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_thread_id ON LG4JCheckpoint(thread_id);
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_thread_id_seq_desc ON LG4JCheckpoint(thread_id, checkpoint_seq DESC);
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_parent_checkpoint_id ON LG4JCheckpoint(parent_checkpoint_id);
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_node_id ON LG4JCheckpoint(node_id);
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_next_node_id ON LG4JCheckpoint(next_node_id);
+                 CREATE INDEX IF NOT EXISTS idx_lg4jcheckpoint_saved_at ON LG4JCheckpoint(saved_at);
+                 CREATE UNIQUE INDEX IF NOT EXISTS idx_unique_lg4jthread_thread_name_unreleased  ON LG4JThread(thread_name) WHERE is_released = FALSE;
+                """, stateStorage.columnType);
 
         String sqlCommand = null;
         try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
@@ -117,6 +326,14 @@ public class PostgresSaver extends MemorySaver {
                 sqlCommand = sqlCreateTables;
                 statement.executeUpdate(sqlCommand);
             }
+            sqlCommand = SELECT_STATE_DATA_TYPE;
+            try( var rs = statement.executeQuery(sqlCommand) ) {
+                if( rs.next() && !stateStorage.columnType.equalsIgnoreCase(rs.getString(1)) ) {
+                    throw new IllegalStateException( format( "state storage '%s' doesn't match the type '%s' of the existing state_data column",
+                            stateStorage,
+                            rs.getString(1) ));
+                }
+            }
         }
         catch ( SQLException ex ) {
             log.error( "error executing command\n{}\n", sqlCommand, ex );
@@ -131,6 +348,13 @@ public class PostgresSaver extends MemorySaver {
 
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
 
+        flush();
+
+        if( lazyLoading ) {
+            checkpoints.addAll( selectCheckpointsPage( threadId, null, maxCachedCheckpoints ).checkpoints() );
+            return checkpoints;
+        }
+
         var sqlCheckThread = """
                 SELECT COUNT(*)
                 FROM LG4JThread
@@ -145,13 +369,13 @@ public class PostgresSaver extends MemorySaver {
                 SELECT  c.checkpoint_id,
                         c.node_id,
                         c.next_node_id,
-                        c.state_data->>'binaryPayload' AS base64_data,
+                        %s,
                         c.state_content_type,
                         c.parent_checkpoint_id
                 FROM matched_thread t
                 JOIN LG4JCheckpoint c ON c.thread_id = t.thread_id
-                ORDER BY c.saved_at DESC
-                """;
+                ORDER BY c.checkpoint_seq DESC
+                """.formatted( stateStorage.selectExpression );
         try( Connection conn = getConnection() ) {
 
             try( PreparedStatement ps = conn.prepareStatement(sqlCheckThread) ) {
@@ -173,13 +397,7 @@ public class PostgresSaver extends MemorySaver {
                 ps.setString(1, threadId);
                 var rs = ps.executeQuery();
                 while( rs.next() ) {
-                    var checkpoint = Checkpoint.builder()
-                            .id( rs.getString(1) )
-                            .nodeId( rs.getString(2) )
-                            .nextNodeId( rs.getString(3) )
-                            .state( decodeState( rs.getBytes(4), rs.getString( 5) ) )
-                            .build();
-                    checkpoints.add( checkpoint );
+                    checkpoints.add( checkpointOf( rs ) );
                 }
             }
 
@@ -188,8 +406,283 @@ public class PostgresSaver extends MemorySaver {
         return checkpoints;
     }
 
-    private void insertCheckpoint( Connection conn, RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
+    private Checkpoint checkpointOf( ResultSet rs ) throws SQLException, IOException, ClassNotFoundException {
+        return Checkpoint.builder()
+                .id( rs.getString(1) )
+                .nodeId( rs.getString(2) )
+                .nextNodeId( rs.getString(3) )
+                .state( decodeState( rs, 4, rs.getString( 5) ) )
+                .parentId( rs.getString("parent_checkpoint_id") )
+                .build();
+    }
+
+    /**
+     * A page of checkpoints with the keyset of its last row
+     */
+    private record CheckpointsPage( List<Checkpoint> checkpoints, long lastSeq ) {}
+
+    /**
+     * Selects a page of checkpoints of an active thread ordered from the most recent one, using keyset pagination.
+     *
+     * @param threadId the thread name
+     * @param after the previous page, null to select the first one
+     * @param limit the max number of checkpoints to select
+     * @return the selected page
+     * @throws Exception if an error occurs while selecting or decoding checkpoints
+     */
+    private CheckpointsPage selectCheckpointsPage( String threadId, CheckpointsPage after, int limit ) throws Exception {
+        var sqlQueryPage = selectCheckpointColumns +
+                """
+                WHERE t.thread_name = ? AND t.is_released = FALSE
+                """ +
+                (( after == null ) ? "" : """
+                AND c.checkpoint_seq < ?
+                """) +
+                """
+                ORDER BY c.checkpoint_seq DESC
+                LIMIT ?
+                """;
+
+        var result = new ArrayList<Checkpoint>( limit );
+        long lastSeq = 0;
+
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlQueryPage) ) {
+            var field = 0;
+            ps.setString(++field, threadId);
+            if( after != null ) {
+                ps.setLong(++field, after.lastSeq() );
+            }
+            ps.setInt(++field, limit);
+
+            log.trace( "Executing select checkpoints page:\n---\n{}---", sqlQueryPage);
+            try( ResultSet rs = ps.executeQuery() ) {
+                while( rs.next() ) {
+                    result.add( checkpointOf( rs ) );
+                    lastSeq = rs.getLong("checkpoint_seq");
+                }
+            }
+        }
+        return new CheckpointsPage( result, lastSeq );
+    }
+
+    /**
+     * In lazy loading mode, looks up the checkpoint with the given id in the database.
+     *
+     * @param config the configuration referring the thread
+     * @param checkpointId the id of the requested checkpoint
+     * @return the checkpoint if found, otherwise an empty {@link Optional}
+     * @throws Exception if an error occurs while selecting or decoding the checkpoint
+     */
+    @Override
+    protected Optional<Checkpoint> loadedCheckpoint(RunnableConfig config, String checkpointId) throws Exception {
+        if( !lazyLoading ) {
+            return Optional.empty();
+        }
+
+        flush();
+
+        var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+
+        var sqlQueryCheckpoint = selectCheckpointColumns +
+                """
+                WHERE t.thread_name = ? AND t.is_released = FALSE AND c.checkpoint_id = ?
+                """;
+
+        try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlQueryCheckpoint) ) {
+            var field = 0;
+            ps.setString(++field, threadId);
+            ps.setObject(++field, UUID.fromString(checkpointId), Types.OTHER);
+
+            log.trace( "Executing select checkpoint:\n---\n{}---", sqlQueryCheckpoint);
+            try( ResultSet rs = ps.executeQuery() ) {
+                return ( rs.next() ) ? Optional.of( checkpointOf(rs) ) : Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * Selects the ancestors of the checkpoint with a recursive query over the parent ids, without loading
+     * the whole thread history.
+     *
+     * @param config the configuration referring the checkpoint
+     * @return the ancestors, the first element is the parent
+     */
+    @Override
+    public List<Checkpoint> ancestors(RunnableConfig config) {
+        var parentId = get(config).flatMap(Checkpoint::getParentId);
+        if( parentId.isEmpty() ) {
+            return List.of();
+        }
+
+        var sqlQueryAncestors = """
+                WITH RECURSIVE ancestors(checkpoint_id, parent_checkpoint_id, depth) AS (
+                    SELECT checkpoint_id, parent_checkpoint_id, 1
+                    FROM LG4JCheckpoint
+                    WHERE checkpoint_id = ?
+                    UNION ALL
+                    SELECT c.checkpoint_id, c.parent_checkpoint_id, a.depth + 1
+                    FROM LG4JCheckpoint c
+                    JOIN ancestors a ON c.checkpoint_id = a.parent_checkpoint_id
+                )
+                """ +
+                selectCheckpointColumns +
+                """
+                JOIN ancestors a ON a.checkpoint_id = c.checkpoint_id
+                WHERE t.thread_name = ? AND t.is_released = FALSE
+                ORDER BY a.depth
+                """;
+
+        return selectCheckpoints( config, sqlQueryAncestors, parentId.get() );
+    }
+
+    /**
+     * Selects the children of the checkpoint using the index on the parent ids, without loading
+     * the whole thread history.
+     *
+     * @param config the configuration referring the checkpoint
+     * @return the children, the first element is the most recent
+     */
+    @Override
+    public List<Checkpoint> children(RunnableConfig config) {
+        var checkpointId = config.checkPointId()
+                .orElseThrow( () -> new IllegalArgumentException("config must refer a checkpoint") );
+
+        var sqlQueryChildren = selectCheckpointColumns +
+                """
+                WHERE c.parent_checkpoint_id = ? AND t.thread_name = ? AND t.is_released = FALSE
+                ORDER BY c.checkpoint_seq DESC
+                """;
+
+        return selectCheckpoints( config, sqlQueryChildren, checkpointId );
+    }
+
+    /**
+     * Selects the checkpoints of the thread with a query having as parameters a checkpoint id and the thread name
+     */
+    private List<Checkpoint> selectCheckpoints( RunnableConfig config, String sqlQuery, String checkpointId ) {
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
+        try {
+            flush();
+
+            var result = new ArrayList<Checkpoint>();
+            try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlQuery) ) {
+                var field = 0;
+                ps.setObject(++field, UUID.fromString(checkpointId), Types.OTHER);
+                ps.setString(++field, threadId);
+
+                log.trace( "Executing select checkpoints:\n---\n{}---", sqlQuery);
+                try( ResultSet rs = ps.executeQuery() ) {
+                    while( rs.next() ) {
+                        result.add( checkpointOf(rs) );
+                    }
+                }
+            }
+            return result;
+        }
+        catch( Exception e ) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * In lazy loading mode, returns a collection that fetches the checkpoints history page by page
+     * while it is iterated.
+     *
+     * @param config the configuration referring the thread
+     * @param checkpoints the in-memory checkpoints
+     * @return the checkpoints history
+     * @throws Exception if an error occurs while loading the history
+     */
+    @Override
+    protected Collection<Checkpoint> listedCheckpoints(RunnableConfig config, LinkedList<Checkpoint> checkpoints) throws Exception {
+        if( !lazyLoading ) {
+            return super.listedCheckpoints(config, checkpoints);
+        }
+
+        flush();
+        return new PagedCheckpoints( config.threadId().orElse( THREAD_ID_DEFAULT ) );
+    }
+
+    /**
+     * Read-only view of the checkpoints history of a thread fetched using keyset pagination
+     */
+    private class PagedCheckpoints extends AbstractCollection<Checkpoint> {
+        private final String threadId;
+
+        PagedCheckpoints(String threadId) {
+            this.threadId = threadId;
+        }
+
+        @Override
+        public Iterator<Checkpoint> iterator() {
+            return new Iterator<>() {
+                private CheckpointsPage page = null;
+                private Iterator<Checkpoint> pageIterator = Collections.emptyIterator();
+                private boolean lastPage = false;
+
+                @Override
+                public boolean hasNext() {
+                    if( !pageIterator.hasNext() && !lastPage ) {
+                        try {
+                            page = selectCheckpointsPage( threadId, page, pageSize );
+                        } catch (Exception e) {
+                            throw new RuntimeException(e);
+                        }
+                        lastPage = page.checkpoints().size() < pageSize;
+                        pageIterator = page.checkpoints().iterator();
+                    }
+                    return pageIterator.hasNext();
+                }
+
+                @Override
+                public Checkpoint next() {
+                    if( !hasNext() ) {
+                        throw new NoSuchElementException();
+                    }
+                    return pageIterator.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            var sqlCountCheckpoints = """
+                SELECT COUNT(*)
+                FROM LG4JThread t
+                JOIN LG4JCheckpoint c ON c.thread_id = t.thread_id
+                WHERE t.thread_name = ? AND t.is_released = FALSE
+                """;
+            try( Connection conn = getConnection(); PreparedStatement ps = conn.prepareStatement(sqlCountCheckpoints) ) {
+                ps.setString(1, threadId);
+                try( ResultSet rs = ps.executeQuery() ) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * A checkpoint waiting to be written in database, with the instant it was saved
+     */
+    private record PendingCheckpoint( String threadId, Checkpoint checkpoint, Instant savedAt ) {}
+
+    /**
+     * Resolves the id of the active thread with the given name, creating the thread if it doesn't exist.
+     * The resolved ids are kept in a bounded cache, invalidated when the thread is released.
+     *
+     * @param conn the connection
+     * @param threadId the thread name
+     * @return the thread id
+     * @throws SQLException if an error occurs while upserting the thread
+     */
+    private UUID threadUUID( Connection conn, String threadId ) throws SQLException {
+        var threadUUID = threadUUIDs.get(threadId);
+        if( threadUUID != null ) {
+            return threadUUID;
+        }
 
         var upsertThreadSql = """
             WITH inserted AS (
@@ -207,20 +700,6 @@ public class PostgresSaver extends MemorySaver {
             LIMIT 1;
             """;
 
-        var insertCheckpointSql = """
-                INSERT INTO LG4JCheckpoint(
-                checkpoint_id,
-                parent_checkpoint_id,
-                thread_id,
-                node_id,
-                next_node_id,
-                state_data,
-                state_content_type)
-                VALUES (?, ?, ?, ?, ?, ?::jsonb, ?)
-                """;
-        UUID threadUUID = null;
-
-        // 1. Upsert thread information
         try (PreparedStatement ps = conn.prepareStatement(upsertThreadSql)) {
             var field = 0;
             ps.setObject(++field, UUID.randomUUID(), Types.OTHER);
@@ -236,62 +715,164 @@ public class PostgresSaver extends MemorySaver {
             }
         }
 
+        threadUUIDs.put( threadId, requireNonNull(threadUUID, "threadUUID cannot be null") );
+        return threadUUID;
+    }
+
+    /**
+     * Inserts the given checkpoints reusing the same prepared statement in a single JDBC batch.
+     * Must be executed within a transaction.
+     *
+     * @param conn the connection
+     * @param pendingCheckpoints the checkpoints to insert
+     * @throws Exception if an error occurs while serializing or inserting checkpoints
+     */
+    private void insertCheckpoints( Connection conn, Collection<PendingCheckpoint> pendingCheckpoints ) throws Exception {
 
+        var insertCheckpointSql = """
+                INSERT INTO LG4JCheckpoint(
+                checkpoint_id,
+                parent_checkpoint_id,
+                thread_id,
+                node_id,
+                next_node_id,
+                state_data,
+                state_content_type,
+                saved_at)
+                VALUES (?, ?, ?, ?, ?, %s, ?, ?)
+                """.formatted( stateStorage.insertParameter );
 
-        // 2. Insert checkpoint data
         try (PreparedStatement ps = conn.prepareStatement(insertCheckpointSql)) {
-            var field = 0;
-            // checkpoint_id
-            ps.setObject(++field,
-                    UUID.fromString(checkpoint.getId()),
-                    Types.OTHER);
-            // parent_checkpoint_id
-            ps.setNull(++field, java.sql.Types.OTHER);
-            // thread_id
-            ps.setObject(++field,
-                    requireNonNull(threadUUID, "threadUUID cannot be null"),
-                    Types.OTHER);
-            // node_id
-            ps.setString(++field, checkpoint.getNodeId());
-            // next_node_id
-            ps.setString(++field, checkpoint.getNextNodeId());
-            // state_data
-            ps.setString(++field, encodeState(checkpoint.getState()));
-            // state_content_type
-            ps.setString(++field, stateSerializer.contentType());
-
-            // DB schema has DEFAULT CURRENT_TIMESTAMP for saved_at.
-            // If checkpoint provides a specific time, use it. Otherwise, use current time from Java.
-            // To use DB default, one would typically omit the column or pass NULL if the column definition allows it to trigger default.
-            // OffsetDateTime savedAt = checkpoint.getSavedAt().orElse(OffsetDateTime.now());
-            // psCheckpoint.setObject(8, savedAt);
-            log.trace( "Executing insert checkpoint:\n---\n{}---", insertCheckpointSql);
-            ps.executeUpdate();
+
+            for( var pending : pendingCheckpoints ) {
+                var checkpoint = pending.checkpoint();
+
+                var field = 0;
+                // checkpoint_id
+                ps.setObject(++field,
+                        UUID.fromString(checkpoint.getId()),
+                        Types.OTHER);
+                // parent_checkpoint_id
+                ps.setObject(++field,
+                        checkpoint.getParentId().map(UUID::fromString).orElse(null),
+                        Types.OTHER); // nullable
+                // thread_id
+                ps.setObject(++field,
+                        threadUUID( conn, pending.threadId() ),
+                        Types.OTHER);
+                // node_id
+                ps.setString(++field, checkpoint.getNodeId());
+                // next_node_id
+                ps.setString(++field, checkpoint.getNextNodeId());
+                // state_data
+                setState(ps, ++field, checkpoint.getState());
+                // state_content_type
+                ps.setString(++field, stateContentType());
+                // saved_at, the instant the checkpoint was queued rather than the transaction start
+                ps.setTimestamp(++field, Timestamp.from(pending.savedAt()));
+
+                ps.addBatch();
+            }
+
+            // checkpoint_seq is assigned in insertion order
+            log.trace( "Executing insert {} checkpoint(s):\n---\n{}---", pendingCheckpoints.size(), insertCheckpointSql);
+            ps.executeBatch();
+        }
+
+    }
+
+    /**
+     * Writes in database the checkpoints queued in batch mode, within a single transaction.
+     * The batch leaves the queue even if the transaction fails, so a checkpoint that can't be written
+     * doesn't fail the next writes: the threads of the failed batch are evicted from memory, so they are
+     * loaded again from the database on next access, and the error is thrown to the caller.
+     *
+     * @throws Exception if an error occurs while writing checkpoints
+     */
+    public void flush() throws Exception {
+        final List<PendingCheckpoint> checkpointsToWrite;
+        final Exception failure;
+        writeLock.lock();
+        try {
+            if( pendingCheckpoints.isEmpty() ) {
+                return;
+            }
+            checkpointsToWrite = List.copyOf(pendingCheckpoints);
+            pendingCheckpoints.clear();
+
+            Connection conn = null;
+            try( Connection ignored = conn = getConnection() )  {
+                conn.setAutoCommit(false); // Start transaction
+
+                insertCheckpoints( conn, checkpointsToWrite );
+
+                conn.commit();
+                log.debug("{} checkpoint(s) inserted successfully.", checkpointsToWrite.size());
+                return;
+
+            } catch (SQLException | IOException e) { // IOException from encodeState
+                log.error("Error inserting checkpoints {}",
+                        checkpointsToWrite.stream().map( p -> p.checkpoint().getId() ).toList(),
+                        e);
+                rollback( conn, checkpointsToWrite.stream().map(PendingCheckpoint::threadId) );
+                failure = e;
+            }
+        }
+        finally {
+            writeLock.unlock();
         }
 
+        // evicted out of the write lock, that is acquired holding the lock of the in-memory checkpoints
+        locked( () -> {
+            checkpointsToWrite.stream()
+                    .map(PendingCheckpoint::threadId)
+                    .distinct()
+                    .forEach( this::remove );
+            return null;
+        });
+        throw failure;
+    }
+
+    /**
+     * Writes the checkpoints queued in batch mode, so they are not lost when the saver is no longer used.
+     *
+     * @throws Exception if an error occurs while writing checkpoints
+     */
+    @Override
+    public void close() throws Exception {
+        flush();
     }
 
     @Override
     protected void insertedCheckpoint( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Checkpoint checkpoint) throws Exception {
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
 
-        Connection conn = null;
-        try( Connection ignored = conn = getConnection() )  {
-            conn.setAutoCommit(false); // Start transaction
-
-            insertCheckpoint( conn, config, checkpoints, checkpoint );
+        writeLock.lock();
+        try {
+            pendingCheckpoints.add( new PendingCheckpoint( threadId, checkpoint, Instant.now() ) );
 
-            conn.commit();
-            log.debug("Checkpoint {} for thread {} inserted successfully.", checkpoint.getId(), threadId);
+            if( pendingCheckpoints.size() >= batchSize ) {
+                flush();
+            }
+        }
+        finally {
+            writeLock.unlock();
+        }
 
-        } catch (SQLException | IOException e) { // IOException from convertStateToJson
-            log.error("Error inserting checkpoint with id {} in thread {}", checkpoint.getId(), threadId, e);
-            rollback( conn, checkpoint, threadId );
-            throw e;
+        if( lazyLoading ) {
+            // keep in memory only the head of the thread history
+            while( checkpoints.size() > maxCachedCheckpoints ) {
+                checkpoints.removeLast();
+            }
         }
 
     }
 
+    /**
+     * Replaces in place the checkpoint referred by the configuration, so it keeps its sequence (its position
+     * in the thread history). If the replacement has a different id, the children of the replaced checkpoint
+     * are linked to it.
+     */
     @Override
     protected void updatedCheckpoint( RunnableConfig config,
                                       LinkedList<Checkpoint> checkpoints,
@@ -299,36 +880,73 @@ public class PostgresSaver extends MemorySaver {
 
         final var threadId = config.threadId().orElse(THREAD_ID_DEFAULT);
 
-        var deletePreviousCheckpointSql = """
-                DELETE FROM LG4JCheckpoint
-                WHERE checkpoint_id = ?;
+        var updateCheckpointSql = """
+                UPDATE LG4JCheckpoint
+                SET checkpoint_id = ?,
+                    parent_checkpoint_id = ?,
+                    node_id = ?,
+                    next_node_id = ?,
+                    state_data = %s,
+                    state_content_type = ?,
+                    saved_at = ?
+                WHERE checkpoint_id = ?
+                """.formatted( stateStorage.insertParameter );
+
+        var updateChildrenSql = """
+                UPDATE LG4JCheckpoint
+                SET parent_checkpoint_id = ?
+                WHERE parent_checkpoint_id = ?
                 """;
 
+        // the replaced checkpoint could be still queued
+        flush();
+
         Connection conn = null;
 
+        writeLock.lock();
         try( Connection ignored = conn = getConnection()  )  {
             conn.setAutoCommit(false); // Start transaction
 
+            var updated = 0;
             if( config.checkPointId().isPresent() ) {
+                var replacedId = UUID.fromString(config.checkPointId().get());
+                var checkpointId = UUID.fromString(checkpoint.getId());
 
-                try (PreparedStatement ps = conn.prepareStatement(deletePreviousCheckpointSql)) {
+                try (PreparedStatement ps = conn.prepareStatement(updateCheckpointSql)) {
                     var field = 0;
+                    ps.setObject(++field, checkpointId, Types.OTHER);
                     ps.setObject(++field,
-                            UUID.fromString(config.checkPointId().get()),
+                            checkpoint.getParentId().map(UUID::fromString).orElse(null),
                             Types.OTHER); // nullable
-                    log.trace( "Executing deleting previous checkpoint with id {} in thread {}:\n---\n{}---",
-                                    config.checkPointId().get(),
+                    ps.setString(++field, checkpoint.getNodeId());
+                    ps.setString(++field, checkpoint.getNextNodeId());
+                    setState(ps, ++field, checkpoint.getState());
+                    ps.setString(++field, stateContentType());
+                    ps.setTimestamp(++field, Timestamp.from(Instant.now()));
+                    ps.setObject(++field, replacedId, Types.OTHER);
+                    log.trace( "Executing update of checkpoint with id {} in thread {}:\n---\n{}---",
+                                    replacedId,
                                     threadId,
-                                    deletePreviousCheckpointSql);
-                    ps.executeUpdate();
+                                    updateCheckpointSql);
+                    updated = ps.executeUpdate();
+                }
+
+                if( updated > 0 && !replacedId.equals(checkpointId) ) {
+                    try (PreparedStatement ps = conn.prepareStatement(updateChildrenSql)) {
+                        ps.setObject(1, checkpointId, Types.OTHER);
+                        ps.setObject(2, replacedId, Types.OTHER);
+                        ps.executeUpdate();
+                    }
                 }
             }
 
-            insertCheckpoint( conn, config, checkpoints, checkpoint);
+            if( updated == 0 ) {
+                insertCheckpoints( conn, List.of( new PendingCheckpoint( threadId, checkpoint, Instant.now() ) ) );
+            }
 
             conn.commit();
 
-            log.debug("Checkpoint with id {} for thread {} inserted successfully.",
+            log.debug("Checkpoint with id {} for thread {} updated successfully.",
                         checkpoint.getId(),
                         threadId);
 
@@ -340,12 +958,25 @@ public class PostgresSaver extends MemorySaver {
             rollback( conn, checkpoint, threadId );
             throw e;
         }
+        finally {
+            writeLock.unlock();
+        }
     }
 
     @Override
     protected void releasedCheckpoints( RunnableConfig config, LinkedList<Checkpoint> checkpoints, Tag releaseTag) throws Exception {
         var threadId = config.threadId().orElse( THREAD_ID_DEFAULT );
 
+        flush();
+
+        writeLock.lock();
+        try {
+            threadUUIDs.remove( threadId );
+        }
+        finally {
+            writeLock.unlock();
+        }
+
         var selectThreadSql = """
                SELECT thread_id FROM LG4JThread
                WHERE thread_name = ? AND is_released = FALSE
@@ -391,6 +1022,222 @@ public class PostgresSaver extends MemorySaver {
 
     }
 
+    /**
+     * Deletes, in a single transaction, the released (or not released) threads whose last checkpoint was saved
+     * before the given instant, with their checkpoints.
+     * Evicting the deleted threads from memory requires to hold both the saver locks.
+     */
+    private Reclaimed deleteThreads( boolean released, Instant savedBefore, int limit, boolean evict ) throws SQLException {
+        var selectThreadsSql = """
+                SELECT t.thread_id, t.thread_name
+                FROM LG4JThread t
+                WHERE t.is_released = ?
+                  AND NOT EXISTS (
+                    SELECT 1 FROM LG4JCheckpoint c
+                    WHERE c.thread_id = t.thread_id AND c.saved_at >= ? )
+                LIMIT ?
+                FOR UPDATE SKIP LOCKED
+                """;
+        var deleteCheckpointsSql = """
+                DELETE FROM LG4JCheckpoint WHERE thread_id = ANY(?)
+                """;
+        var deleteThreadsSql = """
+                DELETE FROM LG4JThread WHERE thread_id = ANY(?)
+                """;
+
+        var threadUUIDsToDelete = new ArrayList<UUID>();
+        var threadNames = new ArrayList<String>();
+
+        Connection conn = null;
+        try( Connection ignored = conn = getConnection() ) {
+            conn.setAutoCommit(false); // Start transaction
+
+            log.trace( "Executing select expired threads:\n---\n{}---", selectThreadsSql);
+            try( PreparedStatement ps = conn.prepareStatement(selectThreadsSql) ) {
+                var field = 0;
+                ps.setBoolean(++field, released);
+                ps.setTimestamp(++field, Timestamp.from(savedBefore));
+                ps.setInt(++field, limit);
+                try( ResultSet rs = ps.executeQuery() ) {
+                    while( rs.next() ) {
+                        threadUUIDsToDelete.add( rs.getObject("thread_id", UUID.class) );
+                        threadNames.add( rs.getString("thread_name") );
+                    }
+                }
+            }
+
+            if( threadUUIDsToDelete.isEmpty() ) {
+                conn.commit();
+                return Reclaimed.NONE;
+            }
+
+            var ids = conn.createArrayOf("uuid", threadUUIDsToDelete.toArray());
+            int checkpoints;
+            try( PreparedStatement ps = conn.prepareStatement(deleteCheckpointsSql) ) {
+                ps.setArray(1, ids);
+                checkpoints = ps.executeUpdate();
+            }
+            int threads;
+            try( PreparedStatement ps = conn.prepareStatement(deleteThreadsSql) ) {
+                ps.setArray(1, ids);
+                threads = ps.executeUpdate();
+            }
+
+            conn.commit();
+
+            if( evict ) {
+                for( var threadName : threadNames ) {
+                    threadUUIDs.remove( threadName );
+                    remove( threadName );
+                }
+            }
+
+            log.debug("{} {} thread(s) deleted with {} checkpoint(s).", threads, released ? "released" : "idle", checkpoints);
+            return new Reclaimed( threads, checkpoints );
+
+        } catch( SQLException e ) {
+            log.error("Error deleting threads {}", threadNames, e);
+            rollback( conn, threadNames.stream() );
+            throw e;
+        }
+    }
+
+    @Override
+    public Reclaimed deleteReleasedThreads( Instant savedBefore, int limit ) throws Exception {
+        // released threads are no longer in memory
+        return deleteThreads( true, savedBefore, limit, false );
+    }
+
+    @Override
+    public Reclaimed deleteIdleThreads( Instant savedBefore, int limit ) throws Exception {
+        return locked( () -> {
+            flush();
+            writeLock.lock();
+            try {
+                return deleteThreads( false, savedBefore, limit, true );
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Deletes the checkpoints of the active threads exceeding the most recent {@code keepLast} ones.
+     * For each thread the sequence of the first checkpoint to delete is found by the index on
+     * thread id and sequence, without ranking the whole table, and the threads are visited by id.
+     * The deletes run outside the saver lock, that is held only to evict the trimmed threads.
+     */
+    @Override
+    public Reclaimed deleteOldCheckpoints( int keepLast, int limit ) throws Exception {
+        var selectThreadsSql = """
+                SELECT t.thread_id, t.thread_name, cutoff.checkpoint_seq
+                FROM LG4JThread t
+                CROSS JOIN LATERAL (
+                    SELECT c.checkpoint_seq
+                    FROM LG4JCheckpoint c
+                    WHERE c.thread_id = t.thread_id
+                    ORDER BY c.checkpoint_seq DESC
+                    OFFSET ? LIMIT 1
+                ) cutoff
+                WHERE t.is_released = FALSE AND t.thread_id > ?
+                ORDER BY t.thread_id
+                LIMIT ?
+                """;
+        var deleteCheckpointsSql = """
+                DELETE FROM LG4JCheckpoint
+                WHERE checkpoint_id IN (
+                    SELECT checkpoint_id
+                    FROM LG4JCheckpoint
+                    WHERE thread_id = ? AND checkpoint_seq <= ?
+                    ORDER BY checkpoint_seq
+                    LIMIT ? )
+                """;
+
+        // the queued checkpoints are counted among the ones to keep
+        flush();
+
+        var threadNames = new ArrayList<String>();
+        var checkpoints = 0;
+        var after = new UUID( 0L, 0L ); // the nil uuid precedes the random thread ids
+
+        try( Connection conn = getConnection();
+             PreparedStatement selectThreads = conn.prepareStatement(selectThreadsSql);
+             PreparedStatement deleteCheckpoints = conn.prepareStatement(deleteCheckpointsSql) ) {
+
+            log.trace( "Executing select threads to trim:\n---\n{}---", selectThreadsSql);
+            var more = true;
+            while( more && checkpoints < limit ) {
+                var field = 0;
+                selectThreads.setInt(++field, keepLast);
+                selectThreads.setObject(++field, after, Types.OTHER);
+                // each selected thread has at least one checkpoint to delete
+                selectThreads.setInt(++field, limit - checkpoints);
+
+                var cutoffs = new LinkedHashMap<UUID,Long>();
+                var names = new HashMap<UUID,String>();
+                try( ResultSet rs = selectThreads.executeQuery() ) {
+                    while( rs.next() ) {
+                        var threadUUID = rs.getObject("thread_id", UUID.class);
+                        cutoffs.put( threadUUID, rs.getLong("checkpoint_seq") );
+                        names.put( threadUUID, rs.getString("thread_name") );
+                        after = threadUUID;
+                    }
+                }
+                more = cutoffs.size() == limit - checkpoints;
+
+                for( var cutoff : cutoffs.entrySet() ) {
+                    if( checkpoints >= limit ) {
+                        break;
+                    }
+                    field = 0;
+                    deleteCheckpoints.setObject(++field, cutoff.getKey(), Types.OTHER);
+                    deleteCheckpoints.setLong(++field, cutoff.getValue());
+                    deleteCheckpoints.setInt(++field, limit - checkpoints);
+                    var deleted = deleteCheckpoints.executeUpdate();
+                    if( deleted > 0 ) {
+                        checkpoints += deleted;
+                        threadNames.add( names.get(cutoff.getKey()) );
+                    }
+                }
+            }
+        }
+        catch( SQLException e ) {
+            log.error("Error deleting old checkpoints of threads {}", threadNames, e);
+            throw e;
+        }
+        finally {
+            if( !threadNames.isEmpty() ) {
+                // trimmed threads are reloaded on next access
+                locked( () -> {
+                    threadNames.forEach( this::remove );
+                    return null;
+                });
+            }
+        }
+
+        if( checkpoints == 0 ) {
+            return Reclaimed.NONE;
+        }
+        log.debug("{} old checkpoint(s) deleted in {} thread(s).", checkpoints, threadNames.size());
+        return new Reclaimed( 0, checkpoints );
+    }
+
+    /**
+     * Selects the threads by their last checkpoint, ordered by the internal thread UUID that is also the cursor.
+     * The candidate checkpoints are selected by the indexes on node id, next node id and saved at,
+     * then a checkpoint is retained only if no later one exists in its thread.
+     * The queued checkpoints are written before querying.
+     */
+    @Override
+    public Page<ThreadInfo> threads( ThreadQuery query ) throws Exception {
+        requireNonNull( query, "query cannot be null" );
+        flush();
+
+        try( Connection conn = getConnection() ) {
+            return THREADS_QUERY.execute( conn, query );
+        }
+    }
+
     /**
      * Datasource connection
      * Creates the vector extension and add the vector type if it does not exist.
@@ -412,6 +1259,13 @@ public class PostgresSaver extends MemorySaver {
         private String database;
         private boolean createTables;
         private boolean dropTablesFirst;
+        private StateStorage stateStorage;
+        private StateCompression compression;
+        private boolean lazyLoading = false;
+        private int pageSize = 50;
+        private int maxCachedCheckpoints = 10;
+        private int maxCachedThreads = 1000;
+        private int batchSize = 1;
         private DataSource datasource;
 
         public <State extends AgentState> Builder stateSerializer(StateSerializer<State> stateSerializer) {
@@ -454,6 +1308,107 @@ public class PostgresSaver extends MemorySaver {
             return this;
         }
 
+        /**
+         * Sets the column type used to store the serialized state.
+         * It must match the type of the existing table, if any.
+         * By default the type of the existing table is kept, otherwise the table is created with
+         * {@link StateStorage#JSONB} if the content type of the state serializer is JSON
+         * (e.g. {@code application/json}), with {@link StateStorage#BYTEA} for the binary serializers.
+         *
+         * @param stateStorage the state storage
+         * @return this builder
+         */
+        public Builder stateStorage(StateStorage stateStorage) {
+            this.stateStorage = stateStorage;
+            return this;
+        }
+
+        /**
+         * Enables the deflate compression of the serialized state (default false).
+         * It is a shortcut for {@code compression(StateCompression.of(CompressionCodec.DEFLATE))}.
+         *
+         * @param compressState true to enable compression
+         * @return this builder
+         */
+        public Builder compressState(boolean compressState) {
+            this.compression = ( compressState ) ? StateCompression.of(CompressionCodec.DEFLATE) : null;
+            return this;
+        }
+
+        /**
+         * Sets the compression applied to the serialized state (default none).
+         * States stored compressed or not can be read regardless of this option.
+         *
+         * @param compression the compression
+         * @return this builder
+         */
+        public Builder compression(StateCompression compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Enables the lazy loading of checkpoints (default false).
+         * When enabled only the most recent checkpoints of a thread are kept in memory,
+         * the other ones are fetched from database on demand.
+         *
+         * @param lazyLoading true to enable lazy loading
+         * @return this builder
+         */
+        public Builder lazyLoading(boolean lazyLoading) {
+            this.lazyLoading = lazyLoading;
+            return this;
+        }
+
+        /**
+         * Sets the number of checkpoints fetched for each page of history in lazy loading mode (default 50).
+         *
+         * @param pageSize the page size
+         * @return this builder
+         */
+        public Builder pageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Sets the max number of most recent checkpoints of a thread kept in memory in lazy loading mode (default 10).
+         *
+         * @param maxCachedCheckpoints the max number of cached checkpoints
+         * @return this builder
+         */
+        public Builder maxCachedCheckpoints(int maxCachedCheckpoints) {
+            this.maxCachedCheckpoints = maxCachedCheckpoints;
+            return this;
+        }
+
+        /**
+         * Sets the max number of thread ids kept in memory to avoid resolving them for each inserted checkpoint (default 1000).
+         *
+         * @param maxCachedThreads the max number of cached thread ids
+         * @return this builder
+         */
+        public Builder maxCachedThreads(int maxCachedThreads) {
+            this.maxCachedThreads = maxCachedThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of inserted checkpoints queued before writing them in a single JDBC batch (default 1).
+         * With a value greater than 1 the checkpoints are written asynchronously respect the graph execution,
+         * queued checkpoints are written when the batch is full, before any read from database,
+         * on thread release and invoking {@link PostgresSaver#flush()} or {@link PostgresSaver#close()}.
+         * If the write of a batch fails its checkpoints are discarded and their threads are loaded again
+         * from the database, the error is thrown to the caller that triggered the write.
+         *
+         * @param batchSize the batch size
+         * @return this builder
+         */
+        public Builder batchSize(int batchSize) {
+            this.batchSize = batchSize;
+            return this;
+        }
+
         private String requireNotBlank( String value, String name ) {
             if( requireNonNull(value, format("'%s' cannot be null", name) ).isBlank() ) {
                 throw new IllegalArgumentException(format("'%s' cannot be blank", name));
@@ -461,20 +1416,61 @@ public class PostgresSaver extends MemorySaver {
             return value;
         }
 
+        private static boolean isJson( String contentType ) {
+            return contentType.equals( "application/json" ) || contentType.endsWith( "+json" );
+        }
+
+        /**
+         * @return the storage of the existing table, otherwise the storage matching the content type of the serializer
+         */
+        private StateStorage defaultStateStorage() throws SQLException {
+            if( !dropTablesFirst ) {
+                try( Connection connection = datasource.getConnection();
+                     Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery( SELECT_STATE_DATA_TYPE ) ) {
+                    if( rs.next() ) {
+                        var columnType = rs.getString(1);
+                        for( var storage : StateStorage.values() ) {
+                            if( storage.columnType.equalsIgnoreCase( columnType ) ) {
+                                return storage;
+                            }
+                        }
+                    }
+                }
+            }
+            return isJson( stateSerializer.contentType() ) ? StateStorage.JSONB : StateStorage.BYTEA;
+        }
+
         public PostgresSaver build() throws SQLException {
             requireNonNull( stateSerializer, "stateSerializer cannot be null");
             if( port <=0 ) {
                 throw new IllegalArgumentException("port must be greater than 0");
             }
+            if( pageSize <= 0 ) {
+                throw new IllegalArgumentException("pageSize must be greater than 0");
+            }
+            if( maxCachedCheckpoints <= 0 ) {
+                throw new IllegalArgumentException("maxCachedCheckpoints must be greater than 0");
+            }
+            if( maxCachedThreads <= 0 ) {
+                throw new IllegalArgumentException("maxCachedThreads must be greater than 0");
+            }
+            if( batchSize <= 0 ) {
+                throw new IllegalArgumentException("batchSize must be greater than 0");
+            }
             var ds = new PGSimpleDataSource();
             ds.setDatabaseName( requireNotBlank(database, "database"));
             ds.setUser(requireNotBlank(user, "user"));
             ds.setPassword(requireNonNull(password, "password cannot be null"));
             ds.setPortNumbers( new int[] {port} );
             ds.setServerNames( new String[] { requireNotBlank(host, "host") } );
+            ds.setReWriteBatchedInserts( true ); // rewrite batched inserts as multi-row inserts
 
             datasource = ds;
             createTables = createTables || dropTablesFirst;
+            if( stateStorage == null ) {
+                stateStorage = defaultStateStorage();
+            }
 
             return new PostgresSaver( this );
         }
@@ -14,7 +14,13 @@ import org.testcontainers.containers.PostgreSQLContainer;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.logging.LogManager;
 
 import static org.bsc.langgraph4j.StateGraph.END;
@@ -192,4 +198,318 @@ public class PostgresSaverTest {
 
     }
 
+    @Test
+    public void testCheckpointWithLazyLoading() throws Exception {
+        var saver = buildPostgresSaver()
+                        .dropTablesFirst(true)
+                        .build();
+
+        NodeAction<AgentState> agent_1 = state -> {
+            log.info( "agent_1");
+            return Map.of("agent_1:prop1", "agent_1:test");
+        };
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async( agent_1 ))
+                .addEdge( START,"agent_1")
+                .addEdge( "agent_1",  END)
+                ;
+
+        var runnableConfig = RunnableConfig.builder().threadId("lazy").build();
+        var workflow = graph.compile( CompileConfig.builder()
+                                        .checkpointSaver(saver)
+                                        .build() );
+
+        for( int i = 0; i < 3; ++i ) {
+            assertTrue( workflow.invoke( Map.of( "input", "test" + i), runnableConfig ).isPresent() );
+        }
+
+        var fullHistory = List.copyOf(workflow.getStateHistory( runnableConfig ));
+        assertEquals( 6, fullHistory.size() );
+
+        // create a new lazy saver (reset cache)
+        saver = buildPostgresSaver()
+                    .lazyLoading(true)
+                    .maxCachedCheckpoints(1)
+                    .pageSize(4)
+                    .build();
+
+        workflow = graph.compile( CompileConfig.builder()
+                                    .checkpointSaver(saver)
+                                    .build() );
+
+        var lastSnapshot = workflow.stateOf( runnableConfig );
+        assertTrue( lastSnapshot.isPresent() );
+        assertEquals( fullHistory.get(0).config().checkPointId(), lastSnapshot.get().config().checkPointId() );
+
+        // point lookup of a checkpoint not cached
+        var oldestConfig = RunnableConfig.builder(runnableConfig)
+                .checkPointId( fullHistory.get(5).config().checkPointId().orElseThrow() )
+                .build();
+        var oldestSnapshot = workflow.stateOf( oldestConfig );
+        assertTrue( oldestSnapshot.isPresent() );
+        assertEquals( START, oldestSnapshot.get().node() );
+
+        // paged history
+        var lazyHistory = List.copyOf(workflow.getStateHistory( runnableConfig ));
+        assertEquals( fullHistory.size(), lazyHistory.size() );
+        for( int i = 0; i < fullHistory.size(); ++i ) {
+            assertEquals( fullHistory.get(i).config().checkPointId(), lazyHistory.get(i).config().checkPointId() );
+        }
+
+        saver.release( runnableConfig );
+    }
+
+    @Test
+    public void testCheckpointWithBatchInserts() throws Exception {
+        var saver = buildPostgresSaver()
+                        .dropTablesFirst(true)
+                        .batchSize(4)
+                        .build();
+
+        NodeAction<AgentState> agent_1 = state -> {
+            log.info( "agent_1");
+            return Map.of("agent_1:prop1", "agent_1:test");
+        };
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async( agent_1 ))
+                .addEdge( START,"agent_1")
+                .addEdge( "agent_1",  END)
+                ;
+
+        var runnableConfig = RunnableConfig.builder().threadId("batch").build();
+        var workflow = graph.compile( CompileConfig.builder()
+                                        .checkpointSaver(saver)
+                                        .build() );
+
+        // 3 invocations produce 6 checkpoints: one batch written and two checkpoints queued
+        for( int i = 0; i < 3; ++i ) {
+            assertTrue( workflow.invoke( Map.of( "input", "test" + i), runnableConfig ).isPresent() );
+        }
+
+        saver.flush();
+
+        // create a new saver (reset cache)
+        var reloadedSaver = buildPostgresSaver().build();
+
+        var history = reloadedSaver.list( runnableConfig );
+        assertEquals( 6, history.size() );
+        // the checkpoints of a batch share the transaction, the order is given by the insertion sequence
+        assertEquals( saver.list( runnableConfig ).stream().map(Checkpoint::getId).toList(),
+                      history.stream().map(Checkpoint::getId).toList() );
+
+        reloadedSaver.release( runnableConfig );
+    }
+
+    @Test
+    public void testCheckpointTree() throws Exception {
+        var saver = buildPostgresSaver()
+                        .dropTablesFirst(true)
+                        .build();
+
+        NodeAction<AgentState> agent_1 = state -> Map.of("agent_1:prop1", "agent_1:test");
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async( agent_1 ))
+                .addEdge( START,"agent_1")
+                .addEdge( "agent_1",  END)
+                ;
+
+        var runnableConfig = RunnableConfig.builder().threadId("tree").build();
+        var workflow = graph.compile( CompileConfig.builder()
+                                        .checkpointSaver(saver)
+                                        .build() );
+
+        workflow.invoke( Map.of( "input", "test"), runnableConfig );
+
+        var history = List.copyOf( saver.list( runnableConfig ) );
+        assertEquals( 2, history.size() );
+        var root = history.get(1);
+        assertTrue( root.getParentId().isEmpty() );
+
+        var rootConfig = runnableConfig.withCheckPointId( root.getId() );
+        var forkConfig = workflow.forkState( rootConfig, Map.of( "input", "fork"), null );
+
+        // a new saver (reset cache) queries the tree in database
+        var reloadedSaver = buildPostgresSaver().build();
+
+        var children = reloadedSaver.children( rootConfig );
+        assertEquals( 2, children.size() );
+        assertEquals( forkConfig.checkPointId().orElseThrow(), children.get(0).getId() );
+        assertEquals( history.get(0).getId(), children.get(1).getId() );
+
+        var ancestors = reloadedSaver.ancestors( forkConfig );
+        assertEquals( 1, ancestors.size() );
+        assertEquals( root.getId(), ancestors.get(0).getId() );
+
+        // the root is updated in place: its children are linked to the replacement, that keeps its position
+        var updatedConfig = workflow.updateState( rootConfig, Map.of( "input", "update") );
+        var updatedChildren = buildPostgresSaver().build().children( updatedConfig );
+        assertEquals( List.of( forkConfig.checkPointId().orElseThrow(), history.get(0).getId() ),
+                updatedChildren.stream().map(Checkpoint::getId).toList() );
+        var reloadedHistory = List.copyOf( buildPostgresSaver().build().list( runnableConfig ) );
+        assertEquals( updatedConfig.checkPointId().orElseThrow(), reloadedHistory.get( reloadedHistory.size() - 1 ).getId() );
+
+        reloadedSaver.release( runnableConfig );
+    }
+
+    @Test
+    public void testCheckpointRetention() throws Exception {
+        var saver = buildPostgresSaver()
+                        .dropTablesFirst(true)
+                        .build();
+
+        var activeConfig = RunnableConfig.builder().threadId("active").build();
+        var releasedConfig = RunnableConfig.builder().threadId("released").build();
+
+        for( int i = 0; i < 3; ++i ) {
+            saver.put( activeConfig, Checkpoint.builder()
+                    .nodeId( "node" + i )
+                    .nextNodeId( "node" + (i + 1) )
+                    .state( Map.of( "step", i ) )
+                    .build() );
+        }
+        saver.put( releasedConfig, Checkpoint.builder()
+                .nodeId( "node1" )
+                .nextNodeId( "node2" )
+                .state( Map.of() )
+                .build() );
+        saver.release( releasedConfig );
+
+        var sweeper = CheckpointSweeper.builder()
+                .retention( saver )
+                .policy( RetentionPolicy.builder()
+                        .releasedThreadsTtl( Duration.ofMinutes(30) )
+                        .keepLastCheckpoints( 1 )
+                        .batchSize( 1 )
+                        .build() )
+                .clock( Clock.offset( Clock.systemUTC(), Duration.ofHours(1) ) )
+                .build();
+
+        var reclaimed = sweeper.sweep();
+        assertEquals( 1, reclaimed.threads() );
+        assertEquals( 3, reclaimed.checkpoints() );
+        assertEquals( 4, sweeper.metrics().rowsReclaimed() );
+
+        var history = saver.list( activeConfig );
+        assertEquals( 1, history.size() );
+        assertEquals( "node2", history.iterator().next().getNodeId() );
+
+        // a new saver (reset cache) reads only the retained checkpoint
+        assertEquals( 1, buildPostgresSaver().build().list( activeConfig ).size() );
+
+        assertEquals( CheckpointRetention.Reclaimed.NONE, sweeper.sweep() );
+        sweeper.close();
+    }
+
+    @Test
+    public void testThreadsQuery() throws Exception {
+        var saver = buildPostgresSaver()
+                        .dropTablesFirst(true)
+                        .build();
+
+        for( int i = 0; i < 5; ++i ) {
+            var config = RunnableConfig.builder().threadId("thread" + i).build();
+            saver.put( config, Checkpoint.builder()
+                    .nodeId( "agent" )
+                    .nextNodeId( "tools" )
+                    .state( Map.of() )
+                    .build() );
+            if( i % 2 == 0 ) {
+                // last checkpoint interrupted before "approval"
+                saver.put( config, Checkpoint.builder()
+                        .nodeId( "tools" )
+                        .nextNodeId( "approval" )
+                        .state( Map.of() )
+                        .build() );
+            }
+        }
+        saver.release( RunnableConfig.builder().threadId("thread4").build() );
+
+        var interrupted = saver.threads( ThreadQuery.builder()
+                .nextNodeId( "approval" )
+                .released( false )
+                .build() );
+        assertEquals( List.of( "thread0", "thread2" ),
+                interrupted.items().stream().map( CheckpointQuery.ThreadInfo::threadId ).sorted().toList() );
+        assertTrue( interrupted.nextCursor().isEmpty() );
+
+        // cursor pagination over all the threads
+        var threadIds = new ArrayList<String>();
+        Optional<String> cursor = Optional.empty();
+        do {
+            var page = saver.threads( ThreadQuery.builder()
+                    .after( cursor.orElse(null) )
+                    .limit( 2 )
+                    .build() );
+            assertTrue( page.items().size() <= 2 );
+            page.items().forEach( thread -> threadIds.add( thread.threadId() ) );
+            cursor = page.nextCursor();
+        } while( cursor.isPresent() );
+        assertEquals( List.of( "thread0", "thread1", "thread2", "thread3", "thread4" ), threadIds.stream().sorted().toList() );
+
+        var released = saver.threads( ThreadQuery.builder().released( true ).build() );
+        assertEquals( 1, released.items().size() );
+        assertEquals( "thread4", released.items().get(0).threadId() );
+
+        var idle = saver.threads( ThreadQuery.builder()
+                .savedBefore( Instant.now().plus( Duration.ofHours(1) ) )
+                .nodeId( "agent" )
+                .build() );
+        assertEquals( 2, idle.items().size() );
+        assertTrue( saver.threads( ThreadQuery.builder()
+                .savedBefore( Instant.now().minus( Duration.ofHours(1) ) )
+                .build() ).items().isEmpty() );
+    }
+
+    @Test
+    public void testCheckpointWithByteaStorage() throws Exception {
+
+        NodeAction<AgentState> agent_1 = state -> {
+            log.info( "agent_1");
+            return Map.of("agent_1:prop1", "agent_1:test".repeat(100));
+        };
+
+        var graph = new StateGraph<>(AgentState::new)
+                .addNode("agent_1", node_async( agent_1 ))
+                .addEdge( START,"agent_1")
+                .addEdge( "agent_1",  END)
+                ;
+
+        var runnableConfig = RunnableConfig.builder().threadId("bytea").build();
+
+        for( var compressState : List.of( false, true ) ) {
+
+            var saver = buildPostgresSaver()
+                    .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                    .compressState(compressState)
+                    .dropTablesFirst(!compressState)
+                    .build();
+
+            var workflow = graph.compile( CompileConfig.builder()
+                    .checkpointSaver(saver)
+                    .build() );
+
+            assertTrue( workflow.invoke( Map.of( "input", "test1"), runnableConfig ).isPresent() );
+
+            // reload from database (reset cache)
+            var reloadedSaver = buildPostgresSaver()
+                    .stateStorage(PostgresSaver.StateStorage.BYTEA)
+                    .build();
+
+            var history = List.copyOf(reloadedSaver.list(runnableConfig));
+            assertEquals( compressState ? 4 : 2, history.size() );
+            assertEquals( "agent_1:test".repeat(100), history.get(0).getState().get("agent_1:prop1") );
+        }
+
+        // the state storage must match the existing table
+        assertThrows( IllegalStateException.class, () -> buildPostgresSaver()
+                .stateStorage(PostgresSaver.StateStorage.JSONB)
+                .build() );
+
+        // by default the storage of the existing table is kept
+        assertEquals( 4, buildPostgresSaver().build().list(runnableConfig).size() );
+    }
+
 }
@@ -1,5 +1,6 @@
 package org.bsc.langgraph4j.spring.ai.serializer.jackson;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.JacksonStateSerializer;
 import org.bsc.langgraph4j.serializer.plain_text.jackson.TypeMapper;
@@ -45,7 +46,15 @@ public class SpringAIJacksonStateSerializer<State extends AgentState>  extends J
     }
 
     public SpringAIJacksonStateSerializer(AgentStateFactory<State> stateFactory) {
-        super(stateFactory);
+        this(stateFactory, new JsonFactory());
+    }
+
+    /**
+     * @param stateFactory the state factory
+     * @param jsonFactory the Jackson factory of the serialization format, e.g. a {@code SmileFactory} for binary JSON
+     */
+    public SpringAIJacksonStateSerializer(AgentStateFactory<State> stateFactory, JsonFactory jsonFactory) {
+        super(stateFactory, jsonFactory);
 
         var module = new SimpleModule();
 
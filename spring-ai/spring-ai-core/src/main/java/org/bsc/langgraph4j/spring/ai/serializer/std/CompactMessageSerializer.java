@@ -0,0 +1,314 @@
+package org.bsc.langgraph4j.spring.ai.serializer.std;
+
+import org.bsc.langgraph4j.serializer.Serializer;
+import org.springframework.ai.chat.messages.*;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static java.lang.String.format;
+
+/**
+ * A compact, streaming {@link Message} serializer.
+ * <p>
+ * The messages are written field by field straight to the output, without going through
+ * intermediate object graphs:
+ * <ul>
+ *     <li>texts, ids, names and arguments are written as varint length-prefixed UTF-8</li>
+ *     <li>the tool calls and the tool responses are written inline, instead of as nested serialized objects</li>
+ *     <li>the metadata values of the common types (strings, numbers, booleans, message types, nested lists
+ *     and maps) are tagged, the other values are delegated to {@link ObjectOutput#writeObject(Object)}</li>
+ * </ul>
+ * The messages are tagged by a format version, so the messages written by {@link MessageSerializer}
+ * are still read. The opposite isn't true, so all the readers of the states must be upgraded before
+ * enabling this serializer.
+ *
+ * @see SpringAIStateSerializer#SpringAIStateSerializer(org.bsc.langgraph4j.state.AgentStateFactory, Serializer)
+ */
+public class CompactMessageSerializer implements Serializer<Message> {
+
+    /**
+     * The tag written in place of the message type, that identifies the compact format
+     */
+    static final String FORMAT_V1 = "spring-ai.compact.v1";
+
+    private static final int TYPE_USER = 0;
+    private static final int TYPE_ASSISTANT = 1;
+    private static final int TYPE_SYSTEM = 2;
+    private static final int TYPE_TOOL = 3;
+
+    private static final int VALUE_NULL = 0;
+    private static final int VALUE_STRING = 1;
+    private static final int VALUE_TRUE = 2;
+    private static final int VALUE_FALSE = 3;
+    private static final int VALUE_INT = 4;
+    private static final int VALUE_LONG = 5;
+    private static final int VALUE_DOUBLE = 6;
+    private static final int VALUE_MESSAGE_TYPE = 7;
+    private static final int VALUE_LIST = 8;
+    private static final int VALUE_MAP = 9;
+    private static final int VALUE_OBJECT = 10;
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+
+    private final MessageSerializer legacy = new MessageSerializer();
+
+    @Override
+    public void write(Message object, ObjectOutput out) throws IOException {
+        out.writeObject( FORMAT_V1 );
+
+        switch( object.getMessageType() ) {
+            case USER -> {
+                var message = (UserMessage)object;
+                Objects.requireNonNull( message.getText(), "text cannot be null" );
+                writeVarInt( TYPE_USER, out );
+                writeString( message.getText(), out );
+                writeMetadata( message.getMetadata(), out );
+            }
+            case ASSISTANT -> {
+                var message = (AssistantMessage)object;
+                writeVarInt( TYPE_ASSISTANT, out );
+                writeString( message.getText(), out );
+                writeMetadata( message.getMetadata(), out );
+                var toolCalls = message.hasToolCalls() ? message.getToolCalls() : List.<AssistantMessage.ToolCall>of();
+                writeVarInt( toolCalls.size(), out );
+                for( var toolCall : toolCalls ) {
+                    writeString( toolCall.id(), out );
+                    writeString( toolCall.type(), out );
+                    writeString( toolCall.name(), out );
+                    writeString( toolCall.arguments(), out );
+                }
+            }
+            case SYSTEM -> {
+                var message = (SystemMessage)object;
+                writeVarInt( TYPE_SYSTEM, out );
+                writeString( message.getText(), out );
+                writeMetadata( message.getMetadata(), out );
+            }
+            case TOOL -> {
+                var message = (ToolResponseMessage)object;
+                writeVarInt( TYPE_TOOL, out );
+                var responses = message.getResponses();
+                writeVarInt( responses.size(), out );
+                for( var response : responses ) {
+                    writeString( response.id(), out );
+                    writeString( response.name(), out );
+                    writeString( response.responseData(), out );
+                }
+                writeMetadata( message.getMetadata(), out );
+            }
+            default -> throw new IllegalArgumentException( "Unsupported message type: " + object.getMessageType() );
+        }
+    }
+
+    @Override
+    public Message read(ObjectInput in) throws IOException, ClassNotFoundException {
+        var tag = in.readObject();
+        if( tag instanceof MessageType type ) {
+            return legacy.read( type, in );
+        }
+        if( !FORMAT_V1.equals( tag ) ) {
+            throw new StreamCorruptedException( format( "Unsupported message format: %s", tag ) );
+        }
+        int type = readVarInt( in );
+        switch( type ) {
+            case TYPE_USER: {
+                var text = readString( in );
+                return UserMessage.builder().text( text ).metadata( readMetadata( in ) ).build();
+            }
+            case TYPE_ASSISTANT: {
+                var text = readString( in );
+                var metadata = readMetadata( in );
+                int size = readVarInt( in );
+                var toolCalls = new ArrayList<AssistantMessage.ToolCall>( size );
+                for( int i = 0; i < size; ++i ) {
+                    toolCalls.add( new AssistantMessage.ToolCall(
+                            readString( in ),
+                            readString( in ),
+                            readString( in ),
+                            readString( in ) ) );
+                }
+                return new AssistantMessage( text, metadata, toolCalls );
+            }
+            case TYPE_SYSTEM: {
+                var text = readString( in );
+                return SystemMessage.builder().text( text ).metadata( readMetadata( in ) ).build();
+            }
+            case TYPE_TOOL: {
+                int size = readVarInt( in );
+                var responses = new ArrayList<ToolResponseMessage.ToolResponse>( size );
+                for( int i = 0; i < size; ++i ) {
+                    responses.add( new ToolResponseMessage.ToolResponse(
+                            readString( in ),
+                            readString( in ),
+                            readString( in ) ) );
+                }
+                return new ToolResponseMessage( responses, readMetadata( in ) );
+            }
+            default:
+                throw new StreamCorruptedException( format( "Unsupported message type: %d", type ) );
+        }
+    }
+
+    private static void writeMetadata( Map<String,Object> metadata, ObjectOutput out ) throws IOException {
+        if( metadata == null ) {
+            writeVarInt( 0, out );
+            return;
+        }
+        writeVarInt( metadata.size(), out );
+        for( var entry : metadata.entrySet() ) {
+            writeString( entry.getKey(), out );
+            writeValue( entry.getValue(), out );
+        }
+    }
+
+    private static Map<String,Object> readMetadata( ObjectInput in ) throws IOException, ClassNotFoundException {
+        int size = readVarInt( in );
+        var metadata = new HashMap<String,Object>( Math.max( 4, (int)( size / 0.75f ) + 1 ) );
+        for( int i = 0; i < size; ++i ) {
+            var key = readString( in );
+            metadata.put( key, readValue( in ) );
+        }
+        return metadata;
+    }
+
+    private static void writeValue( Object value, ObjectOutput out ) throws IOException {
+        if( value == null ) {
+            writeVarInt( VALUE_NULL, out );
+        }
+        else if( value instanceof String s ) {
+            writeVarInt( VALUE_STRING, out );
+            writeString( s, out );
+        }
+        else if( value instanceof Boolean b ) {
+            writeVarInt( b ? VALUE_TRUE : VALUE_FALSE, out );
+        }
+        else if( value instanceof Integer i ) {
+            writeVarInt( VALUE_INT, out );
+            out.writeInt( i );
+        }
+        else if( value instanceof Long l ) {
+            writeVarInt( VALUE_LONG, out );
+            out.writeLong( l );
+        }
+        else if( value instanceof Double d ) {
+            writeVarInt( VALUE_DOUBLE, out );
+            out.writeDouble( d );
+        }
+        else if( value instanceof MessageType type ) {
+            writeVarInt( VALUE_MESSAGE_TYPE, out );
+            writeVarInt( type.ordinal(), out );
+        }
+        else if( value instanceof List<?> list ) {
+            writeVarInt( VALUE_LIST, out );
+            writeVarInt( list.size(), out );
+            for( var element : list ) {
+                writeValue( element, out );
+            }
+        }
+        else if( value instanceof Map<?,?> map && map.keySet().stream().allMatch( String.class::isInstance ) ) {
+            writeVarInt( VALUE_MAP, out );
+            writeVarInt( map.size(), out );
+            for( var entry : map.entrySet() ) {
+                writeString( (String)entry.getKey(), out );
+                writeValue( entry.getValue(), out );
+            }
+        }
+        else {
+            writeVarInt( VALUE_OBJECT, out );
+            out.writeObject( value );
+        }
+    }
+
+    private static Object readValue( ObjectInput in ) throws IOException, ClassNotFoundException {
+        int tag = readVarInt( in );
+        switch( tag ) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                return readString( in );
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_INT:
+                return in.readInt();
+            case VALUE_LONG:
+                return in.readLong();
+            case VALUE_DOUBLE:
+                return in.readDouble();
+            case VALUE_MESSAGE_TYPE: {
+                int ordinal = readVarInt( in );
+                if( ordinal >= MESSAGE_TYPES.length ) {
+                    throw new StreamCorruptedException( format( "invalid message type %d", ordinal ) );
+                }
+                return MESSAGE_TYPES[ ordinal ];
+            }
+            case VALUE_LIST: {
+                int size = readVarInt( in );
+                var list = new ArrayList<Object>( size );
+                for( int i = 0; i < size; ++i ) {
+                    list.add( readValue( in ) );
+                }
+                return list;
+            }
+            case VALUE_MAP: {
+                int size = readVarInt( in );
+                var map = new LinkedHashMap<String,Object>();
+                for( int i = 0; i < size; ++i ) {
+                    var key = readString( in );
+                    map.put( key, readValue( in ) );
+                }
+                return map;
+            }
+            case VALUE_OBJECT:
+                return in.readObject();
+            default:
+                throw new StreamCorruptedException( format( "invalid metadata value tag %d", tag ) );
+        }
+    }
+
+    private static void writeString( String value, ObjectOutput out ) throws IOException {
+        if( value == null ) {
+            writeVarInt( 0, out );
+            return;
+        }
+        var bytes = value.getBytes( StandardCharsets.UTF_8 );
+        writeVarInt( bytes.length + 1, out );
+        out.write( bytes );
+    }
+
+    private static String readString( ObjectInput in ) throws IOException {
+        int size = readVarInt( in );
+        if( size == 0 ) {
+            return null;
+        }
+        var bytes = new byte[ size - 1 ];
+        in.readFully( bytes );
+        return new String( bytes, StandardCharsets.UTF_8 );
+    }
+
+    private static void writeVarInt( int value, ObjectOutput out ) throws IOException {
+        while( (value & ~0x7F) != 0 ) {
+            out.write( (value & 0x7F) | 0x80 );
+            value >>>= 7;
+        }
+        out.write( value );
+    }
+
+    private static int readVarInt( ObjectInput in ) throws IOException {
+        int result = 0;
+        for( int shift = 0; shift < 32; shift += 7 ) {
+            int b = in.readUnsignedByte();
+            result |= (b & 0x7F) << shift;
+            if( (b & 0x80) == 0 ) {
+                return result;
+            }
+        }
+        throw new StreamCorruptedException( "malformed varint" );
+    }
+}
@@ -31,6 +31,13 @@ public class MessageSerializer implements Serializer<Message> {
 
         MessageType type = (MessageType) in.readObject();
 
+        return read( type, in );
+    }
+
+    /**
+     * Reads the body of a message whose type has already been read
+     */
+    Message read(MessageType type, ObjectInput in) throws IOException, ClassNotFoundException {
        return  switch (type) {
             case ASSISTANT -> assistant.read(in);
             case USER -> user.read(in);
@@ -1,11 +1,14 @@
 package org.bsc.langgraph4j.spring.ai.serializer.std;
 
+import org.bsc.langgraph4j.serializer.Serializer;
 import org.bsc.langgraph4j.serializer.std.ObjectStreamStateSerializer;
 import org.bsc.langgraph4j.state.AgentState;
 import org.bsc.langgraph4j.state.AgentStateFactory;
 import org.springframework.ai.chat.messages.AssistantMessage;
 import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.messages.UserMessage;
 
 /**
  * This class is responsible for serializing and deserializing the state of an agent executor.
@@ -17,12 +20,43 @@ public class SpringAIStateSerializer<State extends AgentState> extends ObjectStr
      * Constructor that initializes the serializer with a supplier for creating new AgentExecutor.State instances and registers various serializers for different types.
      */
     public SpringAIStateSerializer(AgentStateFactory<State> stateFactory ) {
+        this( stateFactory, new MessageSerializer() );
+    }
+
+    /**
+     * Constructor that allows to choose the serializer of the messages, as {@link CompactMessageSerializer}.
+     * The messages have their own copiers on the {@link #stateCloner()}, that deep copy their mutable metadata,
+     * so the state copies don't require a serializer round trip.
+     *
+     * @param stateFactory the factory of the state
+     * @param messageSerializer the serializer of the messages
+     */
+    public SpringAIStateSerializer(AgentStateFactory<State> stateFactory, Serializer<Message> messageSerializer ) {
         super( stateFactory );
 
-        mapper().register(Message.class, new MessageSerializer());
+        mapper().register(Message.class, messageSerializer);
         mapper().register(AssistantMessage.ToolCall.class, new ToolCallSerializer());
         mapper().register(ToolResponseMessage.ToolResponse.class, new ToolResponseSerializer());
 
+        stateCloner()
+                .register(UserMessage.class, (message, context) -> UserMessage.builder()
+                        .text(message.getText())
+                        .metadata(context.copy(message.getMetadata()))
+                        .media(message.getMedia())
+                        .build())
+                .register(AssistantMessage.class, (message, context) -> new AssistantMessage(
+                        message.getText(),
+                        context.copy(message.getMetadata()),
+                        context.copy(message.getToolCalls()),
+                        message.getMedia()))
+                .register(SystemMessage.class, (message, context) -> SystemMessage.builder()
+                        .text(message.getText())
+                        .metadata(context.copy(message.getMetadata()))
+                        .build())
+                .register(ToolResponseMessage.class, (message, context) -> new ToolResponseMessage(
+                        context.copy(message.getResponses()),
+                        context.copy(message.getMetadata())));
+
     }
 
 
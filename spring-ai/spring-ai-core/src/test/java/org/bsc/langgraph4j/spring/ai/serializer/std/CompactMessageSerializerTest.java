@@ -0,0 +1,98 @@
+package org.bsc.langgraph4j.spring.ai.serializer.std;
+
+import org.bsc.langgraph4j.prebuilt.MessagesState;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactMessageSerializerTest {
+
+    public static class State extends MessagesState<Message> {
+        public State(Map<String, Object> initData) {
+            super(initData);
+        }
+    }
+
+    record Usage( int tokens ) implements Serializable {}
+
+    static List<Message> conversation( int turns ) {
+        var messages = new ArrayList<Message>();
+        messages.add( new SystemMessage( "You are a helpful assistant." ) );
+        for( int i = 0; i < turns; ++i ) {
+            var toolCall = new AssistantMessage.ToolCall( "call_" + i, "function", "search", "{\"query\":\"weather\"}" );
+            messages.add( UserMessage.builder().text( "question " + i ).metadata( Map.of( "turn", i ) ).build() );
+            messages.add( new AssistantMessage( "", Map.of( "model", "gpt", "finishReason", "TOOL_CALLS" ), List.of( toolCall ) ) );
+            messages.add( new ToolResponseMessage( List.of( new ToolResponseMessage.ToolResponse( "call_" + i, "search", "result " + i ) ),
+                    Map.of( "elapsed", 10L ) ) );
+            messages.add( new AssistantMessage( "answer " + i, Map.of( "score", 0.5, "cached", true ) ) );
+        }
+        return messages;
+    }
+
+    @Test
+    public void testMessagesAreCopied() throws Exception {
+        var serializer = new SpringAIStateSerializer<>( State::new );
+
+        var messages = conversation( 2 );
+        var data = Map.<String,Object>of( "messages", messages, "last", messages.get( messages.size() - 1 ) );
+
+        // the messages are copied with their metadata, without a serializer round trip
+        var copy = serializer.stateCloner().cloneData( data );
+        var copiedMessages = (List<?>)copy.get( "messages" );
+        assertNotSame( messages, copiedMessages );
+        assertEquals( messages, copiedMessages );
+        for( int i = 0; i < messages.size(); ++i ) {
+            assertNotSame( messages.get( i ), copiedMessages.get( i ) );
+        }
+        assertSame( copiedMessages.get( copiedMessages.size() - 1 ), copy.get( "last" ) );
+
+        // a change of the metadata doesn't affect the copy
+        messages.get( 1 ).getMetadata().put( "feedback", "positive" );
+        assertFalse( ((Message)copiedMessages.get( 1 )).getMetadata().containsKey( "feedback" ) );
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        var legacy = new SpringAIStateSerializer<>( State::new );
+        var compact = new SpringAIStateSerializer<>( State::new, new CompactMessageSerializer() );
+
+        var data = Map.<String,Object>of( "messages", conversation( 50 ) );
+
+        var compactBytes = compact.dataToBytes( data );
+        var result = compact.stateOf( compact.dataFromBytes( compactBytes ) );
+        assertEquals( data.get( "messages" ), result.messages() );
+
+        var legacyBytes = legacy.dataToBytes( data );
+        assertTrue( compactBytes.length < legacyBytes.length,
+                () -> String.format( "compact %d, legacy %d", compactBytes.length, legacyBytes.length ) );
+
+        // the messages written by the legacy serializer are still read
+        var fromLegacy = compact.stateOf( compact.dataFromBytes( legacyBytes ) );
+        assertEquals( data.get( "messages" ), fromLegacy.messages() );
+    }
+
+    @Test
+    public void testMetadataValues() throws Exception {
+        var compact = new SpringAIStateSerializer<>( State::new, new CompactMessageSerializer() );
+
+        var metadata = Map.<String,Object>of(
+                "nested", Map.of( "list", List.of( 1, "two", 3.0 ) ),
+                "usage", new Usage( 42 ),
+                "type", MessageType.USER );
+        var message = SystemMessage.builder().text( "system" ).metadata( metadata ).build();
+
+        var result = (SystemMessage)compact.cloneObject( Map.of( "messages", List.of( message ) ) ).messages().get(0);
+
+        assertEquals( "system", result.getText() );
+        assertEquals( metadata.get( "nested" ), result.getMetadata().get( "nested" ) );
+        assertEquals( new Usage( 42 ), result.getMetadata().get( "usage" ) );
+        assertSame( MessageType.USER, result.getMetadata().get( "type" ) );
+        assertSame( MessageType.SYSTEM, result.getMetadata().get( "messageType" ) );
+    }
+}